@@ -0,0 +1,35 @@
+package common;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * The ColumnFinder class traverses SQL expressions to collect every column they reference. It
+ * relies on ExpressionVisitorAdapter to walk into the operands of comparisons, conjunctions and
+ * arithmetic, and records each Column it reaches.
+ */
+public class ColumnFinder extends ExpressionVisitorAdapter {
+
+  private final List<Column> columns = new ArrayList<>();
+
+  /**
+   * Retrieves the columns found in the expressions, in the order they were visited.
+   *
+   * @return A List containing the referenced columns.
+   */
+  public List<Column> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Visits a Column expression and records it.
+   *
+   * @param column The Column expression to visit.
+   */
+  @Override
+  public void visit(Column column) {
+    columns.add(column);
+  }
+}
@@ -1,10 +1,13 @@
 // DBCatalog.java
 package common;
 
+import io.ZoneMap;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
@@ -12,14 +15,16 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
- * Class to contain information about database - names of tables, schema of each table and file
- * where each table is located. Uses singleton pattern.
+ * Class to contain information about database - names of tables, schema of each table, file where
+ * each table is located and the format that file is stored in. Uses singleton pattern.
  */
 public class DBCatalog {
   private final Logger logger = LogManager.getLogger();
 
   private final HashMap<String, ArrayList<Column>> tables;
   private final HashMap<String, String> aliases; // Alias to real table mapping
+  private final HashMap<String, TableFormat> formats; // Table to on-disk format mapping
+  private final HashMap<String, RowCount> rowCounts; // Table to cached tuple count mapping
   private static DBCatalog db;
 
   private String dbDirectory;
@@ -28,8 +33,13 @@ public class DBCatalog {
   private DBCatalog() {
     tables = new HashMap<>();
     aliases = new HashMap<>();
+    formats = new HashMap<>();
+    rowCounts = new HashMap<>();
   }
 
+  /** A tuple count, valid as long as the file it was read from keeps its size and timestamp. */
+  private record RowCount(File file, long length, long lastModified, long rows) {}
+
   /**
    * Instance getter for singleton pattern, lazy initialization on first invocation
    *
@@ -60,6 +70,7 @@ public class DBCatalog {
           cols.add(new Column(new Table(null, tableName), tokens[i]));
         }
         tables.put(tableName, cols);
+        formats.put(tableName, TableFormat.detect(getFileForTable(tableName)));
       }
       br.close();
     } catch (Exception e) {
@@ -77,6 +88,37 @@ public class DBCatalog {
     return new File(dbDirectory + "/data/" + resolveAlias(tableName));
   }
 
+  /**
+   * Gets path to file where a particular column of a table in the columnar format is stored
+   *
+   * @param tableName table name
+   * @param columnName column name
+   * @return file where the column is found on disk
+   */
+  public File getFileForColumn(String tableName, String columnName) {
+    return new File(getFileForTable(tableName), columnName);
+  }
+
+  /**
+   * Gets the format a particular table is stored in.
+   *
+   * @param tableName the name of the table or alias.
+   * @return the format of the table file; TEXT if the table is unknown.
+   */
+  public TableFormat getTableFormat(String tableName) {
+    return formats.getOrDefault(resolveAlias(tableName), TableFormat.TEXT);
+  }
+
+  /**
+   * Records the format a particular table is stored in, overriding the detected format.
+   *
+   * @param tableName the name of the table.
+   * @param format the format of the table file.
+   */
+  public void setTableFormat(String tableName, TableFormat format) {
+    formats.put(resolveAlias(tableName), format);
+  }
+
   /**
    * Adds an alias for a table.
    *
@@ -117,4 +159,86 @@ public class DBCatalog {
     }
     return aliasedSchema;
   }
+
+  /**
+   * Gets the number of tuples in a table, for planning. The count is exact for the paged formats,
+   * and estimated from a sample of the lines for large text tables. It is cached until the file it
+   * was read from changes: the table file, or the file of the first column of a columnar table.
+   *
+   * @param tableName the name of the table or alias.
+   * @return the number of tuples, or -1 if the table file cannot be read.
+   */
+  public long getRowCount(String tableName) {
+    String resolvedName = resolveAlias(tableName);
+    TableFormat format = getTableFormat(resolvedName);
+    File file = getFileForTable(resolvedName);
+    ArrayList<Column> schema = tables.get(resolvedName);
+    if (format == TableFormat.COLUMNAR && schema != null && !schema.isEmpty()) {
+      // The directory keeps its size and timestamp when its column files are rewritten
+      file = getFileForColumn(resolvedName, schema.get(0).getColumnName());
+    }
+    RowCount cached = rowCounts.get(resolvedName);
+    if (cached != null
+        && cached.file().equals(file)
+        && cached.length() == file.length()
+        && cached.lastModified() == file.lastModified()) {
+      return cached.rows();
+    }
+    try {
+      long rows = format.estimateTuples(file);
+      rowCounts.put(resolvedName, new RowCount(file, file.length(), file.lastModified(), rows));
+      return rows;
+    } catch (IOException e) {
+      logger.error(e.getMessage());
+      return -1;
+    }
+  }
+
+  /**
+   * Gets the statistics of a table: its number of tuples, and the range of each column as recorded
+   * by its zone maps.
+   *
+   * @param tableName the name of the table or alias.
+   * @return the statistics, with columns in schema order, or null if the number of tuples cannot be
+   *     read.
+   */
+  public TableStatistics getStatistics(String tableName) {
+    long rows = getRowCount(tableName);
+    if (rows < 0) {
+      return null;
+    }
+    ArrayList<Column> schema = getSchema(tableName);
+    long[] mins = new long[schema.size()];
+    long[] maxs = new long[schema.size()];
+    Arrays.fill(mins, Long.MIN_VALUE);
+    Arrays.fill(maxs, Long.MAX_VALUE);
+    TableFormat format = getTableFormat(tableName);
+    if (format == TableFormat.COLUMNAR) {
+      for (int c = 0; c < schema.size(); c++) {
+        File columnFile = getFileForColumn(tableName, schema.get(c).getColumnName());
+        readRange(ZoneMap.load(columnFile), 0, c, mins, maxs);
+      }
+    } else if (format != TableFormat.TEXT) {
+      ZoneMap map = ZoneMap.load(getFileForTable(tableName));
+      for (int c = 0; c < schema.size(); c++) {
+        readRange(map, c, c, mins, maxs);
+      }
+    }
+    return new TableStatistics(rows, mins, maxs);
+  }
+
+  /** Records the range of a column over all pages of a zone map, if there is one. */
+  private static void readRange(ZoneMap map, int column, int index, long[] mins, long[] maxs) {
+    if (map == null || map.getPageCount() == 0) {
+      return;
+    }
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (int page = 0; page < map.getPageCount(); page++) {
+      min = Math.min(min, map.getMin(page, column));
+      max = Math.max(max, map.getMax(page, column));
+    }
+    mins[index] = min;
+    maxs[index] = max;
+  }
 }
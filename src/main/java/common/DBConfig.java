@@ -0,0 +1,236 @@
+package common;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Class to contain the tunable settings of the database, read from config.properties in the
+ * working directory. Settings that are missing from the file fall back to defaults. Uses singleton
+ * pattern.
+ */
+public class DBConfig {
+  private final Logger logger = LogManager.getLogger();
+
+  private static final String CONFIG_FILE = "config.properties";
+  private static DBConfig config;
+
+  private final Properties properties;
+
+  /** Reads the configuration file, if there is one. */
+  private DBConfig() {
+    properties = new Properties();
+    try (InputStream in = new FileInputStream(CONFIG_FILE)) {
+      properties.load(in);
+    } catch (IOException e) {
+      logger.info("No " + CONFIG_FILE + " found, using default settings.");
+    }
+  }
+
+  /**
+   * Instance getter for singleton pattern, lazy initialization on first invocation
+   *
+   * @return unique DB config instance
+   */
+  public static DBConfig getInstance() {
+    if (config == null) {
+      config = new DBConfig();
+    }
+    return config;
+  }
+
+  /**
+   * Overrides a setting for the rest of the run.
+   *
+   * @param key the setting name.
+   * @param value the new value, or null to remove the setting so its default applies.
+   */
+  public void set(String key, String value) {
+    if (value == null) {
+      properties.remove(key);
+    } else {
+      properties.setProperty(key, value);
+    }
+  }
+
+  /**
+   * Gets a setting as written in config.properties or last overridden, without a default.
+   *
+   * @param key the setting name.
+   * @return the setting value, or null if the setting is missing.
+   */
+  public String get(String key) {
+    return properties.getProperty(key);
+  }
+
+  /**
+   * Gets a setting as a string.
+   *
+   * @param key the setting name.
+   * @param defaultValue value to use if the setting is missing.
+   * @return the setting value.
+   */
+  public String getString(String key, String defaultValue) {
+    return properties.getProperty(key, defaultValue).trim();
+  }
+
+  /**
+   * Gets a setting as an int.
+   *
+   * @param key the setting name.
+   * @param defaultValue value to use if the setting is missing or malformed.
+   * @return the setting value.
+   */
+  public int getInt(String key, int defaultValue) {
+    try {
+      return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
+    } catch (NumberFormatException e) {
+      logger.error("Invalid value for " + key + ", using " + defaultValue);
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Whether scans should map table files into memory instead of reading them through a reader.
+   *
+   * @return true if SCAN_MODE is set to mmap.
+   */
+  public boolean useMemoryMappedScans() {
+    return getString("SCAN_MODE", "reader").equalsIgnoreCase("mmap");
+  }
+
+  /**
+   * Number of pages scans read ahead on a background thread.
+   *
+   * @return the value of SCAN_PREFETCH_DEPTH; zero or less disables read-ahead.
+   */
+  public int getPrefetchDepth() {
+    return getInt("SCAN_PREFETCH_DEPTH", 0);
+  }
+
+  /**
+   * Join algorithm the query plan builder uses.
+   *
+   * @return the value of JOIN_METHOD, in lower case: auto to use a Leapfrog Triejoin when the
+   *     equijoin graph of the tables is cyclic, a hash join for other equality join conditions,
+   *     the inequality join for inequalities between columns, and the block nested loop join
+   *     otherwise, smj to use a sort-merge join instead of the hash join, tnlj for the
+   *     tuple nested loop join, or bnlj for the block nested loop join.
+   */
+  public String getJoinMethod() {
+    return getString("JOIN_METHOD", "auto").toLowerCase();
+  }
+
+  /**
+   * How the planner orders the joins of a query.
+   *
+   * @return the value of JOIN_ORDER, in lower case: cost to choose the order from table
+   *     statistics, or from to join tables in FROM clause order.
+   */
+  public String getJoinOrder() {
+    return getString("JOIN_ORDER", "cost").toLowerCase();
+  }
+
+  /**
+   * Which input of a hash join is held in memory.
+   *
+   * @return the value of HASH_JOIN_BUILD_SIDE, in lower case: auto for the input with fewer rows,
+   *     left, or right.
+   */
+  public String getHashJoinBuildSide() {
+    return getString("HASH_JOIN_BUILD_SIDE", "auto").toLowerCase();
+  }
+
+  /**
+   * Number of pages of outer tuples a block nested loop join holds in memory.
+   *
+   * @return the value of JOIN_BUFFER_PAGES.
+   */
+  public int getJoinBufferPages() {
+    return getInt("JOIN_BUFFER_PAGES", 8);
+  }
+
+  /**
+   * Number of pages of build tuples a hash join holds in memory before it partitions its inputs to
+   * disk.
+   *
+   * @return the value of HASH_JOIN_MEMORY_PAGES; zero or less keeps the whole build side in memory.
+   */
+  public int getHashJoinMemoryPages() {
+    return getInt("HASH_JOIN_MEMORY_PAGES", 1024);
+  }
+
+  /**
+   * Number of pages of tuples a sort holds in memory. Larger inputs are sorted in runs of that
+   * size, which are written to disk and merged.
+   *
+   * @return the value of SORT_BUFFER_PAGES; zero or less sorts the whole input in memory.
+   */
+  public int getSortBufferPages() {
+    return getInt("SORT_BUFFER_PAGES", 1024);
+  }
+
+  /**
+   * Algorithm a sort uses on the tuples it holds in memory.
+   *
+   * @return the value of SORT_METHOD, in lower case: radix for the LSD radix sort, comparison for
+   *     the sort of normalized keys, or auto to choose between them by the size of the input.
+   */
+  public String getSortMethod() {
+    return getString("SORT_METHOD", "auto").toLowerCase();
+  }
+
+  /**
+   * How DISTINCT removes duplicates.
+   *
+   * @return the value of DISTINCT_METHOD, in lower case: hash for a hash set, sort to sort the
+   *     tuples and drop adjacent copies, or auto to choose by the estimated number of distinct
+   *     tuples and the ORDER BY of the query.
+   */
+  public String getDistinctMethod() {
+    return getString("DISTINCT_METHOD", "auto").toLowerCase();
+  }
+
+  /**
+   * Number of pages of distinct tuples a hash DISTINCT holds in memory before it partitions the
+   * rest of its input to disk.
+   *
+   * @return the value of DISTINCT_MEMORY_PAGES; zero or less keeps every distinct tuple in memory.
+   */
+  public int getDistinctMemoryPages() {
+    return getInt("DISTINCT_MEMORY_PAGES", 1024);
+  }
+
+  /**
+   * Whether hash joins push a filter on the keys of their build side down to the scans of their
+   * probe side.
+   *
+   * @return false if RUNTIME_FILTERS is set to false.
+   */
+  public boolean useRuntimeFilters() {
+    return !getString("RUNTIME_FILTERS", "true").equalsIgnoreCase("false");
+  }
+
+  /**
+   * Number of worker threads a parallel hash join partitions and joins its inputs with.
+   *
+   * @return the value of JOIN_THREADS, or the number of available processors if it is not set; 1
+   *     or less keeps joins on a single thread.
+   */
+  public int getJoinThreads() {
+    return getInt("JOIN_THREADS", Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Directory operators write their temporary files to.
+   *
+   * @return the value of TEMP_DIR, or the system temporary directory if it is not set.
+   */
+  public File getTempDirectory() {
+    return new File(getString("TEMP_DIR", System.getProperty("java.io.tmpdir")));
+  }
+}
@@ -0,0 +1,164 @@
+package common;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * A join condition split into the equalities between a column of each input, which join
+ * algorithms can use as keys, and the residual conjuncts that must be checked on every joined
+ * pair. Only top-level conjuncts are split, so a condition such as {@code L.A = R.B AND L.C < R.D}
+ * has the key pair (L.A, R.B) and the residual {@code L.C < R.D}.
+ */
+public class EquiJoinCondition {
+  private final Expression condition;
+  private final int[] leftKeys;
+  private final int[] rightKeys;
+  private final Expression residual;
+
+  private EquiJoinCondition(
+      Expression condition, int[] leftKeys, int[] rightKeys, Expression residual) {
+    this.condition = condition;
+    this.leftKeys = leftKeys;
+    this.rightKeys = rightKeys;
+    this.residual = residual;
+  }
+
+  /**
+   * Splits a join condition over two inputs.
+   *
+   * @param condition the join condition, or null for a cross product.
+   * @param leftSchema the schema of the left input.
+   * @param rightSchema the schema of the right input.
+   * @return the split condition; it has no keys if no conjunct equates a left and a right column.
+   */
+  public static EquiJoinCondition split(
+      Expression condition, ArrayList<Column> leftSchema, ArrayList<Column> rightSchema) {
+    List<Expression> conjuncts = new ArrayList<>();
+    if (condition != null) {
+      collectConjuncts(condition, conjuncts);
+    }
+    List<int[]> keys = new ArrayList<>();
+    Expression residual = null;
+    for (Expression conjunct : conjuncts) {
+      int[] key = keyOf(conjunct, leftSchema, rightSchema);
+      if (key != null) {
+        keys.add(key);
+      } else {
+        residual = residual == null ? conjunct : new AndExpression(residual, conjunct);
+      }
+    }
+    int[] leftKeys = new int[keys.size()];
+    int[] rightKeys = new int[keys.size()];
+    for (int i = 0; i < keys.size(); i++) {
+      leftKeys[i] = keys.get(i)[0];
+      rightKeys[i] = keys.get(i)[1];
+    }
+    return new EquiJoinCondition(condition, leftKeys, rightKeys, residual);
+  }
+
+  /** Flattens nested AND expressions and parentheses into a list of conjuncts. */
+  static void collectConjuncts(Expression expression, List<Expression> conjuncts) {
+    if (expression instanceof AndExpression and) {
+      collectConjuncts(and.getLeftExpression(), conjuncts);
+      collectConjuncts(and.getRightExpression(), conjuncts);
+    } else if (expression instanceof Parenthesis parenthesis
+        && parenthesis.getExpression() instanceof AndExpression) {
+      collectConjuncts(parenthesis.getExpression(), conjuncts);
+    } else {
+      conjuncts.add(expression);
+    }
+  }
+
+  /**
+   * Finds the columns a conjunct equates, if it is an equality between a left and a right column.
+   *
+   * @return the index of the left column and the index of the right column, or null.
+   */
+  private static int[] keyOf(
+      Expression conjunct, ArrayList<Column> leftSchema, ArrayList<Column> rightSchema) {
+    if (!(conjunct instanceof EqualsTo equalsTo)
+        || !(equalsTo.getLeftExpression() instanceof Column first)
+        || !(equalsTo.getRightExpression() instanceof Column second)) {
+      return null;
+    }
+    int firstLeft = indexOf(leftSchema, first);
+    int secondRight = indexOf(rightSchema, second);
+    if (firstLeft >= 0 && secondRight >= 0) {
+      return new int[] {firstLeft, secondRight};
+    }
+    int secondLeft = indexOf(leftSchema, second);
+    int firstRight = indexOf(rightSchema, first);
+    if (secondLeft >= 0 && firstRight >= 0) {
+      return new int[] {secondLeft, firstRight};
+    }
+    return null;
+  }
+
+  /**
+   * Finds a column in a schema, matching the table name when the column has one.
+   *
+   * @return the index of the column, or -1 if the schema does not contain it.
+   */
+  static int indexOf(ArrayList<Column> schema, Column column) {
+    String tableName = column.getTable() != null ? column.getTable().getName() : null;
+    for (int i = 0; i < schema.size(); i++) {
+      Column col = schema.get(i);
+      String colTableName = col.getTable() != null ? col.getTable().getName() : null;
+      if ((tableName == null || tableName.equals(colTableName))
+          && column.getColumnName().equals(col.getColumnName())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the whole join condition, before it was split.
+   *
+   * @return the join condition, or null for a cross product.
+   */
+  public Expression getCondition() {
+    return condition;
+  }
+
+  /**
+   * Whether the condition has at least one equality between a left and a right column.
+   *
+   * @return true if the inputs can be joined on keys.
+   */
+  public boolean hasKeys() {
+    return leftKeys.length > 0;
+  }
+
+  /**
+   * Returns the key columns of the left input.
+   *
+   * @return the indices of the key columns in the left schema.
+   */
+  public int[] getLeftKeys() {
+    return leftKeys;
+  }
+
+  /**
+   * Returns the key columns of the right input, in the same order as the left keys.
+   *
+   * @return the indices of the key columns in the right schema.
+   */
+  public int[] getRightKeys() {
+    return rightKeys;
+  }
+
+  /**
+   * Returns the conjuncts that are not key equalities.
+   *
+   * @return the residual condition over the joined schema, or null if there is none.
+   */
+  public Expression getResidual() {
+    return residual;
+  }
+}
@@ -0,0 +1,240 @@
+package common;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.arithmetic.Addition;
+import net.sf.jsqlparser.expression.operators.arithmetic.Subtraction;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * A join condition split into the inequalities between a left column and a right column, which
+ * bound the right values joining each left tuple, and the residual conjuncts that must be checked
+ * on every joined pair. Each side of an inequality may add or subtract a constant, so the band
+ * {@code R.X >= S.Y - 5 AND R.X <= S.Y + 5} bounds S.Y on both sides for every value of R.X.
+ *
+ * <p>Only the inequalities between the same two columns as the first one are used as bounds;
+ * inequalities between other columns are left in the residual condition.
+ */
+public class InequalityJoinCondition {
+  private static final int LT = 0;
+  private static final int LE = 1;
+  private static final int GT = 2;
+  private static final int GE = 3;
+
+  private final int leftColumn;
+  private final int rightColumn;
+  private final int[] operators; // Each bound is leftColumn <operator> rightColumn + offset
+  private final long[] offsets;
+  private final Expression residual;
+
+  private InequalityJoinCondition(
+      int leftColumn, int rightColumn, int[] operators, long[] offsets, Expression residual) {
+    this.leftColumn = leftColumn;
+    this.rightColumn = rightColumn;
+    this.operators = operators;
+    this.offsets = offsets;
+    this.residual = residual;
+  }
+
+  /** An inequality normalized to {@code left <operator> right + offset}. */
+  private record Bound(int left, int right, int operator, long offset) {}
+
+  /** A column plus a constant, on one side of an inequality. */
+  private record Term(Column column, long offset) {}
+
+  /**
+   * Splits a join condition over two inputs.
+   *
+   * @param condition the join condition, or null for a cross product.
+   * @param leftSchema the schema of the left input.
+   * @param rightSchema the schema of the right input.
+   * @return the split condition; it has no bounds if no conjunct compares a left and a right
+   *     column with {@code <}, {@code <=}, {@code >} or {@code >=}.
+   */
+  public static InequalityJoinCondition split(
+      Expression condition, ArrayList<Column> leftSchema, ArrayList<Column> rightSchema) {
+    List<Expression> conjuncts = new ArrayList<>();
+    if (condition != null) {
+      EquiJoinCondition.collectConjuncts(condition, conjuncts);
+    }
+    List<Bound> bounds = new ArrayList<>();
+    Expression residual = null;
+    for (Expression conjunct : conjuncts) {
+      Bound bound = boundOf(conjunct, leftSchema, rightSchema);
+      if (bound != null
+          && (bounds.isEmpty()
+              || (bound.left() == bounds.get(0).left()
+                  && bound.right() == bounds.get(0).right()))) {
+        bounds.add(bound);
+      } else {
+        residual = residual == null ? conjunct : new AndExpression(residual, conjunct);
+      }
+    }
+    int[] operators = new int[bounds.size()];
+    long[] offsets = new long[bounds.size()];
+    for (int i = 0; i < bounds.size(); i++) {
+      operators[i] = bounds.get(i).operator();
+      offsets[i] = bounds.get(i).offset();
+    }
+    return bounds.isEmpty()
+        ? new InequalityJoinCondition(-1, -1, operators, offsets, residual)
+        : new InequalityJoinCondition(
+            bounds.get(0).left(), bounds.get(0).right(), operators, offsets, residual);
+  }
+
+  /**
+   * Normalizes a conjunct, if it is an inequality between a left and a right column.
+   *
+   * @return the bound, or null.
+   */
+  private static Bound boundOf(
+      Expression conjunct, ArrayList<Column> leftSchema, ArrayList<Column> rightSchema) {
+    int operator;
+    if (conjunct instanceof MinorThan) {
+      operator = LT;
+    } else if (conjunct instanceof MinorThanEquals) {
+      operator = LE;
+    } else if (conjunct instanceof GreaterThan) {
+      operator = GT;
+    } else if (conjunct instanceof GreaterThanEquals) {
+      operator = GE;
+    } else {
+      return null;
+    }
+    BinaryExpression comparison = (BinaryExpression) conjunct;
+    Term first = termOf(comparison.getLeftExpression());
+    Term second = termOf(comparison.getRightExpression());
+    if (first == null || second == null) {
+      return null;
+    }
+    int firstLeft = EquiJoinCondition.indexOf(leftSchema, first.column());
+    int secondRight = EquiJoinCondition.indexOf(rightSchema, second.column());
+    if (firstLeft >= 0 && secondRight >= 0) {
+      // L + a op R + b is L op R + (b - a)
+      return new Bound(firstLeft, secondRight, operator, second.offset() - first.offset());
+    }
+    int secondLeft = EquiJoinCondition.indexOf(leftSchema, second.column());
+    int firstRight = EquiJoinCondition.indexOf(rightSchema, first.column());
+    if (secondLeft >= 0 && firstRight >= 0) {
+      // R + a op L + b is L flipped-op R + (a - b)
+      return new Bound(secondLeft, firstRight, flip(operator), first.offset() - second.offset());
+    }
+    return null;
+  }
+
+  /**
+   * Reads a column, or a column plus or minus an integer constant.
+   *
+   * @return the column and the constant added to it, or null.
+   */
+  private static Term termOf(Expression expression) {
+    if (expression instanceof Column column) {
+      return new Term(column, 0);
+    }
+    if (expression instanceof Addition addition) {
+      if (addition.getLeftExpression() instanceof Column column
+          && addition.getRightExpression() instanceof LongValue value) {
+        return new Term(column, value.getValue());
+      }
+      if (addition.getLeftExpression() instanceof LongValue value
+          && addition.getRightExpression() instanceof Column column) {
+        return new Term(column, value.getValue());
+      }
+    } else if (expression instanceof Subtraction subtraction
+        && subtraction.getLeftExpression() instanceof Column column
+        && subtraction.getRightExpression() instanceof LongValue value) {
+      return new Term(column, -value.getValue());
+    }
+    return null;
+  }
+
+  /** Swaps the sides of an inequality operator. */
+  private static int flip(int operator) {
+    return switch (operator) {
+      case LT -> GT;
+      case LE -> GE;
+      case GT -> LT;
+      default -> LE;
+    };
+  }
+
+  /**
+   * Whether the condition has at least one inequality between a left and a right column.
+   *
+   * @return true if the right values joining a left tuple can be bounded.
+   */
+  public boolean hasBounds() {
+    return operators.length > 0;
+  }
+
+  /**
+   * Returns the left column of the bounds.
+   *
+   * @return the index of the column in the left schema, or -1 if there are no bounds.
+   */
+  public int getLeftColumn() {
+    return leftColumn;
+  }
+
+  /**
+   * Returns the right column of the bounds.
+   *
+   * @return the index of the column in the right schema, or -1 if there are no bounds.
+   */
+  public int getRightColumn() {
+    return rightColumn;
+  }
+
+  /**
+   * Returns the smallest right value that may join a left value.
+   *
+   * @param leftValue the value of the left column.
+   * @return the lower bound, inclusive, or Long.MIN_VALUE if there is none.
+   */
+  public long getLowerBound(int leftValue) {
+    long lower = Long.MIN_VALUE;
+    for (int i = 0; i < operators.length; i++) {
+      if (operators[i] == LT) {
+        lower = Math.max(lower, leftValue - offsets[i] + 1);
+      } else if (operators[i] == LE) {
+        lower = Math.max(lower, leftValue - offsets[i]);
+      }
+    }
+    return lower;
+  }
+
+  /**
+   * Returns the largest right value that may join a left value.
+   *
+   * @param leftValue the value of the left column.
+   * @return the upper bound, inclusive, or Long.MAX_VALUE if there is none.
+   */
+  public long getUpperBound(int leftValue) {
+    long upper = Long.MAX_VALUE;
+    for (int i = 0; i < operators.length; i++) {
+      if (operators[i] == GT) {
+        upper = Math.min(upper, leftValue - offsets[i] - 1);
+      } else if (operators[i] == GE) {
+        upper = Math.min(upper, leftValue - offsets[i]);
+      }
+    }
+    return upper;
+  }
+
+  /**
+   * Returns the conjuncts that are not used as bounds.
+   *
+   * @return the residual condition, or null if there is none.
+   */
+  public Expression getResidual() {
+    return residual;
+  }
+}
@@ -0,0 +1,197 @@
+package common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * The equijoin graph of a query over several inputs. Columns equated by the join conditions, also
+ * transitively, form the join variables, and each input joins the others on the variables of its
+ * columns. Conditions that do not equate columns of two inputs are kept as a residual condition.
+ *
+ * <p>The graph is cyclic when the GYO reduction does not remove every input: inputs whose
+ * variables all belong to another input, and variables of a single input, are removed until none
+ * remain. A triangle {@code R.B = S.A AND S.B = T.A AND T.B = R.A} is cyclic, while a chain or a
+ * star of joins, or several inputs joined on the same column, is not.
+ */
+public class JoinGraph {
+  private final int[][] variables; // Variable of each column of each input, or -1
+  private final int variableCount;
+  private final Expression residual;
+
+  private JoinGraph(int[][] variables, int variableCount, Expression residual) {
+    this.variables = variables;
+    this.variableCount = variableCount;
+    this.residual = residual;
+  }
+
+  /**
+   * Builds the join graph of some inputs.
+   *
+   * @param schemas the schemas of the inputs.
+   * @param joinConditions the join conditions; each is a conjunction over some of the inputs.
+   * @return the join graph.
+   */
+  public static JoinGraph build(List<ArrayList<Column>> schemas, List<Expression> joinConditions) {
+    // Number the columns of all the inputs one after the other, and union the equated ones
+    int[] firstColumn = new int[schemas.size() + 1];
+    for (int i = 0; i < schemas.size(); i++) {
+      firstColumn[i + 1] = firstColumn[i] + schemas.get(i).size();
+    }
+    int[] parent = new int[firstColumn[schemas.size()]];
+    Arrays.setAll(parent, c -> c);
+    boolean[] joined = new boolean[parent.length];
+
+    List<Expression> conjuncts = new ArrayList<>();
+    for (Expression condition : joinConditions) {
+      EquiJoinCondition.collectConjuncts(condition, conjuncts);
+    }
+    Expression residual = null;
+    for (Expression conjunct : conjuncts) {
+      int[] pair = equatedColumns(conjunct, schemas, firstColumn);
+      if (pair != null) {
+        parent[find(parent, pair[0])] = find(parent, pair[1]);
+        joined[pair[0]] = true;
+        joined[pair[1]] = true;
+      } else {
+        residual = residual == null ? conjunct : new AndExpression(residual, conjunct);
+      }
+    }
+
+    // Number the variables in order of their first column
+    int[] variableOfRoot = new int[parent.length];
+    Arrays.fill(variableOfRoot, -1);
+    int variableCount = 0;
+    int[][] variables = new int[schemas.size()][];
+    for (int i = 0; i < schemas.size(); i++) {
+      variables[i] = new int[schemas.get(i).size()];
+      for (int c = 0; c < variables[i].length; c++) {
+        int column = firstColumn[i] + c;
+        int root = find(parent, column);
+        if (!joined[column]) {
+          variables[i][c] = -1;
+        } else {
+          if (variableOfRoot[root] < 0) {
+            variableOfRoot[root] = variableCount++;
+          }
+          variables[i][c] = variableOfRoot[root];
+        }
+      }
+    }
+    return new JoinGraph(variables, variableCount, residual);
+  }
+
+  /** Finds the representative of a column, halving the path to it. */
+  private static int find(int[] parent, int column) {
+    while (parent[column] != column) {
+      parent[column] = parent[parent[column]];
+      column = parent[column];
+    }
+    return column;
+  }
+
+  /**
+   * Finds the columns a conjunct equates, if it is an equality between columns of two inputs.
+   *
+   * @return the numbers of the two columns among the columns of all inputs, or null.
+   */
+  private static int[] equatedColumns(
+      Expression conjunct, List<ArrayList<Column>> schemas, int[] firstColumn) {
+    if (!(conjunct instanceof EqualsTo equalsTo)
+        || !(equalsTo.getLeftExpression() instanceof Column first)
+        || !(equalsTo.getRightExpression() instanceof Column second)) {
+      return null;
+    }
+    for (int i = 0; i < schemas.size(); i++) {
+      int firstIndex = EquiJoinCondition.indexOf(schemas.get(i), first);
+      if (firstIndex < 0) {
+        continue;
+      }
+      for (int j = 0; j < schemas.size(); j++) {
+        int secondIndex = EquiJoinCondition.indexOf(schemas.get(j), second);
+        if (j != i && secondIndex >= 0) {
+          return new int[] {firstColumn[i] + firstIndex, firstColumn[j] + secondIndex};
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the number of join variables.
+   *
+   * @return the number of classes of equated columns.
+   */
+  public int getVariableCount() {
+    return variableCount;
+  }
+
+  /**
+   * Returns the join variables of the columns of an input.
+   *
+   * @param input the index of the input.
+   * @return the variable of each column of the input, or -1 for columns not joined on.
+   */
+  public int[] getVariables(int input) {
+    return variables[input];
+  }
+
+  /**
+   * Returns the join conditions that do not equate columns of two inputs.
+   *
+   * @return the residual condition over the columns of all inputs, or null if there is none.
+   */
+  public Expression getResidual() {
+    return residual;
+  }
+
+  /**
+   * Whether the graph has a cycle that the GYO reduction cannot remove.
+   *
+   * @return true if no join tree connects the inputs along their shared variables.
+   */
+  public boolean isCyclic() {
+    List<Set<Integer>> edges = new ArrayList<>();
+    for (int[] input : variables) {
+      Set<Integer> edge = new HashSet<>();
+      for (int variable : input) {
+        if (variable >= 0) {
+          edge.add(variable);
+        }
+      }
+      edges.add(edge);
+    }
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      // Remove the variables of a single input
+      int[] occurrences = new int[variableCount];
+      for (Set<Integer> edge : edges) {
+        for (int variable : edge) {
+          occurrences[variable]++;
+        }
+      }
+      for (Set<Integer> edge : edges) {
+        changed |= edge.removeIf(variable -> occurrences[variable] == 1);
+      }
+      // Remove an input whose variables all belong to another input
+      for (int i = 0; i < edges.size() && edges.size() > 1; i++) {
+        for (int j = 0; j < edges.size(); j++) {
+          if (j != i && edges.get(j).containsAll(edges.get(i))) {
+            edges.remove(i);
+            changed = true;
+            i--;
+            break;
+          }
+        }
+      }
+    }
+    return edges.size() > 1;
+  }
+}
@@ -0,0 +1,227 @@
+package common;
+
+import io.ZoneMapFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * Chooses the order in which the planner joins the tables of a query into a left-deep tree. Every
+ * order is costed by the total number of tuples of its intermediate results, and the cheapest one
+ * is found by dynamic programming over the subsets of the tables, as in the System R optimizer: the
+ * best plan for a set of tables extends the best plan for one of its subsets by a single table.
+ * Orders that need a cross product lose to any order that does not, whatever their cost, so a
+ * cross product is only planned when the join conditions leave the tables disconnected.
+ *
+ * <p>Sizes are estimated from the {@link TableStatistics} of the catalog. Each selection on a
+ * column with a known range keeps the fraction of the range it accepts, and each equality of two
+ * columns keeps one tuple in the larger number of distinct values of either column, with the
+ * number of distinct values of a column bounded by the size of its range. Conditions the
+ * statistics cannot inform get fixed selectivities. Among orders of equal cost, the one closest to
+ * the FROM clause wins.
+ */
+public class JoinOrderOptimizer {
+  /** Largest number of tables the optimizer orders; longer FROM clauses keep their order. */
+  public static final int MAX_TABLES = 14;
+
+  private static final double EQUALITY_SELECTIVITY = 0.1; // Column equal to a constant
+  private static final double RANGE_SELECTIVITY = 1.0 / 3; // Any other comparison
+
+  private final List<String> tableNames;
+  private final double[] rows; // Estimated tuples of each table after its selection
+  private final double[][] distinct; // Estimated distinct values of each column of each table
+  private final List<ArrayList<Column>> schemas;
+  private int[] conditionTables; // Set of tables each join condition refers to
+  private double[] selectivities; // Fraction of pairs each join condition keeps
+
+  private JoinOrderOptimizer(List<String> tableNames) {
+    this.tableNames = tableNames;
+    this.rows = new double[tableNames.size()];
+    this.distinct = new double[tableNames.size()][];
+    this.schemas = new ArrayList<>();
+  }
+
+  /**
+   * Chooses the join order of the tables of a query.
+   *
+   * @param tableNames the tables, or aliases, in FROM clause order.
+   * @param selections the selection condition on each table; tables without one may be missing.
+   * @param joinConditions the conditions that each refer to more than one table.
+   * @return the tables in the order to join them; the FROM clause order if the statistics of a
+   *     table are unavailable or there are too many tables.
+   */
+  public static List<String> order(
+      List<String> tableNames,
+      Map<String, Expression> selections,
+      List<Expression> joinConditions) {
+    if (tableNames.size() <= 2 || tableNames.size() > MAX_TABLES) {
+      return tableNames; // Both orders of two tables have the same cost
+    }
+    JoinOrderOptimizer optimizer = new JoinOrderOptimizer(tableNames);
+    for (int t = 0; t < tableNames.size(); t++) {
+      if (!optimizer.estimateTable(t, selections.get(tableNames.get(t)))) {
+        return tableNames;
+      }
+    }
+    optimizer.estimateJoinConditions(joinConditions);
+    return optimizer.bestOrder();
+  }
+
+  /**
+   * Estimates the number of tuples of a table that pass its selection, and the number of distinct
+   * values of each of its columns among them.
+   *
+   * @return false if the table has no statistics.
+   */
+  private boolean estimateTable(int t, Expression selection) {
+    String tableName = tableNames.get(t);
+    TableStatistics statistics = DBCatalog.getInstance().getStatistics(tableName);
+    if (statistics == null) {
+      return false;
+    }
+    ArrayList<Column> schema = DBCatalog.getInstance().getSchema(tableName);
+    ZoneMapFilter ranges =
+        selection != null ? ZoneMapFilterBuilder.build(selection, schema) : null;
+    double estimate = statistics.getRowCount();
+    double[] values = new double[schema.size()];
+    for (int c = 0; c < schema.size(); c++) {
+      long low = ranges != null ? ranges.getLow(c) : Integer.MIN_VALUE;
+      long high = ranges != null ? ranges.getHigh(c) : Integer.MAX_VALUE;
+      if (statistics.hasRange(c)) {
+        long min = statistics.getMin(c);
+        long max = statistics.getMax(c);
+        long kept = Math.max(0, Math.min(max, high) - Math.max(min, low) + 1);
+        estimate *= (double) kept / (max - min + 1);
+        values[c] = kept;
+      } else if (low == high) {
+        estimate *= EQUALITY_SELECTIVITY;
+        values[c] = 1;
+      } else if (low > Integer.MIN_VALUE || high < Integer.MAX_VALUE) {
+        estimate *= RANGE_SELECTIVITY;
+        values[c] = Double.POSITIVE_INFINITY;
+      } else {
+        values[c] = Double.POSITIVE_INFINITY;
+      }
+    }
+    rows[t] = Math.max(1, estimate);
+    for (int c = 0; c < values.length; c++) {
+      values[c] = Math.max(1, Math.min(values[c], rows[t]));
+    }
+    distinct[t] = values;
+    schemas.add(schema);
+    return true;
+  }
+
+  /** Records the tables each join condition refers to and the fraction of pairs it keeps. */
+  private void estimateJoinConditions(List<Expression> joinConditions) {
+    conditionTables = new int[joinConditions.size()];
+    selectivities = new double[joinConditions.size()];
+    for (int i = 0; i < joinConditions.size(); i++) {
+      Expression condition = joinConditions.get(i);
+      TableNameFinder finder = new TableNameFinder();
+      condition.accept(finder);
+      for (String tableName : finder.getTables()) {
+        int table = tableNames.indexOf(tableName);
+        if (table >= 0) {
+          conditionTables[i] |= 1 << table;
+        }
+      }
+      selectivities[i] = selectivityOf(condition);
+    }
+  }
+
+  /** Estimates the fraction of the joined pairs of tuples a join condition keeps. */
+  private double selectivityOf(Expression condition) {
+    if (condition instanceof EqualsTo equalsTo
+        && equalsTo.getLeftExpression() instanceof Column left
+        && equalsTo.getRightExpression() instanceof Column right) {
+      return 1 / Math.max(distinctValues(left), distinctValues(right));
+    }
+    return RANGE_SELECTIVITY;
+  }
+
+  /** Returns the estimated number of distinct values of a column, or 1 if it is not found. */
+  private double distinctValues(Column column) {
+    int t = column.getTable() != null ? tableNames.indexOf(column.getTable().getName()) : -1;
+    if (t < 0) {
+      return 1;
+    }
+    ArrayList<Column> schema = schemas.get(t);
+    for (int c = 0; c < schema.size(); c++) {
+      if (schema.get(c).getColumnName().equals(column.getColumnName())) {
+        return distinct[t][c];
+      }
+    }
+    return 1;
+  }
+
+  /** Whether a join condition links a table to a set of tables, using no other table. */
+  private boolean isConnected(int tables, int table) {
+    int bit = 1 << table;
+    for (int mask : conditionTables) {
+      if ((mask & bit) != 0 && (mask & tables) != 0 && (mask & ~(tables | bit)) == 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the cheapest left-deep join order by dynamic programming over the subsets of the tables,
+   * each subset being a bit mask of table indices.
+   *
+   * @return the tables in join order.
+   */
+  private List<String> bestOrder() {
+    int n = tableNames.size();
+    int full = (1 << n) - 1;
+    double[] size = new double[full + 1]; // Estimated tuples of the join of each subset
+    double[] cost = new double[full + 1]; // Tuples of the intermediate results of the best plan
+    int[] crossProducts = new int[full + 1]; // Cross products of the best plan
+    int[] last = new int[full + 1]; // Table the best plan joins last
+    size[0] = 1;
+    for (int tables = 1; tables <= full; tables++) {
+      int first = Integer.numberOfTrailingZeros(tables);
+      int others = tables & (tables - 1);
+      size[tables] = size[others] * rows[first];
+      for (int i = 0; i < conditionTables.length; i++) {
+        int mask = conditionTables[i];
+        if ((mask & (1 << first)) != 0 && (mask & ~tables) == 0) {
+          size[tables] *= selectivities[i];
+        }
+      }
+      if (others == 0) {
+        last[tables] = first;
+        continue;
+      }
+      cost[tables] = Double.POSITIVE_INFINITY;
+      crossProducts[tables] = Integer.MAX_VALUE;
+      // Try the last tables first, so that ties keep the FROM clause order
+      for (int table = n - 1; table >= 0; table--) {
+        int prefix = tables & ~(1 << table);
+        if (prefix == tables) {
+          continue;
+        }
+        int crosses = crossProducts[prefix] + (isConnected(prefix, table) ? 0 : 1);
+        double planCost = cost[prefix] + (Integer.bitCount(prefix) > 1 ? size[prefix] : 0);
+        if (crosses < crossProducts[tables]
+            || (crosses == crossProducts[tables] && planCost < cost[tables] * (1 - 1e-9))) {
+          crossProducts[tables] = crosses;
+          cost[tables] = planCost;
+          last[tables] = table;
+        }
+      }
+    }
+
+    String[] order = new String[n];
+    for (int i = n - 1, tables = full; i >= 0; i--) {
+      order[i] = tableNames.get(last[tables]);
+      tables &= ~(1 << last[tables]);
+    }
+    return Arrays.asList(order);
+  }
+}
@@ -1,10 +1,12 @@
 package common;
 
+import io.PageLayout;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
@@ -14,6 +16,8 @@ import operator.*;
 
 /** Builds a query plan from a SQL statement. */
 public class QueryPlanBuilder {
+  /** Number of input rows from which a hash join runs on several threads. */
+  public static final long PARALLEL_JOIN_MIN_ROWS = 1 << 16;
 
   public QueryPlanBuilder() {}
 
@@ -34,7 +38,8 @@ public class QueryPlanBuilder {
     List<Operator> scanOperators = new ArrayList<>();
     List<String> tableNames = new ArrayList<>();
     Map<String, String> aliasToTable = new HashMap<>();
-    processFromClause(plainSelect, scanOperators, tableNames, aliasToTable);
+    List<Column> referencedColumns = collectReferencedColumns(plainSelect);
+    processFromClause(plainSelect, scanOperators, tableNames, aliasToTable, referencedColumns);
 
     // Step 2: Handle WHERE clause
     Expression whereExpression = plainSelect.getWhere();
@@ -49,6 +54,7 @@ public class QueryPlanBuilder {
 
     // Step 3: Apply selection conditions
     Map<String, Operator> operatorsMap = new HashMap<>();
+    Map<String, Expression> selections = new HashMap<>();
     for (int i = 0; i < tableNames.size(); i++) {
       String tableName = tableNames.get(i);
       Operator op = scanOperators.get(i);
@@ -59,77 +65,300 @@ public class QueryPlanBuilder {
         selectionExpr = extractor.getExpression();
       }
       if (selectionExpr != null) {
+        selections.put(tableName, selectionExpr);
+        if (op instanceof ScanOperator scan) {
+          scan.skipPagesNotMatching(selectionExpr);
+        }
         op = new SelectOperator(op, selectionExpr);
       }
       operatorsMap.put(tableName, op);
     }
 
-    // Step 4: Build the join tree
-    Operator currentOperator = operatorsMap.get(tableNames.get(0));
-    for (int i = 1; i < tableNames.size(); i++) {
-      String rightTable = tableNames.get(i);
-      Operator rightOperator = operatorsMap.get(rightTable);
-      Expression joinExpr = null;
-      List<Expression> relevantJoins = new ArrayList<>();
-      for (Expression expr : joinConditions) {
-        JoinExpressionExtractor joinExtractor =
-            new JoinExpressionExtractor(getTablesInOperator(currentOperator), rightTable);
-        expr.accept(joinExtractor);
-        if (joinExtractor.isRelevant()) {
-          relevantJoins.add(expr);
-        }
+    // Step 4: Build the join tree, or a single multi-way join for a cyclic join graph
+    List<String> joinOrder = tableNames;
+    Operator currentOperator = createMultiwayJoin(tableNames, operatorsMap, joinConditions);
+    if (currentOperator == null) {
+      if (DBConfig.getInstance().getJoinOrder().equals("cost")) {
+        joinOrder = JoinOrderOptimizer.order(tableNames, selections, joinConditions);
       }
-      if (!relevantJoins.isEmpty()) {
-        joinExpr = combineExpressions(relevantJoins);
+      currentOperator = operatorsMap.get(joinOrder.get(0));
+      for (int i = 1; i < joinOrder.size(); i++) {
+        String rightTable = joinOrder.get(i);
+        Operator rightOperator = operatorsMap.get(rightTable);
+        Expression joinExpr = null;
+        List<Expression> relevantJoins = new ArrayList<>();
+        for (Expression expr : joinConditions) {
+          JoinExpressionExtractor joinExtractor =
+              new JoinExpressionExtractor(getTablesInOperator(currentOperator), rightTable);
+          expr.accept(joinExtractor);
+          if (joinExtractor.isRelevant()) {
+            relevantJoins.add(expr);
+          }
+        }
+        if (!relevantJoins.isEmpty()) {
+          joinExpr = combineExpressions(relevantJoins);
+        }
+        currentOperator = createJoin(currentOperator, rightOperator, joinExpr);
       }
-      currentOperator = new JoinOperator(currentOperator, rightOperator, joinExpr);
     }
 
     // Step 5: Apply projection
-    currentOperator = new ProjectOperator(currentOperator, plainSelect);
+    if (referencedColumns == null && !joinOrder.equals(tableNames)) {
+      // SELECT * lists the columns in FROM clause order, whatever the join order
+      ArrayList<Column> columns = new ArrayList<>();
+      for (Operator scan : scanOperators) {
+        columns.addAll(scan.getOutputSchema());
+      }
+      currentOperator = new ProjectOperator(currentOperator, columns);
+    } else {
+      currentOperator = new ProjectOperator(currentOperator, plainSelect);
+    }
 
-    // Step 6: Handle ORDER BY
+    // Step 6: Handle ORDER BY, keeping only the first tuples when a LIMIT follows it
+    long offset = getOffset(plainSelect);
+    long limit = getLimit(plainSelect);
     if (plainSelect.getOrderByElements() != null) {
-      currentOperator = new SortOperator(currentOperator, plainSelect.getOrderByElements());
+      if (limit >= 0
+          && plainSelect.getDistinct() == null
+          && fitsTopK(currentOperator, offset, limit)) {
+        currentOperator =
+            new TopKOperator(
+                currentOperator, plainSelect.getOrderByElements(), (int) (offset + limit));
+      } else {
+        currentOperator = new SortOperator(currentOperator, plainSelect.getOrderByElements());
+      }
     }
 
-    // Step 7: Handle DISTINCT
+    // Step 7: Handle DISTINCT, with a hash set or by dropping adjacent copies in sorted input
     if (plainSelect.getDistinct() != null) {
-      currentOperator =
-          new DuplicateEliminationOperator(currentOperator.getOutputSchema(), currentOperator);
+      if (useHashDistinct(currentOperator)) {
+        currentOperator =
+            new HashDistinctOperator(
+                currentOperator, DBConfig.getInstance().getDistinctMemoryPages());
+      } else {
+        if (currentOperator.getSortOrder() == null) {
+          // Duplicates are only adjacent in sorted input
+          currentOperator = new SortOperator(currentOperator, new int[0]);
+        }
+        currentOperator =
+            new DuplicateEliminationOperator(currentOperator.getOutputSchema(), currentOperator);
+      }
+    }
+
+    // Step 8: Handle LIMIT and OFFSET
+    if (limit >= 0 || offset > 0) {
+      currentOperator = new LimitOperator(currentOperator, offset, limit);
     }
 
     // Return the root of the query plan
     return currentOperator;
   }
 
+  /**
+   * Decides whether DISTINCT uses a hash set rather than a sort. In auto mode, sorted input, such
+   * as that of an ORDER BY, keeps the sort, which drops copies as they arrive in order; otherwise
+   * the hash set is used when the statistics of the tables show that the distinct tuples fit in
+   * DISTINCT_MEMORY_PAGES, so that it never spills and the sort is saved.
+   *
+   * @param input the operator whose duplicates are removed.
+   * @return true for a HashDistinctOperator, false for a sort and a DuplicateEliminationOperator.
+   */
+  private boolean useHashDistinct(Operator input) {
+    DBConfig config = DBConfig.getInstance();
+    switch (config.getDistinctMethod()) {
+      case "hash":
+        return true;
+      case "sort":
+        return false;
+      case "auto":
+        break;
+      default:
+        throw new UnsupportedOperationException(
+            "Unknown distinct method: " + config.getDistinctMethod());
+    }
+    if (input.getSortOrder() != null) {
+      return false;
+    }
+    int memoryPages = config.getDistinctMemoryPages();
+    return memoryPages <= 0
+        || estimateDistinct(input)
+            <= (long) memoryPages * PageLayout.tuplesPerPage(input.getOutputSchema().size());
+  }
+
+  /**
+   * Bounds the number of distinct tuples an operator produces from the statistics of its tables:
+   * for each table, the smaller of its number of tuples and the product of the sizes of the value
+   * ranges of its columns in the output, multiplied over the tables.
+   *
+   * @param op the operator.
+   * @return the bound, or Long.MAX_VALUE if a table has no statistics.
+   */
+  private long estimateDistinct(Operator op) {
+    double estimate = 1;
+    for (String tableName : getTablesInOperator(op)) {
+      TableStatistics statistics = DBCatalog.getInstance().getStatistics(tableName);
+      if (statistics == null) {
+        return Long.MAX_VALUE;
+      }
+      ArrayList<Column> schema = DBCatalog.getInstance().getSchema(tableName);
+      double values = 1;
+      for (Column column : op.getOutputSchema()) {
+        if (column.getTable().getName().equals(tableName)) {
+          int c = EquiJoinCondition.indexOf(schema, column);
+          values *=
+              c >= 0 && statistics.hasRange(c)
+                  ? statistics.getMax(c) - statistics.getMin(c) + 1
+                  : Double.POSITIVE_INFINITY;
+        }
+      }
+      estimate *= Math.min(values, statistics.getRowCount());
+    }
+    return estimate >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) estimate;
+  }
+
+  /**
+   * Reads the row count of the LIMIT clause.
+   *
+   * @return the row count, or -1 if the query has no limit.
+   * @throws UnsupportedOperationException if the row count is not a constant.
+   */
+  private long getLimit(PlainSelect plainSelect) {
+    Limit limit = plainSelect.getLimit();
+    if (limit == null || limit.isLimitAll() || limit.isLimitNull()) {
+      return -1;
+    }
+    return constantOf(limit.getRowCount());
+  }
+
+  /**
+   * Reads the number of rows to skip, from an OFFSET clause or the offset of the LIMIT clause.
+   *
+   * @return the offset, or 0 if the query has none.
+   * @throws UnsupportedOperationException if the offset is not a constant.
+   */
+  private long getOffset(PlainSelect plainSelect) {
+    if (plainSelect.getOffset() != null) {
+      return constantOf(plainSelect.getOffset().getOffset());
+    }
+    Limit limit = plainSelect.getLimit();
+    return limit != null && limit.getOffset() != null ? constantOf(limit.getOffset()) : 0;
+  }
+
+  /** Returns the value of a non-negative integer constant in a LIMIT or OFFSET clause. */
+  private long constantOf(Expression expression) {
+    if (!(expression instanceof LongValue value) || value.getValue() < 0) {
+      throw new UnsupportedOperationException(
+          "Only non-negative constants are supported in LIMIT and OFFSET.");
+    }
+    return value.getValue();
+  }
+
+  /**
+   * Decides whether the tuples up to the end of a LIMIT are kept in memory by a TopKOperator rather
+   * than by sorting the whole input: they must fit in the SORT_BUFFER_PAGES a sort holds in memory.
+   *
+   * @param input the operator whose tuples are sorted.
+   * @param offset the number of tuples skipped.
+   * @param limit the number of tuples returned after them.
+   * @return true if a TopKOperator can keep them.
+   */
+  private boolean fitsTopK(Operator input, long offset, long limit) {
+    int bufferPages = DBConfig.getInstance().getSortBufferPages();
+    long capacity =
+        bufferPages > 0
+            ? (long) bufferPages * PageLayout.tuplesPerPage(input.getOutputSchema().size())
+            : Integer.MAX_VALUE;
+    capacity = Math.min(capacity, Integer.MAX_VALUE);
+    return offset <= capacity && limit <= capacity - offset;
+  }
+
+  /**
+   * Collects the columns the query references in its SELECT, WHERE and ORDER BY clauses.
+   *
+   * @return the referenced columns, or null if the query selects all columns.
+   */
+  private List<Column> collectReferencedColumns(PlainSelect plainSelect) {
+    ColumnFinder finder = new ColumnFinder();
+    for (SelectItem item : plainSelect.getSelectItems()) {
+      if (item instanceof SelectExpressionItem) {
+        ((SelectExpressionItem) item).getExpression().accept(finder);
+      } else {
+        return null;
+      }
+    }
+    if (plainSelect.getWhere() != null) {
+      plainSelect.getWhere().accept(finder);
+    }
+    if (plainSelect.getOrderByElements() != null) {
+      for (OrderByElement element : plainSelect.getOrderByElements()) {
+        element.getExpression().accept(finder);
+      }
+    }
+    return finder.getColumns();
+  }
+
+  /**
+   * Prunes a table schema down to the columns the query references. At least one column is kept
+   * so the scan still produces one tuple per row, e.g. for cross products.
+   *
+   * @param schema the full schema of the table.
+   * @param referencedColumns the columns the query references, or null to keep all columns.
+   * @return the referenced columns of the table, in schema order.
+   */
+  private ArrayList<Column> pruneSchema(ArrayList<Column> schema, List<Column> referencedColumns) {
+    if (referencedColumns == null) {
+      return schema;
+    }
+    ArrayList<Column> pruned = new ArrayList<>();
+    for (Column col : schema) {
+      String tableName = col.getTable().getName();
+      for (Column ref : referencedColumns) {
+        String refTable = ref.getTable() != null ? ref.getTable().getName() : null;
+        if ((refTable == null || refTable.equals(tableName))
+            && ref.getColumnName().equals(col.getColumnName())) {
+          pruned.add(col);
+          break;
+        }
+      }
+    }
+    if (pruned.isEmpty()) {
+      pruned.add(schema.get(0));
+    }
+    return pruned;
+  }
+
   /** Processes the FROM clause to create scan operators for each table. */
   private void processFromClause(
       PlainSelect plainSelect,
       List<Operator> scanOperators,
       List<String> tableNames,
-      Map<String, String> aliasToTable) {
+      Map<String, String> aliasToTable,
+      List<Column> referencedColumns) {
 
     // Process the main table in FROM
     FromItem fromItem = plainSelect.getFromItem();
-    processFromItem(fromItem, scanOperators, tableNames, aliasToTable);
+    processFromItem(fromItem, scanOperators, tableNames, aliasToTable, referencedColumns);
 
     // Process joins
     List<Join> joins = plainSelect.getJoins();
     if (joins != null) {
       for (Join join : joins) {
         FromItem joinItem = join.getRightItem();
-        processFromItem(joinItem, scanOperators, tableNames, aliasToTable);
+        processFromItem(joinItem, scanOperators, tableNames, aliasToTable, referencedColumns);
       }
     }
   }
 
-  /** Processes a single table or alias from the FROM clause. */
+  /**
+   * Processes a single table or alias from the FROM clause. Tables in the columnar and compressed
+   * formats are scanned for the referenced columns only.
+   */
   private void processFromItem(
       FromItem fromItem,
       List<Operator> scanOperators,
       List<String> tableNames,
-      Map<String, String> aliasToTable) {
+      Map<String, String> aliasToTable,
+      List<Column> referencedColumns) {
     if (fromItem instanceof Table) {
       Table table = (Table) fromItem;
       String tableName = table.getName();
@@ -142,6 +371,9 @@ public class QueryPlanBuilder {
       }
 
       ArrayList<Column> outputSchema = DBCatalog.getInstance().getSchema(schemaTableName);
+      if (DBCatalog.getInstance().getTableFormat(schemaTableName).supportsColumnPruning()) {
+        outputSchema = pruneSchema(outputSchema, referencedColumns);
+      }
       Operator scanOp = new ScanOperator(outputSchema, schemaTableName, true, null);
       scanOperators.add(scanOp);
       tableNames.add(schemaTableName);
@@ -150,6 +382,156 @@ public class QueryPlanBuilder {
     }
   }
 
+  /**
+   * Creates the join operator for two subplans, using the join algorithm set by JOIN_METHOD. In
+   * auto mode, join conditions equating a column of each side use a hash join, or a sort-merge join
+   * if a side is already sorted on its keys. Conditions comparing a column of each side with an
+   * inequality such as {@code <} or {@code >=} use the inequality join, and others use the block
+   * nested loop join. The hash join spills to disk beyond HASH_JOIN_MEMORY_PAGES, unless that
+   * setting is zero.
+   *
+   * @param left the outer subplan.
+   * @param right the inner subplan.
+   * @param joinExpr the join condition, or null for a cross product.
+   * @return the join operator.
+   */
+  private Operator createJoin(Operator left, Operator right, Expression joinExpr) {
+    DBConfig config = DBConfig.getInstance();
+    switch (config.getJoinMethod()) {
+      case "tnlj":
+        return new JoinOperator(left, right, joinExpr);
+      case "bnlj":
+        return new BlockNestedLoopJoinOperator(
+            left, right, joinExpr, config.getJoinBufferPages());
+      case "auto":
+      case "smj":
+        EquiJoinCondition condition =
+            EquiJoinCondition.split(joinExpr, left.getOutputSchema(), right.getOutputSchema());
+        if (!condition.hasKeys()) {
+          InequalityJoinCondition inequalities =
+              InequalityJoinCondition.split(
+                  joinExpr, left.getOutputSchema(), right.getOutputSchema());
+          if (inequalities.hasBounds()) {
+            return new InequalityJoinOperator(left, right, inequalities);
+          }
+          return new BlockNestedLoopJoinOperator(
+              left, right, joinExpr, config.getJoinBufferPages());
+        }
+        if (config.getJoinMethod().equals("smj")
+            || left.isSortedOn(condition.getLeftKeys())
+            || right.isSortedOn(condition.getRightKeys())) {
+          return new SortMergeJoinOperator(left, right, condition);
+        }
+        boolean buildLeft = chooseBuildLeft(left, right);
+        if (useParallelJoin(buildLeft ? left : right, buildLeft ? right : left)) {
+          return new ParallelHashJoinOperator(
+              left, right, condition, buildLeft, config.getJoinThreads());
+        }
+        if (config.getHashJoinMemoryPages() > 0) {
+          return new HybridHashJoinOperator(
+              left, right, condition, buildLeft, config.getHashJoinMemoryPages());
+        }
+        return new HashJoinOperator(left, right, condition, buildLeft);
+      default:
+        throw new UnsupportedOperationException("Unknown join method: " + config.getJoinMethod());
+    }
+  }
+
+  /**
+   * Creates a Leapfrog Triejoin over all the tables when JOIN_METHOD is auto and their equijoin
+   * graph is cyclic, as for a triangle query. Any order of binary joins may then build
+   * intermediate results much larger than the output, which the multi-way join avoids. Join
+   * conditions that do not equate columns are applied to its output.
+   *
+   * @param tableNames the tables, in FROM clause order.
+   * @param operatorsMap the subplan of each table, with its selections applied.
+   * @param joinConditions the join conditions.
+   * @return the join, or null to build a tree of binary joins instead.
+   */
+  private Operator createMultiwayJoin(
+      List<String> tableNames,
+      Map<String, Operator> operatorsMap,
+      List<Expression> joinConditions) {
+    if (tableNames.size() < 3 || !DBConfig.getInstance().getJoinMethod().equals("auto")) {
+      return null;
+    }
+    List<Operator> inputs = new ArrayList<>();
+    List<ArrayList<Column>> schemas = new ArrayList<>();
+    for (String tableName : tableNames) {
+      inputs.add(operatorsMap.get(tableName));
+      schemas.add(operatorsMap.get(tableName).getOutputSchema());
+    }
+    JoinGraph graph = JoinGraph.build(schemas, joinConditions);
+    if (!graph.isCyclic()) {
+      return null;
+    }
+    Operator join = new LeapfrogTriejoinOperator(inputs, graph);
+    return graph.getResidual() != null ? new SelectOperator(join, graph.getResidual()) : join;
+  }
+
+  /**
+   * Chooses the build side of a hash join: the side set by HASH_JOIN_BUILD_SIDE, or else the side
+   * with fewer estimated rows. Ties go to the right side, which keeps the nested loop output order.
+   *
+   * @return true to build the hash table on the left subplan.
+   */
+  private boolean chooseBuildLeft(Operator left, Operator right) {
+    switch (DBConfig.getInstance().getHashJoinBuildSide()) {
+      case "left":
+        return true;
+      case "right":
+        return false;
+      default:
+        return estimateRows(left) < estimateRows(right);
+    }
+  }
+
+  /**
+   * Whether a hash join is worth running on several threads: JOIN_THREADS allows it, the inputs
+   * hold at least {@link #PARALLEL_JOIN_MIN_ROWS} rows together, and each of them fits in the
+   * memory budget of HASH_JOIN_MEMORY_PAGES. The parallel join does not spill, and reads and
+   * partitions its probe side in memory as well as its build side, so larger inputs are left to the
+   * hybrid hash join.
+   */
+  private boolean useParallelJoin(Operator build, Operator probe) {
+    DBConfig config = DBConfig.getInstance();
+    if (config.getJoinThreads() <= 1) {
+      return false;
+    }
+    long buildRows = estimateRows(build);
+    long probeRows = estimateRows(probe);
+    if (buildRows == Long.MAX_VALUE
+        || probeRows == Long.MAX_VALUE
+        || buildRows + probeRows < PARALLEL_JOIN_MIN_ROWS) {
+      return false;
+    }
+    int memoryPages = config.getHashJoinMemoryPages();
+    return memoryPages <= 0
+        || (fitsMemoryPages(build, buildRows, memoryPages)
+            && fitsMemoryPages(probe, probeRows, memoryPages));
+  }
+
+  /** Whether the given number of rows of an operator fit in a number of pages. */
+  private static boolean fitsMemoryPages(Operator op, long rows, int pages) {
+    return rows <= (long) pages * PageLayout.tuplesPerPage(op.getOutputSchema().size());
+  }
+
+  /**
+   * Estimates the number of rows of a subplan from the sizes of its tables. Selections are
+   * ignored, and a join of several tables is assumed to be about as large as its largest table, as
+   * for joins along foreign keys.
+   *
+   * @return the estimated number of rows, or Long.MAX_VALUE if a table size is unknown.
+   */
+  private long estimateRows(Operator op) {
+    long estimate = 0;
+    for (String tableName : getTablesInOperator(op)) {
+      long rows = DBCatalog.getInstance().getRowCount(tableName);
+      estimate = Math.max(estimate, rows < 0 ? Long.MAX_VALUE : rows);
+    }
+    return estimate;
+  }
+
   /** Combines a list of expressions using AND. */
   private Expression combineExpressions(List<Expression> expressions) {
     if (expressions == null || expressions.isEmpty()) {
@@ -0,0 +1,168 @@
+package common;
+
+import io.CompressedPageLayout;
+import io.PageLayout;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/** On-disk formats a table file can be stored in. */
+public enum TableFormat {
+  /** Human-readable format: one tuple per line, attributes separated by commas. */
+  TEXT,
+  /** Binary format: fixed-size pages of packed ints, each page starting with a small header. */
+  BINARY,
+  /** Columnar format: a directory holding one single-attribute binary file per column. */
+  COLUMNAR,
+  /** Compressed format: pages storing each column separately, in a per-page integer encoding. */
+  COMPRESSED;
+
+  /** Number of bytes at the start of a text table its line length is sampled from. */
+  private static final int TEXT_SAMPLE_BYTES = 64 * 1024;
+
+  /**
+   * Whether a scan of a table in this format can read a subset of the columns for less than the
+   * cost of reading all of them.
+   *
+   * @return true for the formats that store columns separately.
+   */
+  public boolean supportsColumnPruning() {
+    return this == COLUMNAR || this == COMPRESSED;
+  }
+
+  /**
+   * Detects the format of a table file. Columnar tables are directories. Otherwise the first byte
+   * is inspected: text tables always start with a digit or a minus sign, binary pages start with
+   * the big-endian attribute count, whose most significant byte is zero for any realistic schema,
+   * and compressed pages start with a magic number.
+   *
+   * @param file the table file.
+   * @return the detected format; TEXT if the file is missing or empty.
+   */
+  public static TableFormat detect(File file) {
+    if (file.isDirectory()) {
+      return COLUMNAR;
+    }
+    if (!file.isFile() || file.length() == 0) {
+      return TEXT;
+    }
+    try (InputStream in = new FileInputStream(file)) {
+      int first = in.read();
+      if (first == 0) {
+        return BINARY;
+      }
+      return first == CompressedPageLayout.MAGIC >>> 24 ? COMPRESSED : TEXT;
+    } catch (IOException e) {
+      return TEXT;
+    }
+  }
+
+  /**
+   * Counts the tuples stored in a table file of this format. Paged formats only read the tuple
+   * count in the header of each page; text tables are read in full to count their lines. Every
+   * column file of a columnar table holds all of its tuples, so any one of them can be counted.
+   *
+   * @param file the table file, or the binary file of a column for the columnar format.
+   * @return the number of tuples in the table.
+   * @throws IOException if the file cannot be read.
+   */
+  public long countTuples(File file) throws IOException {
+    switch (this) {
+      case BINARY:
+      case COLUMNAR:
+        return countPagedTuples(file, Integer.BYTES);
+      case COMPRESSED:
+        return countPagedTuples(file, 2 * Integer.BYTES);
+      default:
+        return countLines(file);
+    }
+  }
+
+  /**
+   * Estimates the number of tuples stored in a table file of this format, for planning. Paged
+   * formats are counted exactly from their page headers. A text table larger than the sample is
+   * not read in full: its size is divided by the average length of the lines in its first bytes.
+   *
+   * @param file the table file, or the binary file of a column for the columnar format.
+   * @return the estimated number of tuples in the table.
+   * @throws IOException if the file cannot be read.
+   */
+  public long estimateTuples(File file) throws IOException {
+    if (this != TEXT || file.length() <= TEXT_SAMPLE_BYTES) {
+      return countTuples(file);
+    }
+    long lines = 0;
+    long sampled = 0; // Number of bytes up to the end of the last complete line of the sample
+    try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+      boolean lineHasContent = false;
+      int b;
+      for (long position = 0; position < TEXT_SAMPLE_BYTES && (b = in.read()) != -1; position++) {
+        if (b == '\n') {
+          lines += lineHasContent ? 1 : 0;
+          lineHasContent = false;
+          sampled = position + 1;
+        } else if (b != '\r') {
+          lineHasContent = true;
+        }
+      }
+    }
+    if (lines == 0) {
+      return countLines(file); // Lines longer than the sample
+    }
+    return Math.round((double) file.length() * lines / sampled);
+  }
+
+  /**
+   * Sums the tuple counts stored in the page headers of a paged file.
+   *
+   * @param file the file.
+   * @param countOffset the offset of the tuple count within a page.
+   * @return the number of tuples in the file.
+   */
+  private static long countPagedTuples(File file, int countOffset) throws IOException {
+    long count = 0;
+    ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      for (long page = 0; page < channel.size(); page += PageLayout.PAGE_SIZE) {
+        header.clear();
+        while (header.hasRemaining()
+            && channel.read(header, page + countOffset + header.position()) >= 0) {
+          // Keep reading until the count is complete or the end of the file is reached
+        }
+        if (!header.hasRemaining()) {
+          count += header.getInt(0);
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Counts the non-empty lines of a text file.
+   *
+   * @param file the file.
+   * @return the number of lines holding a tuple.
+   */
+  private static long countLines(File file) throws IOException {
+    long count = 0;
+    try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+      boolean lineHasContent = false;
+      int b;
+      while ((b = in.read()) != -1) {
+        if (b == '\n') {
+          count += lineHasContent ? 1 : 0;
+          lineHasContent = false;
+        } else if (b != '\r') {
+          lineHasContent = true;
+        }
+      }
+      count += lineHasContent ? 1 : 0;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,64 @@
+package common;
+
+/**
+ * Number of tuples of a table and range of values of each of its columns, used by the planner to
+ * estimate the size of intermediate results. The ranges come from the zone maps of the table; a
+ * column without a zone map, such as every column of a text table, has an unknown range.
+ */
+public class TableStatistics {
+  private final long rows;
+  private final long[] mins; // Smallest value of each column, or Long.MIN_VALUE if unknown
+  private final long[] maxs; // Largest value of each column, or Long.MAX_VALUE if unknown
+
+  /**
+   * Creates the statistics of a table.
+   *
+   * @param rows the number of tuples.
+   * @param mins the smallest value of each column, or Long.MIN_VALUE if unknown.
+   * @param maxs the largest value of each column, or Long.MAX_VALUE if unknown.
+   */
+  public TableStatistics(long rows, long[] mins, long[] maxs) {
+    this.rows = rows;
+    this.mins = mins;
+    this.maxs = maxs;
+  }
+
+  /**
+   * Returns the number of tuples of the table.
+   *
+   * @return the number of tuples.
+   */
+  public long getRowCount() {
+    return rows;
+  }
+
+  /**
+   * Whether the range of values of a column is known.
+   *
+   * @param column the index of the column in the table schema.
+   * @return true if getMin and getMax bound the values of the column.
+   */
+  public boolean hasRange(int column) {
+    return mins[column] != Long.MIN_VALUE && maxs[column] != Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns the smallest value of a column.
+   *
+   * @param column the index of the column in the table schema.
+   * @return the minimum, or Long.MIN_VALUE if unknown.
+   */
+  public long getMin(int column) {
+    return mins[column];
+  }
+
+  /**
+   * Returns the largest value of a column.
+   *
+   * @param column the index of the column in the table schema.
+   * @return the maximum, or Long.MAX_VALUE if unknown.
+   */
+  public long getMax(int column) {
+    return maxs[column];
+  }
+}
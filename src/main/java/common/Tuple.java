@@ -1,13 +1,15 @@
 package common;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
- * Class to encapsulate functionality about a database tuple. A tuple is an ArrayList of integers.
+ * Class to encapsulate functionality about a database tuple. A tuple is an array of primitive
+ * integers, so reading, comparing and hashing attributes never boxes them.
  */
-public class Tuple {
+public class Tuple implements Comparable<Tuple> {
 
-  ArrayList<Integer> tupleArray;
+  private final int[] values;
 
   /**
    * Creates a tuple using string representation of the tuple. Delimiter between the columns is a
@@ -16,9 +18,10 @@ public class Tuple {
    * @param s String representation of the tuple.
    */
   public Tuple(String s) {
-    tupleArray = new ArrayList<Integer>();
-    for (String attribute : s.split(",")) {
-      tupleArray.add(Integer.parseInt(attribute));
+    String[] attributes = s.split(",");
+    values = new int[attributes.length];
+    for (int i = 0; i < attributes.length; i++) {
+      values[i] = Integer.parseInt(attributes[i]);
     }
   }
 
@@ -28,8 +31,47 @@ public class Tuple {
    * @param elements ArrayList with elements of the tuple, in order
    */
   public Tuple(ArrayList<Integer> elements) {
-    tupleArray = new ArrayList<Integer>();
-    tupleArray.addAll(elements);
+    values = new int[elements.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = elements.get(i);
+    }
+  }
+
+  /**
+   * Creates a tuple backed by the given array. The array is not copied, so the caller must not
+   * modify it afterwards.
+   *
+   * @param values array with elements of the tuple, in order
+   */
+  public Tuple(int[] values) {
+    this.values = values;
+  }
+
+  /**
+   * Creates a tuple holding the attributes of left followed by the attributes of right.
+   *
+   * @param left The tuple providing the first attributes.
+   * @param right The tuple providing the last attributes.
+   * @return the concatenated tuple.
+   */
+  public static Tuple concat(Tuple left, Tuple right) {
+    int[] merged = Arrays.copyOf(left.values, left.values.length + right.values.length);
+    System.arraycopy(right.values, 0, merged, left.values.length, right.values.length);
+    return new Tuple(merged);
+  }
+
+  /**
+   * Creates a tuple holding the attributes at the given indices of this tuple, in that order.
+   *
+   * @param indices The indices of the attributes to keep.
+   * @return the projected tuple.
+   */
+  public Tuple project(int[] indices) {
+    int[] projected = new int[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      projected[i] = values[indices[i]];
+    }
+    return new Tuple(projected);
   }
 
   /**
@@ -39,16 +81,30 @@ public class Tuple {
    * @return Element at index i in the tuple.
    */
   public int getElementAtIndex(int i) {
-    return tupleArray.get(i);
+    return values[i];
   }
 
   /**
-   * Returns a new ArrayList containing all the elements in the tuple.
+   * Returns the number of elements in the tuple.
+   *
+   * @return number of elements in the tuple.
+   */
+  public int size() {
+    return values.length;
+  }
+
+  /**
+   * Returns a new ArrayList containing all the elements in the tuple. This boxes every element, so
+   * operators should use getElementAtIndex instead.
    *
    * @return ArrayList containing the elements in the tuple.
    */
   public ArrayList<Integer> getAllElements() {
-    return new ArrayList<Integer>(tupleArray);
+    ArrayList<Integer> elements = new ArrayList<>(values.length);
+    for (int value : values) {
+      elements.add(value);
+    }
+    return elements;
   }
 
   /**
@@ -59,10 +115,12 @@ public class Tuple {
   @Override
   public String toString() {
     StringBuilder stringRepresentation = new StringBuilder();
-    for (int i = 0; i < tupleArray.size() - 1; i++) {
-      stringRepresentation.append(tupleArray.get(i)).append(",");
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        stringRepresentation.append(",");
+      }
+      stringRepresentation.append(values[i]);
     }
-    stringRepresentation.append(tupleArray.get(tupleArray.size() - 1));
     return stringRepresentation.toString();
   }
 
@@ -72,12 +130,33 @@ public class Tuple {
    */
   @Override
   public boolean equals(Object obj) {
-
-    Tuple temp = (Tuple) obj;
-    if (temp == null) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Tuple)) {
       return false;
     }
+    return Arrays.equals(values, ((Tuple) obj).values);
+  }
 
-    return temp.toString().equals(this.toString());
+  /**
+   * @return A hash code consistent with equals.
+   */
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(values);
+  }
+
+  /**
+   * Compares two tuples attribute by attribute, in order. A tuple that is a prefix of the other
+   * sorts first.
+   *
+   * @param other The tuple to compare with
+   * @return a negative number, zero or a positive number as this tuple sorts before, together with
+   *     or after the other tuple.
+   */
+  @Override
+  public int compareTo(Tuple other) {
+    return Arrays.compare(values, other.values);
   }
 }
@@ -0,0 +1,211 @@
+package common;
+
+/**
+ * A batch of rows stored column by column, the unit of work of the batch execution API. Every
+ * column is an int vector holding one value per row, so operators can process a whole batch with
+ * tight loops over primitive arrays instead of one Tuple object per row.
+ *
+ * <p>A batch carries a selection vector: the ascending indices of the rows that are still part of
+ * the batch. Filtering operators narrow the selection instead of moving values around, and rows
+ * outside it must be ignored by consumers. A batch without a selection vector has every row
+ * selected.
+ */
+public class TupleBatch {
+  /** Number of rows in the batches operators produce. */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private final int[][] columns; // Value of column c for row r at columns[c][r]
+  private final int capacity;
+  private int size; // Number of rows stored
+  private int[] selection; // Indices of the selected rows, or null if every row is selected
+  private int[] selectionBuffer; // Storage reused for the selection vector
+  private int selectedCount; // Number of valid entries in selection
+
+  /**
+   * Creates an empty batch.
+   *
+   * @param width number of columns.
+   * @param capacity maximum number of rows.
+   */
+  public TupleBatch(int width, int capacity) {
+    this.columns = new int[width][capacity];
+    this.capacity = capacity;
+  }
+
+  /**
+   * Creates a batch over existing column vectors.
+   *
+   * @param columns the column vectors, shared with the caller.
+   * @param capacity maximum number of rows.
+   */
+  private TupleBatch(int[][] columns, int capacity) {
+    this.columns = columns;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Creates a view of some columns of this batch, sharing its vectors and selection, so no value is
+   * copied. The view is only valid as long as this batch is.
+   *
+   * @param indices the index of each column of the view in this batch.
+   * @return the view.
+   */
+  public TupleBatch project(int[] indices) {
+    int[][] projected = new int[indices.length][];
+    for (int i = 0; i < indices.length; i++) {
+      projected[i] = columns[indices[i]];
+    }
+    TupleBatch view = new TupleBatch(projected, capacity);
+    view.size = size;
+    view.selection = selection;
+    view.selectedCount = selectedCount;
+    return view;
+  }
+
+  /**
+   * Returns the number of columns.
+   *
+   * @return the width of the batch.
+   */
+  public int getWidth() {
+    return columns.length;
+  }
+
+  /**
+   * Returns the maximum number of rows.
+   *
+   * @return the capacity of the batch.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the number of rows stored, selected or not.
+   *
+   * @return the number of rows.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Whether no more rows can be added.
+   *
+   * @return true if the batch holds as many rows as its capacity.
+   */
+  public boolean isFull() {
+    return size == capacity;
+  }
+
+  /**
+   * Sets the number of rows stored, after their values were written directly in the column
+   * vectors. Every row becomes selected.
+   *
+   * @param size the number of rows.
+   */
+  public void setSize(int size) {
+    this.size = size;
+    this.selection = null;
+  }
+
+  /** Removes every row. */
+  public void clear() {
+    setSize(0);
+  }
+
+  /**
+   * Returns the vector of a column, to read or write values directly.
+   *
+   * @param column the index of the column.
+   * @return the column vector, indexed by row.
+   */
+  public int[] getColumn(int column) {
+    return columns[column];
+  }
+
+  /**
+   * Returns the number of selected rows.
+   *
+   * @return the number of rows in the selection.
+   */
+  public int getSelectedCount() {
+    return selection != null ? selectedCount : size;
+  }
+
+  /**
+   * Returns the row index of a selected row.
+   *
+   * @param i the position of the row in the selection.
+   * @return the index of the row in the column vectors.
+   */
+  public int getSelectedRow(int i) {
+    return selection != null ? selection[i] : i;
+  }
+
+  /**
+   * Returns the selection vector, so it can be narrowed in place. The first getSelectedCount()
+   * entries are the indices of the selected rows; after removing entries, call setSelectedCount.
+   *
+   * @return the selection vector.
+   */
+  public int[] getSelection() {
+    if (selection == null) {
+      if (selectionBuffer == null) {
+        selectionBuffer = new int[capacity];
+      }
+      selection = selectionBuffer;
+      for (int i = 0; i < size; i++) {
+        selection[i] = i;
+      }
+      selectedCount = size;
+    }
+    return selection;
+  }
+
+  /**
+   * Sets the number of selected rows, after the selection vector was narrowed in place.
+   *
+   * @param count the number of valid entries in the selection vector.
+   */
+  public void setSelectedCount(int count) {
+    getSelection();
+    selectedCount = count;
+  }
+
+  /**
+   * Appends a row holding the values of a tuple.
+   *
+   * @param tuple the tuple, as wide as the batch.
+   */
+  public void appendTuple(Tuple tuple) {
+    for (int c = 0; c < columns.length; c++) {
+      columns[c][size] = tuple.getElementAtIndex(c);
+    }
+    setSize(size + 1);
+  }
+
+  /**
+   * Builds a Tuple from a selected row.
+   *
+   * @param i the position of the row in the selection.
+   * @return a new Tuple holding the values of the row.
+   */
+  public Tuple getTuple(int i) {
+    return getTupleAt(getSelectedRow(i));
+  }
+
+  /**
+   * Builds a Tuple from a row, selected or not.
+   *
+   * @param row the index of the row in the column vectors.
+   * @return a new Tuple holding the values of the row.
+   */
+  public Tuple getTupleAt(int row) {
+    int[] values = new int[columns.length];
+    for (int c = 0; c < columns.length; c++) {
+      values[c] = columns[c][row];
+    }
+    return new Tuple(values);
+  }
+}
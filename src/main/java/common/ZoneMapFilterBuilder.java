@@ -0,0 +1,132 @@
+package common;
+
+import io.ZoneMapFilter;
+import java.util.List;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * Translates the selection condition of a single table into a {@link ZoneMapFilter}. Only the
+ * top-level conjuncts comparing a column with a constant (e.g. S.A &lt; 3 or 5 = S.B) narrow the
+ * filter; any other conjunct, such as a disjunction, a comparison of two columns or with a
+ * constant outside the int range, is ignored, which is always safe since the filter only needs to
+ * keep every page that may match.
+ */
+public class ZoneMapFilterBuilder {
+  private final List<Column> columns;
+  private final ZoneMapFilter filter;
+
+  private ZoneMapFilterBuilder(List<Column> columns) {
+    this.columns = columns;
+    this.filter = new ZoneMapFilter(columns.size());
+  }
+
+  /**
+   * Builds the zone map filter of a selection condition.
+   *
+   * @param condition the selection condition on a single table.
+   * @param columns the columns the filter ranges refer to, in index order.
+   * @return the filter, or null if the condition has no conjunct a zone map can check.
+   */
+  public static ZoneMapFilter build(Expression condition, List<Column> columns) {
+    ZoneMapFilterBuilder builder = new ZoneMapFilterBuilder(columns);
+    builder.addConjuncts(condition);
+    return builder.filter.isRestricted() ? builder.filter : null;
+  }
+
+  /**
+   * Narrows the filter with every conjunct of an expression.
+   *
+   * @param expression the expression.
+   */
+  private void addConjuncts(Expression expression) {
+    if (expression instanceof AndExpression and) {
+      addConjuncts(and.getLeftExpression());
+      addConjuncts(and.getRightExpression());
+    } else if (expression instanceof Parenthesis parenthesis) {
+      addConjuncts(parenthesis.getExpression());
+    } else if (expression instanceof BinaryExpression comparison) {
+      Expression left = comparison.getLeftExpression();
+      Expression right = comparison.getRightExpression();
+      if (left instanceof Column column && right instanceof LongValue value) {
+        addComparison(comparison, column, value.getValue(), false);
+      } else if (left instanceof LongValue value && right instanceof Column column) {
+        addComparison(comparison, column, value.getValue(), true);
+      }
+    }
+  }
+
+  /**
+   * Narrows the range of a column according to its comparison with a constant.
+   *
+   * @param comparison the comparison.
+   * @param column the column compared.
+   * @param value the constant compared.
+   * @param flipped whether the constant is on the left-hand side.
+   */
+  private void addComparison(
+      BinaryExpression comparison, Column column, long value, boolean flipped) {
+    int index = indexOf(column);
+    if (index < 0 || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      // The selection compares columns with the constant cast to an int, not with its value
+      return;
+    }
+    long min = Long.MIN_VALUE;
+    long max = Long.MAX_VALUE;
+    if (comparison instanceof EqualsTo) {
+      min = value;
+      max = value;
+    } else if (comparison instanceof MinorThan) {
+      if (flipped) {
+        min = value + 1;
+      } else {
+        max = value - 1;
+      }
+    } else if (comparison instanceof MinorThanEquals) {
+      if (flipped) {
+        min = value;
+      } else {
+        max = value;
+      }
+    } else if (comparison instanceof GreaterThan) {
+      if (flipped) {
+        max = value - 1;
+      } else {
+        min = value + 1;
+      }
+    } else if (comparison instanceof GreaterThanEquals) {
+      if (flipped) {
+        max = value;
+      } else {
+        min = value;
+      }
+    } else {
+      return;
+    }
+    filter.restrict(index, min, max);
+  }
+
+  /**
+   * Finds the index of a column, matched by name.
+   *
+   * @param column the column.
+   * @return the index of the column, or -1 if the filter has no such column.
+   */
+  private int indexOf(Column column) {
+    for (int i = 0; i < columns.size(); i++) {
+      if (columns.get(i).getColumnName().equals(column.getColumnName())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -2,6 +2,8 @@ package compiler;
 
 import common.DBCatalog;
 import common.QueryPlanBuilder;
+import io.BufferPool;
+import io.SpillFiles;
 import java.io.File;
 import java.io.PrintStream;
 import java.nio.file.Files;
@@ -51,8 +53,10 @@ public class Compiler {
 
         logger.info("Processing query: " + statement);
 
+        Operator plan = null;
         try {
-          Operator plan = queryPlanBuilder.buildPlan(statement);
+          BufferPool.getInstance().resetStatistics();
+          plan = queryPlanBuilder.buildPlan(statement);
 
           if (outputToFiles) {
             File outfile = new File(outputDir + "/query" + counter);
@@ -60,8 +64,21 @@ public class Compiler {
           } else {
             plan.dump(System.out);
           }
+          logger.info(
+              "Buffer pool: "
+                  + BufferPool.getInstance().getHits()
+                  + " hits, "
+                  + BufferPool.getInstance().getMisses()
+                  + " misses, "
+                  + BufferPool.getInstance().getEvictions()
+                  + " evictions");
         } catch (Exception e) {
           logger.error(e.getMessage());
+        } finally {
+          if (plan != null) {
+            plan.close(); // Unpins the pages of scans a LIMIT stopped early
+          }
+          SpillFiles.deleteAll(); // Runs kept for resets, and those of failed queries
         }
 
         ++counter;
@@ -0,0 +1,193 @@
+package expression;
+
+import common.TupleBatch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.arithmetic.Addition;
+import net.sf.jsqlparser.expression.operators.arithmetic.Division;
+import net.sf.jsqlparser.expression.operators.arithmetic.Multiplication;
+import net.sf.jsqlparser.expression.operators.arithmetic.Subtraction;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * An integer expression compiled for evaluation over a {@link TupleBatch}. Column references are
+ * resolved to column indices once, at compile time, and every node evaluates the whole set of
+ * selected rows in one loop, instead of walking the expression tree once per row like {@link
+ * ExpressionEvaluator}. Expressions the compiler does not know fall back to ExpressionEvaluator.
+ */
+public abstract class BatchExpression {
+
+  /**
+   * Evaluates the expression for some rows of a batch.
+   *
+   * @param batch the batch.
+   * @param rows the indices of the rows to evaluate.
+   * @param count the number of rows to evaluate.
+   * @param out array receiving the value for rows[i] at index i.
+   */
+  public abstract void evaluate(TupleBatch batch, int[] rows, int count, int[] out);
+
+  /**
+   * Compiles an expression over the given schema.
+   *
+   * @param expression the expression.
+   * @param schema the schema of the batches it will be evaluated over.
+   * @return the compiled expression.
+   */
+  public static BatchExpression compile(Expression expression, ArrayList<Column> schema) {
+    if (expression instanceof Column column) {
+      return new ColumnReference(columnIndex(schema, column));
+    } else if (expression instanceof LongValue value) {
+      return new Constant((int) value.getValue());
+    } else if (expression instanceof Parenthesis parenthesis) {
+      return compile(parenthesis.getExpression(), schema);
+    } else if (expression instanceof Addition addition) {
+      return new Arithmetic(addition, schema, '+');
+    } else if (expression instanceof Subtraction subtraction) {
+      return new Arithmetic(subtraction, schema, '-');
+    } else if (expression instanceof Multiplication multiplication) {
+      return new Arithmetic(multiplication, schema, '*');
+    } else if (expression instanceof Division division) {
+      return new Arithmetic(division, schema, '/');
+    }
+    return new Interpreted(expression, schema);
+  }
+
+  /**
+   * Retrieves the index of a column in a schema, matching the table name when one is given.
+   *
+   * @param schema the schema.
+   * @param column the column.
+   * @return the index of the column in the schema.
+   * @throws RuntimeException If the column is not found in the schema.
+   */
+  static int columnIndex(ArrayList<Column> schema, Column column) {
+    String tableName = column.getTable() != null ? column.getTable().getName() : null;
+    String columnName = column.getColumnName();
+    for (int i = 0; i < schema.size(); i++) {
+      Column col = schema.get(i);
+      String colTableName = col.getTable() != null ? col.getTable().getName() : null;
+      if ((tableName == null || tableName.equals(colTableName))
+          && columnName.equals(col.getColumnName())) {
+        return i;
+      }
+    }
+    throw new RuntimeException(
+        "Column not found: " + (tableName != null ? tableName + "." : "") + columnName);
+  }
+
+  /**
+   * Grows a scratch array so it can hold the given number of values.
+   *
+   * @param scratch the current array, or null.
+   * @param count the number of values needed.
+   * @return an array of at least count entries.
+   */
+  static int[] ensureCapacity(int[] scratch, int count) {
+    return scratch != null && scratch.length >= count
+        ? scratch
+        : new int[Math.max(count, TupleBatch.DEFAULT_CAPACITY)];
+  }
+
+  /** A reference to a column of the batch. */
+  static final class ColumnReference extends BatchExpression {
+    final int column;
+
+    ColumnReference(int column) {
+      this.column = column;
+    }
+
+    @Override
+    public void evaluate(TupleBatch batch, int[] rows, int count, int[] out) {
+      int[] values = batch.getColumn(column);
+      for (int i = 0; i < count; i++) {
+        out[i] = values[rows[i]];
+      }
+    }
+  }
+
+  /** An integer literal. */
+  static final class Constant extends BatchExpression {
+    final int value;
+
+    Constant(int value) {
+      this.value = value;
+    }
+
+    @Override
+    public void evaluate(TupleBatch batch, int[] rows, int count, int[] out) {
+      Arrays.fill(out, 0, count, value);
+    }
+  }
+
+  /**
+   * An arithmetic operation on two sub-expressions. The operator is switched on once per batch,
+   * so each loop body is a single primitive operation.
+   */
+  private static final class Arithmetic extends BatchExpression {
+    private final BatchExpression left;
+    private final BatchExpression right;
+    private final char operation;
+    private int[] rightValues;
+
+    Arithmetic(BinaryExpression expression, ArrayList<Column> schema, char operation) {
+      this.left = compile(expression.getLeftExpression(), schema);
+      this.right = compile(expression.getRightExpression(), schema);
+      this.operation = operation;
+    }
+
+    @Override
+    public void evaluate(TupleBatch batch, int[] rows, int count, int[] out) {
+      rightValues = ensureCapacity(rightValues, count);
+      left.evaluate(batch, rows, count, out);
+      right.evaluate(batch, rows, count, rightValues);
+      int[] r = rightValues;
+      switch (operation) {
+        case '+' -> {
+          for (int i = 0; i < count; i++) {
+            out[i] += r[i];
+          }
+        }
+        case '-' -> {
+          for (int i = 0; i < count; i++) {
+            out[i] -= r[i];
+          }
+        }
+        case '*' -> {
+          for (int i = 0; i < count; i++) {
+            out[i] *= r[i];
+          }
+        }
+        default -> {
+          for (int i = 0; i < count; i++) {
+            out[i] /= r[i];
+          }
+        }
+      }
+    }
+  }
+
+  /** Any other expression, evaluated row by row by an ExpressionEvaluator. */
+  private static final class Interpreted extends BatchExpression {
+    private final Expression expression;
+    private final ArrayList<Column> schema;
+
+    Interpreted(Expression expression, ArrayList<Column> schema) {
+      this.expression = expression;
+      this.schema = schema;
+    }
+
+    @Override
+    public void evaluate(TupleBatch batch, int[] rows, int count, int[] out) {
+      for (int i = 0; i < count; i++) {
+        ExpressionEvaluator evaluator = new ExpressionEvaluator(batch.getTupleAt(rows[i]), schema);
+        expression.accept(evaluator);
+        out[i] = evaluator.getValue();
+      }
+    }
+  }
+}
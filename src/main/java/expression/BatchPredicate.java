@@ -0,0 +1,256 @@
+package expression;
+
+import common.TupleBatch;
+import java.util.ArrayList;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * A condition compiled for evaluation over a {@link TupleBatch}. Applying it narrows a selection
+ * vector to the rows that satisfy the condition: a conjunction filters with its left side and then
+ * only evaluates its right side on the surviving rows, and a comparison evaluates both operands for
+ * all rows before comparing them in a single branch-free loop. Conditions the compiler does not
+ * know fall back to {@link ExpressionVisitorImpl}, so results match tuple-at-a-time evaluation.
+ */
+public abstract class BatchPredicate {
+  private static final int EQ = 0;
+  private static final int NE = 1;
+  private static final int LT = 2;
+  private static final int LE = 3;
+  private static final int GT = 4;
+  private static final int GE = 5;
+
+  /**
+   * Keeps the rows satisfying the condition, in place.
+   *
+   * @param batch the batch.
+   * @param rows the indices of the candidate rows; satisfying rows are moved to the front, in
+   *     order.
+   * @param count the number of candidate rows.
+   * @return the number of rows satisfying the condition.
+   */
+  public abstract int filter(TupleBatch batch, int[] rows, int count);
+
+  /**
+   * Narrows the selection of a batch to the rows satisfying the condition.
+   *
+   * @param batch the batch.
+   * @return the number of rows still selected.
+   */
+  public int filter(TupleBatch batch) {
+    int count = filter(batch, batch.getSelection(), batch.getSelectedCount());
+    batch.setSelectedCount(count);
+    return count;
+  }
+
+  /**
+   * Compiles a condition over the given schema.
+   *
+   * @param condition the condition.
+   * @param schema the schema of the batches it will be evaluated over.
+   * @return the compiled condition.
+   */
+  public static BatchPredicate compile(Expression condition, ArrayList<Column> schema) {
+    if (condition instanceof AndExpression and) {
+      return new Conjunction(
+          compile(and.getLeftExpression(), schema), compile(and.getRightExpression(), schema));
+    } else if (condition instanceof Parenthesis parenthesis) {
+      return compile(parenthesis.getExpression(), schema);
+    } else if (condition instanceof EqualsTo equalsTo) {
+      return new Comparison(equalsTo, EQ, schema);
+    } else if (condition instanceof NotEqualsTo notEqualsTo) {
+      return new Comparison(notEqualsTo, NE, schema);
+    } else if (condition instanceof MinorThan minorThan) {
+      return new Comparison(minorThan, LT, schema);
+    } else if (condition instanceof MinorThanEquals minorThanEquals) {
+      return new Comparison(minorThanEquals, LE, schema);
+    } else if (condition instanceof GreaterThan greaterThan) {
+      return new Comparison(greaterThan, GT, schema);
+    } else if (condition instanceof GreaterThanEquals greaterThanEquals) {
+      return new Comparison(greaterThanEquals, GE, schema);
+    }
+    return new Interpreted(condition, schema);
+  }
+
+  /** A conjunction of two conditions. */
+  private static final class Conjunction extends BatchPredicate {
+    private final BatchPredicate left;
+    private final BatchPredicate right;
+
+    Conjunction(BatchPredicate left, BatchPredicate right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public int filter(TupleBatch batch, int[] rows, int count) {
+      return right.filter(batch, rows, left.filter(batch, rows, count));
+    }
+  }
+
+  /** A comparison of two integer expressions. */
+  private static final class Comparison extends BatchPredicate {
+    private final BatchExpression left;
+    private final BatchExpression right;
+    private final int operator;
+    private int[] leftValues;
+    private int[] rightValues;
+
+    Comparison(BinaryExpression comparison, int operator, ArrayList<Column> schema) {
+      BatchExpression l = BatchExpression.compile(comparison.getLeftExpression(), schema);
+      BatchExpression r = BatchExpression.compile(comparison.getRightExpression(), schema);
+      if (l instanceof BatchExpression.Constant && !(r instanceof BatchExpression.Constant)) {
+        // Keep the constant on the right, where it is compared without being expanded
+        this.left = r;
+        this.right = l;
+        this.operator = mirror(operator);
+      } else {
+        this.left = l;
+        this.right = r;
+        this.operator = operator;
+      }
+    }
+
+    /** Returns the operator that gives the same result with the operands swapped. */
+    private static int mirror(int operator) {
+      return switch (operator) {
+        case LT -> GT;
+        case LE -> GE;
+        case GT -> LT;
+        case GE -> LE;
+        default -> operator;
+      };
+    }
+
+    @Override
+    public int filter(TupleBatch batch, int[] rows, int count) {
+      leftValues = BatchExpression.ensureCapacity(leftValues, count);
+      left.evaluate(batch, rows, count, leftValues);
+      if (right instanceof BatchExpression.Constant constant) {
+        return filterConstant(leftValues, constant.value, rows, count);
+      }
+      rightValues = BatchExpression.ensureCapacity(rightValues, count);
+      right.evaluate(batch, rows, count, rightValues);
+      return filterVector(leftValues, rightValues, rows, count);
+    }
+
+    private int filterConstant(int[] a, int b, int[] rows, int count) {
+      int kept = 0;
+      switch (operator) {
+        case EQ -> {
+          for (int i = 0; i < count; i++) {
+            rows[kept] = rows[i];
+            kept += a[i] == b ? 1 : 0;
+          }
+        }
+        case NE -> {
+          for (int i = 0; i < count; i++) {
+            rows[kept] = rows[i];
+            kept += a[i] != b ? 1 : 0;
+          }
+        }
+        case LT -> {
+          for (int i = 0; i < count; i++) {
+            rows[kept] = rows[i];
+            kept += a[i] < b ? 1 : 0;
+          }
+        }
+        case LE -> {
+          for (int i = 0; i < count; i++) {
+            rows[kept] = rows[i];
+            kept += a[i] <= b ? 1 : 0;
+          }
+        }
+        case GT -> {
+          for (int i = 0; i < count; i++) {
+            rows[kept] = rows[i];
+            kept += a[i] > b ? 1 : 0;
+          }
+        }
+        default -> {
+          for (int i = 0; i < count; i++) {
+            rows[kept] = rows[i];
+            kept += a[i] >= b ? 1 : 0;
+          }
+        }
+      }
+      return kept;
+    }
+
+    private int filterVector(int[] a, int[] b, int[] rows, int count) {
+      int kept = 0;
+      switch (operator) {
+        case EQ -> {
+          for (int i = 0; i < count; i++) {
+            rows[kept] = rows[i];
+            kept += a[i] == b[i] ? 1 : 0;
+          }
+        }
+        case NE -> {
+          for (int i = 0; i < count; i++) {
+            rows[kept] = rows[i];
+            kept += a[i] != b[i] ? 1 : 0;
+          }
+        }
+        case LT -> {
+          for (int i = 0; i < count; i++) {
+            rows[kept] = rows[i];
+            kept += a[i] < b[i] ? 1 : 0;
+          }
+        }
+        case LE -> {
+          for (int i = 0; i < count; i++) {
+            rows[kept] = rows[i];
+            kept += a[i] <= b[i] ? 1 : 0;
+          }
+        }
+        case GT -> {
+          for (int i = 0; i < count; i++) {
+            rows[kept] = rows[i];
+            kept += a[i] > b[i] ? 1 : 0;
+          }
+        }
+        default -> {
+          for (int i = 0; i < count; i++) {
+            rows[kept] = rows[i];
+            kept += a[i] >= b[i] ? 1 : 0;
+          }
+        }
+      }
+      return kept;
+    }
+  }
+
+  /** Any other condition, evaluated row by row by an ExpressionVisitorImpl. */
+  private static final class Interpreted extends BatchPredicate {
+    private final Expression condition;
+    private final ArrayList<Column> schema;
+
+    Interpreted(Expression condition, ArrayList<Column> schema) {
+      this.condition = condition;
+      this.schema = schema;
+    }
+
+    @Override
+    public int filter(TupleBatch batch, int[] rows, int count) {
+      int kept = 0;
+      for (int i = 0; i < count; i++) {
+        ExpressionVisitorImpl visitor =
+            new ExpressionVisitorImpl(batch.getTupleAt(rows[i]), schema);
+        if (visitor.evaluate(condition)) {
+          rows[kept++] = rows[i];
+        }
+      }
+      return kept;
+    }
+  }
+}
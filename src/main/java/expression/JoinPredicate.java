@@ -0,0 +1,407 @@
+package expression;
+
+import common.Tuple;
+import common.TupleBatch;
+import java.util.ArrayList;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.arithmetic.Addition;
+import net.sf.jsqlparser.expression.operators.arithmetic.Division;
+import net.sf.jsqlparser.expression.operators.arithmetic.Multiplication;
+import net.sf.jsqlparser.expression.operators.arithmetic.Subtraction;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * A join condition compiled for evaluation over a pair of tuples, one from each input of a join,
+ * without concatenating them first. Every column reference is resolved once, at compile time, to a
+ * side and an index within the tuples of that side, so evaluating the condition on a pair only
+ * reads the attributes it needs, and a joined tuple need only be built for the pairs that satisfy
+ * the condition. Conditions the compiler does not know fall back to {@link ExpressionVisitorImpl}
+ * over the concatenated pair, so results match the evaluation over joined tuples.
+ *
+ * <p>In batch mode, the condition is evaluated for one outer tuple, given as a row of column
+ * vectors, against a set of rows of an inner batch, narrowing the set to the matching rows.
+ */
+public abstract class JoinPredicate {
+  private static final int EQ = 0;
+  private static final int NE = 1;
+  private static final int LT = 2;
+  private static final int LE = 3;
+  private static final int GT = 4;
+  private static final int GE = 5;
+
+  /**
+   * Evaluates the condition on a pair of tuples.
+   *
+   * @param left the tuple of the left input.
+   * @param right the tuple of the right input.
+   * @return true if the joined pair satisfies the condition.
+   */
+  public abstract boolean test(Tuple left, Tuple right);
+
+  /**
+   * Keeps the inner rows that satisfy the condition when paired with an outer tuple, in place.
+   *
+   * @param left the column vectors holding the outer tuple.
+   * @param leftRow the index of the outer tuple in the column vectors.
+   * @param right the inner batch.
+   * @param rows the indices of the candidate inner rows; satisfying rows are moved to the front, in
+   *     order.
+   * @param count the number of candidate rows.
+   * @return the number of rows satisfying the condition.
+   */
+  public abstract int filter(int[][] left, int leftRow, TupleBatch right, int[] rows, int count);
+
+  /**
+   * Compiles a join condition over the schemas of the two inputs of a join.
+   *
+   * @param condition the condition.
+   * @param leftSchema the schema of the left input.
+   * @param rightSchema the schema of the right input.
+   * @return the compiled condition.
+   */
+  public static JoinPredicate compile(
+      Expression condition, ArrayList<Column> leftSchema, ArrayList<Column> rightSchema) {
+    if (condition instanceof AndExpression and) {
+      return new Conjunction(
+          compile(and.getLeftExpression(), leftSchema, rightSchema),
+          compile(and.getRightExpression(), leftSchema, rightSchema));
+    } else if (condition instanceof Parenthesis parenthesis) {
+      return compile(parenthesis.getExpression(), leftSchema, rightSchema);
+    }
+    int operator;
+    if (condition instanceof EqualsTo) {
+      operator = EQ;
+    } else if (condition instanceof NotEqualsTo) {
+      operator = NE;
+    } else if (condition instanceof MinorThan) {
+      operator = LT;
+    } else if (condition instanceof MinorThanEquals) {
+      operator = LE;
+    } else if (condition instanceof GreaterThan) {
+      operator = GT;
+    } else if (condition instanceof GreaterThanEquals) {
+      operator = GE;
+    } else {
+      return new Interpreted(condition, leftSchema, rightSchema);
+    }
+    BinaryExpression comparison = (BinaryExpression) condition;
+    return new Comparison(
+        PairExpression.compile(comparison.getLeftExpression(), leftSchema, rightSchema),
+        PairExpression.compile(comparison.getRightExpression(), leftSchema, rightSchema),
+        operator);
+  }
+
+  /** Applies a comparison operator. */
+  private static boolean compare(int operator, int a, int b) {
+    return switch (operator) {
+      case EQ -> a == b;
+      case NE -> a != b;
+      case LT -> a < b;
+      case LE -> a <= b;
+      case GT -> a > b;
+      default -> a >= b;
+    };
+  }
+
+  /** Builds the joined tuple of an outer tuple held in column vectors and a row of a batch. */
+  private static Tuple concat(int[][] left, int leftRow, TupleBatch right, int rightRow) {
+    int[] values = new int[left.length + right.getWidth()];
+    for (int c = 0; c < left.length; c++) {
+      values[c] = left[c][leftRow];
+    }
+    for (int c = 0; c < right.getWidth(); c++) {
+      values[left.length + c] = right.getColumn(c)[rightRow];
+    }
+    return new Tuple(values);
+  }
+
+  /** A conjunction of two conditions. */
+  private static final class Conjunction extends JoinPredicate {
+    private final JoinPredicate left;
+    private final JoinPredicate right;
+
+    Conjunction(JoinPredicate left, JoinPredicate right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public boolean test(Tuple l, Tuple r) {
+      return left.test(l, r) && right.test(l, r);
+    }
+
+    @Override
+    public int filter(int[][] l, int leftRow, TupleBatch r, int[] rows, int count) {
+      return right.filter(l, leftRow, r, rows, left.filter(l, leftRow, r, rows, count));
+    }
+  }
+
+  /** A comparison of two integer expressions. */
+  private static final class Comparison extends JoinPredicate {
+    private final PairExpression left;
+    private final PairExpression right;
+    private final int operator;
+    private int[] leftValues;
+    private int[] rightValues;
+
+    Comparison(PairExpression left, PairExpression right, int operator) {
+      this.left = left;
+      this.right = right;
+      this.operator = operator;
+    }
+
+    @Override
+    public boolean test(Tuple l, Tuple r) {
+      return compare(operator, left.value(l, r), right.value(l, r));
+    }
+
+    @Override
+    public int filter(int[][] l, int leftRow, TupleBatch r, int[] rows, int count) {
+      leftValues = BatchExpression.ensureCapacity(leftValues, count);
+      rightValues = BatchExpression.ensureCapacity(rightValues, count);
+      left.evaluate(l, leftRow, r, rows, count, leftValues);
+      right.evaluate(l, leftRow, r, rows, count, rightValues);
+      int kept = 0;
+      for (int i = 0; i < count; i++) {
+        rows[kept] = rows[i];
+        kept += compare(operator, leftValues[i], rightValues[i]) ? 1 : 0;
+      }
+      return kept;
+    }
+  }
+
+  /** Any other condition, evaluated on the joined tuple by an ExpressionVisitorImpl. */
+  private static final class Interpreted extends JoinPredicate {
+    private final Expression condition;
+    private final ArrayList<Column> schema;
+
+    Interpreted(Expression condition, ArrayList<Column> leftSchema, ArrayList<Column> rightSchema) {
+      this.condition = condition;
+      this.schema = new ArrayList<>(leftSchema);
+      this.schema.addAll(rightSchema);
+    }
+
+    @Override
+    public boolean test(Tuple l, Tuple r) {
+      return new ExpressionVisitorImpl(Tuple.concat(l, r), schema).evaluate(condition);
+    }
+
+    @Override
+    public int filter(int[][] l, int leftRow, TupleBatch r, int[] rows, int count) {
+      int kept = 0;
+      for (int i = 0; i < count; i++) {
+        ExpressionVisitorImpl visitor =
+            new ExpressionVisitorImpl(concat(l, leftRow, r, rows[i]), schema);
+        if (visitor.evaluate(condition)) {
+          rows[kept++] = rows[i];
+        }
+      }
+      return kept;
+    }
+  }
+
+  /** An integer expression over a pair of tuples. */
+  private abstract static class PairExpression {
+    /** Evaluates the expression on a pair of tuples. */
+    abstract int value(Tuple left, Tuple right);
+
+    /** Evaluates the expression for an outer tuple paired with some rows of an inner batch. */
+    abstract void evaluate(
+        int[][] left, int leftRow, TupleBatch right, int[] rows, int count, int[] out);
+
+    static PairExpression compile(
+        Expression expression, ArrayList<Column> leftSchema, ArrayList<Column> rightSchema) {
+      if (expression instanceof Column column) {
+        int index = indexOf(leftSchema, column);
+        if (index >= 0) {
+          return new LeftColumn(index);
+        }
+        index = indexOf(rightSchema, column);
+        if (index >= 0) {
+          return new RightColumn(index);
+        }
+        throw new RuntimeException("Column not found: " + column);
+      } else if (expression instanceof LongValue value) {
+        return new Constant((int) value.getValue());
+      } else if (expression instanceof Parenthesis parenthesis) {
+        return compile(parenthesis.getExpression(), leftSchema, rightSchema);
+      } else if (expression instanceof Addition
+          || expression instanceof Subtraction
+          || expression instanceof Multiplication
+          || expression instanceof Division) {
+        return new Arithmetic((BinaryExpression) expression, leftSchema, rightSchema);
+      }
+      return new InterpretedExpression(expression, leftSchema, rightSchema);
+    }
+
+    /**
+     * Finds a column in a schema, matching the table name when the column has one.
+     *
+     * @return the index of the column, or -1 if the schema does not contain it.
+     */
+    private static int indexOf(ArrayList<Column> schema, Column column) {
+      String tableName = column.getTable() != null ? column.getTable().getName() : null;
+      for (int i = 0; i < schema.size(); i++) {
+        Column col = schema.get(i);
+        String colTableName = col.getTable() != null ? col.getTable().getName() : null;
+        if ((tableName == null || tableName.equals(colTableName))
+            && column.getColumnName().equals(col.getColumnName())) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /** A column of the left tuple, which is the same for every inner row. */
+  private static final class LeftColumn extends PairExpression {
+    private final int column;
+
+    LeftColumn(int column) {
+      this.column = column;
+    }
+
+    @Override
+    int value(Tuple left, Tuple right) {
+      return left.getElementAtIndex(column);
+    }
+
+    @Override
+    void evaluate(int[][] left, int leftRow, TupleBatch right, int[] rows, int count, int[] out) {
+      int value = left[column][leftRow];
+      for (int i = 0; i < count; i++) {
+        out[i] = value;
+      }
+    }
+  }
+
+  /** A column of the right tuple. */
+  private static final class RightColumn extends PairExpression {
+    private final int column;
+
+    RightColumn(int column) {
+      this.column = column;
+    }
+
+    @Override
+    int value(Tuple left, Tuple right) {
+      return right.getElementAtIndex(column);
+    }
+
+    @Override
+    void evaluate(int[][] left, int leftRow, TupleBatch right, int[] rows, int count, int[] out) {
+      int[] values = right.getColumn(column);
+      for (int i = 0; i < count; i++) {
+        out[i] = values[rows[i]];
+      }
+    }
+  }
+
+  /** An integer literal. */
+  private static final class Constant extends PairExpression {
+    private final int value;
+
+    Constant(int value) {
+      this.value = value;
+    }
+
+    @Override
+    int value(Tuple left, Tuple right) {
+      return value;
+    }
+
+    @Override
+    void evaluate(int[][] left, int leftRow, TupleBatch right, int[] rows, int count, int[] out) {
+      for (int i = 0; i < count; i++) {
+        out[i] = value;
+      }
+    }
+  }
+
+  /** An arithmetic operation on two sub-expressions. */
+  private static final class Arithmetic extends PairExpression {
+    private final PairExpression left;
+    private final PairExpression right;
+    private final char operation;
+    private int[] rightValues;
+
+    Arithmetic(
+        BinaryExpression expression, ArrayList<Column> leftSchema, ArrayList<Column> rightSchema) {
+      this.left = compile(expression.getLeftExpression(), leftSchema, rightSchema);
+      this.right = compile(expression.getRightExpression(), leftSchema, rightSchema);
+      if (expression instanceof Addition) {
+        this.operation = '+';
+      } else if (expression instanceof Subtraction) {
+        this.operation = '-';
+      } else if (expression instanceof Multiplication) {
+        this.operation = '*';
+      } else {
+        this.operation = '/';
+      }
+    }
+
+    private int apply(int a, int b) {
+      return switch (operation) {
+        case '+' -> a + b;
+        case '-' -> a - b;
+        case '*' -> a * b;
+        default -> a / b;
+      };
+    }
+
+    @Override
+    int value(Tuple l, Tuple r) {
+      return apply(left.value(l, r), right.value(l, r));
+    }
+
+    @Override
+    void evaluate(int[][] l, int leftRow, TupleBatch r, int[] rows, int count, int[] out) {
+      rightValues = BatchExpression.ensureCapacity(rightValues, count);
+      left.evaluate(l, leftRow, r, rows, count, out);
+      right.evaluate(l, leftRow, r, rows, count, rightValues);
+      for (int i = 0; i < count; i++) {
+        out[i] = apply(out[i], rightValues[i]);
+      }
+    }
+  }
+
+  /** Any other expression, evaluated on the joined tuple by an ExpressionEvaluator. */
+  private static final class InterpretedExpression extends PairExpression {
+    private final Expression expression;
+    private final ArrayList<Column> schema;
+
+    InterpretedExpression(
+        Expression expression, ArrayList<Column> leftSchema, ArrayList<Column> rightSchema) {
+      this.expression = expression;
+      this.schema = new ArrayList<>(leftSchema);
+      this.schema.addAll(rightSchema);
+    }
+
+    @Override
+    int value(Tuple left, Tuple right) {
+      ExpressionEvaluator evaluator = new ExpressionEvaluator(Tuple.concat(left, right), schema);
+      expression.accept(evaluator);
+      return evaluator.getValue();
+    }
+
+    @Override
+    void evaluate(int[][] left, int leftRow, TupleBatch right, int[] rows, int count, int[] out) {
+      for (int i = 0; i < count; i++) {
+        ExpressionEvaluator evaluator =
+            new ExpressionEvaluator(concat(left, leftRow, right, rows[i]), schema);
+        expression.accept(evaluator);
+        out[i] = evaluator.getValue();
+      }
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package io;
+
+import common.Tuple;
+import common.TupleBatch;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads tuples from a table stored in the binary page format described in {@link PageLayout}. Pages
+ * are pinned one at a time in the shared {@link BufferPool}, through a {@link PageSource} that may
+ * read them ahead, and attributes are decoded with absolute reads so no text parsing is involved.
+ * Given a {@link ZoneMapFilter}, the reader skips the pages the table's zone map rules out.
+ */
+public class BinaryTupleReader implements TupleReader {
+  private final PageSource source;
+  private final BufferPool pool;
+
+  private Page page; // Page currently pinned, or null
+  private int numAttributes; // Attributes per tuple on the current page
+  private int tuplesInPage; // Number of tuples on the current page
+  private int nextTupleInPage; // Index of the next tuple to return from the current page
+
+  /**
+   * Opens a reader on the given binary table file.
+   *
+   * @param file the table file.
+   */
+  public BinaryTupleReader(File file) {
+    this(file, null);
+  }
+
+  /**
+   * Opens a reader on the given binary table file that skips pages ruled out by a filter.
+   *
+   * @param file the table file.
+   * @param filter ranges of the columns of the table, or null to read every page.
+   */
+  public BinaryTupleReader(File file, ZoneMapFilter filter) {
+    this(PageSource.open(file, filter != null ? filter.pagesOf(ZoneMap.load(file)) : null));
+  }
+
+  private BinaryTupleReader(PageSource source) {
+    this.source = source;
+    this.pool = BufferPool.getInstance();
+  }
+
+  /**
+   * Opens a reader on the given binary table file that starts at a page, skipping the pages before
+   * it without reading them. Resetting the reader goes back to that page.
+   *
+   * @param file the table file.
+   * @param firstPage the index of the first page to read.
+   * @return the reader.
+   */
+  public static BinaryTupleReader startingAt(File file, long firstPage) {
+    return new BinaryTupleReader(PageSource.open(file, page -> page >= firstPage));
+  }
+
+  /**
+   * Pins the next page of the file, releasing the current one.
+   *
+   * @return true if a page was pinned, false if the end of the file is reached.
+   * @throws IOException if the file cannot be read.
+   */
+  private boolean readPage() throws IOException {
+    releasePage();
+    page = source.nextPage();
+    if (page == null) {
+      return false;
+    }
+    if (page.getLength() < PageLayout.HEADER_SIZE) {
+      releasePage();
+      return false;
+    }
+    numAttributes = page.getInt(0);
+    tuplesInPage = page.getInt(Integer.BYTES);
+    nextTupleInPage = 0;
+    return true;
+  }
+
+  /** Unpins the current page, if any. */
+  private void releasePage() {
+    if (page != null) {
+      pool.unpin(page);
+      page = null;
+    }
+  }
+
+  @Override
+  public Tuple readNextTuple() throws IOException {
+    while (nextTupleInPage >= tuplesInPage) {
+      if (!readPage()) {
+        return null;
+      }
+    }
+
+    int offset = PageLayout.HEADER_SIZE + nextTupleInPage * numAttributes * Integer.BYTES;
+    int[] values = new int[numAttributes];
+    for (int i = 0; i < numAttributes; i++) {
+      values[i] = page.getInt(offset + i * Integer.BYTES);
+    }
+    nextTupleInPage++;
+    return new Tuple(values);
+  }
+
+  @Override
+  public int readBatch(TupleBatch batch) throws IOException {
+    int start = batch.size();
+    while (!batch.isFull()) {
+      while (nextTupleInPage >= tuplesInPage) {
+        if (!readPage()) {
+          return batch.size() - start;
+        }
+      }
+      int size = batch.size();
+      int count = Math.min(tuplesInPage - nextTupleInPage, batch.getCapacity() - size);
+      int rowBytes = numAttributes * Integer.BYTES;
+      for (int c = 0; c < numAttributes; c++) {
+        int[] column = batch.getColumn(c);
+        int offset = PageLayout.HEADER_SIZE + nextTupleInPage * rowBytes + c * Integer.BYTES;
+        for (int r = 0; r < count; r++) {
+          column[size + r] = page.getInt(offset);
+          offset += rowBytes;
+        }
+      }
+      batch.setSize(size + count);
+      nextTupleInPage += count;
+    }
+    return batch.size() - start;
+  }
+
+  @Override
+  public void reset() {
+    releasePage();
+    source.reset();
+    tuplesInPage = 0;
+    nextTupleInPage = 0;
+  }
+
+  @Override
+  public void close() {
+    releasePage();
+    source.close();
+  }
+}
@@ -0,0 +1,99 @@
+package io;
+
+import common.Tuple;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes tuples to a table file in the binary page format described in {@link PageLayout}. Tuples
+ * are packed into a page buffer, which is written out once it is full or the writer is closed. The
+ * {@link ZoneMap} of the table is written next to it on close.
+ */
+public class BinaryTupleWriter implements TupleWriter {
+  private final File file;
+  private final FileChannel channel;
+  private final ByteBuffer page;
+  private ZoneMap.Builder zoneMap; // Created with the first tuple written
+
+  private int numAttributes = -1; // Fixed by the first tuple written
+  private int capacity; // Number of tuples that fit on a page
+  private int tuplesInPage;
+
+  /**
+   * Creates (or truncates) the given binary table file. Pages of the old file still cached in the
+   * buffer pool are dropped.
+   *
+   * @param file the table file.
+   * @throws IOException if the file cannot be created.
+   */
+  public BinaryTupleWriter(File file) throws IOException {
+    BufferPool.getInstance().invalidate(file);
+    ZoneMap.fileFor(file).delete();
+    this.file = file;
+    this.channel =
+        FileChannel.open(
+            file.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    this.page = ByteBuffer.allocateDirect(PageLayout.PAGE_SIZE);
+  }
+
+  @Override
+  public void writeTuple(Tuple tuple) throws IOException {
+    if (numAttributes < 0) {
+      numAttributes = tuple.size();
+      capacity = PageLayout.tuplesPerPage(numAttributes);
+      zoneMap = new ZoneMap.Builder(numAttributes);
+    } else if (tuple.size() != numAttributes) {
+      throw new IllegalArgumentException(
+          "Expected " + numAttributes + " attributes but got " + tuple.size());
+    }
+
+    if (tuplesInPage == capacity) {
+      flushPage();
+    }
+
+    int offset = PageLayout.HEADER_SIZE + tuplesInPage * numAttributes * Integer.BYTES;
+    for (int i = 0; i < numAttributes; i++) {
+      page.putInt(offset + i * Integer.BYTES, tuple.getElementAtIndex(i));
+    }
+    zoneMap.add(tuple);
+    tuplesInPage++;
+  }
+
+  /**
+   * Fills in the header of the current page, zero-fills its unused space and writes it to disk.
+   *
+   * @throws IOException if the page cannot be written.
+   */
+  private void flushPage() throws IOException {
+    page.putInt(0, numAttributes);
+    page.putInt(Integer.BYTES, tuplesInPage);
+    int used = PageLayout.HEADER_SIZE + tuplesInPage * numAttributes * Integer.BYTES;
+    for (int i = used; i < PageLayout.PAGE_SIZE; i++) {
+      page.put(i, (byte) 0);
+    }
+
+    page.clear();
+    while (page.hasRemaining()) {
+      channel.write(page);
+    }
+    zoneMap.endPage();
+    tuplesInPage = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (tuplesInPage > 0) {
+      flushPage();
+    }
+    channel.close();
+    if (zoneMap != null) {
+      zoneMap.write(file);
+    }
+  }
+}
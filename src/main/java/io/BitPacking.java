@@ -0,0 +1,98 @@
+package io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs non-negative integers of a fixed bit width into consecutive 64-bit words, least significant
+ * bits first. A value may straddle two words.
+ */
+final class BitPacking {
+  private BitPacking() {}
+
+  /**
+   * Computes how many bits are needed to represent every value in [0, range].
+   *
+   * @param range the largest value, as an unsigned difference.
+   * @return the bit width, between 0 and 64.
+   */
+  static int bitWidth(long range) {
+    return Long.SIZE - Long.numberOfLeadingZeros(range);
+  }
+
+  /**
+   * Computes the size of a packed sequence.
+   *
+   * @param count number of values.
+   * @param bitWidth bits per value.
+   * @return the size in bytes, a multiple of the word size.
+   */
+  static int packedSize(int count, int bitWidth) {
+    return (int) (((long) count * bitWidth + Long.SIZE - 1) / Long.SIZE) * Long.BYTES;
+  }
+
+  /**
+   * Packs values, each stored as its difference to a base.
+   *
+   * @param buffer the buffer to write to, with absolute puts.
+   * @param offset the byte offset to start writing at.
+   * @param values the values to pack.
+   * @param count number of values to pack.
+   * @param base value subtracted from every value; must not exceed any of them.
+   * @param bitWidth bits per packed value.
+   * @return the byte offset just after the packed sequence.
+   */
+  static int pack(ByteBuffer buffer, int offset, int[] values, int count, long base, int bitWidth) {
+    if (bitWidth == 0) {
+      return offset;
+    }
+    long word = 0;
+    int used = 0; // Bits of the current word already filled
+    int position = offset;
+    for (int i = 0; i < count; i++) {
+      long value = values[i] - base;
+      word |= value << used;
+      used += bitWidth;
+      if (used >= Long.SIZE) {
+        buffer.putLong(position, word);
+        position += Long.BYTES;
+        used -= Long.SIZE;
+        word = used > 0 ? value >>> (bitWidth - used) : 0;
+      }
+    }
+    if (used > 0) {
+      buffer.putLong(position, word);
+      position += Long.BYTES;
+    }
+    return position;
+  }
+
+  /**
+   * Unpacks values written by {@link #pack}, adding the base back.
+   *
+   * @param buffer the buffer to read from, with absolute gets.
+   * @param offset the byte offset of the packed sequence.
+   * @param count number of values to unpack.
+   * @param base value added to every packed value.
+   * @param bitWidth bits per packed value.
+   * @param out array receiving the values, at indices 0 to count - 1.
+   */
+  static void unpack(ByteBuffer buffer, int offset, int count, long base, int bitWidth, int[] out) {
+    if (bitWidth == 0) {
+      for (int i = 0; i < count; i++) {
+        out[i] = (int) base;
+      }
+      return;
+    }
+    long mask = bitWidth == Long.SIZE ? -1L : (1L << bitWidth) - 1;
+    long bit = 0;
+    for (int i = 0; i < count; i++, bit += bitWidth) {
+      int word = offset + (int) (bit >>> 6) * Long.BYTES;
+      int shift = (int) (bit & (Long.SIZE - 1));
+      long value = buffer.getLong(word) >>> shift;
+      if (shift + bitWidth > Long.SIZE) {
+        value |= buffer.getLong(word + Long.BYTES) << (Long.SIZE - shift);
+      }
+      out[i] = (int) (base + (value & mask));
+    }
+  }
+}
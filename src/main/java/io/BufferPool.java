@@ -0,0 +1,280 @@
+package io;
+
+import common.DBConfig;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Process-wide cache of file pages shared by all scans. The pool owns a fixed number of page-sized
+ * frames, set by BUFFER_POOL_PAGES in config.properties, which is a hard ceiling on the memory it
+ * uses. Readers pin the page they are working on and unpin it when they move on; when every frame
+ * is in use, an unpinned page is evicted with the clock algorithm. Rescans of the same table, such
+ * as the inner side of a nested loop join or a self-join, are then mostly served from memory.
+ *
+ * <p>The pool can be shared between threads. Its bookkeeping is synchronized, but disk reads
+ * happen outside the lock, so a thread loading a page does not stall threads working on other
+ * pages.
+ */
+public class BufferPool {
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static BufferPool pool;
+
+  private final int capacity;
+  private final ByteBuffer[] buffers; // Frame buffers, allocated on first use
+  private final Page[] residents; // Page held by each frame, or null if the frame is free
+  private final ArrayDeque<Integer> freeFrames;
+  private final HashMap<PageId, Page> pageTable;
+  private final HashMap<String, FileChannel> channels; // Open channel for each file
+  private int clockHand;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * Creates a buffer pool with the given number of frames.
+   *
+   * @param capacity the maximum number of pages held in memory.
+   */
+  public BufferPool(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Buffer pool needs at least one page.");
+    }
+    this.capacity = capacity;
+    this.buffers = new ByteBuffer[capacity];
+    this.residents = new Page[capacity];
+    this.freeFrames = new ArrayDeque<>();
+    for (int i = 0; i < capacity; i++) {
+      freeFrames.add(i);
+    }
+    this.pageTable = new HashMap<>();
+    this.channels = new HashMap<>();
+  }
+
+  /**
+   * Instance getter for singleton pattern, lazy initialization on first invocation
+   *
+   * @return the buffer pool shared by all scans
+   */
+  public static synchronized BufferPool getInstance() {
+    if (pool == null) {
+      pool = new BufferPool(DBConfig.getInstance().getInt("BUFFER_POOL_PAGES", DEFAULT_CAPACITY));
+    }
+    return pool;
+  }
+
+  /**
+   * Pins a page of a file, reading it from disk if it is not resident.
+   *
+   * @param file the file.
+   * @param pageNumber the index of the page within the file.
+   * @return the pinned page, or null if the page lies past the end of the file.
+   * @throws IOException if the page cannot be read.
+   * @throws IllegalStateException if every frame holds a pinned page.
+   */
+  public Page pin(File file, long pageNumber) throws IOException {
+    PageId id = new PageId(file.getAbsolutePath(), pageNumber);
+    long offset = pageNumber * PageLayout.PAGE_SIZE;
+    Page page;
+    FileChannel channel;
+    synchronized (this) {
+      page = pageTable.get(id);
+      if (page != null) {
+        hits++;
+        page.pinCount++;
+        page.referenced = true;
+        channel = null;
+      } else {
+        channel = channels.get(id.path());
+        if (channel == null) {
+          channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+          channels.put(id.path(), channel);
+        }
+        if (offset >= channel.size()) {
+          return null;
+        }
+
+        misses++;
+        int frame = acquireFrame();
+        if (buffers[frame] == null) {
+          buffers[frame] = ByteBuffer.allocateDirect(PageLayout.PAGE_SIZE);
+        }
+        page = new Page(id, frame, buffers[frame]);
+        page.pinCount = 1;
+        page.referenced = true;
+        residents[frame] = page;
+        pageTable.put(id, page);
+      }
+    }
+
+    if (channel == null) {
+      page.awaitLoaded();
+    } else {
+      load(page, channel, offset);
+    }
+    return page;
+  }
+
+  /**
+   * Reads the contents of a newly registered page from disk, without holding the pool lock. The
+   * page is pinned, so its frame cannot be reused while the read is in progress.
+   *
+   * @param page the page to load.
+   * @param channel the channel of the file holding the page.
+   * @param offset the byte offset of the page in the file.
+   * @throws IOException if the page cannot be read; the page is then dropped from the pool.
+   */
+  private void load(Page page, FileChannel channel, long offset) throws IOException {
+    ByteBuffer buffer = buffers[page.frame].duplicate();
+    buffer.clear();
+    try {
+      while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+        // Keep reading until the page is full or the end of the file is reached
+      }
+    } catch (IOException e) {
+      synchronized (this) {
+        pageTable.remove(page.id, page);
+        residents[page.frame] = null;
+        freeFrames.add(page.frame);
+      }
+      page.failLoading(e);
+      throw e;
+    }
+    page.finishLoading(buffer.position());
+  }
+
+  /**
+   * Releases a pin on a page. The page stays resident until it is evicted.
+   *
+   * @param page the page, as returned by pin.
+   */
+  public synchronized void unpin(Page page) {
+    if (page.pinCount > 0) {
+      page.pinCount--;
+    }
+  }
+
+  /**
+   * Finds a frame for a new page: a free frame if there is one, otherwise the frame of an unpinned
+   * page chosen by the clock algorithm. Pages with their reference bit set get a second chance.
+   *
+   * @return the index of the frame.
+   */
+  private int acquireFrame() {
+    if (!freeFrames.isEmpty()) {
+      return freeFrames.poll();
+    }
+    for (int step = 0; step < 2 * capacity; step++) {
+      int frame = clockHand;
+      clockHand = (clockHand + 1) % capacity;
+      Page victim = residents[frame];
+      if (victim.pinCount > 0) {
+        continue;
+      }
+      if (victim.referenced) {
+        victim.referenced = false;
+        continue;
+      }
+      pageTable.remove(victim.id, victim);
+      residents[frame] = null;
+      evictions++;
+      return frame;
+    }
+    throw new IllegalStateException("All " + capacity + " buffer pool pages are pinned.");
+  }
+
+  /**
+   * Drops every unpinned page of a file and closes its channel. Must be called before a file is
+   * rewritten or deleted, so later scans do not see stale pages.
+   *
+   * @param file the file.
+   */
+  public synchronized void invalidate(File file) {
+    String path = file.getAbsolutePath();
+    Iterator<Map.Entry<PageId, Page>> it = pageTable.entrySet().iterator();
+    while (it.hasNext()) {
+      Page page = it.next().getValue();
+      if (page.id.path().equals(path)) {
+        it.remove();
+        if (page.pinCount == 0) {
+          residents[page.frame] = null;
+          freeFrames.add(page.frame);
+        }
+      }
+    }
+
+    FileChannel channel = channels.remove(path);
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // The channel is no longer used, nothing to recover
+      }
+    }
+  }
+
+  /**
+   * Returns the maximum number of pages held in memory.
+   *
+   * @return the capacity of the pool, in pages.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the number of pages currently pinned.
+   *
+   * @return the number of resident pages with at least one pin.
+   */
+  public synchronized int getPinnedCount() {
+    int pinned = 0;
+    for (Page page : residents) {
+      if (page != null && page.pinCount > 0) {
+        pinned++;
+      }
+    }
+    return pinned;
+  }
+
+  /**
+   * Returns how many pins were served from memory.
+   *
+   * @return the number of hits since the last statistics reset.
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns how many pins had to read the page from disk.
+   *
+   * @return the number of misses since the last statistics reset.
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Returns how many pages were evicted to make room for others.
+   *
+   * @return the number of evictions since the last statistics reset.
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /** Sets the hit, miss and eviction counters back to zero. */
+  public synchronized void resetStatistics() {
+    hits = 0;
+    misses = 0;
+    evictions = 0;
+  }
+}
@@ -0,0 +1,227 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Encodes the values of one column on a page of the compressed table format, and decodes them
+ * back. While values are added, the encoder keeps the statistics every encoding's size depends on
+ * (minimum, maximum, number of runs and distinct values), so the size of the best encoding is known
+ * at all times and the writer can tell when a page is full without trial encoding.
+ */
+final class ColumnCodec {
+  private final int[] values = new int[CompressedPageLayout.MAX_TUPLES_PER_PAGE];
+  private final HashMap<Integer, Integer> codes = new HashMap<>(); // Dictionary index of each value
+  private int[] dictionary = new int[16]; // Distinct values, in order of first appearance
+
+  private int count;
+  private int min;
+  private int max;
+  private int runs;
+
+  /**
+   * Adds a value to the column.
+   *
+   * @param value the value.
+   */
+  void add(int value) {
+    if (count == 0 || value != values[count - 1]) {
+      runs++;
+    }
+    if (count == 0) {
+      min = value;
+      max = value;
+    } else {
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+    if (!codes.containsKey(value)) {
+      if (codes.size() == dictionary.length) {
+        dictionary = Arrays.copyOf(dictionary, 2 * dictionary.length);
+      }
+      dictionary[codes.size()] = value;
+      codes.put(value, codes.size());
+    }
+    values[count++] = value;
+  }
+
+  /** Removes every value, to start a new page. */
+  void clear() {
+    count = 0;
+    runs = 0;
+    codes.clear();
+  }
+
+  /**
+   * Computes the size the column section would have after adding a value, without adding it.
+   *
+   * @param value the value.
+   * @return the size in bytes of the smallest encoding, including the encoding tag.
+   */
+  int sizeWith(int value) {
+    int nextMin = count == 0 ? value : Math.min(min, value);
+    int nextMax = count == 0 ? value : Math.max(max, value);
+    int nextRuns = count == 0 || value != values[count - 1] ? runs + 1 : runs;
+    int nextDistinct = codes.containsKey(value) ? codes.size() : codes.size() + 1;
+    int smallest = Integer.MAX_VALUE;
+    for (ColumnEncoding encoding : ColumnEncoding.values()) {
+      int size = encodedSize(encoding, count + 1, nextMin, nextMax, nextRuns, nextDistinct);
+      smallest = Math.min(smallest, size);
+    }
+    return smallest;
+  }
+
+  /**
+   * Picks the encoding that stores the current values in the fewest bytes. Ties go to the encoding
+   * declared first, which is the cheaper one to decode.
+   *
+   * @return the best encoding.
+   */
+  ColumnEncoding choose() {
+    ColumnEncoding best = ColumnEncoding.PLAIN;
+    int bestSize = Integer.MAX_VALUE;
+    for (ColumnEncoding encoding : ColumnEncoding.values()) {
+      int size = encodedSize(encoding, count, min, max, runs, codes.size());
+      if (size < bestSize) {
+        best = encoding;
+        bestSize = size;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Computes the size of a column section from the statistics of its values.
+   *
+   * @return the size in bytes, including the encoding tag.
+   */
+  private static int encodedSize(
+      ColumnEncoding encoding, int count, int min, int max, int runs, int distinct) {
+    int payload =
+        switch (encoding) {
+          case PLAIN -> count * Integer.BYTES;
+          case FRAME_OF_REFERENCE -> Integer.BYTES
+              + 1
+              + BitPacking.packedSize(count, BitPacking.bitWidth((long) max - min));
+          case RUN_LENGTH -> Integer.BYTES + runs * 2 * Integer.BYTES;
+          case DICTIONARY -> Integer.BYTES
+              + distinct * Integer.BYTES
+              + 1
+              + BitPacking.packedSize(count, BitPacking.bitWidth(distinct - 1));
+        };
+    return 1 + payload;
+  }
+
+  /**
+   * Writes the column section, in the best encoding, to a page.
+   *
+   * @param page the page buffer, written with absolute puts.
+   * @param offset the byte offset of the section.
+   * @return the byte offset just after the section.
+   */
+  int encode(ByteBuffer page, int offset) {
+    ColumnEncoding encoding = choose();
+    page.put(offset++, (byte) encoding.ordinal());
+    switch (encoding) {
+      case PLAIN -> {
+        for (int i = 0; i < count; i++) {
+          page.putInt(offset, values[i]);
+          offset += Integer.BYTES;
+        }
+      }
+      case FRAME_OF_REFERENCE -> {
+        int bitWidth = BitPacking.bitWidth((long) max - min);
+        page.putInt(offset, min);
+        page.put(offset + Integer.BYTES, (byte) bitWidth);
+        offset = BitPacking.pack(page, offset + Integer.BYTES + 1, values, count, min, bitWidth);
+      }
+      case RUN_LENGTH -> {
+        page.putInt(offset, runs);
+        offset += Integer.BYTES;
+        int start = 0;
+        for (int i = 1; i <= count; i++) {
+          if (i == count || values[i] != values[start]) {
+            page.putInt(offset, values[start]);
+            page.putInt(offset + Integer.BYTES, i - start);
+            offset += 2 * Integer.BYTES;
+            start = i;
+          }
+        }
+      }
+      case DICTIONARY -> {
+        int distinct = codes.size();
+        page.putInt(offset, distinct);
+        offset += Integer.BYTES;
+        for (int i = 0; i < distinct; i++) {
+          page.putInt(offset, dictionary[i]);
+          offset += Integer.BYTES;
+        }
+        int bitWidth = BitPacking.bitWidth(distinct - 1);
+        page.put(offset++, (byte) bitWidth);
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+          indices[i] = codes.get(values[i]);
+        }
+        offset = BitPacking.pack(page, offset, indices, count, 0, bitWidth);
+      }
+    }
+    return offset;
+  }
+
+  /**
+   * Decodes a column section of a page.
+   *
+   * @param page the page contents, read with absolute gets.
+   * @param offset the byte offset of the section.
+   * @param count the number of values in the section.
+   * @param out array receiving the values, at indices 0 to count - 1.
+   * @throws IOException if the section has an unknown encoding tag.
+   */
+  static void decode(ByteBuffer page, int offset, int count, int[] out) throws IOException {
+    int tag = page.get(offset++);
+    ColumnEncoding[] encodings = ColumnEncoding.values();
+    if (tag < 0 || tag >= encodings.length) {
+      throw new IOException("Unknown column encoding " + tag);
+    }
+    switch (encodings[tag]) {
+      case PLAIN -> {
+        for (int i = 0; i < count; i++) {
+          out[i] = page.getInt(offset + i * Integer.BYTES);
+        }
+      }
+      case FRAME_OF_REFERENCE -> {
+        int base = page.getInt(offset);
+        int bitWidth = page.get(offset + Integer.BYTES);
+        BitPacking.unpack(page, offset + Integer.BYTES + 1, count, base, bitWidth, out);
+      }
+      case RUN_LENGTH -> {
+        int runs = page.getInt(offset);
+        offset += Integer.BYTES;
+        int position = 0;
+        for (int r = 0; r < runs; r++) {
+          int value = page.getInt(offset);
+          int length = page.getInt(offset + Integer.BYTES);
+          Arrays.fill(out, position, position + length, value);
+          position += length;
+          offset += 2 * Integer.BYTES;
+        }
+      }
+      case DICTIONARY -> {
+        int distinct = page.getInt(offset);
+        offset += Integer.BYTES;
+        int[] dictionary = new int[distinct];
+        for (int i = 0; i < distinct; i++) {
+          dictionary[i] = page.getInt(offset);
+          offset += Integer.BYTES;
+        }
+        int bitWidth = page.get(offset++);
+        BitPacking.unpack(page, offset, count, 0, bitWidth, out);
+        for (int i = 0; i < count; i++) {
+          out[i] = dictionary[out[i]];
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package io;
+
+/** Encodings a column can be stored in on a page of the compressed table format. */
+public enum ColumnEncoding {
+  /** Values stored as plain 4-byte ints. */
+  PLAIN,
+  /** Frame of reference: the page minimum, then each value minus it, bit-packed. */
+  FRAME_OF_REFERENCE,
+  /** Run-length encoding: the number of runs, then a value and a length for each run. */
+  RUN_LENGTH,
+  /** Dictionary: the distinct values of the page, then the index of each value, bit-packed. */
+  DICTIONARY
+}
@@ -0,0 +1,152 @@
+package io;
+
+import common.Tuple;
+import common.TupleBatch;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * Reads tuples from a table in the columnar format, where every column is stored in its own
+ * single-attribute binary file. Only the column files passed to the reader are opened, so columns a
+ * query does not reference are never read from disk. Since every column file holds the same number
+ * of values per page, the i-th page of each file covers the same rows, and pages are pinned in the
+ * shared {@link BufferPool} in lockstep, each column through its own {@link PageSource}. Given a
+ * {@link ZoneMapFilter}, every source skips the pages the zone maps of the column files rule out.
+ */
+public class ColumnarTupleReader implements TupleReader {
+  private final PageSource[] sources; // Page source of each column file
+  private final Page[] pages; // Pages currently pinned, one per column
+  private final BufferPool pool;
+
+  private int tuplesInPage; // Number of rows on the current pages
+  private int nextTupleInPage; // Index of the next row to return from the current pages
+
+  /**
+   * Opens a reader on the given column files.
+   *
+   * @param columnFiles the files of the columns to read, in the order they appear in the tuples.
+   */
+  public ColumnarTupleReader(List<File> columnFiles) {
+    this(columnFiles, null);
+  }
+
+  /**
+   * Opens a reader on the given column files that skips pages ruled out by a filter.
+   *
+   * @param columnFiles the files of the columns to read, in the order they appear in the tuples.
+   * @param filter ranges of the columns read, in the same order, or null to read every page.
+   */
+  public ColumnarTupleReader(List<File> columnFiles, ZoneMapFilter filter) {
+    LongPredicate pageFilter = null;
+    if (filter != null) {
+      ZoneMap[] maps = new ZoneMap[columnFiles.size()];
+      for (int i = 0; i < maps.length; i++) {
+        maps[i] = ZoneMap.load(columnFiles.get(i));
+      }
+      pageFilter = filter.pagesOf(maps);
+    }
+    this.sources = new PageSource[columnFiles.size()];
+    for (int i = 0; i < sources.length; i++) {
+      sources[i] = PageSource.open(columnFiles.get(i), pageFilter);
+    }
+    this.pages = new Page[sources.length];
+    this.pool = BufferPool.getInstance();
+  }
+
+  /**
+   * Pins the next page of every column file, releasing the current ones.
+   *
+   * @return true if the pages were pinned, false if the end of the files is reached.
+   * @throws IOException if a file cannot be read.
+   */
+  private boolean readPages() throws IOException {
+    releasePages();
+    for (int i = 0; i < sources.length; i++) {
+      pages[i] = sources[i].nextPage();
+      if (pages[i] == null || pages[i].getLength() < PageLayout.HEADER_SIZE) {
+        releasePages();
+        return false;
+      }
+    }
+    tuplesInPage = pages[0].getInt(Integer.BYTES);
+    nextTupleInPage = 0;
+    return true;
+  }
+
+  /** Unpins the current pages, if any. */
+  private void releasePages() {
+    for (int i = 0; i < pages.length; i++) {
+      if (pages[i] != null) {
+        pool.unpin(pages[i]);
+        pages[i] = null;
+      }
+    }
+  }
+
+  @Override
+  public Tuple readNextTuple() throws IOException {
+    if (sources.length == 0) {
+      return null;
+    }
+    while (nextTupleInPage >= tuplesInPage) {
+      if (!readPages()) {
+        return null;
+      }
+    }
+
+    int offset = PageLayout.HEADER_SIZE + nextTupleInPage * Integer.BYTES;
+    int[] values = new int[pages.length];
+    for (int i = 0; i < pages.length; i++) {
+      values[i] = pages[i].getInt(offset);
+    }
+    nextTupleInPage++;
+    return new Tuple(values);
+  }
+
+  @Override
+  public int readBatch(TupleBatch batch) throws IOException {
+    int start = batch.size();
+    if (sources.length == 0) {
+      return 0;
+    }
+    while (!batch.isFull()) {
+      while (nextTupleInPage >= tuplesInPage) {
+        if (!readPages()) {
+          return batch.size() - start;
+        }
+      }
+      int size = batch.size();
+      int count = Math.min(tuplesInPage - nextTupleInPage, batch.getCapacity() - size);
+      for (int c = 0; c < pages.length; c++) {
+        int[] column = batch.getColumn(c);
+        int offset = PageLayout.HEADER_SIZE + nextTupleInPage * Integer.BYTES;
+        for (int r = 0; r < count; r++) {
+          column[size + r] = pages[c].getInt(offset + r * Integer.BYTES);
+        }
+      }
+      batch.setSize(size + count);
+      nextTupleInPage += count;
+    }
+    return batch.size() - start;
+  }
+
+  @Override
+  public void reset() {
+    releasePages();
+    for (PageSource source : sources) {
+      source.reset();
+    }
+    tuplesInPage = 0;
+    nextTupleInPage = 0;
+  }
+
+  @Override
+  public void close() {
+    releasePages();
+    for (PageSource source : sources) {
+      source.close();
+    }
+  }
+}
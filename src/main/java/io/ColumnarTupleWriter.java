@@ -0,0 +1,49 @@
+package io;
+
+import common.Tuple;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes tuples to a table in the columnar format: a directory holding one single-attribute binary
+ * file per column, named after the column.
+ */
+public class ColumnarTupleWriter implements TupleWriter {
+  private final BinaryTupleWriter[] writers;
+
+  /**
+   * Creates the table directory, if needed, and (re)creates one file per column inside it.
+   *
+   * @param directory the table directory.
+   * @param columnNames the names of the columns, in the order they appear in the tuples.
+   * @throws IOException if the directory or a file cannot be created.
+   */
+  public ColumnarTupleWriter(File directory, List<String> columnNames) throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create table directory " + directory);
+    }
+    this.writers = new BinaryTupleWriter[columnNames.size()];
+    for (int i = 0; i < writers.length; i++) {
+      writers[i] = new BinaryTupleWriter(new File(directory, columnNames.get(i)));
+    }
+  }
+
+  @Override
+  public void writeTuple(Tuple tuple) throws IOException {
+    if (tuple.size() != writers.length) {
+      throw new IllegalArgumentException(
+          "Expected " + writers.length + " attributes but got " + tuple.size());
+    }
+    for (int i = 0; i < writers.length; i++) {
+      writers[i].writeTuple(new Tuple(new int[] {tuple.getElementAtIndex(i)}));
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (BinaryTupleWriter writer : writers) {
+      writer.close();
+    }
+  }
+}
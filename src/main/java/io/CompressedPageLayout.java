@@ -0,0 +1,32 @@
+package io;
+
+/**
+ * Constants describing the layout of a page in the compressed table format. Pages are PAGE_SIZE
+ * bytes long, like in the binary format, but store their tuples column by column: the header holds
+ * a magic number, the number of attributes, the number of tuples and the byte offset of each
+ * column's section. A section starts with a one-byte {@link ColumnEncoding} tag followed by the
+ * column's values of the page in that encoding. Any unused space at the end of the page is
+ * zero-filled.
+ */
+public final class CompressedPageLayout {
+  /** Marks the start of a compressed page; its first byte never starts a text or binary table. */
+  public static final int MAGIC = 0xC0DEC001;
+
+  /** Size of the fixed part of the header in bytes, before the column offsets. */
+  public static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+  /** Upper bound on the number of tuples on a page, whatever the encodings achieve. */
+  public static final int MAX_TUPLES_PER_PAGE = 4096;
+
+  private CompressedPageLayout() {}
+
+  /**
+   * Computes the size of the header of a page, including the column offsets.
+   *
+   * @param numAttributes number of attributes per tuple.
+   * @return the size of the header in bytes.
+   */
+  public static int headerSize(int numAttributes) {
+    return HEADER_SIZE + numAttributes * Integer.BYTES;
+  }
+}
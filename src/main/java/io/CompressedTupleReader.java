@@ -0,0 +1,133 @@
+package io;
+
+import common.Tuple;
+import common.TupleBatch;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads tuples from a table stored in the compressed page format described in {@link
+ * CompressedPageLayout}. Each page is pinned just long enough to decode the requested columns into
+ * int arrays, which the tuples are then assembled from. Columns that are not requested are skipped
+ * on every page without being decoded, and pages ruled out by the table's zone map are not read
+ * at all.
+ */
+public class CompressedTupleReader implements TupleReader {
+  private final PageSource source;
+  private final BufferPool pool;
+  private final int[] columns; // Indices of the columns to read, or null for all of them
+
+  private int[][] decoded; // Values of the requested columns on the current page
+  private int tuplesInPage; // Number of tuples on the current page
+  private int nextTupleInPage; // Index of the next tuple to return from the current page
+
+  /**
+   * Opens a reader on the given compressed table file.
+   *
+   * @param file the table file.
+   * @param columns the indices of the columns to read, in the order they appear in the returned
+   *     tuples, or null to read every column.
+   */
+  public CompressedTupleReader(File file, int[] columns) {
+    this(file, columns, null);
+  }
+
+  /**
+   * Opens a reader on the given compressed table file that skips pages ruled out by a filter.
+   *
+   * @param file the table file.
+   * @param columns the indices of the columns to read, in the order they appear in the returned
+   *     tuples, or null to read every column.
+   * @param filter ranges of the columns of the table, by index in the file, or null to read every
+   *     page.
+   */
+  public CompressedTupleReader(File file, int[] columns, ZoneMapFilter filter) {
+    this.source = PageSource.open(file, filter != null ? filter.pagesOf(ZoneMap.load(file)) : null);
+    this.pool = BufferPool.getInstance();
+    this.columns = columns;
+  }
+
+  /**
+   * Decodes the requested columns of the next page of the file.
+   *
+   * @return true if a page was decoded, false if the end of the file is reached.
+   * @throws IOException if the file cannot be read or is not a compressed table.
+   */
+  private boolean readPage() throws IOException {
+    Page page = source.nextPage();
+    if (page == null) {
+      return false;
+    }
+    try {
+      ByteBuffer contents = page.asBuffer();
+      if (contents.limit() < CompressedPageLayout.HEADER_SIZE
+          || contents.getInt(0) != CompressedPageLayout.MAGIC) {
+        throw new IOException("Not a page of a compressed table.");
+      }
+      int numAttributes = contents.getInt(Integer.BYTES);
+      tuplesInPage = contents.getInt(2 * Integer.BYTES);
+      nextTupleInPage = 0;
+      if (decoded == null) {
+        int width = columns != null ? columns.length : numAttributes;
+        decoded = new int[width][CompressedPageLayout.MAX_TUPLES_PER_PAGE];
+      }
+      for (int i = 0; i < decoded.length; i++) {
+        int column = columns != null ? columns[i] : i;
+        int offset = contents.getInt(CompressedPageLayout.HEADER_SIZE + column * Integer.BYTES);
+        ColumnCodec.decode(contents, offset, tuplesInPage, decoded[i]);
+      }
+    } finally {
+      pool.unpin(page);
+    }
+    return true;
+  }
+
+  @Override
+  public Tuple readNextTuple() throws IOException {
+    while (nextTupleInPage >= tuplesInPage) {
+      if (!readPage()) {
+        return null;
+      }
+    }
+
+    int[] values = new int[decoded.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = decoded[i][nextTupleInPage];
+    }
+    nextTupleInPage++;
+    return new Tuple(values);
+  }
+
+  @Override
+  public int readBatch(TupleBatch batch) throws IOException {
+    int start = batch.size();
+    while (!batch.isFull()) {
+      while (nextTupleInPage >= tuplesInPage) {
+        if (!readPage()) {
+          return batch.size() - start;
+        }
+      }
+      int size = batch.size();
+      int count = Math.min(tuplesInPage - nextTupleInPage, batch.getCapacity() - size);
+      for (int c = 0; c < decoded.length; c++) {
+        System.arraycopy(decoded[c], nextTupleInPage, batch.getColumn(c), size, count);
+      }
+      batch.setSize(size + count);
+      nextTupleInPage += count;
+    }
+    return batch.size() - start;
+  }
+
+  @Override
+  public void reset() {
+    source.reset();
+    tuplesInPage = 0;
+    nextTupleInPage = 0;
+  }
+
+  @Override
+  public void close() {
+    source.close();
+  }
+}
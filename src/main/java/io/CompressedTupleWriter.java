@@ -0,0 +1,127 @@
+package io;
+
+import common.Tuple;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes tuples to a table file in the compressed page format described in {@link
+ * CompressedPageLayout}. Each column of a page is stored in whichever {@link ColumnEncoding} is
+ * smallest for the values that landed on that page, so the choice adapts as the data changes along
+ * the file. Tuples are added to a page for as long as the best encodings of all its columns still
+ * fit in it. The {@link ZoneMap} of the table is written next to it on close.
+ */
+public class CompressedTupleWriter implements TupleWriter {
+  private final File file;
+  private final FileChannel channel;
+  private final ByteBuffer page;
+  private ZoneMap.Builder zoneMap; // Created with the first tuple written
+
+  private int numAttributes = -1; // Fixed by the first tuple written
+  private ColumnCodec[] columns;
+  private int tuplesInPage;
+
+  /**
+   * Creates (or truncates) the given compressed table file. Pages of the old file still cached in
+   * the buffer pool are dropped.
+   *
+   * @param file the table file.
+   * @throws IOException if the file cannot be created.
+   */
+  public CompressedTupleWriter(File file) throws IOException {
+    BufferPool.getInstance().invalidate(file);
+    ZoneMap.fileFor(file).delete();
+    this.file = file;
+    this.channel =
+        FileChannel.open(
+            file.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    this.page = ByteBuffer.allocateDirect(PageLayout.PAGE_SIZE);
+  }
+
+  @Override
+  public void writeTuple(Tuple tuple) throws IOException {
+    if (numAttributes < 0) {
+      numAttributes = tuple.size();
+      columns = new ColumnCodec[numAttributes];
+      for (int i = 0; i < numAttributes; i++) {
+        columns[i] = new ColumnCodec();
+      }
+      zoneMap = new ZoneMap.Builder(numAttributes);
+      if (!fits(tuple)) {
+        throw new IllegalArgumentException(
+            "Tuples of " + numAttributes + " attributes do not fit on a page.");
+      }
+    } else if (tuple.size() != numAttributes) {
+      throw new IllegalArgumentException(
+          "Expected " + numAttributes + " attributes but got " + tuple.size());
+    }
+
+    if (tuplesInPage == CompressedPageLayout.MAX_TUPLES_PER_PAGE || !fits(tuple)) {
+      flushPage();
+    }
+    for (int i = 0; i < numAttributes; i++) {
+      columns[i].add(tuple.getElementAtIndex(i));
+    }
+    zoneMap.add(tuple);
+    tuplesInPage++;
+  }
+
+  /**
+   * Checks whether the current page still has room for a tuple.
+   *
+   * @param tuple the tuple.
+   * @return true if the page, encoded with the tuple added, fits in PAGE_SIZE bytes.
+   */
+  private boolean fits(Tuple tuple) {
+    int size = CompressedPageLayout.headerSize(numAttributes);
+    for (int i = 0; i < numAttributes; i++) {
+      size += columns[i].sizeWith(tuple.getElementAtIndex(i));
+    }
+    return size <= PageLayout.PAGE_SIZE;
+  }
+
+  /**
+   * Encodes the columns of the current page behind its header, zero-fills the unused space and
+   * writes the page to disk.
+   *
+   * @throws IOException if the page cannot be written.
+   */
+  private void flushPage() throws IOException {
+    page.putInt(0, CompressedPageLayout.MAGIC);
+    page.putInt(Integer.BYTES, numAttributes);
+    page.putInt(2 * Integer.BYTES, tuplesInPage);
+    int offset = CompressedPageLayout.headerSize(numAttributes);
+    for (int i = 0; i < numAttributes; i++) {
+      page.putInt(CompressedPageLayout.HEADER_SIZE + i * Integer.BYTES, offset);
+      offset = columns[i].encode(page, offset);
+      columns[i].clear();
+    }
+    for (int i = offset; i < PageLayout.PAGE_SIZE; i++) {
+      page.put(i, (byte) 0);
+    }
+
+    page.clear();
+    while (page.hasRemaining()) {
+      channel.write(page);
+    }
+    zoneMap.endPage();
+    tuplesInPage = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (tuplesInPage > 0) {
+      flushPage();
+    }
+    channel.close();
+    if (zoneMap != null) {
+      zoneMap.write(file);
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package io;
+
+import common.TableFormat;
+import common.Tuple;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+
+/**
+ * Reads tuples from a table file that is mapped into memory once, when the reader is created. The
+ * mapping is kept for the lifetime of the reader, so a reset only moves the cursor back to the
+ * start of the file; no file is reopened and no buffer is allocated. This makes repeated rescans,
+ * such as the inner side of a nested loop join, cheap.
+ *
+ * <p>Files larger than a single MappedByteBuffer can address are mapped as several regions. Region
+ * boundaries are page-aligned, so binary pages never straddle two regions, while text lines may and
+ * are stitched together by the {@link TextTupleParser}. Binary pages ruled out by a {@link
+ * ZoneMapFilter} are skipped.
+ */
+public class MappedTupleReader implements TupleReader {
+  private static final long REGION_SIZE = 1L << 30; // Multiple of PageLayout.PAGE_SIZE
+
+  private final TableFormat format;
+  private final MappedByteBuffer[] regions;
+  private final long size;
+  private final LongPredicate pageFilter; // Binary pages to read, or null for all of them
+
+  // Cursor when reading the text format: the region being parsed, whose position is the next byte
+  private final TextTupleParser parser = new TextTupleParser();
+  private int textRegion;
+
+  // Cursor when reading the binary format: the byte offset of the next page and the current page
+  private long position;
+  private MappedByteBuffer pageRegion;
+  private int pageStart;
+  private int numAttributes;
+  private int tuplesInPage;
+  private int nextTupleInPage;
+
+  /**
+   * Maps the given table file into memory.
+   *
+   * @param file the table file.
+   * @param format the format the table file is stored in.
+   * @throws IOException if the file cannot be mapped.
+   */
+  public MappedTupleReader(File file, TableFormat format) throws IOException {
+    this(file, format, null);
+  }
+
+  /**
+   * Maps the given table file into memory, to read it skipping pages ruled out by a filter.
+   *
+   * @param file the table file.
+   * @param format the format the table file is stored in.
+   * @param filter ranges of the columns of the table, or null to read every page; only used for
+   *     the binary format, since text lines do not align with pages.
+   * @throws IOException if the file cannot be mapped.
+   */
+  public MappedTupleReader(File file, TableFormat format, ZoneMapFilter filter)
+      throws IOException {
+    this.format = format;
+    this.pageFilter =
+        filter != null && format == TableFormat.BINARY ? filter.pagesOf(ZoneMap.load(file)) : null;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      this.size = channel.size();
+      int numRegions = (int) ((size + REGION_SIZE - 1) / REGION_SIZE);
+      this.regions = new MappedByteBuffer[numRegions];
+      for (int i = 0; i < numRegions; i++) {
+        long start = i * REGION_SIZE;
+        regions[i] =
+            channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, size - start));
+      }
+    }
+  }
+
+  @Override
+  public Tuple readNextTuple() {
+    return format == TableFormat.BINARY ? readBinaryTuple() : readTextTuple();
+  }
+
+  /**
+   * Reads the next tuple from the mapped pages of a binary table.
+   *
+   * @return the next Tuple, or null if the end of the file is reached.
+   */
+  private Tuple readBinaryTuple() {
+    while (nextTupleInPage >= tuplesInPage) {
+      if (position + PageLayout.HEADER_SIZE > size) {
+        return null;
+      }
+      if (pageFilter != null && !pageFilter.test(position / PageLayout.PAGE_SIZE)) {
+        position += PageLayout.PAGE_SIZE;
+        continue;
+      }
+      pageRegion = regions[(int) (position / REGION_SIZE)];
+      pageStart = (int) (position % REGION_SIZE);
+      numAttributes = pageRegion.getInt(pageStart);
+      tuplesInPage = pageRegion.getInt(pageStart + Integer.BYTES);
+      nextTupleInPage = 0;
+      position += PageLayout.PAGE_SIZE;
+    }
+
+    int offset =
+        pageStart + PageLayout.HEADER_SIZE + nextTupleInPage * numAttributes * Integer.BYTES;
+    int[] values = new int[numAttributes];
+    for (int i = 0; i < numAttributes; i++) {
+      values[i] = pageRegion.getInt(offset + i * Integer.BYTES);
+    }
+    nextTupleInPage++;
+    return new Tuple(values);
+  }
+
+  /**
+   * Parses the next line of a text table straight from the mapped bytes.
+   *
+   * @return the next Tuple, or null if the end of the file is reached.
+   */
+  private Tuple readTextTuple() {
+    while (textRegion < regions.length) {
+      Tuple tuple = parser.parse(regions[textRegion]);
+      if (tuple != null) {
+        return tuple;
+      }
+      textRegion++;
+    }
+    return parser.finish();
+  }
+
+  @Override
+  public void reset() {
+    for (MappedByteBuffer region : regions) {
+      region.position(0);
+    }
+    parser.clear();
+    textRegion = 0;
+    position = 0;
+    tuplesInPage = 0;
+    nextTupleInPage = 0;
+  }
+
+  @Override
+  public void close() {
+    // The mapping is released once the buffers become unreachable
+  }
+}
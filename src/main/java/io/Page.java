@@ -0,0 +1,100 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A page of a file held in a frame of the {@link BufferPool}. A page stays resident as long as it
+ * is pinned; readers must unpin it through the pool once they are done with it and must not touch
+ * it afterwards, since its frame may then be reused for another page.
+ *
+ * <p>A page is registered in the pool before its contents are read from disk, so that the read can
+ * happen without holding the pool lock. Threads that pin a page while it is still loading wait for
+ * the read to finish.
+ */
+public class Page {
+  final PageId id;
+  final int frame; // Index of the frame holding the page
+  private final ByteBuffer buffer;
+  private int length; // Number of valid bytes; the last page of a file may be short
+  private boolean loaded;
+  private IOException loadFailure;
+
+  int pinCount;
+  boolean referenced; // Reference bit consulted by the clock eviction policy
+
+  Page(PageId id, int frame, ByteBuffer buffer) {
+    this.id = id;
+    this.frame = frame;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Marks the contents of the page as read and wakes up threads waiting for them.
+   *
+   * @param length the number of valid bytes read.
+   */
+  synchronized void finishLoading(int length) {
+    this.length = length;
+    this.loaded = true;
+    notifyAll();
+  }
+
+  /**
+   * Marks the read of the page as failed and wakes up threads waiting for it.
+   *
+   * @param failure the cause of the failure.
+   */
+  synchronized void failLoading(IOException failure) {
+    this.loadFailure = failure;
+    notifyAll();
+  }
+
+  /**
+   * Waits until the contents of the page have been read.
+   *
+   * @throws IOException if the read failed or the wait was interrupted.
+   */
+  synchronized void awaitLoaded() throws IOException {
+    while (!loaded && loadFailure == null) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for a page to load.", e);
+      }
+    }
+    if (loadFailure != null) {
+      throw loadFailure;
+    }
+  }
+
+  /**
+   * Returns the number of valid bytes in the page.
+   *
+   * @return the length of the page, at most PageLayout.PAGE_SIZE.
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Reads an int at the given byte offset of the page.
+   *
+   * @param offset the byte offset.
+   * @return the int stored at that offset.
+   */
+  public int getInt(int offset) {
+    return buffer.getInt(offset);
+  }
+
+  /**
+   * Returns a read-only view of the valid bytes of the page, positioned at its start. Each call
+   * returns a new view with its own position, so callers can consume it freely.
+   *
+   * @return a view of the page contents.
+   */
+  public ByteBuffer asBuffer() {
+    return buffer.asReadOnlyBuffer().position(0).limit(length);
+  }
+}
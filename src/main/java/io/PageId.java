@@ -0,0 +1,9 @@
+package io;
+
+/**
+ * Identifies a page of a file in the buffer pool.
+ *
+ * @param path absolute path of the file.
+ * @param pageNumber index of the page within the file.
+ */
+record PageId(String path, long pageNumber) {}
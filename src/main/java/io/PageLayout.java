@@ -0,0 +1,30 @@
+package io;
+
+/**
+ * Constants describing the layout of a page in the binary table format. Every page is PAGE_SIZE
+ * bytes long and starts with a header of two ints: the number of attributes per tuple and the
+ * number of tuples stored on the page. The tuples follow the header, packed one after another, and
+ * any unused space at the end of the page is zero-filled.
+ */
+public final class PageLayout {
+  /** Size of a page in bytes. */
+  public static final int PAGE_SIZE = 4096;
+
+  /** Size of the page header in bytes. */
+  public static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+  private PageLayout() {}
+
+  /**
+   * Computes how many tuples of the given width fit on a single page.
+   *
+   * @param numAttributes number of attributes per tuple.
+   * @return the maximum number of tuples per page.
+   */
+  public static int tuplesPerPage(int numAttributes) {
+    if (numAttributes <= 0) {
+      throw new IllegalArgumentException("Tuples must have at least one attribute.");
+    }
+    return (PAGE_SIZE - HEADER_SIZE) / (numAttributes * Integer.BYTES);
+  }
+}
@@ -0,0 +1,53 @@
+package io;
+
+import common.DBConfig;
+import java.io.File;
+import java.io.IOException;
+import java.util.function.LongPredicate;
+
+/**
+ * Supplies the pages of a file in order, pinned in the shared {@link BufferPool}. The caller owns
+ * every page it receives and must unpin it once it is done with it. A source may be given a page
+ * filter, in which case pages the filter rejects are skipped without being read.
+ */
+public interface PageSource {
+  /**
+   * Returns the next page of the file that passes the page filter.
+   *
+   * @return the pinned page, or null if the end of the file is reached.
+   * @throws IOException if the page cannot be read.
+   */
+  Page nextPage() throws IOException;
+
+  /** Rewinds the source to the first page of the file. */
+  void reset();
+
+  /** Releases any pages the source still holds. */
+  void close();
+
+  /**
+   * Opens a source on every page of the given file.
+   *
+   * @param file the file.
+   * @return a source that starts at the first page of the file.
+   */
+  static PageSource open(File file) {
+    return open(file, null);
+  }
+
+  /**
+   * Opens a source on the given file. Pages are read ahead on a background thread when
+   * SCAN_PREFETCH_DEPTH in config.properties is positive, and on demand otherwise.
+   *
+   * @param file the file.
+   * @param pageFilter tells, by page index, which pages to return; null to return every page.
+   * @return a source that starts at the first page of the file.
+   */
+  static PageSource open(File file, LongPredicate pageFilter) {
+    BufferPool pool = BufferPool.getInstance();
+    int depth = DBConfig.getInstance().getPrefetchDepth();
+    return depth > 0
+        ? new PrefetchingPageSource(file, pool, depth, pageFilter)
+        : new SequentialPageSource(file, pool, pageFilter);
+  }
+}
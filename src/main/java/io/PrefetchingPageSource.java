@@ -0,0 +1,177 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+/**
+ * Supplies the pages of a file in order, reading them ahead on a background thread. The thread pins
+ * upcoming pages in the shared {@link BufferPool} and hands them over through a bounded queue, so
+ * the disk reads for the next pages overlap with the consumer's work on the current one. The queue
+ * holds at most the configured prefetch depth of pages, which bounds how many extra frames a scan
+ * keeps pinned. Pages rejected by the page filter are skipped by the thread, so they are never
+ * read.
+ *
+ * <p>The thread is started on the first request for a page and stopped on reset or close. It is
+ * never interrupted, since interrupting a thread blocked on a FileChannel closes the channel, which
+ * is shared through the pool. It is instead told to stop with a flag, and the queue is drained
+ * until it exits.
+ */
+public class PrefetchingPageSource implements PageSource {
+  private static final Object END_OF_FILE = new Object();
+
+  private final File file;
+  private final BufferPool pool;
+  private final LongPredicate pageFilter; // Pages to return, or null for all of them
+  private final BlockingQueue<Object> queue; // Pinned pages, END_OF_FILE or a failure
+
+  private Thread worker; // Thread reading ahead, or null if it is not running
+  private volatile boolean stopped;
+  private boolean endOfFile;
+
+  /**
+   * Creates a source on every page of the given file.
+   *
+   * @param file the file.
+   * @param pool the buffer pool to pin pages in.
+   * @param depth the maximum number of pages read ahead of the consumer.
+   */
+  public PrefetchingPageSource(File file, BufferPool pool, int depth) {
+    this(file, pool, depth, null);
+  }
+
+  /**
+   * Creates a source on the given file.
+   *
+   * @param file the file.
+   * @param pool the buffer pool to pin pages in.
+   * @param depth the maximum number of pages read ahead of the consumer.
+   * @param pageFilter tells, by page index, which pages to return; null to return every page.
+   */
+  public PrefetchingPageSource(File file, BufferPool pool, int depth, LongPredicate pageFilter) {
+    if (depth <= 0) {
+      throw new IllegalArgumentException("Prefetch depth must be positive.");
+    }
+    this.file = file;
+    this.pool = pool;
+    this.pageFilter = pageFilter;
+    this.queue = new ArrayBlockingQueue<>(depth);
+  }
+
+  /** Starts the background thread, reading from the first page of the file. */
+  private void start() {
+    stopped = false;
+    worker = new Thread(this::prefetch, "prefetch-" + file.getName());
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /** Body of the background thread: pins the pages of the file in order and queues them. */
+  private void prefetch() {
+    long pageNumber = 0;
+    long numPages = (file.length() + PageLayout.PAGE_SIZE - 1) / PageLayout.PAGE_SIZE;
+    while (!stopped) {
+      if (pageFilter != null && pageNumber < numPages && !pageFilter.test(pageNumber)) {
+        pageNumber++;
+        continue;
+      }
+      Object item;
+      try {
+        Page page = pool.pin(file, pageNumber++);
+        item = page != null ? page : END_OF_FILE;
+      } catch (IOException | RuntimeException e) {
+        item = e;
+      }
+      try {
+        queue.put(item);
+      } catch (InterruptedException e) {
+        release(item);
+        return;
+      }
+      if (!(item instanceof Page)) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public Page nextPage() throws IOException {
+    if (endOfFile) {
+      return null;
+    }
+    if (worker == null) {
+      start();
+    }
+
+    Object item;
+    try {
+      item = queue.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for a prefetched page.", e);
+    }
+    if (item instanceof Page page) {
+      return page;
+    }
+    endOfFile = true;
+    if (item instanceof IOException e) {
+      throw e;
+    }
+    if (item instanceof RuntimeException e) {
+      throw e;
+    }
+    return null;
+  }
+
+  /**
+   * Stops the background thread and unpins every page it queued but the consumer did not take.
+   * The queue is drained while waiting, so the thread cannot stay blocked on a full queue.
+   */
+  private void stop() {
+    if (worker == null) {
+      return;
+    }
+    stopped = true;
+    boolean interrupted = false;
+    while (worker.isAlive()) {
+      try {
+        release(queue.poll(1, TimeUnit.MILLISECONDS));
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    Object item;
+    while ((item = queue.poll()) != null) {
+      release(item);
+    }
+    worker = null;
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Unpins a queued item if it is a page.
+   *
+   * @param item the item, or null.
+   */
+  private void release(Object item) {
+    if (item instanceof Page page) {
+      pool.unpin(page);
+    }
+  }
+
+  @Override
+  public void reset() {
+    stop();
+    endOfFile = false;
+  }
+
+  @Override
+  public void close() {
+    stop();
+  }
+}
@@ -0,0 +1,53 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.LongPredicate;
+
+/** Supplies the pages of a file in order, reading each one when it is requested. */
+public class SequentialPageSource implements PageSource {
+  private final File file;
+  private final BufferPool pool;
+  private final LongPredicate pageFilter; // Pages to return, or null for all of them
+  private final long numPages; // Number of pages the filter is consulted for
+
+  private long nextPageNumber; // Index of the next page to pin
+
+  /**
+   * Creates a source on the given file.
+   *
+   * @param file the file.
+   * @param pool the buffer pool to pin pages in.
+   * @param pageFilter tells, by page index, which pages to return; null to return every page.
+   */
+  public SequentialPageSource(File file, BufferPool pool, LongPredicate pageFilter) {
+    this.file = file;
+    this.pool = pool;
+    this.pageFilter = pageFilter;
+    this.numPages = (file.length() + PageLayout.PAGE_SIZE - 1) / PageLayout.PAGE_SIZE;
+  }
+
+  @Override
+  public Page nextPage() throws IOException {
+    if (pageFilter != null) {
+      while (nextPageNumber < numPages && !pageFilter.test(nextPageNumber)) {
+        nextPageNumber++;
+      }
+    }
+    Page page = pool.pin(file, nextPageNumber);
+    if (page != null) {
+      nextPageNumber++;
+    }
+    return page;
+  }
+
+  @Override
+  public void reset() {
+    nextPageNumber = 0;
+  }
+
+  @Override
+  public void close() {
+    // No pages are held between calls
+  }
+}
@@ -0,0 +1,68 @@
+package io;
+
+import common.DBConfig;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates and deletes the temporary binary files operators spill intermediate tuples to, in the
+ * directory set by TEMP_DIR in config.properties. Files not deleted yet are tracked, so that those
+ * an operator keeps until the end of its query can all be deleted once the query is done.
+ */
+public final class SpillFiles {
+  private static final Set<File> liveFiles = ConcurrentHashMap.newKeySet();
+
+  private SpillFiles() {}
+
+  /**
+   * Creates a new, empty temporary file.
+   *
+   * @param prefix the start of the file name, naming the operator that spills.
+   * @return the file.
+   * @throws IOException if the file cannot be created.
+   */
+  public static File create(String prefix) throws IOException {
+    File directory = DBConfig.getInstance().getTempDirectory();
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create temporary directory " + directory);
+    }
+    File file = File.createTempFile(prefix, ".bin", directory);
+    liveFiles.add(file);
+    return file;
+  }
+
+  /**
+   * Deletes a temporary file written with a {@link BinaryTupleWriter}, along with its zone map and
+   * any of its pages cached in the buffer pool.
+   *
+   * @param file the file, or null.
+   */
+  public static void delete(File file) {
+    if (file == null) {
+      return;
+    }
+    liveFiles.remove(file);
+    BufferPool.getInstance().invalidate(file);
+    ZoneMap.fileFor(file).delete();
+    file.delete();
+  }
+
+  /** Deletes every temporary file created and not deleted yet. */
+  public static void deleteAll() {
+    for (File file : new ArrayList<>(liveFiles)) {
+      delete(file);
+    }
+  }
+
+  /**
+   * Returns the number of temporary files created and not deleted yet.
+   *
+   * @return the number of files.
+   */
+  public static int getLiveCount() {
+    return liveFiles.size();
+  }
+}
@@ -0,0 +1,132 @@
+package io;
+
+import common.Tuple;
+import java.io.File;
+import java.io.IOException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The temporary files an operator splits its input into by hash once it exceeds its memory budget,
+ * as the hash join and hash distinct do. Tuples are appended to the file of their partition, which
+ * is created with {@link SpillFiles} when its first tuple is written. Once every tuple has been
+ * written, the files are closed and read back one partition at a time, and each is deleted as soon
+ * as its partition has been processed.
+ */
+public final class SpillPartitions {
+  private static final Logger logger = LogManager.getLogger();
+
+  /** Number of partitions an input is split into. */
+  public static final int FANOUT = 16;
+
+  /**
+   * Number of levels of partitioning, after which a partition still too large is processed by the
+   * fallback of its operator rather than split again.
+   */
+  public static final int MAX_LEVELS = 3;
+
+  private final String prefix;
+  private final File[] files = new File[FANOUT];
+  private final BinaryTupleWriter[] writers = new BinaryTupleWriter[FANOUT];
+  private final long[] counts = new long[FANOUT];
+
+  /**
+   * Creates a set of partitions with no file yet.
+   *
+   * @param prefix the start of the file names, naming the operator that spills.
+   */
+  public SpillPartitions(String prefix) {
+    this.prefix = prefix;
+  }
+
+  /**
+   * Returns the partition of a tuple hash at a level of partitioning. The hash is multiplied by the
+   * golden ratio after adding a salt that differs for each level, and the top bits of the product
+   * are taken, so a partition is split evenly when it is partitioned again, and the low bits of
+   * the hash that hash tables index on are left spread within a partition.
+   *
+   * @param hash the hash of the tuple.
+   * @param level the number of times the tuples were partitioned before.
+   * @return the partition, from 0 to FANOUT - 1.
+   */
+  public static int partitionOf(int hash, int level) {
+    int salted = hash + (level + 1) * 0x9E3779B9;
+    return (salted * 0x9E3779B9) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(FANOUT));
+  }
+
+  /**
+   * Appends a tuple to the file of a partition, creating the file for the first tuple.
+   *
+   * @param p the partition.
+   * @param tuple the tuple.
+   * @throws IOException if the file cannot be created or written.
+   */
+  public void write(int p, Tuple tuple) throws IOException {
+    if (writers[p] == null) {
+      files[p] = SpillFiles.create(prefix);
+      writers[p] = new BinaryTupleWriter(files[p]);
+    }
+    writers[p].writeTuple(tuple);
+    counts[p]++;
+  }
+
+  /**
+   * Returns the number of tuples written to a partition since it was last deleted.
+   *
+   * @param p the partition.
+   * @return the number of tuples.
+   */
+  public long getCount(int p) {
+    return counts[p];
+  }
+
+  /**
+   * Returns the file of a partition.
+   *
+   * @param p the partition.
+   * @return the file, or null if no tuple was written to the partition.
+   */
+  public File getFile(int p) {
+    return files[p];
+  }
+
+  /**
+   * Closes the files once every tuple has been written, so they can be read.
+   *
+   * @throws IOException if the last page of a file cannot be written.
+   */
+  public void finishWriting() throws IOException {
+    for (int p = 0; p < FANOUT; p++) {
+      if (writers[p] != null) {
+        writers[p].close();
+        writers[p] = null;
+      }
+    }
+  }
+
+  /**
+   * Deletes the file of a partition once it has been processed.
+   *
+   * @param p the partition.
+   */
+  public void delete(int p) {
+    if (writers[p] != null) {
+      try {
+        writers[p].close();
+      } catch (IOException e) {
+        logger.warn("Cannot close spill file {}; deleting it anyway", files[p], e);
+      }
+      writers[p] = null;
+    }
+    SpillFiles.delete(files[p]);
+    files[p] = null;
+    counts[p] = 0;
+  }
+
+  /** Closes and deletes the files of every partition. */
+  public void deleteAll() {
+    for (int p = 0; p < FANOUT; p++) {
+      delete(p);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package io;
+
+import common.Tuple;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Parses tuples of a human-readable table straight from raw bytes, without building a String per
+ * line. Bytes are fed in chunks of any size; the parser keeps the partially parsed line between
+ * chunks, so lines that span chunk boundaries are handled transparently.
+ *
+ * <p>Values are written directly into the int array that ends up backing the returned Tuple. The
+ * array is sized after the previous line, so for tables with a fixed number of attributes each
+ * tuple costs exactly one allocation.
+ */
+public class TextTupleParser {
+  private int width = 4; // Expected number of values per line, learned from the last line
+  private int[] values; // Storage of the line being parsed; null until the line starts
+  private int count; // Number of values completed on the current line
+  private long value; // Magnitude of the value being parsed
+  private boolean negative; // Whether the value being parsed has a minus sign
+  private boolean hasDigits; // Whether the value being parsed has a digit yet
+  private int emptyValues; // Empty values since the last one, dropped if they end the line
+
+  /**
+   * Parses bytes from the chunk, starting at its position, until a complete tuple is found. The
+   * position of the chunk is advanced past the consumed bytes.
+   *
+   * @param chunk the bytes to parse.
+   * @return the next complete Tuple, or null if the chunk ran out before the line ended.
+   * @throws NumberFormatException if the chunk contains a byte that cannot appear in a text table,
+   *     an empty value before another value, a minus sign inside a value, or a value out of the
+   *     range of an int. Empty values at the end of a line, after a trailing comma, are dropped.
+   */
+  public Tuple parse(ByteBuffer chunk) {
+    int pos = chunk.position();
+    int limit = chunk.limit();
+    while (pos < limit) {
+      byte b = chunk.get(pos++);
+      if (b >= '0' && b <= '9') {
+        startValue();
+        value = value * 10 + (b - '0');
+        hasDigits = true;
+        if (value > -(long) Integer.MIN_VALUE) {
+          throw new NumberFormatException("Value out of range in table");
+        }
+      } else if (b == ',') {
+        startLine();
+        if (hasDigits || negative) {
+          endValue();
+        } else {
+          emptyValues++;
+        }
+      } else if (b == '-') {
+        startValue();
+        if (negative || hasDigits) {
+          throw new NumberFormatException("Unexpected '-' inside a value in table");
+        }
+        negative = true;
+      } else if (b == '\n' || b == '\r') {
+        if (values != null) {
+          chunk.position(pos);
+          return endLine();
+        }
+      } else {
+        throw new NumberFormatException("Unexpected character in table: " + (char) b);
+      }
+    }
+    chunk.position(pos);
+    return null;
+  }
+
+  /**
+   * Signals the end of the input.
+   *
+   * @return the last tuple if the input did not end with a line break, otherwise null.
+   * @throws NumberFormatException if the last line ends with an empty or out of range value.
+   */
+  public Tuple finish() {
+    return values != null ? endLine() : null;
+  }
+
+  /** Discards any partially parsed line, e.g. when the input is rewound. */
+  public void clear() {
+    values = null;
+    count = 0;
+    value = 0;
+    negative = false;
+    hasDigits = false;
+    emptyValues = 0;
+  }
+
+  private void startLine() {
+    if (values == null) {
+      values = new int[width];
+    }
+  }
+
+  /** Starts or continues a value, which must not follow an empty value. */
+  private void startValue() {
+    startLine();
+    if (emptyValues > 0) {
+      throw new NumberFormatException("Empty value in table");
+    }
+  }
+
+  private void endValue() {
+    if (!hasDigits) {
+      throw new NumberFormatException("Empty value in table");
+    }
+    if (!negative && value > Integer.MAX_VALUE) {
+      throw new NumberFormatException("Value out of range in table");
+    }
+    if (count == values.length) {
+      values = Arrays.copyOf(values, 2 * count);
+    }
+    values[count++] = (int) (negative ? -value : value);
+    value = 0;
+    negative = false;
+    hasDigits = false;
+  }
+
+  private Tuple endLine() {
+    if (hasDigits || negative || count == 0) {
+      endValue();
+    }
+    emptyValues = 0;
+    int[] tupleValues = count == values.length ? values : Arrays.copyOf(values, count);
+    width = count;
+    values = null;
+    count = 0;
+    return new Tuple(tupleValues);
+  }
+}
@@ -0,0 +1,76 @@
+package io;
+
+import common.Tuple;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads tuples from a human-readable table file, one comma-separated tuple per line. The file is
+ * read page by page through the shared {@link BufferPool}, using a {@link PageSource} that may read
+ * pages ahead, and each page is parsed in place by a
+ * {@link TextTupleParser}, so no String is created per line.
+ */
+public class TextTupleReader implements TupleReader {
+  private final PageSource source;
+  private final BufferPool pool;
+  private final TextTupleParser parser;
+
+  private Page page; // Page currently pinned, or null
+  private ByteBuffer chunk; // Unparsed bytes of the current page
+  private boolean endOfFile;
+
+  /**
+   * Opens a reader on the given text table file.
+   *
+   * @param file the table file.
+   */
+  public TextTupleReader(File file) {
+    this.source = PageSource.open(file);
+    this.pool = BufferPool.getInstance();
+    this.parser = new TextTupleParser();
+  }
+
+  @Override
+  public Tuple readNextTuple() throws IOException {
+    while (!endOfFile) {
+      if (chunk != null) {
+        Tuple tuple = parser.parse(chunk);
+        if (tuple != null) {
+          return tuple;
+        }
+      }
+      releasePage();
+      page = source.nextPage();
+      if (page == null) {
+        endOfFile = true;
+      } else {
+        chunk = page.asBuffer();
+      }
+    }
+    return parser.finish();
+  }
+
+  /** Unpins the current page, if any. */
+  private void releasePage() {
+    if (page != null) {
+      pool.unpin(page);
+      page = null;
+      chunk = null;
+    }
+  }
+
+  @Override
+  public void reset() {
+    releasePage();
+    parser.clear();
+    source.reset();
+    endOfFile = false;
+  }
+
+  @Override
+  public void close() {
+    releasePage();
+    source.close();
+  }
+}
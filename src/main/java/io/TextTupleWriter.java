@@ -0,0 +1,36 @@
+package io;
+
+import common.Tuple;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/** Writes tuples to a human-readable table file, one comma-separated tuple per line. */
+public class TextTupleWriter implements TupleWriter {
+  private final BufferedWriter writer;
+
+  /**
+   * Creates (or truncates) the given text table file. Pages of the old file still cached in the
+   * buffer pool are dropped, along with its zone map, since text tables have none.
+   *
+   * @param file the table file.
+   * @throws IOException if the file cannot be created.
+   */
+  public TextTupleWriter(File file) throws IOException {
+    BufferPool.getInstance().invalidate(file);
+    ZoneMap.fileFor(file).delete();
+    this.writer = new BufferedWriter(new FileWriter(file));
+  }
+
+  @Override
+  public void writeTuple(Tuple tuple) throws IOException {
+    writer.write(tuple.toString());
+    writer.newLine();
+  }
+
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+}
@@ -0,0 +1,48 @@
+package io;
+
+import common.Tuple;
+import common.TupleBatch;
+import java.io.IOException;
+
+/** Reads tuples sequentially from a table file. */
+public interface TupleReader {
+
+  /**
+   * Reads the next tuple from the file.
+   *
+   * @return the next Tuple, or null if the end of the file is reached.
+   * @throws IOException if the file cannot be read.
+   */
+  Tuple readNextTuple() throws IOException;
+
+  /**
+   * Reads tuples into the free rows of a batch, until it is full or the end of the file is reached.
+   * Readers of paged formats override this to decode values straight into the column vectors.
+   *
+   * @param batch the batch, as wide as the tuples of the file.
+   * @return the number of tuples read, 0 at the end of the file.
+   * @throws IOException if the file cannot be read.
+   */
+  default int readBatch(TupleBatch batch) throws IOException {
+    int start = batch.size();
+    Tuple tuple;
+    while (!batch.isFull() && (tuple = readNextTuple()) != null) {
+      batch.appendTuple(tuple);
+    }
+    return batch.size() - start;
+  }
+
+  /**
+   * Moves the reader back to the first tuple of the file.
+   *
+   * @throws IOException if the file cannot be repositioned.
+   */
+  void reset() throws IOException;
+
+  /**
+   * Releases the underlying file.
+   *
+   * @throws IOException if the file cannot be closed.
+   */
+  void close() throws IOException;
+}
@@ -0,0 +1,23 @@
+package io;
+
+import common.Tuple;
+import java.io.IOException;
+
+/** Writes tuples sequentially to a table file. */
+public interface TupleWriter {
+
+  /**
+   * Appends a tuple to the file.
+   *
+   * @param tuple the Tuple to write.
+   * @throws IOException if the file cannot be written.
+   */
+  void writeTuple(Tuple tuple) throws IOException;
+
+  /**
+   * Flushes any buffered tuples and releases the underlying file.
+   *
+   * @throws IOException if the file cannot be written or closed.
+   */
+  void close() throws IOException;
+}
@@ -0,0 +1,187 @@
+package io;
+
+import common.Tuple;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Minimum and maximum of every column on every page of a table file, used to skip pages that
+ * cannot hold a tuple satisfying a selection. A zone map is built by the writer of a paged table
+ * format and stored next to the table, in a file named after it with a ".zonemap" suffix. The file
+ * holds the number of attributes followed, for each page, by the minimum and then the maximum of
+ * every column, all as big-endian ints.
+ */
+public class ZoneMap {
+  private static final String SUFFIX = ".zonemap";
+
+  private final int numAttributes;
+  private final int[] mins; // Minimum of column c on page p at index p * numAttributes + c
+  private final int[] maxs; // Maximum of column c on page p at index p * numAttributes + c
+
+  private ZoneMap(int numAttributes, int[] mins, int[] maxs) {
+    this.numAttributes = numAttributes;
+    this.mins = mins;
+    this.maxs = maxs;
+  }
+
+  /**
+   * Gets the file the zone map of a table file is stored in.
+   *
+   * @param tableFile the table file.
+   * @return the zone map file, which may not exist.
+   */
+  public static File fileFor(File tableFile) {
+    return new File(tableFile.getPath() + SUFFIX);
+  }
+
+  /**
+   * Loads the zone map of a table file. A zone map older than the table, or covering a different
+   * number of pages, was left behind by an earlier version of the table and is ignored.
+   *
+   * @param tableFile the table file.
+   * @return the zone map, or null if the table has no usable zone map.
+   */
+  public static ZoneMap load(File tableFile) {
+    File file = fileFor(tableFile);
+    if (!file.isFile() || file.lastModified() < tableFile.lastModified()) {
+      return null;
+    }
+    long numPages = (tableFile.length() + PageLayout.PAGE_SIZE - 1) / PageLayout.PAGE_SIZE;
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      int numAttributes = in.readInt();
+      long expectedLength = Integer.BYTES + numPages * 2 * numAttributes * Integer.BYTES;
+      if (numAttributes <= 0 || file.length() != expectedLength) {
+        return null;
+      }
+      int[] mins = new int[(int) numPages * numAttributes];
+      int[] maxs = new int[mins.length];
+      for (int page = 0; page < numPages; page++) {
+        for (int c = 0; c < numAttributes; c++) {
+          mins[page * numAttributes + c] = in.readInt();
+        }
+        for (int c = 0; c < numAttributes; c++) {
+          maxs[page * numAttributes + c] = in.readInt();
+        }
+      }
+      return new ZoneMap(numAttributes, mins, maxs);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the number of pages the zone map covers.
+   *
+   * @return the number of pages of the table file.
+   */
+  public int getPageCount() {
+    return mins.length / numAttributes;
+  }
+
+  /**
+   * Returns the smallest value of a column on a page.
+   *
+   * @param page the index of the page.
+   * @param column the index of the column.
+   * @return the minimum.
+   */
+  public int getMin(long page, int column) {
+    return mins[(int) page * numAttributes + column];
+  }
+
+  /**
+   * Returns the largest value of a column on a page.
+   *
+   * @param page the index of the page.
+   * @param column the index of the column.
+   * @return the maximum.
+   */
+  public int getMax(long page, int column) {
+    return maxs[(int) page * numAttributes + column];
+  }
+
+  /** Collects the minima and maxima of the pages of a table while it is being written. */
+  public static class Builder {
+    private final int numAttributes;
+    private int[] mins = new int[0];
+    private int[] maxs = new int[0];
+    private int numPages; // Number of completed pages
+    private boolean pageStarted; // Whether a tuple was added since the last completed page
+
+    /**
+     * Creates a builder for tuples of the given width.
+     *
+     * @param numAttributes number of attributes per tuple.
+     */
+    public Builder(int numAttributes) {
+      this.numAttributes = numAttributes;
+    }
+
+    /**
+     * Accounts for a tuple stored on the current page.
+     *
+     * @param tuple the tuple.
+     */
+    public void add(Tuple tuple) {
+      int base = numPages * numAttributes;
+      if (!pageStarted) {
+        if (base + numAttributes > mins.length) {
+          mins = Arrays.copyOf(mins, Math.max(2 * mins.length, 16 * numAttributes));
+          maxs = Arrays.copyOf(maxs, mins.length);
+        }
+        for (int c = 0; c < numAttributes; c++) {
+          mins[base + c] = tuple.getElementAtIndex(c);
+          maxs[base + c] = tuple.getElementAtIndex(c);
+        }
+        pageStarted = true;
+        return;
+      }
+      for (int c = 0; c < numAttributes; c++) {
+        int value = tuple.getElementAtIndex(c);
+        if (value < mins[base + c]) {
+          mins[base + c] = value;
+        } else if (value > maxs[base + c]) {
+          maxs[base + c] = value;
+        }
+      }
+    }
+
+    /** Completes the current page; later tuples go to the next one. */
+    public void endPage() {
+      if (pageStarted) {
+        numPages++;
+        pageStarted = false;
+      }
+    }
+
+    /**
+     * Writes the zone map of the completed pages next to the table file.
+     *
+     * @param tableFile the table file.
+     * @throws IOException if the zone map cannot be written.
+     */
+    public void write(File tableFile) throws IOException {
+      try (DataOutputStream out =
+          new DataOutputStream(
+              new BufferedOutputStream(new FileOutputStream(fileFor(tableFile))))) {
+        out.writeInt(numAttributes);
+        for (int page = 0; page < numPages; page++) {
+          for (int c = 0; c < numAttributes; c++) {
+            out.writeInt(mins[page * numAttributes + c]);
+          }
+          for (int c = 0; c < numAttributes; c++) {
+            out.writeInt(maxs[page * numAttributes + c]);
+          }
+        }
+      }
+    }
+  }
+}
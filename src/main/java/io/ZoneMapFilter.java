@@ -0,0 +1,135 @@
+package io;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Range of values each column of a table must fall in for a tuple to satisfy a selection. Checking
+ * the ranges against a {@link ZoneMap} tells which pages may hold a qualifying tuple; the other
+ * pages can be skipped without being read. The filter only ever narrows the set of pages, so the
+ * selection itself must still be evaluated on the tuples of the remaining pages.
+ */
+public class ZoneMapFilter {
+  private final long[] lows; // Smallest allowed value of each column
+  private final long[] highs; // Largest allowed value of each column
+  private boolean restricted; // Whether any column has a narrower range than all ints
+
+  /**
+   * Creates a filter that lets every value of the given number of columns through.
+   *
+   * @param numColumns number of columns of the table.
+   */
+  public ZoneMapFilter(int numColumns) {
+    this.lows = new long[numColumns];
+    this.highs = new long[numColumns];
+    Arrays.fill(lows, Integer.MIN_VALUE);
+    Arrays.fill(highs, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Narrows the allowed range of a column to its intersection with [low, high].
+   *
+   * @param column the index of the column.
+   * @param low the smallest allowed value.
+   * @param high the largest allowed value.
+   */
+  public void restrict(int column, long low, long high) {
+    lows[column] = Math.max(lows[column], low);
+    highs[column] = Math.min(highs[column], high);
+    restricted = true;
+  }
+
+  /**
+   * Returns the smallest allowed value of a column.
+   *
+   * @param column the index of the column.
+   * @return the lower bound of the range.
+   */
+  public long getLow(int column) {
+    return lows[column];
+  }
+
+  /**
+   * Returns the largest allowed value of a column.
+   *
+   * @param column the index of the column.
+   * @return the upper bound of the range.
+   */
+  public long getHigh(int column) {
+    return highs[column];
+  }
+
+  /**
+   * Whether the filter can rule out any page at all.
+   *
+   * @return true if some column has a narrower range than all ints.
+   */
+  public boolean isRestricted() {
+    return restricted;
+  }
+
+  /**
+   * Checks whether a page may hold a tuple within the ranges, given the statistics of each column.
+   *
+   * @param maps the zone map holding the statistics of each column.
+   * @param columns the index of each column within its zone map.
+   * @param page the index of the page.
+   * @return false if some column of the page lies entirely outside its range.
+   */
+  private boolean mayMatch(ZoneMap[] maps, int[] columns, long page) {
+    for (int c = 0; c < lows.length; c++) {
+      if (lows[c] > highs[c]) {
+        return false;
+      }
+      if (lows[c] == Integer.MIN_VALUE && highs[c] == Integer.MAX_VALUE) {
+        continue;
+      }
+      if (maps[c].getMax(page, columns[c]) < lows[c]
+          || maps[c].getMin(page, columns[c]) > highs[c]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Builds a predicate selecting the pages of a table file that may hold a qualifying tuple.
+   *
+   * @param map the zone map of the file, whose columns are the columns of the filter.
+   * @return the page predicate, or null if the filter cannot skip anything with this zone map.
+   */
+  public LongPredicate pagesOf(ZoneMap map) {
+    if (!restricted || map == null) {
+      return null;
+    }
+    ZoneMap[] maps = new ZoneMap[lows.length];
+    int[] columns = new int[lows.length];
+    for (int c = 0; c < lows.length; c++) {
+      maps[c] = map;
+      columns[c] = c;
+    }
+    return page -> mayMatch(maps, columns, page);
+  }
+
+  /**
+   * Builds a predicate selecting the pages of a columnar table that may hold a qualifying tuple.
+   * Pages with the same index cover the same rows in every column file.
+   *
+   * @param maps the zone map of each column file, one per column of the filter; entries for
+   *     unrestricted columns may be null.
+   * @return the page predicate, or null if the filter cannot skip anything with these zone maps.
+   */
+  public LongPredicate pagesOf(ZoneMap[] maps) {
+    if (!restricted) {
+      return null;
+    }
+    for (int c = 0; c < lows.length; c++) {
+      boolean unrestricted = lows[c] == Integer.MIN_VALUE && highs[c] == Integer.MAX_VALUE;
+      if (maps[c] == null && !unrestricted) {
+        return null;
+      }
+    }
+    int[] columns = new int[lows.length]; // Every column file holds a single column
+    return page -> mayMatch(maps, columns, page);
+  }
+}
@@ -0,0 +1,219 @@
+package operator;
+
+import common.Tuple;
+import common.TupleBatch;
+import expression.JoinPredicate;
+import io.PageLayout;
+import java.util.List;
+import net.sf.jsqlparser.expression.Expression;
+
+/**
+ * The BlockNestedLoopJoinOperator implements the block nested loop join algorithm. It reads the
+ * outer relation in blocks that fill a given number of buffer pages, and scans the inner relation
+ * once per block instead of once per outer tuple. Like the {@link JoinOperator}, it accepts any
+ * join condition, so it is the fallback for theta joins such as {@code S1.A < S2.A}.
+ *
+ * <p>The outer block is held as column vectors. The inner relation is read one batch at a time,
+ * and every tuple of the block is paired with every tuple of the batch before the next batch is
+ * read, so when the inner relation fits in a single batch, tuples come out in the same order as
+ * from the tuple nested loop join. The join condition, compiled into a {@link JoinPredicate},
+ * narrows the rows of the batch to those joining each outer tuple, and only these pairs are copied
+ * into the output batch.
+ */
+public class BlockNestedLoopJoinOperator extends Operator {
+  private final Operator leftChild;
+  private final Operator rightChild;
+  private final JoinPredicate predicate; // The compiled join condition, or null
+  private final int leftWidth;
+
+  // The block of outer tuples, and the outer batch it is filled from
+  private final int[][] block;
+  private int blockSize;
+  private int blockRow;
+  private boolean blockDone = true; // Whether the inner relation is exhausted for the block
+  private TupleBatch leftBatch;
+  private int leftPosition;
+  private boolean leftExhausted;
+
+  // The inner batch paired with the block, and the position in it of the next pair
+  private TupleBatch rightBatch;
+  private int rightPosition;
+
+  private TupleBatch output;
+  private int[] candidates; // Inner rows paired with the outer tuple, narrowed by the condition
+  private int outputPosition; // Next tuple of the output batch returned by getNextTuple
+
+  /**
+   * Constructs a BlockNestedLoopJoinOperator.
+   *
+   * @param leftChild The outer child Operator, read in blocks.
+   * @param rightChild The inner child Operator, scanned once per block.
+   * @param condition The join condition Expression, or null for a cross product.
+   * @param bufferPages The number of pages of outer tuples held in a block.
+   */
+  public BlockNestedLoopJoinOperator(
+      Operator leftChild, Operator rightChild, Expression condition, int bufferPages) {
+    super(JoinOperator.mergeSchemas(leftChild.getOutputSchema(), rightChild.getOutputSchema()));
+    if (bufferPages <= 0) {
+      throw new IllegalArgumentException("A block needs at least one buffer page.");
+    }
+    this.leftChild = leftChild;
+    this.rightChild = rightChild;
+    this.predicate =
+        condition != null
+            ? JoinPredicate.compile(
+                condition, leftChild.getOutputSchema(), rightChild.getOutputSchema())
+            : null;
+    this.leftWidth = leftChild.getOutputSchema().size();
+    this.block = new int[leftWidth][bufferPages * PageLayout.tuplesPerPage(leftWidth)];
+  }
+
+  /**
+   * Returns the number of outer tuples held in a block.
+   *
+   * @return the block size, in tuples.
+   */
+  public int getBlockCapacity() {
+    return block[0].length;
+  }
+
+  /** Forwards a runtime join filter to the child that produces its columns. */
+  @Override
+  public boolean pushRuntimeFilter(RuntimeFilter filter) {
+    return leftChild.pushRuntimeFilter(filter) || rightChild.pushRuntimeFilter(filter);
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(leftChild, rightChild);
+  }
+
+  /** Resets the operator by resetting both child operators and dropping the current block. */
+  @Override
+  public void reset() {
+    leftChild.reset();
+    rightChild.reset();
+    blockSize = 0;
+    blockRow = 0;
+    blockDone = true;
+    leftBatch = null;
+    leftExhausted = false;
+    rightBatch = null;
+    outputPosition = 0;
+    if (output != null) {
+      output.clear();
+    }
+  }
+
+  /**
+   * Retrieves the next joined tuple that satisfies the join condition, from the current output
+   * batch.
+   *
+   * @return The next joined Tuple, or null if no more joined tuples are available.
+   */
+  @Override
+  public Tuple getNextTuple() {
+    while (output == null || outputPosition == output.getSelectedCount()) {
+      if (getNextBatch() == null) {
+        return null;
+      }
+      outputPosition = 0;
+    }
+    return output.getTuple(outputPosition++);
+  }
+
+  /**
+   * Retrieves the next batch of joined tuples that satisfy the join condition.
+   *
+   * @return The next batch with at least one row, or null if no more joined tuples are available.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    if (output == null) {
+      output = new TupleBatch(getOutputSchema().size(), TupleBatch.DEFAULT_CAPACITY);
+      candidates = new int[output.getCapacity()];
+    }
+    output.clear();
+    outputPosition = 0;
+    fillJoinedPairs();
+    return output.size() > 0 ? output : null;
+  }
+
+  /**
+   * Fills the output batch with the next pairs of tuples of the block and the inner relation that
+   * satisfy the join condition, until it is full or the outer relation is exhausted.
+   */
+  private void fillJoinedPairs() {
+    while (!output.isFull()) {
+      if (rightBatch == null) {
+        if (blockDone) {
+          if (!loadBlock()) {
+            return;
+          }
+          rightChild.reset();
+          blockDone = false;
+        }
+        rightBatch = rightChild.getNextBatch();
+        rightPosition = 0;
+        blockRow = 0;
+        if (rightBatch == null) {
+          blockDone = true;
+          continue;
+        }
+      }
+
+      int count =
+          Math.min(
+              output.getCapacity() - output.size(), rightBatch.getSelectedCount() - rightPosition);
+      for (int r = 0; r < count; r++) {
+        candidates[r] = rightBatch.getSelectedRow(rightPosition + r);
+      }
+      int matches =
+          predicate != null
+              ? predicate.filter(block, blockRow, rightBatch, candidates, count)
+              : count;
+      JoinOperator.copyPairs(output, block, blockRow, rightBatch, candidates, matches);
+      rightPosition += count;
+
+      if (rightPosition == rightBatch.getSelectedCount()) {
+        // Pair the next outer tuple of the block with the same inner batch
+        rightPosition = 0;
+        blockRow++;
+        if (blockRow == blockSize) {
+          rightBatch = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Fills the block with the next outer tuples.
+   *
+   * @return false if the outer relation is exhausted.
+   */
+  private boolean loadBlock() {
+    blockSize = 0;
+    int capacity = block[0].length;
+    while (blockSize < capacity && !leftExhausted) {
+      if (leftBatch == null || leftPosition == leftBatch.getSelectedCount()) {
+        leftBatch = leftChild.getNextBatch();
+        leftPosition = 0;
+        if (leftBatch == null) {
+          leftExhausted = true;
+          break;
+        }
+      }
+      int count = Math.min(capacity - blockSize, leftBatch.getSelectedCount() - leftPosition);
+      for (int c = 0; c < leftWidth; c++) {
+        int[] values = leftBatch.getColumn(c);
+        int[] column = block[c];
+        for (int r = 0; r < count; r++) {
+          column[blockSize + r] = values[leftBatch.getSelectedRow(leftPosition + r)];
+        }
+      }
+      blockSize += count;
+      leftPosition += count;
+    }
+    return blockSize > 0;
+  }
+}
@@ -1,7 +1,9 @@
 package operator;
 
 import common.Tuple;
+import common.TupleBatch;
 import java.util.ArrayList;
+import java.util.List;
 import net.sf.jsqlparser.schema.Column;
 
 /**
@@ -11,6 +13,7 @@ import net.sf.jsqlparser.schema.Column;
 public class DuplicateEliminationOperator extends Operator {
   private final Operator child;
   private Tuple lastReturnedTuple;
+  private int[] lastReturnedRow; // Values of the last row kept in batch mode, or null
 
   /**
    * Constructs a DuplicateEliminationOperator with the specified output schema and child operator.
@@ -24,11 +27,80 @@ public class DuplicateEliminationOperator extends Operator {
     this.lastReturnedTuple = null;
   }
 
+  /**
+   * Returns the order of the child, which removing duplicates preserves.
+   *
+   * @return the indices of the columns the tuples are sorted on, or null if not sorted.
+   */
+  @Override
+  public int[] getSortOrder() {
+    return child.getSortOrder();
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(child);
+  }
+
   /** Resets the operator by resetting its child and clearing the last returned tuple. */
   @Override
   public void reset() {
     child.reset();
     lastReturnedTuple = null;
+    lastReturnedRow = null;
+  }
+
+  /**
+   * Retrieves the next batch of the child with its selection narrowed to the rows that differ
+   * from the row before them. Batches with only duplicates are skipped.
+   *
+   * @return The next batch with at least one selected row, or null if no such batch exists.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    TupleBatch batch;
+    while ((batch = child.getNextBatch()) != null) {
+      int width = batch.getWidth();
+      int[] rows = batch.getSelection();
+      int count = batch.getSelectedCount();
+      int kept = 0;
+      for (int i = 0; i < count; i++) {
+        int row = rows[i];
+        if (!sameAsLastReturned(batch, row)) {
+          if (lastReturnedRow == null) {
+            lastReturnedRow = new int[width];
+          }
+          for (int c = 0; c < width; c++) {
+            lastReturnedRow[c] = batch.getColumn(c)[row];
+          }
+          rows[kept++] = row;
+        }
+      }
+      if (kept > 0) {
+        batch.setSelectedCount(kept);
+        return batch;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Checks whether a row of a batch holds the same values as the last row kept.
+   *
+   * @param batch the batch.
+   * @param row the index of the row.
+   * @return true if the row is a duplicate.
+   */
+  private boolean sameAsLastReturned(TupleBatch batch, int row) {
+    if (lastReturnedRow == null) {
+      return false;
+    }
+    for (int c = 0; c < lastReturnedRow.length; c++) {
+      if (batch.getColumn(c)[row] != lastReturnedRow[c]) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
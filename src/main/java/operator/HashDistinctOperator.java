@@ -0,0 +1,322 @@
+package operator;
+
+import common.Tuple;
+import common.TupleBatch;
+import io.PageLayout;
+import io.SpillPartitions;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The HashDistinctOperator removes duplicate tuples from its input in any order, by keeping the
+ * tuples it has returned in an open-addressing hash set. The set stores the tuples as column
+ * vectors, and each of its slots holds the number of a stored row next to the hash of all its
+ * attributes, so a probe compares primitive hashes and only reads the rows whose hash matches.
+ * Input batches are returned with their selection narrowed to the tuples not seen before, so the
+ * first copy of each tuple streams through in input order.
+ *
+ * <p>Once the set holds the memory budget of tuples, it stops growing: tuples already in it are
+ * still dropped, and the others are written to one of {@link SpillPartitions#FANOUT} temporary
+ * files by their hash. Copies of a tuple all land in the same partition, which is deduplicated by a
+ * HashDistinctOperator of its own once the input is exhausted, with another hash function. A
+ * partition still too large after {@link SpillPartitions#MAX_LEVELS} rounds, such as one of many
+ * tuples with the same hash, is sorted and deduplicated by a {@link DuplicateEliminationOperator}.
+ *
+ * <p>Temporary files are deleted as soon as their partition has been deduplicated, and all of them
+ * when the operator is reset, which starts over from scratch.
+ */
+public class HashDistinctOperator extends Operator {
+  private final Operator child;
+  private final int width;
+  private final int[] allColumns; // Every column, hashed and compared as the key
+  private final int memoryPages;
+  private final long budget; // Number of distinct tuples held in memory
+  private final int level;
+
+  private int[][] columns; // The distinct tuples returned so far, while the input is read
+  private int size;
+  private int[] slots; // Number of the row in each slot plus one, or 0 if the slot is empty
+  private int[] slotHashes; // Hash of the row in each slot
+  private boolean childDone;
+  private boolean partitioned;
+
+  // Temporary files of the partitions
+  private final SpillPartitions partitions = new SpillPartitions("distinct");
+
+  // The deduplication of the spilled partition being read, once the input is exhausted
+  private int partition;
+  private Operator partitionDistinct;
+
+  private TupleBatch current; // Batch returned by the last call to getNextBatch
+  private int outputPosition; // Next tuple of the current batch returned by getNextTuple
+
+  /**
+   * Constructs a HashDistinctOperator.
+   *
+   * @param child The child Operator providing input tuples.
+   * @param memoryPages The number of pages of distinct tuples held in memory; zero or less for no
+   *     limit.
+   */
+  public HashDistinctOperator(Operator child, int memoryPages) {
+    this(child, memoryPages, 0);
+  }
+
+  /** Constructs a HashDistinctOperator for a partition split the given times. */
+  private HashDistinctOperator(Operator child, int memoryPages, int level) {
+    super(child.getOutputSchema());
+    this.child = child;
+    this.width = getOutputSchema().size();
+    this.allColumns = new int[width];
+    Arrays.setAll(allColumns, c -> c);
+    this.memoryPages = memoryPages;
+    this.budget =
+        memoryPages > 0 ? (long) memoryPages * PageLayout.tuplesPerPage(width) : Long.MAX_VALUE;
+    this.level = level;
+    clearSet();
+  }
+
+  /** Empties the hash set. */
+  private void clearSet() {
+    int capacity = (int) Math.min(budget, TupleBatch.DEFAULT_CAPACITY);
+    columns = new int[width][capacity];
+    size = 0;
+    slots = new int[Integer.highestOneBit(capacity) << 2];
+    slotHashes = new int[slots.length];
+  }
+
+  /**
+   * Whether part of the input was written to disk, because its distinct tuples exceed the memory
+   * budget.
+   *
+   * @return true if the input was partitioned.
+   */
+  public boolean isSpilled() {
+    return partitioned;
+  }
+
+  /** Closes the children, and the operator reading the spilled partition, if any. */
+  @Override
+  public void close() {
+    super.close();
+    if (partitionDistinct != null) {
+      partitionDistinct.close();
+    }
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(child);
+  }
+
+  /**
+   * Resets the operator by deleting its temporary files and resetting its child, so it starts
+   * over.
+   */
+  @Override
+  public void reset() {
+    deleteSpillFiles();
+    child.reset();
+    clearSet();
+    childDone = false;
+    partitioned = false;
+    partition = 0;
+    current = null;
+    outputPosition = 0;
+  }
+
+  /**
+   * Retrieves the next unique tuple, from the current batch.
+   *
+   * @return The next unique Tuple, or null if no more tuples are available.
+   */
+  @Override
+  public Tuple getNextTuple() {
+    while (current == null || outputPosition == current.getSelectedCount()) {
+      if (getNextBatch() == null) {
+        return null;
+      }
+      outputPosition = 0;
+    }
+    return current.getTuple(outputPosition++);
+  }
+
+  /**
+   * Retrieves the next batch of unique tuples: first those of the input kept in memory, then those
+   * of each spilled partition.
+   *
+   * @return The next batch with at least one selected row, or null if no more tuples are available.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    outputPosition = 0;
+    try {
+      if (!childDone) {
+        current = nextChildBatch();
+        if (current != null) {
+          return current;
+        }
+        finishChild();
+      }
+      current = nextPartitionBatch();
+      return current;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error in HashDistinctOperator", e);
+    }
+  }
+
+  /**
+   * Retrieves the next batch of the child with its selection narrowed to the tuples not seen
+   * before, adding them to the set, or spilling them once the set is full. Batches with no new
+   * tuple in memory are skipped.
+   *
+   * @return the batch, or null once the child is exhausted.
+   */
+  private TupleBatch nextChildBatch() throws IOException {
+    TupleBatch batch;
+    while ((batch = child.getNextBatch()) != null) {
+      int[] rows = batch.getSelection();
+      int count = batch.getSelectedCount();
+      int kept = 0;
+      for (int i = 0; i < count; i++) {
+        int row = rows[i];
+        int hash = JoinHashTable.hash(batch, allColumns, row);
+        int slot = findSlot(batch, row, hash);
+        if (slots[slot] != 0) {
+          continue; // Returned before
+        }
+        if (size < budget) {
+          insert(batch, row, hash, slot);
+          rows[kept++] = row;
+        } else {
+          partitioned = true;
+          partitions.write(SpillPartitions.partitionOf(hash, level), batch.getTupleAt(row));
+        }
+      }
+      if (kept > 0) {
+        batch.setSelectedCount(kept);
+        return batch;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the slot holding a tuple equal to a row of a batch, or the empty slot where it would be
+   * inserted, probing linearly from its hash.
+   */
+  private int findSlot(TupleBatch batch, int row, int hash) {
+    int mask = slots.length - 1;
+    int slot = hash & mask;
+    while (slots[slot] != 0) {
+      if (slotHashes[slot] == hash && rowEquals(slots[slot] - 1, batch, row)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /** Whether a stored tuple has the same values as a row of a batch. */
+  private boolean rowEquals(int stored, TupleBatch batch, int row) {
+    for (int c = 0; c < width; c++) {
+      if (columns[c][stored] != batch.getColumn(c)[row]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Stores a row of a batch in the set, in the given empty slot. */
+  private void insert(TupleBatch batch, int row, int hash, int slot) {
+    if (size == columns[0].length) {
+      int length = (int) Math.min(2L * size, budget);
+      for (int c = 0; c < width; c++) {
+        columns[c] = Arrays.copyOf(columns[c], length);
+      }
+    }
+    for (int c = 0; c < width; c++) {
+      columns[c][size] = batch.getColumn(c)[row];
+    }
+    slots[slot] = ++size;
+    slotHashes[slot] = hash;
+    if (2 * size > slots.length) {
+      rehash();
+    }
+  }
+
+  /** Doubles the number of slots, keeping the load factor of the set at most one half. */
+  private void rehash() {
+    int[] oldSlots = slots;
+    int[] oldHashes = slotHashes;
+    slots = new int[2 * oldSlots.length];
+    slotHashes = new int[slots.length];
+    int mask = slots.length - 1;
+    for (int s = 0; s < oldSlots.length; s++) {
+      if (oldSlots[s] != 0) {
+        int slot = oldHashes[s] & mask;
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots[slot] = oldSlots[s];
+        slotHashes[slot] = oldHashes[s];
+      }
+    }
+  }
+
+  /** Closes the partition files once the child is exhausted, and frees the set. */
+  private void finishChild() throws IOException {
+    childDone = true;
+    columns = null;
+    slots = null;
+    slotHashes = null;
+    partitions.finishWriting();
+  }
+
+  /**
+   * Deduplicates the spilled partitions one at a time, deleting the file of each partition once it
+   * has been read.
+   *
+   * @return the next batch of unique tuples, or null once every partition has been read.
+   */
+  private TupleBatch nextPartitionBatch() {
+    while (true) {
+      if (partitionDistinct != null) {
+        TupleBatch batch = partitionDistinct.getNextBatch();
+        if (batch != null) {
+          return batch;
+        }
+        partitionDistinct = null;
+        partitions.delete(partition);
+        partition++;
+      }
+      while (partition < SpillPartitions.FANOUT && partitions.getFile(partition) == null) {
+        partition++;
+      }
+      if (partition == SpillPartitions.FANOUT) {
+        return null;
+      }
+      partitionDistinct = distinctPartition(partition);
+    }
+  }
+
+  /** Creates the deduplication of a spilled partition. */
+  private Operator distinctPartition(int p) {
+    Operator scan =
+        new ScanOperator(getOutputSchema(), null, false, partitions.getFile(p).getPath());
+    if (level + 1 < SpillPartitions.MAX_LEVELS) {
+      return new HashDistinctOperator(scan, memoryPages, level + 1);
+    }
+    return new DuplicateEliminationOperator(getOutputSchema(), new SortOperator(scan, new int[0]));
+  }
+
+  /** Closes and deletes every temporary file, including those of the partition being read. */
+  private void deleteSpillFiles() {
+    if (partitionDistinct instanceof HashDistinctOperator distinct) {
+      distinct.deleteSpillFiles();
+    }
+    partitionDistinct = null;
+    partitions.deleteAll();
+  }
+}
@@ -0,0 +1,221 @@
+package operator;
+
+import common.EquiJoinCondition;
+import common.Tuple;
+import common.TupleBatch;
+import expression.BatchPredicate;
+import java.util.List;
+
+/**
+ * The HashJoinOperator implements the in-memory hash join algorithm for equality join conditions.
+ * One input, the build side, is read in full into a hash table keyed on its join columns; the other
+ * input, the probe side, is then streamed one batch at a time and each tuple is paired with the
+ * build tuples in its hash bucket that have the same keys. Conjuncts of the join condition that
+ * are not key equalities are applied afterwards, as a residual filter over the joined pairs.
+ *
+ * <p>The build side should be the smaller input, since it is held in memory. The hash table is
+ * built on the first request for tuples and kept across resets, which only rewind the probe side.
+ * Tuples with the same keys are paired in the order the build side produced them, so with the
+ * right input as the build side, tuples come out in the same order as from the nested loop joins.
+ *
+ * <p>Once the build side is read, a {@link RuntimeFilter} on its keys is pushed down to the probe
+ * side, so that probe tuples without a match are dropped by their scan.
+ */
+public class HashJoinOperator extends Operator {
+  private final Operator buildChild;
+  private final Operator probeChild;
+  private final boolean buildLeft;
+  private final int[] buildKeys;
+  private final int[] probeKeys;
+  private final int buildWidth;
+  private final int probeWidth;
+  private final BatchPredicate residual;
+  private final RuntimeFilter runtimeFilter; // Filter pushed to the probe side, or null
+
+  private JoinHashTable table;
+
+  // State of the probe: the probe batch and tuple, and the next build row to compare it with
+  private TupleBatch probeBatch;
+  private int probePosition;
+  private int probeRow;
+  private int probeHash;
+  private int chainRow = -1;
+
+  private TupleBatch output;
+  private int outputPosition; // Next tuple of the output batch returned by getNextTuple
+
+  /**
+   * Constructs a HashJoinOperator.
+   *
+   * @param leftChild The left child Operator.
+   * @param rightChild The right child Operator.
+   * @param condition The join condition, split into key equalities and a residual condition; it
+   *     must have at least one key.
+   * @param buildLeft Whether the left child is the build side; otherwise the right child is.
+   */
+  public HashJoinOperator(
+      Operator leftChild, Operator rightChild, EquiJoinCondition condition, boolean buildLeft) {
+    super(JoinOperator.mergeSchemas(leftChild.getOutputSchema(), rightChild.getOutputSchema()));
+    if (!condition.hasKeys()) {
+      throw new IllegalArgumentException("A hash join needs at least one equality on keys.");
+    }
+    this.buildLeft = buildLeft;
+    this.buildChild = buildLeft ? leftChild : rightChild;
+    this.probeChild = buildLeft ? rightChild : leftChild;
+    this.buildKeys = buildLeft ? condition.getLeftKeys() : condition.getRightKeys();
+    this.probeKeys = buildLeft ? condition.getRightKeys() : condition.getLeftKeys();
+    this.buildWidth = buildChild.getOutputSchema().size();
+    this.probeWidth = probeChild.getOutputSchema().size();
+    this.residual =
+        condition.getResidual() != null
+            ? BatchPredicate.compile(condition.getResidual(), getOutputSchema())
+            : null;
+    this.runtimeFilter = RuntimeFilter.create(probeChild, probeKeys);
+  }
+
+  /**
+   * Whether the left child is the build side.
+   *
+   * @return true if the left child is held in the hash table.
+   */
+  public boolean isBuildLeft() {
+    return buildLeft;
+  }
+
+  /**
+   * Returns the filter on the keys of the build side pushed down to the probe side.
+   *
+   * @return the filter, or null if runtime filters are disabled.
+   */
+  public RuntimeFilter getRuntimeFilter() {
+    return runtimeFilter;
+  }
+
+  /** Forwards a runtime join filter to the child that produces its columns. */
+  @Override
+  public boolean pushRuntimeFilter(RuntimeFilter filter) {
+    return buildChild.pushRuntimeFilter(filter) || probeChild.pushRuntimeFilter(filter);
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(buildChild, probeChild);
+  }
+
+  /** Resets the operator by rewinding the probe side; the hash table is kept. */
+  @Override
+  public void reset() {
+    probeChild.reset();
+    probeBatch = null;
+    chainRow = -1;
+    outputPosition = 0;
+    if (output != null) {
+      output.clear();
+    }
+  }
+
+  /**
+   * Retrieves the next joined tuple that satisfies the join condition, from the current output
+   * batch.
+   *
+   * @return The next joined Tuple, or null if no more joined tuples are available.
+   */
+  @Override
+  public Tuple getNextTuple() {
+    while (output == null || outputPosition == output.getSelectedCount()) {
+      if (getNextBatch() == null) {
+        return null;
+      }
+      outputPosition = 0;
+    }
+    return output.getTuple(outputPosition++);
+  }
+
+  /**
+   * Retrieves the next batch of joined tuples that satisfy the join condition.
+   *
+   * @return The next batch with at least one selected row, or null if no more joined tuples are
+   *     available.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    if (output == null) {
+      output = new TupleBatch(getOutputSchema().size(), TupleBatch.DEFAULT_CAPACITY);
+      build();
+    }
+    while (true) {
+      output.clear();
+      outputPosition = 0;
+      probe();
+      if (output.size() == 0) {
+        if (runtimeFilter != null) {
+          runtimeFilter.logCounts();
+        }
+        return null;
+      }
+      if (residual == null || residual.filter(output) > 0) {
+        return output;
+      }
+    }
+  }
+
+  /**
+   * Reads the build side into the hash table, and pushes a filter on its keys down to the probe
+   * side.
+   */
+  private void build() {
+    table = new JoinHashTable(buildWidth, buildKeys);
+    TupleBatch batch;
+    while ((batch = buildChild.getNextBatch()) != null) {
+      table.add(batch);
+      if (runtimeFilter != null) {
+        runtimeFilter.addKeys(batch, buildKeys);
+      }
+    }
+    table.build();
+    if (runtimeFilter != null) {
+      runtimeFilter.seal();
+      runtimeFilter.pushTo(probeChild);
+    }
+  }
+
+  /**
+   * Fills the output batch with the next pairs of probe and build tuples with equal keys, until it
+   * is full or the probe side is exhausted.
+   */
+  private void probe() {
+    int size = output.size();
+    int capacity = output.getCapacity();
+    while (size < capacity) {
+      if (chainRow < 0) {
+        if (probeBatch == null || probePosition == probeBatch.getSelectedCount()) {
+          probeBatch = probeChild.getNextBatch();
+          probePosition = 0;
+          if (probeBatch == null) {
+            break;
+          }
+        }
+        probeRow = probeBatch.getSelectedRow(probePosition++);
+        probeHash = JoinHashTable.hash(probeBatch, probeKeys, probeRow);
+        chainRow = table.first(probeHash);
+        continue;
+      }
+
+      int buildRow = chainRow;
+      chainRow = table.next(buildRow);
+      if (table.hashOf(buildRow) == probeHash
+          && table.keysMatch(buildRow, probeBatch, probeKeys, probeRow)) {
+        int buildOffset = buildLeft ? 0 : probeWidth;
+        int probeOffset = buildLeft ? buildWidth : 0;
+        for (int c = 0; c < buildWidth; c++) {
+          output.getColumn(buildOffset + c)[size] = table.get(c, buildRow);
+        }
+        for (int c = 0; c < probeWidth; c++) {
+          output.getColumn(probeOffset + c)[size] = probeBatch.getColumn(c)[probeRow];
+        }
+        size++;
+      }
+    }
+    output.setSize(size);
+  }
+}
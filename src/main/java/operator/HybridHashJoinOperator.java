@@ -0,0 +1,429 @@
+package operator;
+
+import common.EquiJoinCondition;
+import common.Tuple;
+import common.TupleBatch;
+import expression.BatchPredicate;
+import io.PageLayout;
+import io.SpillPartitions;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * The HybridHashJoinOperator implements the hybrid hash join algorithm for equality join
+ * conditions, for build sides that may not fit in memory. It works like the {@link
+ * HashJoinOperator} as long as the build side fits in the memory budget. Once the budget is
+ * exceeded, both inputs are split by the hash of their keys into {@link SpillPartitions#FANOUT}
+ * partitions: the first partition stays resident in the hash table and is joined while the probe
+ * side streams by, and the tuples of the other partitions are written to temporary files. Each pair
+ * of spilled partitions is then joined by a hybrid hash join of its own, which repartitions it with
+ * another hash function if it is still too large. Partitions that are still too large after {@link
+ * SpillPartitions#MAX_LEVELS} rounds, such as a run of a single key, are joined by a block nested
+ * loop join with the same memory budget.
+ *
+ * <p>Temporary files are deleted as soon as their partition has been joined, and all of them when
+ * the operator is reset, which restarts the join from scratch. Like the HashJoinOperator, the join
+ * pushes a {@link RuntimeFilter} on the keys of the whole build side down to the probe side, so
+ * probe tuples without a match are neither joined nor spilled.
+ */
+public class HybridHashJoinOperator extends Operator {
+  private final Operator leftChild;
+  private final Operator rightChild;
+  private final EquiJoinCondition condition;
+  private final boolean buildLeft;
+  private final Operator buildChild;
+  private final Operator probeChild;
+  private final int[] buildKeys;
+  private final int[] probeKeys;
+  private final int buildWidth;
+  private final int probeWidth;
+  private final BatchPredicate residual;
+  private final int memoryPages;
+  private final int budget; // Number of build tuples held in memory
+  private final int level;
+  private final RuntimeFilter runtimeFilter; // Filter pushed to the probe side, or null
+
+  private JoinHashTable table;
+  private boolean built;
+  private boolean partitioned;
+  private boolean residentSpilled; // Whether the first partition was spilled too
+
+  // Temporary files of the partitions of each side
+  private final SpillPartitions buildPartitions = new SpillPartitions("hashjoin");
+  private final SpillPartitions probePartitions = new SpillPartitions("hashjoin");
+
+  // State of the probe: the probe batch and tuple, and the next build row to compare it with
+  private boolean probeDone;
+  private TupleBatch probeBatch;
+  private int probePosition;
+  private int probeRow;
+  private int probeHash;
+  private int chainRow = -1;
+
+  // The join of the spilled partition being read, once the probe side is exhausted
+  private int partition;
+  private Operator partitionJoin;
+
+  private TupleBatch output;
+  private TupleBatch current; // Batch returned by the last call to getNextBatch
+  private int outputPosition; // Next tuple of the current batch returned by getNextTuple
+
+  /**
+   * Constructs a HybridHashJoinOperator.
+   *
+   * @param leftChild The left child Operator.
+   * @param rightChild The right child Operator.
+   * @param condition The join condition, split into key equalities and a residual condition; it
+   *     must have at least one key.
+   * @param buildLeft Whether the left child is the build side; otherwise the right child is.
+   * @param memoryPages The number of pages of build tuples held in memory.
+   */
+  public HybridHashJoinOperator(
+      Operator leftChild,
+      Operator rightChild,
+      EquiJoinCondition condition,
+      boolean buildLeft,
+      int memoryPages) {
+    this(leftChild, rightChild, condition, buildLeft, memoryPages, 0);
+  }
+
+  /** Constructs a HybridHashJoinOperator for a pair of partitions split the given times. */
+  private HybridHashJoinOperator(
+      Operator leftChild,
+      Operator rightChild,
+      EquiJoinCondition condition,
+      boolean buildLeft,
+      int memoryPages,
+      int level) {
+    super(JoinOperator.mergeSchemas(leftChild.getOutputSchema(), rightChild.getOutputSchema()));
+    if (!condition.hasKeys()) {
+      throw new IllegalArgumentException("A hash join needs at least one equality on keys.");
+    }
+    if (memoryPages <= 0) {
+      throw new IllegalArgumentException("A hash join needs at least one page of memory.");
+    }
+    this.leftChild = leftChild;
+    this.rightChild = rightChild;
+    this.condition = condition;
+    this.buildLeft = buildLeft;
+    this.buildChild = buildLeft ? leftChild : rightChild;
+    this.probeChild = buildLeft ? rightChild : leftChild;
+    this.buildKeys = buildLeft ? condition.getLeftKeys() : condition.getRightKeys();
+    this.probeKeys = buildLeft ? condition.getRightKeys() : condition.getLeftKeys();
+    this.buildWidth = buildChild.getOutputSchema().size();
+    this.probeWidth = probeChild.getOutputSchema().size();
+    this.residual =
+        condition.getResidual() != null
+            ? BatchPredicate.compile(condition.getResidual(), getOutputSchema())
+            : null;
+    this.memoryPages = memoryPages;
+    this.budget = memoryPages * PageLayout.tuplesPerPage(buildWidth);
+    this.level = level;
+    // Partitions are only filtered at the first level, where the probe side is a subplan
+    this.runtimeFilter = level == 0 ? RuntimeFilter.create(probeChild, probeKeys) : null;
+  }
+
+  /**
+   * Returns the filter on the keys of the build side pushed down to the probe side.
+   *
+   * @return the filter, or null if runtime filters are disabled.
+   */
+  public RuntimeFilter getRuntimeFilter() {
+    return runtimeFilter;
+  }
+
+  /** Forwards a runtime join filter to the child that produces its columns. */
+  @Override
+  public boolean pushRuntimeFilter(RuntimeFilter filter) {
+    return leftChild.pushRuntimeFilter(filter) || rightChild.pushRuntimeFilter(filter);
+  }
+
+  /** Closes the children, and the operator reading the spilled partition, if any. */
+  @Override
+  public void close() {
+    super.close();
+    if (partitionJoin != null) {
+      partitionJoin.close();
+    }
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(leftChild, rightChild);
+  }
+
+  /**
+   * Resets the operator by deleting its temporary files and resetting both children, so the join
+   * starts over.
+   */
+  @Override
+  public void reset() {
+    deleteSpillFiles();
+    leftChild.reset();
+    rightChild.reset();
+    table = null;
+    built = false;
+    partitioned = false;
+    residentSpilled = false;
+    probeDone = false;
+    probeBatch = null;
+    chainRow = -1;
+    partition = 0;
+    current = null;
+    outputPosition = 0;
+  }
+
+  /**
+   * Retrieves the next joined tuple that satisfies the join condition, from the current batch.
+   *
+   * @return The next joined Tuple, or null if no more joined tuples are available.
+   */
+  @Override
+  public Tuple getNextTuple() {
+    while (current == null || outputPosition == current.getSelectedCount()) {
+      if (getNextBatch() == null) {
+        return null;
+      }
+      outputPosition = 0;
+    }
+    return current.getTuple(outputPosition++);
+  }
+
+  /**
+   * Retrieves the next batch of joined tuples that satisfy the join condition: first those of the
+   * resident partition, then those of each pair of spilled partitions.
+   *
+   * @return The next batch with at least one selected row, or null if no more joined tuples are
+   *     available.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    outputPosition = 0;
+    try {
+      if (!built) {
+        build();
+      }
+      if (!probeDone) {
+        current = nextResidentBatch();
+        if (current != null) {
+          return current;
+        }
+        finishProbe();
+      }
+      current = nextPartitionBatch();
+      return current;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error in HybridHashJoinOperator", e);
+    }
+  }
+
+  /**
+   * Reads the build side into the hash table, partitioning it once it exceeds the memory budget.
+   */
+  private void build() throws IOException {
+    table = new JoinHashTable(buildWidth, buildKeys);
+    if (runtimeFilter != null) {
+      runtimeFilter.clear();
+    }
+    TupleBatch batch;
+    while ((batch = buildChild.getNextBatch()) != null) {
+      if (runtimeFilter != null) {
+        runtimeFilter.addKeys(batch, buildKeys);
+      }
+      if (!partitioned) {
+        table.add(batch);
+        if (table.size() > budget) {
+          partitionTable();
+        }
+        continue;
+      }
+      for (int i = 0; i < batch.getSelectedCount(); i++) {
+        int row = batch.getSelectedRow(i);
+        int hash = JoinHashTable.hash(batch, buildKeys, row);
+        int p = SpillPartitions.partitionOf(hash, level);
+        if (p == 0 && !residentSpilled) {
+          table.add(batch, row, hash);
+          if (table.size() > budget) {
+            spillResidentPartition();
+          }
+        } else {
+          buildPartitions.write(p, batch.getTupleAt(row));
+        }
+      }
+    }
+    table.build();
+    built = true;
+    if (runtimeFilter != null) {
+      runtimeFilter.seal();
+      runtimeFilter.pushTo(probeChild);
+    }
+  }
+
+  /** Keeps the tuples of the first partition in the hash table and spills the others. */
+  private void partitionTable() throws IOException {
+    partitioned = true;
+    JoinHashTable resident = new JoinHashTable(buildWidth, buildKeys);
+    for (int row = 0; row < table.size(); row++) {
+      int p = SpillPartitions.partitionOf(table.hashOf(row), level);
+      if (p == 0) {
+        resident.add(table, row);
+      } else {
+        buildPartitions.write(p, table.getTuple(row));
+      }
+    }
+    table = resident;
+    if (table.size() > budget) {
+      spillResidentPartition();
+    }
+  }
+
+  /** Spills the first partition as well, when it alone exceeds the memory budget. */
+  private void spillResidentPartition() throws IOException {
+    residentSpilled = true;
+    for (int row = 0; row < table.size(); row++) {
+      buildPartitions.write(0, table.getTuple(row));
+    }
+    table = new JoinHashTable(buildWidth, buildKeys);
+  }
+
+  /**
+   * Streams the probe side, joining the tuples of the resident partition and spilling the others,
+   * until a batch of joined tuples satisfies the residual condition.
+   *
+   * @return the batch, or null once the probe side is exhausted.
+   */
+  private TupleBatch nextResidentBatch() throws IOException {
+    if (output == null) {
+      output = new TupleBatch(getOutputSchema().size(), TupleBatch.DEFAULT_CAPACITY);
+    }
+    while (true) {
+      output.clear();
+      probe();
+      if (output.size() == 0) {
+        return null;
+      }
+      if (residual == null || residual.filter(output) > 0) {
+        return output;
+      }
+    }
+  }
+
+  /**
+   * Fills the output batch with the next pairs of probe and resident build tuples with equal keys,
+   * until it is full or the probe side is exhausted. Probe tuples of spilled partitions are written
+   * to their partition, unless no build tuple fell into it.
+   */
+  private void probe() throws IOException {
+    int size = output.size();
+    int capacity = output.getCapacity();
+    while (size < capacity) {
+      if (chainRow < 0) {
+        if (probeBatch == null || probePosition == probeBatch.getSelectedCount()) {
+          probeBatch = probeChild.getNextBatch();
+          probePosition = 0;
+          if (probeBatch == null) {
+            break;
+          }
+        }
+        probeRow = probeBatch.getSelectedRow(probePosition++);
+        probeHash = JoinHashTable.hash(probeBatch, probeKeys, probeRow);
+        if (partitioned) {
+          int p = SpillPartitions.partitionOf(probeHash, level);
+          if (p != 0 || residentSpilled) {
+            if (buildPartitions.getCount(p) > 0) {
+              probePartitions.write(p, probeBatch.getTupleAt(probeRow));
+            }
+            continue;
+          }
+        }
+        chainRow = table.first(probeHash);
+        continue;
+      }
+
+      int buildRow = chainRow;
+      chainRow = table.next(buildRow);
+      if (table.hashOf(buildRow) == probeHash
+          && table.keysMatch(buildRow, probeBatch, probeKeys, probeRow)) {
+        int buildOffset = buildLeft ? 0 : probeWidth;
+        int probeOffset = buildLeft ? buildWidth : 0;
+        for (int c = 0; c < buildWidth; c++) {
+          output.getColumn(buildOffset + c)[size] = table.get(c, buildRow);
+        }
+        for (int c = 0; c < probeWidth; c++) {
+          output.getColumn(probeOffset + c)[size] = probeBatch.getColumn(c)[probeRow];
+        }
+        size++;
+      }
+    }
+    output.setSize(size);
+  }
+
+  /** Closes the partition files once the probe side is exhausted, and frees the hash table. */
+  private void finishProbe() throws IOException {
+    probeDone = true;
+    table = null;
+    buildPartitions.finishWriting();
+    probePartitions.finishWriting();
+  }
+
+  /**
+   * Joins the spilled partitions one pair at a time, deleting the files of each pair once it has
+   * been joined.
+   *
+   * @return the next batch of joined tuples, or null once every partition has been joined.
+   */
+  private TupleBatch nextPartitionBatch() {
+    while (true) {
+      if (partitionJoin != null) {
+        TupleBatch batch = partitionJoin.getNextBatch();
+        if (batch != null) {
+          return batch;
+        }
+        partitionJoin = null;
+        buildPartitions.delete(partition);
+        probePartitions.delete(partition);
+        partition++;
+      }
+      while (partition < SpillPartitions.FANOUT && probePartitions.getFile(partition) == null) {
+        // Partitions without probe tuples cannot produce joined tuples
+        buildPartitions.delete(partition);
+        partition++;
+      }
+      if (partition == SpillPartitions.FANOUT) {
+        if (runtimeFilter != null) {
+          runtimeFilter.logCounts();
+        }
+        return null;
+      }
+      partitionJoin = joinPartition(partition);
+    }
+  }
+
+  /** Creates the join of a pair of spilled partitions. */
+  private Operator joinPartition(int p) {
+    Operator build =
+        new ScanOperator(
+            buildChild.getOutputSchema(), null, false, buildPartitions.getFile(p).getPath());
+    Operator probe =
+        new ScanOperator(
+            probeChild.getOutputSchema(), null, false, probePartitions.getFile(p).getPath());
+    Operator left = buildLeft ? build : probe;
+    Operator right = buildLeft ? probe : build;
+    if (level + 1 < SpillPartitions.MAX_LEVELS) {
+      return new HybridHashJoinOperator(
+          left, right, condition, buildLeft, memoryPages, level + 1);
+    }
+    return new BlockNestedLoopJoinOperator(left, right, condition.getCondition(), memoryPages);
+  }
+
+  /** Closes and deletes every temporary file, including those of the partition being joined. */
+  private void deleteSpillFiles() {
+    if (partitionJoin instanceof HybridHashJoinOperator join) {
+      join.deleteSpillFiles();
+    }
+    partitionJoin = null;
+    buildPartitions.deleteAll();
+    probePartitions.deleteAll();
+  }
+}
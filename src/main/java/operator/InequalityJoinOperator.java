@@ -0,0 +1,241 @@
+package operator;
+
+import common.InequalityJoinCondition;
+import common.Tuple;
+import common.TupleBatch;
+import expression.JoinPredicate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The InequalityJoinOperator joins on inequalities between a column of each input, such as {@code
+ * S1.A < S2.A} or the band {@code R.X >= S.Y - 5 AND R.X <= S.Y + 5}. The inner relation is read
+ * once and sorted on its bound column. For every outer tuple, the bounds of the condition give the
+ * range of inner values that join it, which is found by binary search and copied into the output
+ * without comparing any pair outside it. Conjuncts that are not bounds on these columns are
+ * compiled into a {@link JoinPredicate} and checked on the pairs of the range.
+ *
+ * <p>Each outer tuple comes out paired with the inner tuples of its range in ascending order of the
+ * inner column. Like a {@link SortOperator}, the operator holds the sorted inner relation in
+ * memory, and keeps it when reset.
+ */
+public class InequalityJoinOperator extends Operator {
+  private final Operator leftChild;
+  private final Operator rightChild;
+  private final InequalityJoinCondition condition;
+  private final JoinPredicate residual; // The compiled residual condition, or null
+  private final int leftWidth;
+  private final int rightWidth;
+
+  // The inner relation sorted on its bound column, and the values of that column
+  private TupleBatch sortedRight;
+  private int[] rightValues;
+
+  // The outer batch and row, and the range of inner rows left to pair with that row
+  private TupleBatch leftBatch;
+  private final int[][] leftColumns; // Column vectors of the outer batch
+  private int leftPosition;
+  private int rangeStart;
+  private int rangeEnd;
+  private boolean inRange; // Whether the range of the outer row has been found
+
+  private TupleBatch output;
+  private int[] candidates; // Inner rows paired with the outer tuple, narrowed by the residual
+  private int outputPosition; // Next tuple of the output batch returned by getNextTuple
+
+  /**
+   * Constructs an InequalityJoinOperator.
+   *
+   * @param leftChild The outer child Operator.
+   * @param rightChild The inner child Operator, read once and sorted.
+   * @param condition The join condition, split into bounds and a residual condition; it must have
+   *     at least one bound.
+   */
+  public InequalityJoinOperator(
+      Operator leftChild, Operator rightChild, InequalityJoinCondition condition) {
+    super(JoinOperator.mergeSchemas(leftChild.getOutputSchema(), rightChild.getOutputSchema()));
+    if (!condition.hasBounds()) {
+      throw new IllegalArgumentException("An inequality join needs at least one inequality.");
+    }
+    this.leftChild = leftChild;
+    this.rightChild = rightChild;
+    this.condition = condition;
+    this.residual =
+        condition.getResidual() != null
+            ? JoinPredicate.compile(
+                condition.getResidual(), leftChild.getOutputSchema(), rightChild.getOutputSchema())
+            : null;
+    this.leftWidth = leftChild.getOutputSchema().size();
+    this.rightWidth = rightChild.getOutputSchema().size();
+    this.leftColumns = new int[leftWidth][];
+  }
+
+  /** Forwards a runtime join filter to the child that produces its columns. */
+  @Override
+  public boolean pushRuntimeFilter(RuntimeFilter filter) {
+    return leftChild.pushRuntimeFilter(filter) || rightChild.pushRuntimeFilter(filter);
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(leftChild, rightChild);
+  }
+
+  /** Resets the operator to the first outer tuple; the sorted inner relation is kept. */
+  @Override
+  public void reset() {
+    leftChild.reset();
+    leftBatch = null;
+    inRange = false;
+    outputPosition = 0;
+    if (output != null) {
+      output.clear();
+    }
+  }
+
+  /**
+   * Retrieves the next joined tuple that satisfies the join condition, from the current output
+   * batch.
+   *
+   * @return The next joined Tuple, or null if no more joined tuples are available.
+   */
+  @Override
+  public Tuple getNextTuple() {
+    while (output == null || outputPosition == output.getSelectedCount()) {
+      if (getNextBatch() == null) {
+        return null;
+      }
+      outputPosition = 0;
+    }
+    return output.getTuple(outputPosition++);
+  }
+
+  /**
+   * Retrieves the next batch of joined tuples that satisfy the join condition.
+   *
+   * @return The next batch with at least one row, or null if no more joined tuples are available.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    if (output == null) {
+      output = new TupleBatch(getOutputSchema().size(), TupleBatch.DEFAULT_CAPACITY);
+      candidates = new int[output.getCapacity()];
+    }
+    if (sortedRight == null) {
+      sortRight();
+    }
+    output.clear();
+    outputPosition = 0;
+    fillJoinedPairs();
+    return output.size() > 0 ? output : null;
+  }
+
+  /**
+   * Reads the whole inner relation and sorts it on its bound column, keeping tuples with equal
+   * values in input order.
+   */
+  private void sortRight() {
+    int[][] columns = new int[rightWidth][TupleBatch.DEFAULT_CAPACITY];
+    int count = 0;
+    TupleBatch batch;
+    while ((batch = rightChild.getNextBatch()) != null) {
+      int selected = batch.getSelectedCount();
+      if (count + selected > columns[0].length) {
+        int capacity = Math.max(2 * columns[0].length, count + selected);
+        for (int c = 0; c < rightWidth; c++) {
+          columns[c] = Arrays.copyOf(columns[c], capacity);
+        }
+      }
+      for (int c = 0; c < rightWidth; c++) {
+        int[] values = batch.getColumn(c);
+        int[] column = columns[c];
+        for (int i = 0; i < selected; i++) {
+          column[count + i] = values[batch.getSelectedRow(i)];
+        }
+      }
+      count += selected;
+    }
+
+    // Sort the values with their row numbers packed below them, which keeps equal values in order
+    int[] keys = columns[condition.getRightColumn()];
+    long[] order = new long[count];
+    for (int row = 0; row < count; row++) {
+      order[row] = ((long) keys[row] << 32) | row;
+    }
+    Arrays.sort(order);
+    sortedRight = new TupleBatch(rightWidth, Math.max(1, count));
+    for (int c = 0; c < rightWidth; c++) {
+      int[] values = columns[c];
+      int[] column = sortedRight.getColumn(c);
+      for (int i = 0; i < count; i++) {
+        column[i] = values[(int) order[i]];
+      }
+    }
+    sortedRight.setSize(count);
+    rightValues = sortedRight.getColumn(condition.getRightColumn());
+  }
+
+  /**
+   * Fills the output batch with the next pairs of an outer tuple and the inner tuples in its range
+   * that satisfy the residual condition, until it is full or the outer relation is exhausted.
+   */
+  private void fillJoinedPairs() {
+    int leftColumn = condition.getLeftColumn();
+    while (!output.isFull()) {
+      if (leftBatch == null || leftPosition == leftBatch.getSelectedCount()) {
+        leftBatch = leftChild.getNextBatch();
+        leftPosition = 0;
+        inRange = false;
+        if (leftBatch == null) {
+          return;
+        }
+        for (int c = 0; c < leftWidth; c++) {
+          leftColumns[c] = leftBatch.getColumn(c);
+        }
+      }
+      int leftRow = leftBatch.getSelectedRow(leftPosition);
+      if (!inRange) {
+        int value = leftColumns[leftColumn][leftRow];
+        rangeStart = firstAtLeast(condition.getLowerBound(value));
+        long upper = condition.getUpperBound(value);
+        rangeEnd = upper == Long.MAX_VALUE ? sortedRight.size() : firstAtLeast(upper + 1);
+        inRange = true;
+      }
+      if (rangeStart >= rangeEnd) {
+        leftPosition++;
+        inRange = false;
+        continue;
+      }
+
+      int count = Math.min(output.getCapacity() - output.size(), rangeEnd - rangeStart);
+      for (int r = 0; r < count; r++) {
+        candidates[r] = rangeStart + r;
+      }
+      int matches =
+          residual != null
+              ? residual.filter(leftColumns, leftRow, sortedRight, candidates, count)
+              : count;
+      JoinOperator.copyPairs(output, leftColumns, leftRow, sortedRight, candidates, matches);
+      rangeStart += count;
+    }
+  }
+
+  /**
+   * Finds the first inner row whose bound column is at least a value.
+   *
+   * @return the index of the row in the sorted inner relation, or its size if there is none.
+   */
+  private int firstAtLeast(long value) {
+    int low = 0;
+    int high = sortedRight.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (rightValues[middle] < value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
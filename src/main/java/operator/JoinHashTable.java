@@ -0,0 +1,165 @@
+package operator;
+
+import common.Tuple;
+import common.TupleBatch;
+import java.util.Arrays;
+
+/**
+ * The hash table of the hash join operators. Build tuples are stored as column vectors together
+ * with the hash of their keys, and are linked into bucket chains once all of them have been added.
+ * Every chain lists its tuples in the order they were added.
+ */
+final class JoinHashTable {
+  private final int width;
+  private final int[] keys;
+
+  private int[][] columns;
+  private int[] hashes;
+  private int size;
+  private int[] buckets; // First row of each bucket, or -1
+  private int[] nextInChain; // Next row in the same bucket, or -1
+
+  /**
+   * Creates an empty hash table.
+   *
+   * @param width the number of attributes of the build tuples.
+   * @param keys the indices of the key columns of the build tuples.
+   */
+  JoinHashTable(int width, int[] keys) {
+    this.width = width;
+    this.keys = keys;
+    this.columns = new int[width][TupleBatch.DEFAULT_CAPACITY];
+    this.hashes = new int[TupleBatch.DEFAULT_CAPACITY];
+  }
+
+  /** Returns the number of tuples in the table. */
+  int size() {
+    return size;
+  }
+
+  /** Grows the column vectors so they can hold the given number of tuples. */
+  private void ensureCapacity(int capacity) {
+    if (capacity > hashes.length) {
+      int newCapacity = Math.max(2 * hashes.length, capacity);
+      for (int c = 0; c < width; c++) {
+        columns[c] = Arrays.copyOf(columns[c], newCapacity);
+      }
+      hashes = Arrays.copyOf(hashes, newCapacity);
+    }
+  }
+
+  /** Adds the selected rows of a batch. */
+  void add(TupleBatch batch) {
+    int count = batch.getSelectedCount();
+    ensureCapacity(size + count);
+    for (int c = 0; c < width; c++) {
+      int[] values = batch.getColumn(c);
+      int[] column = columns[c];
+      for (int i = 0; i < count; i++) {
+        column[size + i] = values[batch.getSelectedRow(i)];
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      hashes[size + i] = hash(columns, keys, size + i);
+    }
+    size += count;
+  }
+
+  /** Adds one row of a batch, whose key hash is already known. */
+  void add(TupleBatch batch, int row, int hash) {
+    ensureCapacity(size + 1);
+    for (int c = 0; c < width; c++) {
+      columns[c][size] = batch.getColumn(c)[row];
+    }
+    hashes[size++] = hash;
+  }
+
+  /** Adds a row of another table with the same layout. */
+  void add(JoinHashTable other, int row) {
+    ensureCapacity(size + 1);
+    for (int c = 0; c < width; c++) {
+      columns[c][size] = other.columns[c][row];
+    }
+    hashes[size++] = other.hashes[row];
+  }
+
+  /** Links the tuples into bucket chains; must be called after the last tuple is added. */
+  void build() {
+    int numBuckets = Integer.highestOneBit(Math.max(1, size) * 2 - 1) * 2;
+    buckets = new int[numBuckets];
+    Arrays.fill(buckets, -1);
+    nextInChain = new int[size];
+    // Link the rows back to front, so every chain lists its rows in build order
+    for (int row = size - 1; row >= 0; row--) {
+      int bucket = hashes[row] & (numBuckets - 1);
+      nextInChain[row] = buckets[bucket];
+      buckets[bucket] = row;
+    }
+  }
+
+  /** Returns the first row of the chain of a hash, or -1 if the chain is empty. */
+  int first(int hash) {
+    return size > 0 ? buckets[hash & (buckets.length - 1)] : -1;
+  }
+
+  /** Returns the next row in the same chain, or -1 at the end of the chain. */
+  int next(int row) {
+    return nextInChain[row];
+  }
+
+  /** Returns the hash of the keys of a row. */
+  int hashOf(int row) {
+    return hashes[row];
+  }
+
+  /** Returns an attribute of a row. */
+  int get(int column, int row) {
+    return columns[column][row];
+  }
+
+  /** Returns a row as a tuple. */
+  Tuple getTuple(int row) {
+    int[] values = new int[width];
+    for (int c = 0; c < width; c++) {
+      values[c] = columns[c][row];
+    }
+    return new Tuple(values);
+  }
+
+  /** Whether a row has the same keys as a row of a probe batch. */
+  boolean keysMatch(int row, TupleBatch probe, int[] probeKeys, int probeRow) {
+    for (int k = 0; k < keys.length; k++) {
+      if (columns[keys[k]][row] != probe.getColumn(probeKeys[k])[probeRow]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Hashes the keys of a row stored as column vectors. */
+  static int hash(int[][] columns, int[] keys, int row) {
+    int h = 0;
+    for (int key : keys) {
+      h = h * 31 + columns[key][row];
+    }
+    return mix(h);
+  }
+
+  /** Hashes the keys of a row of a batch, the same way as the keys of a build row. */
+  static int hash(TupleBatch batch, int[] keys, int row) {
+    int h = 0;
+    for (int key : keys) {
+      h = h * 31 + batch.getColumn(key)[row];
+    }
+    return mix(h);
+  }
+
+  /** Spreads the bits of a hash, so that close keys land in distant buckets. */
+  static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    return h ^ (h >>> 16);
+  }
+}
@@ -1,22 +1,41 @@
 package operator;
 
 import common.Tuple;
-import expression.ExpressionVisitorImpl;
+import common.TupleBatch;
+import expression.JoinPredicate;
 import java.util.ArrayList;
+import java.util.List;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.schema.Column;
 
 /**
  * The JoinOperator implements the tuple nested loop join algorithm. It joins tuples from the left
- * and right child operators based on a specified join condition.
+ * and right child operators based on a specified join condition. The condition is compiled into a
+ * {@link JoinPredicate} and evaluated on each pair of tuples as it is, so a joined tuple is only
+ * built for the pairs that satisfy it.
+ *
+ * <p>In batch mode, the inner relation is rescanned one batch at a time for each outer tuple. The
+ * condition narrows the rows of each inner batch to those joining the outer tuple, and only these
+ * are copied into the output batch, column by column.
  */
 public class JoinOperator extends Operator {
   private final Operator leftChild;
   private final Operator rightChild;
-  private final Expression condition;
+  private final JoinPredicate predicate; // The compiled join condition, or null
+  private final int leftWidth;
 
   private Tuple currentLeftTuple;
 
+  // State of the batch mode: the outer batch and row, and the inner batch being paired with it
+  private TupleBatch output;
+  private int[] candidates; // Inner rows paired with the outer tuple, narrowed by the condition
+  private TupleBatch leftBatch;
+  private final int[][] leftColumns; // Column vectors of the outer batch
+  private int leftPosition;
+  private TupleBatch rightBatch;
+  private int rightPosition;
+  private boolean rightNeedsReset = true;
+
   /**
    * Constructs a JoinOperator with the specified left and right child operators and join condition.
    *
@@ -28,7 +47,13 @@ public class JoinOperator extends Operator {
     super(mergeSchemas(leftChild.getOutputSchema(), rightChild.getOutputSchema()));
     this.leftChild = leftChild;
     this.rightChild = rightChild;
-    this.condition = condition;
+    this.predicate =
+        condition != null
+            ? JoinPredicate.compile(
+                condition, leftChild.getOutputSchema(), rightChild.getOutputSchema())
+            : null;
+    this.leftWidth = leftChild.getOutputSchema().size();
+    this.leftColumns = new int[leftWidth][];
     this.currentLeftTuple = null;
   }
 
@@ -39,19 +64,33 @@ public class JoinOperator extends Operator {
    * @param rightSchema The schema of the right child.
    * @return An ArrayList containing the merged schema.
    */
-  private static ArrayList<Column> mergeSchemas(
+  static ArrayList<Column> mergeSchemas(
       ArrayList<Column> leftSchema, ArrayList<Column> rightSchema) {
     ArrayList<Column> merged = new ArrayList<>(leftSchema);
     merged.addAll(rightSchema);
     return merged;
   }
 
+  /** Forwards a runtime join filter to the child that produces its columns. */
+  @Override
+  public boolean pushRuntimeFilter(RuntimeFilter filter) {
+    return leftChild.pushRuntimeFilter(filter) || rightChild.pushRuntimeFilter(filter);
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(leftChild, rightChild);
+  }
+
   /** Resets the operator by resetting both child operators and clearing the current left tuple. */
   @Override
   public void reset() {
     leftChild.reset();
     rightChild.reset();
     currentLeftTuple = null;
+    leftBatch = null;
+    rightBatch = null;
+    rightNeedsReset = true;
   }
 
   /**
@@ -74,21 +113,9 @@ public class JoinOperator extends Operator {
 
         Tuple rightTuple;
         while ((rightTuple = rightChild.getNextTuple()) != null) {
-          // Merge tuples
-          ArrayList<Integer> mergedElements = new ArrayList<>(currentLeftTuple.getAllElements());
-          mergedElements.addAll(rightTuple.getAllElements());
-          Tuple mergedTuple = new Tuple(mergedElements);
-
-          // Evaluate the join condition
-          if (condition != null) {
-            ExpressionVisitorImpl visitor =
-                new ExpressionVisitorImpl(mergedTuple, getOutputSchema());
-            if (visitor.evaluate(condition)) {
-              return mergedTuple;
-            }
-          } else {
-            // Cross product (if no condition is specified)
-            return mergedTuple;
+          // Only merge the tuples of pairs that satisfy the condition
+          if (predicate == null || predicate.test(currentLeftTuple, rightTuple)) {
+            return Tuple.concat(currentLeftTuple, rightTuple);
           }
         }
         currentLeftTuple = null; // Move to next left tuple
@@ -97,4 +124,97 @@ public class JoinOperator extends Operator {
       throw new RuntimeException("Error in JoinOperator: " + e.getMessage());
     }
   }
+
+  /**
+   * Retrieves the next batch of joined tuples that satisfy the join condition.
+   *
+   * @return The next batch with at least one row, or null if no more joined tuples are available.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    if (output == null) {
+      output = new TupleBatch(getOutputSchema().size(), TupleBatch.DEFAULT_CAPACITY);
+      candidates = new int[output.getCapacity()];
+    }
+    output.clear();
+    fillJoinedPairs();
+    return output.size() > 0 ? output : null;
+  }
+
+  /**
+   * Fills the output batch with the next pairs of tuples of the children that satisfy the join
+   * condition, until it is full or the outer relation is exhausted.
+   */
+  private void fillJoinedPairs() {
+    while (!output.isFull()) {
+      if (leftBatch == null || leftPosition == leftBatch.getSelectedCount()) {
+        leftBatch = leftChild.getNextBatch();
+        leftPosition = 0;
+        if (leftBatch == null) {
+          return;
+        }
+        for (int c = 0; c < leftWidth; c++) {
+          leftColumns[c] = leftBatch.getColumn(c);
+        }
+      }
+      if (rightBatch == null || rightPosition == rightBatch.getSelectedCount()) {
+        if (rightNeedsReset) {
+          rightChild.reset();
+          rightNeedsReset = false;
+        }
+        rightBatch = rightChild.getNextBatch();
+        rightPosition = 0;
+        if (rightBatch == null) {
+          // The inner relation is exhausted for this outer tuple
+          leftPosition++;
+          rightNeedsReset = true;
+          continue;
+        }
+      }
+
+      int size = output.size();
+      int count =
+          Math.min(output.getCapacity() - size, rightBatch.getSelectedCount() - rightPosition);
+      for (int r = 0; r < count; r++) {
+        candidates[r] = rightBatch.getSelectedRow(rightPosition + r);
+      }
+      int leftRow = leftBatch.getSelectedRow(leftPosition);
+      int matches =
+          predicate != null
+              ? predicate.filter(leftColumns, leftRow, rightBatch, candidates, count)
+              : count;
+      copyPairs(output, leftColumns, leftRow, rightBatch, candidates, matches);
+      rightPosition += count;
+    }
+  }
+
+  /**
+   * Appends to a batch the pairs of an outer tuple with some rows of an inner batch.
+   *
+   * @param output the batch receiving the joined tuples.
+   * @param left the column vectors holding the outer tuple.
+   * @param leftRow the index of the outer tuple in the column vectors.
+   * @param right the inner batch.
+   * @param rows the indices of the inner rows.
+   * @param count the number of inner rows.
+   */
+  static void copyPairs(
+      TupleBatch output, int[][] left, int leftRow, TupleBatch right, int[] rows, int count) {
+    int size = output.size();
+    for (int c = 0; c < left.length; c++) {
+      int value = left[c][leftRow];
+      int[] column = output.getColumn(c);
+      for (int r = 0; r < count; r++) {
+        column[size + r] = value;
+      }
+    }
+    for (int c = 0; c < right.getWidth(); c++) {
+      int[] values = right.getColumn(c);
+      int[] column = output.getColumn(left.length + c);
+      for (int r = 0; r < count; r++) {
+        column[size + r] = values[rows[r]];
+      }
+    }
+    output.setSize(size + count);
+  }
 }
@@ -0,0 +1,518 @@
+package operator;
+
+import common.JoinGraph;
+import common.Tuple;
+import common.TupleBatch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * The LeapfrogTriejoinOperator joins any number of inputs at once on the variables of a {@link
+ * JoinGraph}, with the Leapfrog Triejoin algorithm. Every input is read once and sorted on its join
+ * variables, in a global order of the variables, so that it can be walked like a trie: one level
+ * per variable, each level holding the distinct values under the values bound above it.
+ *
+ * <p>The join binds one variable at a time. The inputs with the variable intersect their values at
+ * the current level by leapfrogging: the input with the smallest value seeks to the largest value
+ * of the others, until they all agree. Only values present in every such input are ever bound, so
+ * no partial result is built that the final result does not extend, and the work stays within the
+ * worst-case size of the output. This makes the join suited to cyclic queries such as triangles,
+ * where every order of binary joins can build intermediate results much larger than the output.
+ *
+ * <p>Once all the variables are bound, the rows of each input with the bound values are paired in
+ * all combinations. The output schema lists the columns of the inputs in order.
+ */
+public class LeapfrogTriejoinOperator extends Operator {
+  private final List<Operator> children;
+  private final JoinGraph graph;
+  private final int[] order; // The variables in the order they are bound
+  private final int[][] participants; // The inputs with each variable, by position in the order
+
+  // Inputs as tries, once they are read
+  private TrieIterator[] tries;
+  private boolean empty; // Whether an input has no rows
+  private boolean exhausted;
+  private boolean started;
+
+  // Leapfrog state of every variable: the participants sorted by value, and the current one
+  private TrieIterator[][] frogs;
+  private int[] frogPosition;
+  private boolean[] atEnd;
+  private int depth;
+
+  // Rows of each input with the bound values, and the row of each paired in the next output tuple
+  private int[] rangeStart;
+  private int[] rangeEnd;
+  private int[] cursor;
+  private boolean pairing;
+
+  private TupleBatch output;
+  private int outputPosition; // Next tuple of the output batch returned by getNextTuple
+
+  /**
+   * Constructs a LeapfrogTriejoinOperator.
+   *
+   * @param children the inputs, in the order of the join graph.
+   * @param graph the join graph of the inputs; it must have at least one variable.
+   */
+  public LeapfrogTriejoinOperator(List<Operator> children, JoinGraph graph) {
+    super(mergeSchemas(children));
+    if (graph.getVariableCount() == 0) {
+      throw new IllegalArgumentException("A multi-way join needs at least one join variable.");
+    }
+    this.children = new ArrayList<>(children);
+    this.graph = graph;
+    this.order = variableOrder(graph, children.size());
+
+    int[] position = new int[order.length];
+    for (int d = 0; d < order.length; d++) {
+      position[order[d]] = d;
+    }
+    List<List<Integer>> withVariable = new ArrayList<>();
+    for (int d = 0; d < order.length; d++) {
+      withVariable.add(new ArrayList<>());
+    }
+    for (int i = 0; i < children.size(); i++) {
+      for (int variable : distinctVariables(graph.getVariables(i))) {
+        withVariable.get(position[variable]).add(i);
+      }
+    }
+    this.participants = new int[order.length][];
+    for (int d = 0; d < order.length; d++) {
+      participants[d] = withVariable.get(d).stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+
+  /** Concatenates the schemas of the inputs. */
+  private static ArrayList<Column> mergeSchemas(List<Operator> children) {
+    ArrayList<Column> merged = new ArrayList<>();
+    for (Operator child : children) {
+      merged.addAll(child.getOutputSchema());
+    }
+    return merged;
+  }
+
+  /** Returns the variables of the columns of an input, without duplicates or -1. */
+  private static int[] distinctVariables(int[] variables) {
+    return Arrays.stream(variables).filter(v -> v >= 0).distinct().toArray();
+  }
+
+  /**
+   * Orders the variables to bind those shared by the most inputs first, which prunes the search
+   * soonest; ties keep the order of the variables in the graph.
+   */
+  private static int[] variableOrder(JoinGraph graph, int inputs) {
+    int[] sharing = new int[graph.getVariableCount()];
+    for (int i = 0; i < inputs; i++) {
+      for (int variable : distinctVariables(graph.getVariables(i))) {
+        sharing[variable]++;
+      }
+    }
+    return IntStream.range(0, sharing.length)
+        .boxed()
+        .sorted((a, b) -> Integer.compare(sharing[b], sharing[a]))
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  /** Forwards a runtime join filter to the child that produces its columns. */
+  @Override
+  public boolean pushRuntimeFilter(RuntimeFilter filter) {
+    for (Operator child : children) {
+      if (child.pushRuntimeFilter(filter)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return children;
+  }
+
+  /** Resets the operator to the first joined tuple; the sorted inputs are kept. */
+  @Override
+  public void reset() {
+    started = false;
+    exhausted = empty;
+    pairing = false;
+    outputPosition = 0;
+    if (output != null) {
+      output.clear();
+    }
+  }
+
+  /**
+   * Retrieves the next joined tuple, from the current output batch.
+   *
+   * @return The next joined Tuple, or null if no more joined tuples are available.
+   */
+  @Override
+  public Tuple getNextTuple() {
+    while (output == null || outputPosition == output.getSelectedCount()) {
+      if (getNextBatch() == null) {
+        return null;
+      }
+      outputPosition = 0;
+    }
+    return output.getTuple(outputPosition++);
+  }
+
+  /**
+   * Retrieves the next batch of joined tuples.
+   *
+   * @return The next batch with at least one row, or null if no more joined tuples are available.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    if (output == null) {
+      output = new TupleBatch(getOutputSchema().size(), TupleBatch.DEFAULT_CAPACITY);
+    }
+    if (tries == null) {
+      readInputs();
+    }
+    output.clear();
+    outputPosition = 0;
+    while (!output.isFull()) {
+      if (!pairing) {
+        if (!nextBinding()) {
+          break;
+        }
+        startPairing();
+      }
+      pairRows();
+    }
+    return output.size() > 0 ? output : null;
+  }
+
+  /** Reads and sorts every input, and sets up the state of the join. */
+  private void readInputs() {
+    tries = new TrieIterator[children.size()];
+    for (int i = 0; i < children.size(); i++) {
+      int[] levels = new int[0];
+      int[] columnOf = new int[graph.getVariableCount()];
+      Arrays.fill(columnOf, -1);
+      int[] variables = graph.getVariables(i);
+      for (int c = 0; c < variables.length; c++) {
+        if (variables[c] >= 0 && columnOf[variables[c]] < 0) {
+          columnOf[variables[c]] = c;
+        }
+      }
+      for (int variable : order) {
+        if (columnOf[variable] >= 0) {
+          levels = Arrays.copyOf(levels, levels.length + 1);
+          levels[levels.length - 1] = columnOf[variable];
+        }
+      }
+      tries[i] = new TrieIterator(readSorted(children.get(i), variables, columnOf, levels), levels);
+      empty |= tries[i].size == 0;
+    }
+    exhausted = empty;
+    frogs = new TrieIterator[order.length][];
+    for (int d = 0; d < order.length; d++) {
+      frogs[d] = new TrieIterator[participants[d].length];
+    }
+    frogPosition = new int[order.length];
+    atEnd = new boolean[order.length];
+    rangeStart = new int[children.size()];
+    rangeEnd = new int[children.size()];
+    cursor = new int[children.size()];
+  }
+
+  /**
+   * Reads the rows of an input whose columns on the same variable agree, sorted on the columns of
+   * its trie levels.
+   *
+   * @return the column vectors of the sorted rows; every vector has the length of the row count.
+   */
+  private static int[][] readSorted(
+      Operator child, int[] variables, int[] columnOf, int[] levels) {
+    int width = variables.length;
+    int[][] columns = new int[width][TupleBatch.DEFAULT_CAPACITY];
+    int count = 0;
+    TupleBatch batch;
+    while ((batch = child.getNextBatch()) != null) {
+      for (int i = 0; i < batch.getSelectedCount(); i++) {
+        int row = batch.getSelectedRow(i);
+        boolean consistent = true;
+        for (int c = 0; c < width && consistent; c++) {
+          consistent =
+              variables[c] < 0
+                  || batch.getColumn(c)[row] == batch.getColumn(columnOf[variables[c]])[row];
+        }
+        if (!consistent) {
+          continue;
+        }
+        if (count == columns[0].length) {
+          for (int c = 0; c < width; c++) {
+            columns[c] = Arrays.copyOf(columns[c], 2 * count);
+          }
+        }
+        for (int c = 0; c < width; c++) {
+          columns[c][count] = batch.getColumn(c)[row];
+        }
+        count++;
+      }
+    }
+
+    // Stable sorts from the last level to the first leave the rows sorted on all levels
+    int[] rows = new int[count];
+    Arrays.setAll(rows, r -> r);
+    long[] keys = new long[count];
+    for (int l = levels.length - 1; l >= 0; l--) {
+      int[] values = columns[levels[l]];
+      for (int r = 0; r < count; r++) {
+        keys[r] = ((long) values[rows[r]] << 32) | r;
+      }
+      Arrays.sort(keys);
+      int[] sorted = new int[count];
+      for (int r = 0; r < count; r++) {
+        sorted[r] = rows[(int) keys[r]];
+      }
+      rows = sorted;
+    }
+    int[][] sortedColumns = new int[width][count];
+    for (int c = 0; c < width; c++) {
+      for (int r = 0; r < count; r++) {
+        sortedColumns[c][r] = columns[c][rows[r]];
+      }
+    }
+    return sortedColumns;
+  }
+
+  /**
+   * Moves to the next combination of values of all the variables that every input has.
+   *
+   * @return false if there is none.
+   */
+  private boolean nextBinding() {
+    if (exhausted) {
+      return false;
+    }
+    if (!started) {
+      started = true;
+      for (TrieIterator trie : tries) {
+        trie.rewind();
+      }
+      depth = 0;
+      open(0);
+    } else {
+      leapfrogNext(order.length - 1);
+    }
+    while (true) {
+      if (atEnd[depth]) {
+        close(depth);
+        if (--depth < 0) {
+          exhausted = true;
+          return false;
+        }
+        leapfrogNext(depth);
+      } else if (depth == order.length - 1) {
+        return true;
+      } else {
+        open(++depth);
+      }
+    }
+  }
+
+  /** Opens the level of a variable in every input that has it, and finds their first value. */
+  private void open(int d) {
+    TrieIterator[] iterators = frogs[d];
+    atEnd[d] = false;
+    for (int p = 0; p < iterators.length; p++) {
+      iterators[p] = tries[participants[d][p]];
+      iterators[p].open();
+      atEnd[d] |= iterators[p].atEnd();
+    }
+    if (atEnd[d]) {
+      return;
+    }
+    Arrays.sort(iterators, (a, b) -> Integer.compare(a.key(), b.key()));
+    frogPosition[d] = 0;
+    leapfrogSearch(d);
+  }
+
+  /** Closes the level of a variable in every input that has it. */
+  private void close(int d) {
+    for (int p = 0; p < participants[d].length; p++) {
+      tries[participants[d][p]].up();
+    }
+  }
+
+  /** Seeks the inputs of a variable forward until they all have the same value, or one ends. */
+  private void leapfrogSearch(int d) {
+    TrieIterator[] iterators = frogs[d];
+    int k = iterators.length;
+    int p = frogPosition[d];
+    int max = iterators[(p + k - 1) % k].key();
+    while (true) {
+      TrieIterator iterator = iterators[p];
+      if (iterator.key() == max) {
+        frogPosition[d] = p;
+        return;
+      }
+      iterator.seek(max);
+      if (iterator.atEnd()) {
+        atEnd[d] = true;
+        return;
+      }
+      max = iterator.key();
+      p = (p + 1) % k;
+    }
+  }
+
+  /** Moves the inputs of a variable past their common value, to the next one. */
+  private void leapfrogNext(int d) {
+    TrieIterator[] iterators = frogs[d];
+    int p = frogPosition[d];
+    iterators[p].next();
+    if (iterators[p].atEnd()) {
+      atEnd[d] = true;
+      return;
+    }
+    frogPosition[d] = (p + 1) % iterators.length;
+    leapfrogSearch(d);
+  }
+
+  /** Finds the rows of every input with the bound values, and starts pairing them. */
+  private void startPairing() {
+    for (int i = 0; i < tries.length; i++) {
+      TrieIterator trie = tries[i];
+      if (trie.levels.length == 0) {
+        rangeStart[i] = 0;
+        rangeEnd[i] = trie.size;
+      } else {
+        rangeStart[i] = trie.position;
+        rangeEnd[i] = trie.runEnd();
+      }
+      cursor[i] = rangeStart[i];
+    }
+    pairing = true;
+  }
+
+  /** Appends the next combinations of the rows with the bound values, until the batch is full. */
+  private void pairRows() {
+    int size = output.size();
+    int capacity = output.getCapacity();
+    while (size < capacity) {
+      int offset = 0;
+      for (int i = 0; i < tries.length; i++) {
+        int[][] columns = tries[i].columns;
+        for (int c = 0; c < columns.length; c++) {
+          output.getColumn(offset + c)[size] = columns[c][cursor[i]];
+        }
+        offset += columns.length;
+      }
+      size++;
+      // Advance the last input fastest, carrying over to the inputs before it
+      int i = tries.length - 1;
+      while (i >= 0 && ++cursor[i] == rangeEnd[i]) {
+        cursor[i] = rangeStart[i];
+        i--;
+      }
+      if (i < 0) {
+        pairing = false;
+        break;
+      }
+    }
+    output.setSize(size);
+  }
+
+  /**
+   * An input sorted on the columns of its trie levels, walked one level at a time. At each level,
+   * the iterator is positioned on a row of the range of rows with the values of the levels above,
+   * and moves between the distinct values of the level by binary search.
+   */
+  private static final class TrieIterator {
+    private final int[][] columns;
+    private final int[] levels; // The column of each level
+    private final int size;
+    private final int[] starts; // The range of rows of each open level, and the position in it
+    private final int[] ends;
+    private int level = -1;
+    private int position;
+
+    TrieIterator(int[][] columns, int[] levels) {
+      this.columns = columns;
+      this.levels = levels;
+      this.size = columns.length > 0 ? columns[0].length : 0;
+      this.starts = new int[levels.length];
+      this.ends = new int[levels.length];
+    }
+
+    /** Goes back to the root of the trie. */
+    void rewind() {
+      level = -1;
+      position = 0;
+    }
+
+    /** Opens the level below the current value, positioned on its first value. */
+    void open() {
+      int start = level < 0 ? 0 : position;
+      int end = level < 0 ? size : runEnd();
+      level++;
+      starts[level] = start;
+      ends[level] = end;
+      position = start;
+    }
+
+    /** Goes back to the value of the level above. */
+    void up() {
+      position = starts[level];
+      level--;
+    }
+
+    boolean atEnd() {
+      return position == ends[level];
+    }
+
+    int key() {
+      return columns[levels[level]][position];
+    }
+
+    /** Moves to the next distinct value of the level. */
+    void next() {
+      position = runEnd();
+    }
+
+    /** Moves to the first value of the level that is at least the given one. */
+    void seek(int value) {
+      position = firstAtLeast(value, position);
+    }
+
+    /** Returns the end of the rows with the current value. */
+    int runEnd() {
+      int value = key();
+      return value == Integer.MAX_VALUE ? ends[level] : firstAtLeast(value + 1, position);
+    }
+
+    /**
+     * Finds the first row from a position on whose value is at least the given one, galloping
+     * forward first so that short moves stay cheap.
+     */
+    private int firstAtLeast(int value, int from) {
+      int[] values = columns[levels[level]];
+      int end = ends[level];
+      int low = from;
+      int step = 1;
+      while (low + step < end && values[low + step] < value) {
+        low += step;
+        step <<= 1;
+      }
+      int high = Math.min(low + step, end);
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (values[middle] < value) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+}
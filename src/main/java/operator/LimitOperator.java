@@ -0,0 +1,106 @@
+package operator;
+
+import common.Tuple;
+import common.TupleBatch;
+import java.util.List;
+
+/**
+ * The LimitOperator applies the LIMIT and OFFSET clauses of a query: it skips the given number of
+ * tuples of its child, then returns at most the given number of the following ones. Once the limit
+ * is reached, the child is not read any further, and is closed so its scans release their pages.
+ */
+public class LimitOperator extends Operator {
+  private final Operator child;
+  private final long offset;
+  private final long limit;
+  private long skipped; // Number of tuples of the child skipped so far, up to the offset
+  private long returned; // Number of tuples returned so far, up to the limit
+
+  /**
+   * Constructs a LimitOperator over the specified child operator.
+   *
+   * @param child The child Operator providing input tuples.
+   * @param offset The number of tuples to skip first.
+   * @param limit The number of tuples to return at most, or a negative number for no limit.
+   */
+  public LimitOperator(Operator child, long offset, long limit) {
+    super(child.getOutputSchema());
+    if (offset < 0) {
+      throw new IllegalArgumentException("Negative offset " + offset);
+    }
+    this.child = child;
+    this.offset = offset;
+    this.limit = limit < 0 ? Long.MAX_VALUE : limit;
+  }
+
+  /**
+   * Returns the order of the child, which skipping tuples preserves.
+   *
+   * @return the indices of the columns the tuples are sorted on, or null if not sorted.
+   */
+  @Override
+  public int[] getSortOrder() {
+    return child.getSortOrder();
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(child);
+  }
+
+  /** Resets the operator by resetting its child and the counts of skipped and returned tuples. */
+  @Override
+  public void reset() {
+    child.reset();
+    skipped = 0;
+    returned = 0;
+  }
+
+  /**
+   * Retrieves the next batch of the child with its selection narrowed to the rows past the offset
+   * and within the limit.
+   *
+   * @return The next batch with at least one selected row, or null if the limit is reached.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    TupleBatch batch;
+    while (returned < limit && (batch = child.getNextBatch()) != null) {
+      int[] rows = batch.getSelection();
+      int count = batch.getSelectedCount();
+      int skip = (int) Math.min(offset - skipped, count);
+      skipped += skip;
+      int kept = (int) Math.min(count - skip, limit - returned);
+      if (kept > 0) {
+        System.arraycopy(rows, skip, rows, 0, kept);
+        batch.setSelectedCount(kept);
+        returned += kept;
+        if (returned == limit) {
+          close();
+        }
+        return batch;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Retrieves the next tuple of the child past the offset, until the limit is reached.
+   *
+   * @return The next Tuple, or null if no more tuples are available.
+   */
+  @Override
+  public Tuple getNextTuple() {
+    if (returned >= limit) {
+      return null;
+    }
+    Tuple tuple;
+    while ((tuple = child.getNextTuple()) != null && skipped < offset) {
+      skipped++;
+    }
+    if (tuple != null && ++returned == limit) {
+      close();
+    }
+    return tuple;
+  }
+}
@@ -0,0 +1,98 @@
+package operator;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Sorts rows held in column vectors on a sequence of columns, without comparing tuples. For the
+ * first column, each row is encoded once as a normalized long key, the column value in the high
+ * half and the row number in the low half, so that a plain sort of the keys by {@link
+ * Arrays#parallelSort(long[])} orders the rows on all cores. Each run of rows with equal values is
+ * then sorted the same way on the next column, until no ties are left or the columns run out; runs
+ * are sorted in parallel once there are enough rows.
+ */
+final class NormalizedKeySort {
+  /** Number of rows from which runs of ties are sorted in parallel. */
+  private static final int PARALLEL_MIN_ROWS = 1 << 13;
+
+  private NormalizedKeySort() {}
+
+  /**
+   * Returns the order of rows sorted on the given columns, most significant first. Rows equal on
+   * all of them keep their order.
+   *
+   * @param columns the column vectors.
+   * @param count the number of rows, from the start of the vectors.
+   * @param keyColumns the indices of the columns to sort on.
+   * @return the row numbers, in sorted order.
+   */
+  static int[] sortedOrder(int[][] columns, int count, int[] keyColumns) {
+    int[] order = new int[count];
+    Arrays.setAll(order, r -> r);
+    if (count < 2 || keyColumns.length == 0) {
+      return order;
+    }
+    long[] keys = new long[count];
+
+    // Every run starts out as the whole input, and is split on each column in turn
+    int[] runStarts = {0};
+    int[] runEnds = {count};
+    int runCount = 1;
+    for (int k = 0; k < keyColumns.length && runCount > 0; k++) {
+      int[] values = columns[keyColumns[k]];
+      int[] starts = runStarts;
+      int[] ends = runEnds;
+      IntStream runs = IntStream.range(0, runCount);
+      if (count >= PARALLEL_MIN_ROWS) {
+        runs = runs.parallel();
+      }
+      runs.forEach(run -> sortRun(values, order, keys, starts[run], ends[run]));
+
+      // Collect the runs of rows that are still tied after this column
+      int[] nextStarts = new int[Math.max(1, runCount)];
+      int[] nextEnds = new int[nextStarts.length];
+      int nextCount = 0;
+      for (int run = 0; run < runCount; run++) {
+        int start = starts[run];
+        while (start < ends[run]) {
+          int end = start + 1;
+          while (end < ends[run] && values[order[end]] == values[order[start]]) {
+            end++;
+          }
+          if (end - start > 1) {
+            if (nextCount == nextStarts.length) {
+              nextStarts = Arrays.copyOf(nextStarts, 2 * nextCount);
+              nextEnds = Arrays.copyOf(nextEnds, 2 * nextCount);
+            }
+            nextStarts[nextCount] = start;
+            nextEnds[nextCount++] = end;
+          }
+          start = end;
+        }
+      }
+      runStarts = nextStarts;
+      runEnds = nextEnds;
+      runCount = nextCount;
+    }
+    return order;
+  }
+
+  /**
+   * Sorts a range of the row order on the values of one column, through keys packing each value
+   * with the position of its row in the range, which keeps equal values in order.
+   */
+  private static void sortRun(int[] values, int[] order, long[] keys, int start, int end) {
+    for (int i = start; i < end; i++) {
+      keys[i] = ((long) values[order[i]] << 32) | (i - start);
+    }
+    if (end - start >= PARALLEL_MIN_ROWS) {
+      Arrays.parallelSort(keys, start, end);
+    } else {
+      Arrays.sort(keys, start, end);
+    }
+    int[] rows = Arrays.copyOfRange(order, start, end);
+    for (int i = start; i < end; i++) {
+      order[i] = rows[(int) keys[i]];
+    }
+  }
+}
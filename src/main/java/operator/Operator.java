@@ -1,14 +1,24 @@
 package operator;
 
 import common.Tuple;
+import common.TupleBatch;
+import io.TupleWriter;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import net.sf.jsqlparser.schema.Column;
 
-/** Abstract class to represent relational operators. */
+/**
+ * Abstract class to represent relational operators. Operators can be consumed one tuple at a time
+ * with getNextTuple, or one {@link TupleBatch} at a time with getNextBatch; a consumer should stick
+ * to one of the two between resets.
+ */
 public abstract class Operator {
 
   protected ArrayList<Column> outputSchema;
+  private TupleBatch tupleBatch; // Batch filled by the default getNextBatch
 
   public Operator(ArrayList<Column> outputSchema) {
     this.outputSchema = outputSchema;
@@ -28,15 +38,136 @@ public abstract class Operator {
    */
   public abstract Tuple getNextTuple();
 
+  /**
+   * Get next batch of tuples from operator. The batch belongs to the operator and is only valid
+   * until the next call; the caller may narrow its selection but must not keep it. This default
+   * implementation fills a batch from getNextTuple, for operators without a native one.
+   *
+   * @return next batch, with at least one selected row, or null if we are at the end
+   */
+  public TupleBatch getNextBatch() {
+    if (tupleBatch == null) {
+      tupleBatch = new TupleBatch(outputSchema.size(), TupleBatch.DEFAULT_CAPACITY);
+    }
+    tupleBatch.clear();
+    Tuple t;
+    while (!tupleBatch.isFull() && (t = this.getNextTuple()) != null) {
+      tupleBatch.appendTuple(t);
+    }
+    return tupleBatch.size() > 0 ? tupleBatch : null;
+  }
+
+  /**
+   * Offer a runtime join filter to the scan below this operator that produces the filter columns,
+   * so that it drops the tuples that cannot join. Operators that pass the values of their input
+   * tuples through unchanged forward the offer to their children; others decline it.
+   *
+   * @param filter the filter
+   * @return true if a scan accepted the filter
+   */
+  public boolean pushRuntimeFilter(RuntimeFilter filter) {
+    return false;
+  }
+
+  /**
+   * Get the operators this operator reads its input from.
+   *
+   * @return the children, or an empty list for a leaf
+   */
+  protected List<Operator> getChildren() {
+    return List.of();
+  }
+
+  /**
+   * Release what the operator holds until the end of its input, such as the page a scan keeps
+   * pinned in the buffer pool, once no more tuples will be read from it. This default
+   * implementation closes the children. A closed operator can be reset to read it again.
+   */
+  public void close() {
+    for (Operator child : getChildren()) {
+      child.close();
+    }
+  }
+
+  /**
+   * Get the order the operator produces its tuples in, if it is known. The tuples are sorted on the
+   * returned columns, with ties broken by all attributes in schema order, like a {@link
+   * SortOperator} on those columns produces them.
+   *
+   * @return indices of the columns the output is sorted on, or null if the output is not sorted
+   */
+  public int[] getSortOrder() {
+    return null;
+  }
+
+  /**
+   * Check whether the output of the operator is already in the order a {@link SortOperator} on the
+   * given columns would produce.
+   *
+   * @param columns indices of the columns to sort on
+   * @return true if sorting the output on the columns would not change it
+   */
+  public boolean isSortedOn(int[] columns) {
+    int[] order = getSortOrder();
+    return order != null
+        && Arrays.equals(
+            normalizeSortOrder(order, outputSchema.size()),
+            normalizeSortOrder(columns, outputSchema.size()));
+  }
+
+  /**
+   * Expand a sort order into the full sequence of columns it compares, with duplicates removed.
+   * Two sort orders sort tuples the same way exactly when their expansions are equal.
+   *
+   * @param order indices of the columns sorted on, before the tie-break on all attributes
+   * @param width number of attributes of the tuples
+   * @return every column index, in the order the columns are compared
+   */
+  protected static int[] normalizeSortOrder(int[] order, int width) {
+    int[] sequence = new int[width];
+    boolean[] seen = new boolean[width];
+    int length = 0;
+    for (int column : order) {
+      if (!seen[column]) {
+        seen[column] = true;
+        sequence[length++] = column;
+      }
+    }
+    for (int column = 0; column < width; column++) {
+      if (!seen[column]) {
+        sequence[length++] = column;
+      }
+    }
+    return sequence;
+  }
+
   /**
    * Iterate through output of operator and send it all to the specified printStream)
    *
    * @param printStream stream to receive output, one tuple per line.
    */
   public void dump(PrintStream printStream) {
-    Tuple t;
-    while ((t = this.getNextTuple()) != null) {
-      printStream.println(t);
+    TupleBatch batch;
+    while ((batch = this.getNextBatch()) != null) {
+      for (int i = 0; i < batch.getSelectedCount(); i++) {
+        printStream.println(batch.getTuple(i));
+      }
+    }
+  }
+
+  /**
+   * Iterate through output of operator and write it all with the specified TupleWriter. The writer
+   * is left open so the caller can decide when to close it.
+   *
+   * @param writer writer to receive output, one tuple at a time.
+   * @throws IOException if the writer fails.
+   */
+  public void dump(TupleWriter writer) throws IOException {
+    TupleBatch batch;
+    while ((batch = this.getNextBatch()) != null) {
+      for (int i = 0; i < batch.getSelectedCount(); i++) {
+        writer.writeTuple(batch.getTuple(i));
+      }
     }
   }
 }
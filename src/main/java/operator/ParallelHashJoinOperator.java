@@ -0,0 +1,447 @@
+package operator;
+
+import common.EquiJoinCondition;
+import common.Tuple;
+import common.TupleBatch;
+import expression.BatchPredicate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The ParallelHashJoinOperator implements a radix-partitioned hash join for equality join
+ * conditions that runs on several threads. Both inputs are read into memory as column vectors and
+ * split into partitions by the leading bits of the hash of their keys, with enough partitions that
+ * the build tuples of one partition, about {@link #TARGET_PARTITION_SIZE}, stay in the CPU cache
+ * while they are joined. Partitioning runs on a {@link ForkJoinPool}: every worker first counts the
+ * tuples of each partition in its chunk of the input, then scatters the chunk to the offsets the
+ * counts give. The partitions are then joined independently, each worker building a small hash
+ * table on the build tuples of a partition and probing it with the probe tuples of the same
+ * partition, and applying the residual condition to the joined pairs.
+ *
+ * <p>Joined batches are handed out through getNextBatch in waves: a wave joins the next few
+ * partitions per thread in parallel, and its output is returned before the next wave starts, so
+ * no worker is left blocked if the consumer stops early. Reading the children stays sequential,
+ * since operators are pulled from a single thread, but a {@link RuntimeFilter} on the keys of the
+ * build side is pushed down to the probe side before it is read. The whole of both inputs is held
+ * in memory, and tuples come out grouped by partition rather than in input order.
+ */
+public class ParallelHashJoinOperator extends Operator {
+  /** Number of build tuples per partition the partitioning aims for. */
+  public static final int TARGET_PARTITION_SIZE = 4096;
+
+  private static final int MAX_RADIX_BITS = 14;
+  private static final int PARTITIONS_PER_TASK = 4; // Partitions per thread in a wave
+  private static final int MIN_CHUNK_SIZE = 16_384; // Smallest chunk of input a task partitions
+
+  private final Operator leftChild;
+  private final Operator rightChild;
+  private final Operator buildChild;
+  private final Operator probeChild;
+  private final boolean buildLeft;
+  private final int[] buildKeys;
+  private final int[] probeKeys;
+  private final int buildWidth;
+  private final int probeWidth;
+  private final EquiJoinCondition condition;
+  private final int parallelism;
+  private final RuntimeFilter runtimeFilter; // Filter pushed to the probe side, or null
+
+  private ForkJoinPool pool;
+  private Partitioned build;
+  private Partitioned probe;
+  private int numPartitions;
+  private int nextPartition; // First partition of the next wave
+
+  // Output of the current wave, and the next batch of it to return
+  private List<TupleBatch> wave = new ArrayList<>();
+  private int waveIndex;
+
+  private TupleBatch current; // Batch returned by the last call to getNextBatch
+  private int outputPosition; // Next tuple of the current batch returned by getNextTuple
+
+  /**
+   * Constructs a ParallelHashJoinOperator.
+   *
+   * @param leftChild The left child Operator.
+   * @param rightChild The right child Operator.
+   * @param condition The join condition, split into key equalities and a residual condition; it
+   *     must have at least one key.
+   * @param buildLeft Whether the left child is the build side; otherwise the right child is.
+   * @param parallelism The number of worker threads.
+   */
+  public ParallelHashJoinOperator(
+      Operator leftChild,
+      Operator rightChild,
+      EquiJoinCondition condition,
+      boolean buildLeft,
+      int parallelism) {
+    super(JoinOperator.mergeSchemas(leftChild.getOutputSchema(), rightChild.getOutputSchema()));
+    if (!condition.hasKeys()) {
+      throw new IllegalArgumentException("A hash join needs at least one equality on keys.");
+    }
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("A parallel join needs at least one thread.");
+    }
+    this.leftChild = leftChild;
+    this.rightChild = rightChild;
+    this.buildLeft = buildLeft;
+    this.buildChild = buildLeft ? leftChild : rightChild;
+    this.probeChild = buildLeft ? rightChild : leftChild;
+    this.buildKeys = buildLeft ? condition.getLeftKeys() : condition.getRightKeys();
+    this.probeKeys = buildLeft ? condition.getRightKeys() : condition.getLeftKeys();
+    this.buildWidth = buildChild.getOutputSchema().size();
+    this.probeWidth = probeChild.getOutputSchema().size();
+    this.condition = condition;
+    this.parallelism = parallelism;
+    this.runtimeFilter = RuntimeFilter.create(probeChild, probeKeys);
+  }
+
+  /**
+   * Returns the number of partitions the inputs were split into.
+   *
+   * @return the number of partitions, or 0 before the first tuple is requested.
+   */
+  public int getPartitionCount() {
+    return numPartitions;
+  }
+
+  /** Forwards a runtime join filter to the child that produces its columns. */
+  @Override
+  public boolean pushRuntimeFilter(RuntimeFilter filter) {
+    return leftChild.pushRuntimeFilter(filter) || rightChild.pushRuntimeFilter(filter);
+  }
+
+  /**
+   * Returns the filter on the keys of the build side pushed down to the probe side.
+   *
+   * @return the filter, or null if runtime filters are disabled.
+   */
+  public RuntimeFilter getRuntimeFilter() {
+    return runtimeFilter;
+  }
+
+  /**
+   * Whether the worker threads are running, from the start of the join until its output is
+   * exhausted, or it is reset or closed.
+   *
+   * @return true if the threads are running.
+   */
+  public boolean hasWorkers() {
+    return pool != null;
+  }
+
+  /** Stops the worker threads and drops the partitions not joined yet, then closes the children. */
+  @Override
+  public void close() {
+    shutdown();
+    nextPartition = numPartitions;
+    wave = new ArrayList<>();
+    waveIndex = 0;
+    current = null;
+    super.close();
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(leftChild, rightChild);
+  }
+
+  /** Resets the operator by resetting both children and dropping the partitioned inputs. */
+  @Override
+  public void reset() {
+    leftChild.reset();
+    rightChild.reset();
+    shutdown();
+    build = null;
+    probe = null;
+    numPartitions = 0;
+    nextPartition = 0;
+    wave = new ArrayList<>();
+    waveIndex = 0;
+    current = null;
+    outputPosition = 0;
+  }
+
+  /**
+   * Retrieves the next joined tuple that satisfies the join condition, from the current batch.
+   *
+   * @return The next joined Tuple, or null if no more joined tuples are available.
+   */
+  @Override
+  public Tuple getNextTuple() {
+    while (current == null || outputPosition == current.getSelectedCount()) {
+      if (getNextBatch() == null) {
+        return null;
+      }
+      outputPosition = 0;
+    }
+    return current.getTuple(outputPosition++);
+  }
+
+  /**
+   * Retrieves the next batch of joined tuples that satisfy the join condition, joining the next
+   * wave of partitions when the current one is used up.
+   *
+   * @return The next batch with at least one selected row, or null if no more joined tuples are
+   *     available.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    outputPosition = 0;
+    if (build == null) {
+      partitionInputs();
+    }
+    while (waveIndex == wave.size()) {
+      if (nextPartition == numPartitions) {
+        if (runtimeFilter != null && pool != null) {
+          runtimeFilter.logCounts();
+        }
+        shutdown();
+        current = null;
+        return null;
+      }
+      joinNextWave();
+    }
+    current = wave.get(waveIndex);
+    wave.set(waveIndex++, null); // Let the batch be collected once it has been consumed
+    return current;
+  }
+
+  /** Stops the worker threads, if they are running. */
+  private void shutdown() {
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+  }
+
+  /** Runs tasks on the worker threads and waits for all of them. */
+  private <T> List<T> runAll(List<Callable<T>> tasks) {
+    List<T> results = new ArrayList<>(tasks.size());
+    try {
+      for (Future<T> future : pool.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted in ParallelHashJoinOperator", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Error in ParallelHashJoinOperator: " + e.getCause(), e);
+    }
+    return results;
+  }
+
+  /** Reads both children and splits them into radix partitions. */
+  private void partitionInputs() {
+    pool = new ForkJoinPool(parallelism);
+    Materialized buildInput = new Materialized(buildChild, buildWidth);
+    if (runtimeFilter != null) {
+      runtimeFilter.clear();
+      runtimeFilter.addKeys(buildInput.columns, buildKeys, buildInput.size);
+      runtimeFilter.seal();
+      runtimeFilter.pushTo(probeChild);
+    }
+    Materialized probeInput = new Materialized(probeChild, probeWidth);
+    int bits = 0;
+    while (bits < MAX_RADIX_BITS && (buildInput.size >> bits) > TARGET_PARTITION_SIZE) {
+      bits++;
+    }
+    numPartitions = 1 << bits;
+    build = partition(buildInput, buildKeys, bits);
+    probe = partition(probeInput, probeKeys, bits);
+  }
+
+  /**
+   * Splits an input into radix partitions on the worker threads. The input is cut into chunks;
+   * each task counts how many tuples of its chunk fall in every partition, the counts are turned
+   * into write offsets, and each task then copies its tuples to their partitions.
+   */
+  private Partitioned partition(Materialized input, int[] keys, int bits) {
+    int size = input.size;
+    int chunkSize = Math.max(MIN_CHUNK_SIZE, (size + parallelism - 1) / parallelism);
+    int numChunks = Math.max(1, (size + chunkSize - 1) / chunkSize);
+    int shift = 32 - bits;
+
+    // Hash every tuple and count the tuples of each partition, chunk by chunk
+    int[] hashes = new int[size];
+    List<Callable<int[]>> countTasks = new ArrayList<>();
+    for (int chunk = 0; chunk < numChunks; chunk++) {
+      int start = chunk * chunkSize;
+      int end = Math.min(size, start + chunkSize);
+      countTasks.add(
+          () -> {
+            int[] counts = new int[numPartitions];
+            for (int row = start; row < end; row++) {
+              int hash = JoinHashTable.hash(input.columns, keys, row);
+              hashes[row] = hash;
+              counts[bits == 0 ? 0 : hash >>> shift]++;
+            }
+            return counts;
+          });
+    }
+    List<int[]> counts = runAll(countTasks);
+
+    // Turn the counts into the offset each chunk writes each partition at
+    int[] starts = new int[numPartitions + 1];
+    int[][] offsets = new int[numChunks][numPartitions];
+    int offset = 0;
+    for (int p = 0; p < numPartitions; p++) {
+      starts[p] = offset;
+      for (int chunk = 0; chunk < numChunks; chunk++) {
+        offsets[chunk][p] = offset;
+        offset += counts.get(chunk)[p];
+      }
+    }
+    starts[numPartitions] = offset;
+
+    // Scatter the tuples to their partitions, keeping their order within each partition
+    int width = input.columns.length;
+    int[][] columns = new int[width][size];
+    int[] partitionedHashes = new int[size];
+    List<Callable<Void>> scatterTasks = new ArrayList<>();
+    for (int chunk = 0; chunk < numChunks; chunk++) {
+      int start = chunk * chunkSize;
+      int end = Math.min(size, start + chunkSize);
+      int[] next = offsets[chunk];
+      scatterTasks.add(
+          () -> {
+            for (int row = start; row < end; row++) {
+              int hash = hashes[row];
+              int target = next[bits == 0 ? 0 : hash >>> shift]++;
+              for (int c = 0; c < width; c++) {
+                columns[c][target] = input.columns[c][row];
+              }
+              partitionedHashes[target] = hash;
+            }
+            return null;
+          });
+    }
+    runAll(scatterTasks);
+    return new Partitioned(columns, partitionedHashes, starts);
+  }
+
+  /** Joins the next partitions on the worker threads, collecting their output batches. */
+  private void joinNextWave() {
+    int end = Math.min(numPartitions, nextPartition + parallelism * PARTITIONS_PER_TASK);
+    List<Callable<List<TupleBatch>>> tasks = new ArrayList<>();
+    for (int p = nextPartition; p < end; p++) {
+      int partition = p;
+      tasks.add(() -> joinPartition(partition));
+    }
+    nextPartition = end;
+    wave = new ArrayList<>();
+    for (List<TupleBatch> batches : runAll(tasks)) {
+      wave.addAll(batches);
+    }
+    waveIndex = 0;
+  }
+
+  /**
+   * Joins one partition: builds a hash table on its build tuples, probes it with its probe tuples
+   * and filters the joined pairs with the residual condition.
+   *
+   * @return the batches of joined tuples, each with at least one selected row.
+   */
+  private List<TupleBatch> joinPartition(int p) {
+    List<TupleBatch> batches = new ArrayList<>();
+    int buildStart = build.starts[p];
+    int buildSize = build.starts[p + 1] - buildStart;
+    int probeStart = probe.starts[p];
+    int probeEnd = probe.starts[p + 1];
+    if (buildSize == 0 || probeEnd == probeStart) {
+      return batches;
+    }
+
+    int numBuckets = Integer.highestOneBit(buildSize * 2 - 1) * 2;
+    int[] buckets = new int[numBuckets];
+    Arrays.fill(buckets, -1);
+    int[] nextInChain = new int[buildSize];
+    for (int i = buildSize - 1; i >= 0; i--) {
+      int bucket = build.hashes[buildStart + i] & (numBuckets - 1);
+      nextInChain[i] = buckets[bucket];
+      buckets[bucket] = i;
+    }
+
+    BatchPredicate residual =
+        condition.getResidual() != null
+            ? BatchPredicate.compile(condition.getResidual(), getOutputSchema())
+            : null;
+    int buildOffset = buildLeft ? 0 : probeWidth;
+    int probeOffset = buildLeft ? buildWidth : 0;
+    TupleBatch output = new TupleBatch(getOutputSchema().size(), TupleBatch.DEFAULT_CAPACITY);
+    int size = 0;
+    for (int probeRow = probeStart; probeRow < probeEnd; probeRow++) {
+      int hash = probe.hashes[probeRow];
+      for (int i = buckets[hash & (numBuckets - 1)]; i >= 0; i = nextInChain[i]) {
+        int buildRow = buildStart + i;
+        if (build.hashes[buildRow] != hash || !keysMatch(buildRow, probeRow)) {
+          continue;
+        }
+        for (int c = 0; c < buildWidth; c++) {
+          output.getColumn(buildOffset + c)[size] = build.columns[c][buildRow];
+        }
+        for (int c = 0; c < probeWidth; c++) {
+          output.getColumn(probeOffset + c)[size] = probe.columns[c][probeRow];
+        }
+        if (++size == output.getCapacity()) {
+          output.setSize(size);
+          if (residual == null || residual.filter(output) > 0) {
+            batches.add(output);
+            output = new TupleBatch(getOutputSchema().size(), TupleBatch.DEFAULT_CAPACITY);
+          }
+          size = 0;
+        }
+      }
+    }
+    output.setSize(size);
+    if (size > 0 && (residual == null || residual.filter(output) > 0)) {
+      batches.add(output);
+    }
+    return batches;
+  }
+
+  /** Whether a build tuple has the same keys as a probe tuple. */
+  private boolean keysMatch(int buildRow, int probeRow) {
+    for (int k = 0; k < buildKeys.length; k++) {
+      if (build.columns[buildKeys[k]][buildRow] != probe.columns[probeKeys[k]][probeRow]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** All tuples of a child, read into column vectors. */
+  private static final class Materialized {
+    int[][] columns;
+    int size;
+
+    Materialized(Operator child, int width) {
+      columns = new int[width][TupleBatch.DEFAULT_CAPACITY];
+      TupleBatch batch;
+      while ((batch = child.getNextBatch()) != null) {
+        int count = batch.getSelectedCount();
+        if (size + count > columns[0].length) {
+          int capacity = Math.max(2 * columns[0].length, size + count);
+          for (int c = 0; c < width; c++) {
+            columns[c] = Arrays.copyOf(columns[c], capacity);
+          }
+        }
+        for (int c = 0; c < width; c++) {
+          int[] values = batch.getColumn(c);
+          for (int i = 0; i < count; i++) {
+            columns[c][size + i] = values[batch.getSelectedRow(i)];
+          }
+        }
+        size += count;
+      }
+    }
+  }
+
+  /** An input split into partitions: partition p holds the rows from starts[p] to starts[p+1]. */
+  private record Partitioned(int[][] columns, int[] hashes, int[] starts) {}
+}
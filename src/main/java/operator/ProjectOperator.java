@@ -1,6 +1,7 @@
 package operator;
 
 import common.Tuple;
+import common.TupleBatch;
 import java.util.ArrayList;
 import java.util.List;
 import net.sf.jsqlparser.expression.Expression;
@@ -15,6 +16,7 @@ public class ProjectOperator extends Operator {
   private final Operator child;
   private final List<SelectItem> selectItems;
   private final ArrayList<Column> inputSchema;
+  private final int[] projectedIndices; // Input index of each output column; null for SELECT *
 
   /**
    * Constructs a ProjectOperator with the specified child operator and PlainSelect query.
@@ -27,6 +29,56 @@ public class ProjectOperator extends Operator {
     this.child = child;
     this.selectItems = plainSelect.getSelectItems();
     this.inputSchema = child.getOutputSchema();
+    this.projectedIndices = resolveProjectedIndices();
+  }
+
+  /**
+   * Constructs a ProjectOperator that outputs the given columns of the child, in the given order.
+   *
+   * @param child The child Operator providing input tuples.
+   * @param columns The columns to output, each qualified by its table name.
+   */
+  public ProjectOperator(Operator child, ArrayList<Column> columns) {
+    super(columns);
+    this.child = child;
+    this.selectItems = null;
+    this.inputSchema = child.getOutputSchema();
+    this.projectedIndices = new int[columns.size()];
+    for (int i = 0; i < columns.size(); i++) {
+      Column col = columns.get(i);
+      projectedIndices[i] = getColumnIndex(col.getTable().getName(), col.getColumnName());
+    }
+  }
+
+  /**
+   * Resolves, once, the index in the input schema of every column in the SELECT clause.
+   *
+   * @return the input index of each output column, or null if the query selects all columns.
+   * @throws UnsupportedOperationException If the SELECT clause contains unsupported expressions.
+   */
+  private int[] resolveProjectedIndices() {
+    if (selectItems.size() == 1 && selectItems.get(0) instanceof AllColumns) {
+      return null;
+    }
+
+    int[] indices = new int[selectItems.size()];
+    for (int i = 0; i < selectItems.size(); i++) {
+      SelectItem item = selectItems.get(i);
+      if (item instanceof SelectExpressionItem) {
+        Expression expr = ((SelectExpressionItem) item).getExpression();
+        if (expr instanceof Column) {
+          Column col = (Column) expr;
+          String columnName = col.getColumnName();
+          String tableName = col.getTable() != null ? col.getTable().getName() : null;
+          indices[i] = getColumnIndex(tableName, columnName);
+        } else {
+          throw new UnsupportedOperationException("Only columns are supported in SELECT clause.");
+        }
+      } else {
+        throw new UnsupportedOperationException("Unsupported SELECT item.");
+      }
+    }
+    return indices;
   }
 
   /**
@@ -59,6 +111,42 @@ public class ProjectOperator extends Operator {
     return projectedSchema;
   }
 
+  /**
+   * Returns the order of the projected tuples, derived from the order of the child. Projecting
+   * keeps tuples sorted when the projected columns are the leading columns the child is sorted on,
+   * each kept once, since the dropped columns then only break ties the kept ones already decide.
+   *
+   * @return the indices of the output columns the tuples are sorted on, or null if not sorted.
+   */
+  @Override
+  public int[] getSortOrder() {
+    int[] childOrder = child.getSortOrder();
+    if (childOrder == null || projectedIndices == null) {
+      return childOrder;
+    }
+    int[] sequence = normalizeSortOrder(childOrder, inputSchema.size());
+    int[] order = new int[projectedIndices.length];
+    for (int i = 0; i < projectedIndices.length; i++) {
+      int output = -1;
+      for (int j = 0; j < projectedIndices.length; j++) {
+        if (projectedIndices[j] == sequence[i]) {
+          output = j;
+          break;
+        }
+      }
+      if (output < 0) {
+        return null;
+      }
+      order[i] = output;
+    }
+    return order;
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(child);
+  }
+
   /** Resets the operator by resetting its child operator. */
   @Override
   public void reset() {
@@ -69,7 +157,6 @@ public class ProjectOperator extends Operator {
    * Retrieves the next projected tuple based on the SELECT clause.
    *
    * @return The next projected Tuple, or null if no more tuples are available.
-   * @throws UnsupportedOperationException If the SELECT clause contains unsupported expressions.
    */
   @Override
   public Tuple getNextTuple() {
@@ -80,39 +167,33 @@ public class ProjectOperator extends Operator {
     return null;
   }
 
+  /**
+   * Retrieves the next batch of the child restricted to the projected columns. The projected batch
+   * shares the column vectors and selection of the child batch, so no value is copied.
+   *
+   * @return The next projected batch, or null if no more tuples are available.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    TupleBatch batch = child.getNextBatch();
+    if (batch == null || projectedIndices == null) {
+      return batch;
+    }
+    return batch.project(projectedIndices);
+  }
+
   /**
    * Extracts the required columns from the input tuple to form the projected tuple.
    *
    * @param tuple The input Tuple to extract values from.
    * @return A new Tuple containing only the projected values.
-   * @throws UnsupportedOperationException If the SELECT clause contains unsupported expressions.
    */
   private Tuple extractTuple(Tuple tuple) {
-    ArrayList<Integer> extractedValues = new ArrayList<>();
-
-    if (selectItems.size() == 1 && selectItems.get(0) instanceof AllColumns) {
+    if (projectedIndices == null) {
       // SELECT *
       return tuple;
     }
-
-    for (SelectItem item : selectItems) {
-      if (item instanceof SelectExpressionItem) {
-        Expression expr = ((SelectExpressionItem) item).getExpression();
-        if (expr instanceof Column) {
-          Column col = (Column) expr;
-          String columnName = col.getColumnName();
-          String tableName = col.getTable() != null ? col.getTable().getName() : null;
-          int index = getColumnIndex(tableName, columnName);
-          extractedValues.add(tuple.getElementAtIndex(index));
-        } else {
-          throw new UnsupportedOperationException("Only columns are supported in SELECT clause.");
-        }
-      } else {
-        throw new UnsupportedOperationException("Unsupported SELECT item.");
-      }
-    }
-
-    return new Tuple(extractedValues);
+    return tuple.project(projectedIndices);
   }
 
   /**
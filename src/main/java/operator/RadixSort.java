@@ -0,0 +1,84 @@
+package operator;
+
+import java.util.Arrays;
+
+/**
+ * Sorts rows held in column vectors on a sequence of int columns with a least significant digit
+ * radix sort. Each column, from the least significant to the most, is split into three digits of
+ * 11, 11 and 10 bits, and the row order is permuted by a stable counting pass per digit, so no two
+ * values are ever compared. The sign bit of every value is flipped first, which makes the unsigned
+ * order of the digits the signed order of the values.
+ *
+ * <p>The histograms of the three digits of a column are counted in a single pass, and a digit that
+ * is the same in every row is skipped, so columns with few distinct values, such as those only
+ * breaking ties, cost little more than that one pass.
+ */
+final class RadixSort {
+  private static final int DIGIT_BITS = 11;
+  private static final int BUCKETS = 1 << DIGIT_BITS;
+  private static final int DIGITS = (Integer.SIZE + DIGIT_BITS - 1) / DIGIT_BITS;
+
+  private RadixSort() {}
+
+  /**
+   * Returns the order of rows sorted on the given columns, most significant first. Rows equal on
+   * all of them keep their order.
+   *
+   * @param columns the column vectors.
+   * @param count the number of rows, from the start of the vectors.
+   * @param keyColumns the indices of the columns to sort on.
+   * @return the row numbers, in sorted order.
+   */
+  static int[] sortedOrder(int[][] columns, int count, int[] keyColumns) {
+    int[] order = new int[count];
+    Arrays.setAll(order, r -> r);
+    if (count < 2) {
+      return order;
+    }
+    int[] buffer = new int[count];
+    int[] keys = new int[count]; // Values of the column in the current row order, sign flipped
+    int[] keyBuffer = new int[count];
+    int[][] counts = new int[DIGITS][BUCKETS];
+    for (int k = keyColumns.length - 1; k >= 0; k--) {
+      int[] values = columns[keyColumns[k]];
+      for (int[] histogram : counts) {
+        Arrays.fill(histogram, 0);
+      }
+      for (int i = 0; i < count; i++) {
+        int key = values[order[i]] ^ Integer.MIN_VALUE;
+        keys[i] = key;
+        for (int d = 0; d < DIGITS; d++) {
+          counts[d][(key >>> (d * DIGIT_BITS)) & (BUCKETS - 1)]++;
+        }
+      }
+
+      for (int d = 0; d < DIGITS; d++) {
+        int[] histogram = counts[d];
+        int shift = d * DIGIT_BITS;
+        if (histogram[(keys[0] >>> shift) & (BUCKETS - 1)] == count) {
+          continue; // Every row has the same digit
+        }
+        // Turn the counts into the position of the first row of each bucket
+        int position = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+          int bucketCount = histogram[b];
+          histogram[b] = position;
+          position += bucketCount;
+        }
+        for (int i = 0; i < count; i++) {
+          int key = keys[i];
+          int target = histogram[(key >>> shift) & (BUCKETS - 1)]++;
+          buffer[target] = order[i];
+          keyBuffer[target] = key;
+        }
+        int[] swap = order;
+        order = buffer;
+        buffer = swap;
+        swap = keys;
+        keys = keyBuffer;
+        keyBuffer = swap;
+      }
+    }
+    return order;
+  }
+}
@@ -0,0 +1,263 @@
+package operator;
+
+import common.DBConfig;
+import common.Tuple;
+import common.TupleBatch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.sf.jsqlparser.schema.Column;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A filter on the join keys of the probe side of a hash join, built at run time from the keys of
+ * the build side once it has been read. It holds the range of every key column and a Bloom filter
+ * on the hash of the keys, so it never rejects a probe tuple that has a match, but rejects most of
+ * those that have none. The join pushes the filter down to the {@link ScanOperator} that produces
+ * the probe key columns, which then drops rejected tuples before any selection or join sees them.
+ *
+ * <p>Until the keys of the build side are all added, the filter lets every tuple through. It counts
+ * the tuples it checks and rejects, and the join logs the counts once its output is exhausted.
+ */
+public final class RuntimeFilter {
+  private static final Logger logger = LogManager.getLogger();
+
+  private static final int BITS_PER_KEY = 8;
+  private static final int MAX_BITS = 1 << 26; // 8 MB of bits
+
+  private final List<Column> columns;
+  private final int[] mins;
+  private final int[] maxs;
+  private int[] pendingHashes; // Hashes of the keys added since the filter was cleared
+  private int pendingCount;
+  private long[] bits;
+  private int bitMask;
+  private boolean sealed; // Whether the filter holds all the keys of the build side
+  private boolean offered; // Whether the filter was offered to the probe side
+  private long checked;
+  private long rejected;
+
+  /**
+   * Creates an empty filter. Keys are added with addKeys, and the filter is ready to check probe
+   * tuples once seal has been called.
+   *
+   * @param columns the probe key columns, in the order of the build keys.
+   */
+  RuntimeFilter(List<Column> columns) {
+    this.columns = new ArrayList<>(columns);
+    this.mins = new int[columns.size()];
+    this.maxs = new int[columns.size()];
+    clear();
+  }
+
+  /** Empties the filter, so that the keys of the build side can be added again. */
+  void clear() {
+    Arrays.fill(mins, Integer.MAX_VALUE);
+    Arrays.fill(maxs, Integer.MIN_VALUE);
+    pendingHashes = new int[TupleBatch.DEFAULT_CAPACITY];
+    pendingCount = 0;
+    bits = new long[1];
+    bitMask = 63;
+    sealed = false;
+  }
+
+  /**
+   * Creates the filter of a hash join, unless RUNTIME_FILTERS disables runtime filters.
+   *
+   * @param probeChild the probe side of the join.
+   * @param probeKeys the indices of the probe key columns, in the order of the build keys.
+   * @return the empty filter, or null.
+   */
+  static RuntimeFilter create(Operator probeChild, int[] probeKeys) {
+    if (!DBConfig.getInstance().useRuntimeFilters()) {
+      return null;
+    }
+    List<Column> columns = new ArrayList<>();
+    for (int key : probeKeys) {
+      columns.add(probeChild.getOutputSchema().get(key));
+    }
+    return new RuntimeFilter(columns);
+  }
+
+  /**
+   * Returns the probe key columns the filter checks.
+   *
+   * @return the columns, named by table and column name.
+   */
+  public List<Column> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Returns the number of probe tuples checked so far.
+   *
+   * @return the number of tuples.
+   */
+  public long getCheckedCount() {
+    return checked;
+  }
+
+  /**
+   * Returns the number of probe tuples rejected so far.
+   *
+   * @return the number of tuples.
+   */
+  public long getRejectedCount() {
+    return rejected;
+  }
+
+  /** Widens the range of a key column to a value of a build tuple. */
+  private void addKey(int k, int value) {
+    mins[k] = Math.min(mins[k], value);
+    maxs[k] = Math.max(maxs[k], value);
+  }
+
+  /** Records the hash of the keys of one build tuple. */
+  private void addHash(int hash) {
+    if (pendingCount == pendingHashes.length) {
+      pendingHashes = Arrays.copyOf(pendingHashes, 2 * pendingCount);
+    }
+    pendingHashes[pendingCount++] = hash;
+  }
+
+  /**
+   * Adds the keys of the selected rows of a build batch.
+   *
+   * @param batch the batch.
+   * @param buildKeys the indices of the build key columns.
+   */
+  void addKeys(TupleBatch batch, int[] buildKeys) {
+    for (int i = 0; i < batch.getSelectedCount(); i++) {
+      int row = batch.getSelectedRow(i);
+      for (int k = 0; k < buildKeys.length; k++) {
+        addKey(k, batch.getColumn(buildKeys[k])[row]);
+      }
+      addHash(JoinHashTable.hash(batch, buildKeys, row));
+    }
+  }
+
+  /**
+   * Adds the keys of build tuples held in column vectors.
+   *
+   * @param buildColumns the column vectors.
+   * @param buildKeys the indices of the build key columns.
+   * @param count the number of tuples, from the start of the vectors.
+   */
+  void addKeys(int[][] buildColumns, int[] buildKeys, int count) {
+    for (int row = 0; row < count; row++) {
+      for (int k = 0; k < buildKeys.length; k++) {
+        addKey(k, buildColumns[buildKeys[k]][row]);
+      }
+      addHash(JoinHashTable.hash(buildColumns, buildKeys, row));
+    }
+  }
+
+  /** Builds the Bloom filter from the keys added, sized for their number. */
+  void seal() {
+    long numBits = Long.highestOneBit(Math.max(64, (long) pendingCount * BITS_PER_KEY) - 1) * 2;
+    numBits = Math.min(numBits, MAX_BITS);
+    bits = new long[(int) (numBits / 64)];
+    bitMask = (int) numBits - 1;
+    for (int i = 0; i < pendingCount; i++) {
+      int hash = pendingHashes[i];
+      int second = JoinHashTable.mix(hash) | 1;
+      for (int j = 0; j < 3; j++) {
+        int bit = (hash + j * second) & bitMask;
+        bits[bit >>> 6] |= 1L << bit;
+      }
+    }
+    pendingHashes = null;
+    pendingCount = 0;
+    sealed = true;
+  }
+
+  /**
+   * Offers the filter to the probe side of the join, the first time it is called.
+   *
+   * @param probeChild the probe side of the join.
+   */
+  void pushTo(Operator probeChild) {
+    if (!offered) {
+      offered = true;
+      probeChild.pushRuntimeFilter(this);
+    }
+  }
+
+  /** Whether the keys with the given hash may have been added; the ranges are checked already. */
+  private boolean mayContainHash(int hash) {
+    int second = JoinHashTable.mix(hash) | 1;
+    for (int j = 0; j < 3; j++) {
+      int bit = (hash + j * second) & bitMask;
+      if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks a probe tuple.
+   *
+   * @param tuple the tuple.
+   * @param keys the indices of the probe key columns in the tuple.
+   * @return false if no build tuple has the same keys.
+   */
+  boolean mayMatch(Tuple tuple, int[] keys) {
+    if (!sealed) {
+      return true;
+    }
+    checked++;
+    int h = 0;
+    for (int k = 0; k < keys.length; k++) {
+      int value = tuple.getElementAtIndex(keys[k]);
+      if (value < mins[k] || value > maxs[k]) {
+        rejected++;
+        return false;
+      }
+      h = h * 31 + value;
+    }
+    if (!mayContainHash(JoinHashTable.mix(h))) {
+      rejected++;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Narrows the selection of a batch to the probe tuples that may have a match.
+   *
+   * @param batch the batch.
+   * @param keys the indices of the probe key columns in the batch.
+   * @return the number of rows still selected.
+   */
+  int filter(TupleBatch batch, int[] keys) {
+    if (!sealed) {
+      return batch.getSelectedCount();
+    }
+    int[] rows = batch.getSelection();
+    int count = batch.getSelectedCount();
+    int kept = 0;
+    for (int i = 0; i < count; i++) {
+      int row = rows[i];
+      boolean inRange = true;
+      for (int k = 0; k < keys.length && inRange; k++) {
+        int value = batch.getColumn(keys[k])[row];
+        inRange = value >= mins[k] && value <= maxs[k];
+      }
+      if (inRange && mayContainHash(JoinHashTable.hash(batch, keys, row))) {
+        rows[kept++] = row;
+      }
+    }
+    batch.setSelectedCount(kept);
+    checked += count;
+    rejected += count - kept;
+    return kept;
+  }
+
+  /** Logs how many probe tuples the filter has rejected. */
+  void logCounts() {
+    logger.info(
+        "Runtime filter on " + columns + " rejected " + rejected + " of " + checked + " rows");
+  }
+}
@@ -1,19 +1,52 @@
 package operator;
 
 import common.DBCatalog;
+import common.DBConfig;
+import common.TableFormat;
 import common.Tuple;
+import common.TupleBatch;
+import common.ZoneMapFilterBuilder;
+import io.BinaryTupleReader;
+import io.ColumnarTupleReader;
+import io.CompressedTupleReader;
+import io.MappedTupleReader;
+import io.TextTupleReader;
+import io.TupleReader;
+import io.ZoneMapFilter;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.schema.Column;
 
 /**
  * The ScanOperator reads tuples from a table by scanning a data file. It extends Operator to
- * provide tuples sequentially from the table data.
+ * provide tuples sequentially from the table data. The file is read through a TupleReader matching
+ * the format the table is stored in, or mapped into memory once if SCAN_MODE is set to mmap.
+ *
+ * <p>For tables in the columnar and compressed formats, only the columns in the output schema are
+ * read, so the output schema may be any subset of the table's columns, in any order.
+ *
+ * <p>A scan can be told the selection applied on top of it, to skip the pages of paged formats
+ * that the table's zone maps show cannot hold a matching tuple. Hash joins above the scan may also
+ * push {@link RuntimeFilter}s on its columns, and the tuples they reject are dropped as soon as
+ * they are read.
  */
 public class ScanOperator extends Operator {
 
-  private BufferedReader reader; // Reader that reads from the table file
+  private TupleReader reader; // Reader that reads from the table file
   private String filePath; // Path to the file containing the table data
+  private TableFormat format; // Format the table file is stored in
+  private List<File> columnFiles; // Files of the columns to read, for columnar tables
+  private int[] columnIndices; // Columns to decode, for compressed tables; null for all of them
+  private List<Column> fileSchema; // Columns of the file, in the order zone maps index them
+  private ZoneMapFilter zoneMapFilter; // Ranges pages must overlap to be read, or null
+  private TupleBatch batch; // Batch returned by getNextBatch, reused across calls
+  private final List<AppliedFilter> runtimeFilters = new ArrayList<>();
+
+  /** A runtime filter, with the index in the output schema of each of its columns. */
+  private record AppliedFilter(RuntimeFilter filter, int[] columns) {}
 
   /**
    * Constructs a ScanOperator with the specified schema, table name, catalog usage, and file path.
@@ -26,54 +59,222 @@ public class ScanOperator extends Operator {
   public ScanOperator(
       ArrayList<Column> outputSchema, String tableName, boolean useCatalog, String filePath) {
     super(outputSchema);
+    this.fileSchema = outputSchema;
 
     if (useCatalog) {
       this.filePath = DBCatalog.getInstance().getFileForTable(tableName).getAbsolutePath();
+      this.format = DBCatalog.getInstance().getTableFormat(tableName);
     } else {
       this.filePath = filePath;
+      this.format = TableFormat.detect(new File(filePath));
+    }
+
+    if (format == TableFormat.COLUMNAR) {
+      columnFiles = new ArrayList<>();
+      for (Column column : outputSchema) {
+        columnFiles.add(
+            useCatalog
+                ? DBCatalog.getInstance().getFileForColumn(tableName, column.getColumnName())
+                : new File(this.filePath, column.getColumnName()));
+      }
+    } else if (format == TableFormat.COMPRESSED && useCatalog) {
+      ArrayList<Column> tableSchema = DBCatalog.getInstance().getSchema(tableName);
+      fileSchema = tableSchema;
+      columnIndices = new int[outputSchema.size()];
+      for (int i = 0; i < columnIndices.length; i++) {
+        String columnName = outputSchema.get(i).getColumnName();
+        for (int j = 0; j < tableSchema.size(); j++) {
+          if (tableSchema.get(j).getColumnName().equals(columnName)) {
+            columnIndices[i] = j;
+          }
+        }
+      }
     }
 
     init();
   }
 
-  /** Initializes the BufferedReader to read from the specified file path. */
+  /** Initializes the TupleReader to read from the specified file path. */
   private void init() {
     try {
-      reader = new BufferedReader(new FileReader(filePath));
+      File file = new File(filePath);
+      if (format == TableFormat.COLUMNAR) {
+        reader = new ColumnarTupleReader(columnFiles, zoneMapFilter);
+      } else if (format == TableFormat.COMPRESSED) {
+        reader = new CompressedTupleReader(file, columnIndices, zoneMapFilter);
+      } else if (DBConfig.getInstance().useMemoryMappedScans()) {
+        reader = new MappedTupleReader(file, format, zoneMapFilter);
+      } else if (format == TableFormat.BINARY) {
+        reader = new BinaryTupleReader(file, zoneMapFilter);
+      } else {
+        reader = new TextTupleReader(file);
+      }
     } catch (IOException e) {
       e.printStackTrace(); // Handle exceptions
     }
   }
 
-  /** Resets the ScanOperator by closing and reopening the file reader. */
+  /**
+   * Lets the scan skip pages that cannot hold a tuple satisfying a selection, according to the
+   * zone maps of the table. Tuples on the remaining pages are returned whether they satisfy the
+   * selection or not, so the selection must still be applied on top of the scan. Text tables have
+   * no zone maps and are always read in full.
+   *
+   * @param condition the selection condition on this table.
+   */
+  public void skipPagesNotMatching(Expression condition) {
+    if (format == TableFormat.TEXT) {
+      return;
+    }
+    zoneMapFilter = ZoneMapFilterBuilder.build(condition, fileSchema);
+    if (zoneMapFilter != null) {
+      try {
+        if (reader != null) {
+          reader.close();
+        }
+      } catch (IOException e) {
+        e.printStackTrace(); // Handle exceptions
+      }
+      init();
+    }
+  }
+
+  /**
+   * Accepts a runtime join filter if every column it checks is in the output schema.
+   *
+   * @param filter the filter.
+   * @return true if the scan applies the filter from now on.
+   */
+  @Override
+  public boolean pushRuntimeFilter(RuntimeFilter filter) {
+    List<Column> filterColumns = filter.getColumns();
+    int[] columns = new int[filterColumns.size()];
+    for (int k = 0; k < columns.length; k++) {
+      columns[k] = indexOf(filterColumns.get(k));
+      if (columns[k] < 0) {
+        return false;
+      }
+    }
+    runtimeFilters.add(new AppliedFilter(filter, columns));
+    return true;
+  }
+
+  /** Finds a column in the output schema by table and column name, or returns -1. */
+  private int indexOf(Column column) {
+    for (int i = 0; i < getOutputSchema().size(); i++) {
+      Column col = getOutputSchema().get(i);
+      if (Objects.equals(tableName(col), tableName(column))
+          && col.getColumnName().equals(column.getColumnName())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Returns the table name a column is qualified with, or null. */
+  private static String tableName(Column column) {
+    return column.getTable() != null ? column.getTable().getName() : null;
+  }
+
+  /** Resets the ScanOperator by moving the reader back to the start of the file. */
   @Override
   public void reset() {
+    try {
+      if (reader != null) {
+        reader.reset();
+      } else {
+        init();
+      }
+    } catch (IOException e) {
+      e.printStackTrace(); // Handle exceptions
+    }
+  }
+
+  /** Closes the reader, unpinning its current page; a reset opens the file again. */
+  @Override
+  public void close() {
     try {
       if (reader != null) {
         reader.close();
       }
-      init();
     } catch (IOException e) {
       e.printStackTrace(); // Handle exceptions
     }
+    reader = null;
   }
 
   /**
-   * Retrieves the next tuple from the table by reading the next line from the file.
+   * Retrieves the next tuple from the table by reading it from the file.
    *
    * @return The next Tuple, or null if the end of the file is reached.
    */
   @Override
   public Tuple getNextTuple() {
+    if (reader == null) {
+      return null; // Closed
+    }
     try {
-      String line = reader.readLine();
-      if (line == null) {
-        return null;
+      Tuple tuple;
+      while ((tuple = reader.readNextTuple()) != null && !passesRuntimeFilters(tuple)) {
+        // Drop tuples that cannot join
       }
-      return new Tuple(line);
+      return tuple;
     } catch (IOException e) {
       e.printStackTrace();
       return null;
     }
   }
+
+  /**
+   * Retrieves the next batch of tuples from the table, decoded straight into the column vectors
+   * for the paged formats.
+   *
+   * @return The next batch, or null if the end of the file is reached.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    if (reader == null) {
+      return null; // Closed
+    }
+    if (batch == null) {
+      batch = new TupleBatch(getOutputSchema().size(), TupleBatch.DEFAULT_CAPACITY);
+    }
+    try {
+      do {
+        batch.clear();
+        reader.readBatch(batch);
+        if (batch.size() == 0) {
+          return null;
+        }
+      } while (applyRuntimeFilters() == 0);
+    } catch (IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+    return batch;
+  }
+
+  /** Whether a tuple passes every runtime filter. */
+  private boolean passesRuntimeFilters(Tuple tuple) {
+    for (AppliedFilter applied : runtimeFilters) {
+      if (!applied.filter().mayMatch(tuple, applied.columns())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Narrows the selection of the batch to the tuples passing every runtime filter.
+   *
+   * @return the number of rows still selected.
+   */
+  private int applyRuntimeFilters() {
+    int count = batch.getSelectedCount();
+    for (int i = 0; i < runtimeFilters.size() && count > 0; i++) {
+      AppliedFilter applied = runtimeFilters.get(i);
+      count = applied.filter().filter(batch, applied.columns());
+    }
+    return count;
+  }
 }
@@ -1,16 +1,22 @@
 package operator;
 
 import common.Tuple;
+import common.TupleBatch;
+import expression.BatchPredicate;
 import expression.ExpressionVisitorImpl;
+import java.util.List;
 import net.sf.jsqlparser.expression.Expression;
 
 /**
  * The SelectOperator applies a selection condition to tuples from its child operator. It extends
- * Operator to filter tuples based on the specified WHERE clause condition.
+ * Operator to filter tuples based on the specified WHERE clause condition. In batch mode the
+ * condition is compiled once into a {@link BatchPredicate} that narrows the selection vector of
+ * each child batch.
  */
 public class SelectOperator extends Operator {
   private final Operator child;
   private final Expression condition;
+  private BatchPredicate predicate; // Compiled condition, created on the first batch
 
   /**
    * Constructs a SelectOperator with the specified child operator and selection condition.
@@ -24,6 +30,17 @@ public class SelectOperator extends Operator {
     this.condition = condition;
   }
 
+  /** Forwards a runtime join filter to the child. */
+  @Override
+  public boolean pushRuntimeFilter(RuntimeFilter filter) {
+    return child.pushRuntimeFilter(filter);
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(child);
+  }
+
   /** Resets the SelectOperator by resetting its child operator. */
   @Override
   public void reset() {
@@ -50,4 +67,24 @@ public class SelectOperator extends Operator {
     }
     return null;
   }
+
+  /**
+   * Retrieves the next batch of the child with its selection narrowed to the rows that satisfy
+   * the selection condition. Batches with no such row are skipped.
+   *
+   * @return The next batch with at least one selected row, or null if no such batch exists.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    if (predicate == null) {
+      predicate = BatchPredicate.compile(condition, getOutputSchema());
+    }
+    TupleBatch batch;
+    while ((batch = child.getNextBatch()) != null) {
+      if (predicate.filter(batch) > 0) {
+        return batch;
+      }
+    }
+    return null;
+  }
 }
@@ -0,0 +1,257 @@
+package operator;
+
+import common.EquiJoinCondition;
+import common.Tuple;
+import common.TupleBatch;
+import expression.BatchPredicate;
+
+/**
+ * The SortMergeJoinOperator implements the sort-merge join algorithm for equality join conditions.
+ * Both inputs are sorted on their join keys by a {@link SortOperator}, then merged in a single
+ * pass. For a run of right tuples sharing a key, the position of the first one is marked, and the
+ * right input is reset to the mark for every further left tuple with the same key, rather than
+ * rescanned from the start. Conjuncts of the join condition that are not key equalities are
+ * applied afterwards, as a residual filter over the joined pairs.
+ *
+ * <p>The output is sorted on the left join keys, with ties broken by all attributes in schema
+ * order, so it can feed a {@link SortOperator} on those keys or a {@link
+ * DuplicateEliminationOperator} without being sorted again. Identical left tuples are paired with
+ * each right tuple of the run in turn, to keep that order when the left input has duplicates.
+ */
+public class SortMergeJoinOperator extends Operator {
+  private final SortOperator leftSort;
+  private final SortOperator rightSort;
+  private final int[] leftKeys;
+  private final int[] rightKeys;
+  private final int leftWidth;
+  private final int rightWidth;
+  private final BatchPredicate residual;
+
+  // The current left tuple, how many identical copies of it follow each other, and the next one
+  private Tuple leftTuple;
+  private int leftCopies;
+  private Tuple nextLeftTuple;
+
+  // The current right tuple and its index in the sorted right input
+  private Tuple rightTuple;
+  private int rightIndex;
+
+  private boolean started;
+  private boolean inRun; // Whether the right tuples from the mark on have the key of leftTuple
+  private int mark; // Index of the first right tuple of the run
+  private int copiesPaired; // Copies of leftTuple already paired with rightTuple
+
+  private TupleBatch output;
+  private int outputPosition; // Next tuple of the output batch returned by getNextTuple
+
+  /**
+   * Constructs a SortMergeJoinOperator. Inputs that are already sorted on their keys are not
+   * sorted again.
+   *
+   * @param leftChild The left child Operator.
+   * @param rightChild The right child Operator.
+   * @param condition The join condition, split into key equalities and a residual condition; it
+   *     must have at least one key.
+   */
+  public SortMergeJoinOperator(
+      Operator leftChild, Operator rightChild, EquiJoinCondition condition) {
+    super(JoinOperator.mergeSchemas(leftChild.getOutputSchema(), rightChild.getOutputSchema()));
+    if (!condition.hasKeys()) {
+      throw new IllegalArgumentException("A sort-merge join needs at least one equality on keys.");
+    }
+    this.leftKeys = condition.getLeftKeys();
+    this.rightKeys = condition.getRightKeys();
+    this.leftSort = sortedOn(leftChild, leftKeys);
+    this.rightSort = sortedOn(rightChild, rightKeys);
+    this.leftWidth = leftChild.getOutputSchema().size();
+    this.rightWidth = rightChild.getOutputSchema().size();
+    this.residual =
+        condition.getResidual() != null
+            ? BatchPredicate.compile(condition.getResidual(), getOutputSchema())
+            : null;
+  }
+
+  /**
+   * Returns a SortOperator producing the tuples of a child sorted on the given keys, reusing the
+   * child if it is one already.
+   */
+  private static SortOperator sortedOn(Operator child, int[] keys) {
+    if (child instanceof SortOperator sort && sort.isSortedOn(keys)) {
+      return sort;
+    }
+    return new SortOperator(child, keys);
+  }
+
+  /**
+   * Returns the left join keys, which the output is sorted on.
+   *
+   * @return The indices of the left key columns in the output schema.
+   */
+  @Override
+  public int[] getSortOrder() {
+    return leftKeys.clone();
+  }
+
+  /** Forwards a runtime join filter to the child that produces its columns. */
+  @Override
+  public boolean pushRuntimeFilter(RuntimeFilter filter) {
+    return leftSort.pushRuntimeFilter(filter) || rightSort.pushRuntimeFilter(filter);
+  }
+
+  /** Resets the operator by resetting both sorted inputs to their first tuple. */
+  @Override
+  public void reset() {
+    leftSort.reset();
+    rightSort.reset();
+    started = false;
+    inRun = false;
+    outputPosition = 0;
+    if (output != null) {
+      output.clear();
+    }
+  }
+
+  /**
+   * Retrieves the next joined tuple that satisfies the join condition, from the current output
+   * batch.
+   *
+   * @return The next joined Tuple, or null if no more joined tuples are available.
+   */
+  @Override
+  public Tuple getNextTuple() {
+    while (output == null || outputPosition == output.getSelectedCount()) {
+      if (getNextBatch() == null) {
+        return null;
+      }
+      outputPosition = 0;
+    }
+    return output.getTuple(outputPosition++);
+  }
+
+  /**
+   * Retrieves the next batch of joined tuples that satisfy the join condition.
+   *
+   * @return The next batch with at least one selected row, or null if no more joined tuples are
+   *     available.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    if (output == null) {
+      output = new TupleBatch(getOutputSchema().size(), TupleBatch.DEFAULT_CAPACITY);
+    }
+    while (true) {
+      output.clear();
+      outputPosition = 0;
+      merge();
+      if (output.size() == 0) {
+        return null;
+      }
+      if (residual == null || residual.filter(output) > 0) {
+        return output;
+      }
+    }
+  }
+
+  /**
+   * Fills the output batch with the next pairs of left and right tuples with equal keys, until it
+   * is full or either input is exhausted.
+   */
+  private void merge() {
+    if (!started) {
+      nextLeftTuple = leftSort.getNextTuple();
+      advanceLeft();
+      rightTuple = rightSort.getNextTuple();
+      rightIndex = 0;
+      started = true;
+    }
+    int size = output.size();
+    int capacity = output.getCapacity();
+    while (size < capacity && leftTuple != null) {
+      if (!inRun) {
+        if (rightTuple == null) {
+          break;
+        }
+        int comparison = compareKeys(leftTuple, rightTuple);
+        if (comparison < 0) {
+          advanceLeft();
+        } else if (comparison > 0) {
+          advanceRight();
+        } else {
+          mark = rightIndex;
+          inRun = true;
+          copiesPaired = 0;
+        }
+        continue;
+      }
+
+      if (rightTuple != null && compareKeys(leftTuple, rightTuple) == 0) {
+        for (int c = 0; c < leftWidth; c++) {
+          output.getColumn(c)[size] = leftTuple.getElementAtIndex(c);
+        }
+        for (int c = 0; c < rightWidth; c++) {
+          output.getColumn(leftWidth + c)[size] = rightTuple.getElementAtIndex(c);
+        }
+        size++;
+        if (++copiesPaired == leftCopies) {
+          copiesPaired = 0;
+          advanceRight();
+        }
+        continue;
+      }
+
+      // The run is over for this left tuple; go back to its start if the next one has the same key
+      Tuple previous = leftTuple;
+      advanceLeft();
+      if (leftTuple != null && compareLeftKeys(previous, leftTuple) == 0) {
+        rightSort.reset(mark);
+        rightIndex = mark;
+        rightTuple = rightSort.getNextTuple();
+      } else {
+        inRun = false;
+      }
+    }
+    output.setSize(size);
+  }
+
+  /** Moves to the next distinct left tuple, counting its identical copies. */
+  private void advanceLeft() {
+    leftTuple = nextLeftTuple;
+    leftCopies = 1;
+    if (leftTuple == null) {
+      return;
+    }
+    while ((nextLeftTuple = leftSort.getNextTuple()) != null && nextLeftTuple.equals(leftTuple)) {
+      leftCopies++;
+    }
+  }
+
+  /** Moves to the next right tuple. */
+  private void advanceRight() {
+    rightTuple = rightSort.getNextTuple();
+    rightIndex++;
+  }
+
+  /** Compares the keys of a left tuple with the keys of a right tuple. */
+  private int compareKeys(Tuple left, Tuple right) {
+    for (int k = 0; k < leftKeys.length; k++) {
+      int comparison =
+          Integer.compare(
+              left.getElementAtIndex(leftKeys[k]), right.getElementAtIndex(rightKeys[k]));
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return 0;
+  }
+
+  /** Compares the keys of two left tuples. */
+  private int compareLeftKeys(Tuple first, Tuple second) {
+    for (int key : leftKeys) {
+      int comparison = Integer.compare(first.getElementAtIndex(key), second.getElementAtIndex(key));
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return 0;
+  }
+}
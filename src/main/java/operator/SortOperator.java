@@ -1,89 +1,357 @@
 package operator;
 
+import common.DBConfig;
 import common.Tuple;
+import common.TupleBatch;
+import io.BinaryTupleReader;
+import io.BinaryTupleWriter;
+import io.PageLayout;
+import io.SpillFiles;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.statement.select.OrderByElement;
 
 /**
- * The SortOperator sorts tuples based on the ORDER BY clause of a query. It extends Operator to
- * collect all input tuples, sort them, and provide sorted tuples sequentially.
+ * The SortOperator sorts tuples based on the ORDER BY clause of a query, or on given columns. It
+ * extends Operator to collect all input tuples, sort them, and provide sorted tuples sequentially.
+ * Ties on the sort columns are broken by all attributes in schema order. Input that is already in
+ * that order, such as the output of another sort on the same columns, is not sorted again.
+ *
+ * <p>Tuples are held in memory as column vectors, and sorted over that whole sequence of columns,
+ * resolved once, on primitive keys instead of tuples through a comparator. SORT_METHOD picks the
+ * algorithm: a {@link RadixSort}, which permutes row numbers by the digits of the keys without any
+ * comparison, or a {@link NormalizedKeySort}, which compares packed keys on all cores. By default
+ * small inputs take the latter and the rest the radix sort.
+ *
+ * <p>Inputs larger than SORT_BUFFER_PAGES are sorted externally: runs of that many pages of tuples
+ * are sorted in memory and written to temporary files in the binary format, then merged by a k-way
+ * merge over a heap of the next tuple of each run, in as many passes as the fan-in of the buffer
+ * requires. The runs of a pass are deleted once merged, and every file if the sort fails; the final
+ * merged run is kept until the end of the query, since the sorted tuples are replayed from it.
+ *
+ * <p>The operator can be reset to any position, in memory or in the final run, which lets a merge
+ * join go back to the start of a run of equal keys.
  */
 public class SortOperator extends Operator {
+  /** Number of tuples from which SORT_METHOD auto sorts with the radix sort. */
+  private static final int RADIX_MIN_ROWS = 1 << 12;
+
   private final Operator child;
-  private final List<OrderByElement> orderByElements;
-  private List<Tuple> sortedTuples;
+  private final int[] sortColumns; // Indices of the columns to sort on, before the tie-break
+  private final int[] keyColumns; // Every column, in the order they are compared
+  private int[][] columns; // The tuples in memory, or null if they were spilled to disk
+  private int bufferedCount; // Number of tuples in the column vectors
+  private File mergedRun; // The file of the sorted tuples, once spilled
+  private BinaryTupleReader runReader;
+  private int tupleCount;
   private int currentIndex;
+  private TupleBatch batch; // Batch returned by getNextBatch, reused across calls
 
   /**
    * Constructs a SortOperator with the specified child operator and ORDER BY elements.
    *
    * @param child The child Operator providing input tuples.
    * @param orderByElements The list of OrderByElements defining the sort order.
+   * @throws UnsupportedOperationException If the ORDER BY clause contains unsupported expressions.
    */
   public SortOperator(Operator child, List<OrderByElement> orderByElements) {
     super(child.getOutputSchema());
     this.child = child;
-    this.orderByElements = orderByElements;
-    this.sortedTuples = new ArrayList<>();
+    this.sortColumns = resolveSortColumns(getOutputSchema(), orderByElements);
+    this.keyColumns = normalizeSortOrder(this.sortColumns, getOutputSchema().size());
+    this.currentIndex = 0;
+
+    collectAndSortTuples();
+  }
+
+  /**
+   * Constructs a SortOperator that sorts on the given columns of its child.
+   *
+   * @param child The child Operator providing input tuples.
+   * @param sortColumns The indices of the columns to sort on, most significant first.
+   */
+  public SortOperator(Operator child, int[] sortColumns) {
+    super(child.getOutputSchema());
+    this.child = child;
+    this.sortColumns = sortColumns.clone();
+    this.keyColumns = normalizeSortOrder(this.sortColumns, getOutputSchema().size());
     this.currentIndex = 0;
 
     collectAndSortTuples();
   }
 
   /**
-   * Collects all tuples from the child operator and sorts them based on the ORDER BY clause.
+   * Resolves, once, the index in a schema of every column in the ORDER BY clause.
    *
+   * @param schema The schema of the tuples to sort.
+   * @param orderByElements The list of OrderByElements, or null.
+   * @return The indices of the columns to sort on.
    * @throws UnsupportedOperationException If the ORDER BY clause contains unsupported expressions.
    */
+  static int[] resolveSortColumns(ArrayList<Column> schema, List<OrderByElement> orderByElements) {
+    if (orderByElements == null) {
+      return new int[0];
+    }
+    int[] columns = new int[orderByElements.size()];
+    for (int i = 0; i < columns.length; i++) {
+      Expression expr = orderByElements.get(i).getExpression();
+      if (!(expr instanceof Column)) {
+        throw new UnsupportedOperationException(
+            "Only column expressions are supported in ORDER BY.");
+      }
+      Column col = (Column) expr;
+      String tableAlias = col.getTable() != null ? col.getTable().getName() : null;
+      columns[i] = getColumnIndex(schema, tableAlias, col.getColumnName());
+    }
+    return columns;
+  }
+
+  /**
+   * Collects all tuples from the child operator, one batch at a time, and sorts them on the sort
+   * columns, unless the child already produces them in that order. Tuples beyond the memory budget
+   * are sorted in runs spilled to disk, which are then merged.
+   */
   private void collectAndSortTuples() {
-    Tuple tuple;
-    while ((tuple = child.getNextTuple()) != null) {
-      sortedTuples.add(tuple);
-    }
-
-    if (orderByElements != null && !orderByElements.isEmpty()) {
-      sortedTuples.sort(
-          new Comparator<Tuple>() {
-            @Override
-            public int compare(Tuple t1, Tuple t2) {
-              for (OrderByElement element : orderByElements) {
-                Expression expr = element.getExpression();
-                if (!(expr instanceof Column)) {
-                  throw new UnsupportedOperationException(
-                      "Only column expressions are supported in ORDER BY.");
-                }
-                Column col = (Column) expr;
-                String tableAlias = col.getTable() != null ? col.getTable().getName() : null;
-                String columnName = col.getColumnName();
-                int index = getColumnIndex(tableAlias, columnName);
-
-                int val1 = t1.getElementAtIndex(index);
-                int val2 = t2.getElementAtIndex(index);
-
-                int comparison = Integer.compare(val1, val2);
-                if (comparison != 0) {
-                  return comparison;
-                }
-              }
-              // Break ties using remaining attributes in order
-              for (int i = 0; i < getOutputSchema().size(); i++) {
-                int val1 = t1.getElementAtIndex(i);
-                int val2 = t2.getElementAtIndex(i);
-                int comparison = Integer.compare(val1, val2);
-                if (comparison != 0) {
-                  return comparison;
-                }
-              }
-              return 0;
+    int bufferPages = DBConfig.getInstance().getSortBufferPages();
+    long runCapacity =
+        bufferPages > 0
+            ? (long) bufferPages * PageLayout.tuplesPerPage(getOutputSchema().size())
+            : Long.MAX_VALUE;
+    boolean sorted = child.isSortedOn(sortColumns);
+    int width = getOutputSchema().size();
+    columns = new int[width][(int) Math.min(runCapacity, TupleBatch.DEFAULT_CAPACITY)];
+    List<File> runs = new ArrayList<>();
+    try {
+      TupleBatch childBatch;
+      while ((childBatch = child.getNextBatch()) != null) {
+        int position = 0;
+        while (position < childBatch.getSelectedCount()) {
+          if (bufferedCount == runCapacity) {
+            runs.add(writeRun(sorted));
+          }
+          int count =
+              (int)
+                  Math.min(
+                      childBatch.getSelectedCount() - position, runCapacity - bufferedCount);
+          ensureCapacity(bufferedCount + count, runCapacity);
+          for (int c = 0; c < width; c++) {
+            int[] values = childBatch.getColumn(c);
+            int[] column = columns[c];
+            for (int r = 0; r < count; r++) {
+              column[bufferedCount + r] = values[childBatch.getSelectedRow(position + r)];
             }
-          });
+          }
+          bufferedCount += count;
+          position += count;
+        }
+      }
+      if (runs.isEmpty()) {
+        if (!sorted) {
+          sortBuffered();
+        }
+        tupleCount = bufferedCount;
+        return;
+      }
+      if (bufferedCount > 0) {
+        runs.add(writeRun(sorted));
+      }
+      columns = null;
+      mergedRun = mergeRuns(runs, Math.max(2, bufferPages - 1));
+      runReader = new BinaryTupleReader(mergedRun);
+    } catch (IOException e) {
+      for (File run : runs) {
+        SpillFiles.delete(run);
+      }
+      throw new UncheckedIOException("Error in SortOperator", e);
     }
   }
 
+  /** Grows the column vectors to hold at least the given number of tuples, up to the limit. */
+  private void ensureCapacity(int capacity, long limit) {
+    if (capacity > columns[0].length) {
+      int length = (int) Math.min(Math.max(capacity, 2L * columns[0].length), limit);
+      for (int c = 0; c < columns.length; c++) {
+        columns[c] = Arrays.copyOf(columns[c], length);
+      }
+    }
+  }
+
+  /** Sorts the tuples in the column vectors, moving every column into sorted order. */
+  private void sortBuffered() {
+    String method = DBConfig.getInstance().getSortMethod();
+    int[] order =
+        method.equals("radix") || (method.equals("auto") && bufferedCount >= RADIX_MIN_ROWS)
+            ? RadixSort.sortedOrder(columns, bufferedCount, keyColumns)
+            : NormalizedKeySort.sortedOrder(columns, bufferedCount, keyColumns);
+    for (int c = 0; c < columns.length; c++) {
+      int[] values = columns[c];
+      int[] sortedValues = new int[values.length];
+      for (int r = 0; r < bufferedCount; r++) {
+        sortedValues[r] = values[order[r]];
+      }
+      columns[c] = sortedValues;
+    }
+  }
+
+  /**
+   * Returns the order the tuples are sorted in: on the sort columns, with ties broken by all
+   * attributes in schema order.
+   */
+  private Comparator<Tuple> comparator() {
+    return (t1, t2) -> {
+      for (int index : keyColumns) {
+        int comparison = Integer.compare(t1.getElementAtIndex(index), t2.getElementAtIndex(index));
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return 0;
+    };
+  }
+
+  /**
+   * Sorts the tuples collected so far and writes them to a new run file, emptying the buffer.
+   *
+   * @param sorted whether the tuples are already sorted.
+   * @return the run file.
+   */
+  private File writeRun(boolean sorted) throws IOException {
+    if (!sorted) {
+      sortBuffered();
+    }
+    File run = SpillFiles.create("sort");
+    try {
+      BinaryTupleWriter writer = new BinaryTupleWriter(run);
+      for (int r = 0; r < bufferedCount; r++) {
+        writer.writeTuple(bufferedTuple(r));
+      }
+      writer.close();
+    } catch (IOException e) {
+      SpillFiles.delete(run);
+      throw e;
+    }
+    tupleCount += bufferedCount;
+    bufferedCount = 0;
+    return run;
+  }
+
+  /** Builds a tuple from a row of the column vectors. */
+  private Tuple bufferedTuple(int row) {
+    int[] values = new int[columns.length];
+    for (int c = 0; c < values.length; c++) {
+      values[c] = columns[c][row];
+    }
+    return new Tuple(values);
+  }
+
+  /**
+   * Merges sorted runs into one, a group of at most fanIn runs at a time, deleting the runs of each
+   * group once it is merged.
+   *
+   * @param runs the run files; the list ends up holding only the merged run.
+   * @param fanIn the number of runs merged at once.
+   * @return the merged run.
+   */
+  private File mergeRuns(List<File> runs, int fanIn) throws IOException {
+    while (runs.size() > 1) {
+      List<File> merged = new ArrayList<>();
+      try {
+        for (int start = 0; start < runs.size(); start += fanIn) {
+          List<File> group = runs.subList(start, Math.min(start + fanIn, runs.size()));
+          merged.add(group.size() > 1 ? mergeGroup(group) : group.get(0));
+        }
+      } catch (IOException e) {
+        // The runs of the pass are deleted by the caller, and the runs merged so far here
+        for (File run : merged) {
+          if (!runs.contains(run)) {
+            SpillFiles.delete(run);
+          }
+        }
+        throw e;
+      }
+      for (File run : runs) {
+        if (!merged.contains(run)) {
+          SpillFiles.delete(run);
+        }
+      }
+      runs.clear();
+      runs.addAll(merged);
+    }
+    return runs.get(0);
+  }
+
+  /** The next tuple of a run being merged, ordered by the tuple. */
+  private record RunHead(Tuple tuple, BinaryTupleReader reader) {}
+
+  /**
+   * Merges a group of sorted runs into a new run, taking the smallest next tuple of the runs from a
+   * heap.
+   *
+   * @return the merged run file.
+   */
+  private File mergeGroup(List<File> group) throws IOException {
+    Comparator<Tuple> comparator = comparator();
+    PriorityQueue<RunHead> heap =
+        new PriorityQueue<>(group.size(), (a, b) -> comparator.compare(a.tuple(), b.tuple()));
+    List<BinaryTupleReader> readers = new ArrayList<>();
+    File merged = SpillFiles.create("sort");
+    try {
+      BinaryTupleWriter writer = new BinaryTupleWriter(merged);
+      for (File run : group) {
+        BinaryTupleReader reader = new BinaryTupleReader(run);
+        readers.add(reader);
+        Tuple first = reader.readNextTuple();
+        if (first != null) {
+          heap.add(new RunHead(first, reader));
+        }
+      }
+      while (!heap.isEmpty()) {
+        RunHead head = heap.poll();
+        writer.writeTuple(head.tuple());
+        Tuple next = head.reader().readNextTuple();
+        if (next != null) {
+          heap.add(new RunHead(next, head.reader()));
+        }
+      }
+      writer.close();
+    } catch (IOException e) {
+      SpillFiles.delete(merged);
+      throw e;
+    } finally {
+      for (BinaryTupleReader reader : readers) {
+        reader.close();
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Whether the sorted tuples were spilled to disk, because they exceed SORT_BUFFER_PAGES.
+   *
+   * @return true if the tuples are read back from a merged run file.
+   */
+  public boolean isSpilled() {
+    return mergedRun != null;
+  }
+
+  /**
+   * Returns the columns the tuples are sorted on.
+   *
+   * @return The indices of the sort columns, before the tie-break on all attributes.
+   */
+  @Override
+  public int[] getSortOrder() {
+    return sortColumns.clone();
+  }
+
   /**
    * Retrieves the next sorted tuple.
    *
@@ -91,29 +359,111 @@ public class SortOperator extends Operator {
    */
   @Override
   public Tuple getNextTuple() {
-    if (currentIndex < sortedTuples.size()) {
-      return sortedTuples.get(currentIndex++);
+    if (currentIndex >= tupleCount) {
+      return null;
+    }
+    if (columns == null) {
+      currentIndex++;
+      try {
+        return runReader.readNextTuple();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Error in SortOperator", e);
+      }
     }
-    return null;
+    return bufferedTuple(currentIndex++);
   }
 
-  /** Resets the SortOperator by resetting the current index to the start of the sorted list. */
+  /**
+   * Retrieves the next batch of sorted tuples.
+   *
+   * @return The next batch, or null if all tuples have been returned.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    if (currentIndex >= tupleCount) {
+      return null;
+    }
+    if (batch == null) {
+      batch = new TupleBatch(getOutputSchema().size(), TupleBatch.DEFAULT_CAPACITY);
+    }
+    batch.clear();
+    if (columns == null) {
+      try {
+        currentIndex += runReader.readBatch(batch);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Error in SortOperator", e);
+      }
+      return batch.size() > 0 ? batch : null;
+    }
+    int count = Math.min(batch.getCapacity(), tupleCount - currentIndex);
+    for (int c = 0; c < batch.getWidth(); c++) {
+      System.arraycopy(columns[c], currentIndex, batch.getColumn(c), 0, count);
+    }
+    batch.setSize(count);
+    currentIndex += count;
+    return batch;
+  }
+
+  /** Forwards a runtime join filter to the child. */
+  @Override
+  public boolean pushRuntimeFilter(RuntimeFilter filter) {
+    return child.pushRuntimeFilter(filter);
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(child);
+  }
+
+  /** Resets the SortOperator to the first sorted tuple. */
   @Override
   public void reset() {
-    currentIndex = 0;
+    reset(0);
+  }
+
+  /**
+   * Resets the SortOperator to a position in the sorted tuples, so the next tuple returned is the
+   * one at that index. Spilled tuples are read again from the page of the merged run holding it.
+   *
+   * @param index The index of the next tuple to return, counting from zero.
+   */
+  public void reset(int index) {
+    if (index < 0 || index > tupleCount) {
+      throw new IndexOutOfBoundsException("No sorted tuple at index " + index);
+    }
+    currentIndex = index;
+    if (columns != null) {
+      return;
+    }
+    // Runs are written in full pages, so the page of the tuple follows from its index
+    int tuplesPerPage = PageLayout.tuplesPerPage(getOutputSchema().size());
+    runReader.close();
+    runReader =
+        index < tuplesPerPage
+            ? new BinaryTupleReader(mergedRun)
+            : BinaryTupleReader.startingAt(mergedRun, index / tuplesPerPage);
+    try {
+      for (int skipped = 0; skipped < index % tuplesPerPage; skipped++) {
+        runReader.readNextTuple();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error in SortOperator", e);
+    }
   }
 
   /**
-   * Retrieves the index of a column in the output schema based on table alias and column name.
+   * Retrieves the index of a column in a schema based on table alias and column name.
    *
+   * @param schema The schema to search.
    * @param tableAlias The alias of the table containing the column.
    * @param columnName The name of the column.
-   * @return The index of the column in the output schema.
-   * @throws RuntimeException If the column is not found in the output schema.
+   * @return The index of the column in the schema.
+   * @throws RuntimeException If the column is not found in the schema.
    */
-  private int getColumnIndex(String tableAlias, String columnName) {
-    for (int i = 0; i < getOutputSchema().size(); i++) {
-      Column col = getOutputSchema().get(i);
+  private static int getColumnIndex(
+      ArrayList<Column> schema, String tableAlias, String columnName) {
+    for (int i = 0; i < schema.size(); i++) {
+      Column col = schema.get(i);
       String colTable = col.getTable().getName();
       String colName = col.getColumnName();
 
@@ -0,0 +1,255 @@
+package operator;
+
+import common.Tuple;
+import common.TupleBatch;
+import java.util.Arrays;
+import java.util.List;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+
+/**
+ * The TopKOperator returns the first k tuples a {@link SortOperator} on the same columns would
+ * return, in the same order, for an ORDER BY with a LIMIT. Rather than sorting its whole input, it
+ * keeps the k smallest tuples seen so far in a bounded max-heap, so it takes O(n log k) time and
+ * memory for k tuples only. Each input row is compared to the largest tuple kept before it is
+ * copied, so most rows of a large input are rejected without any copy.
+ *
+ * <p>Kept tuples are held as column vectors, like the buffer of a SortOperator, and compared on the
+ * sort columns with ties broken by all attributes in schema order. Once the input is exhausted,
+ * they are sorted by a {@link NormalizedKeySort}. Input already in that order is not heaped at all:
+ * its first k tuples are taken, and the child is closed without reading the rest.
+ */
+public class TopKOperator extends Operator {
+  private final Operator child;
+  private final int[] sortColumns; // Indices of the columns to sort on, before the tie-break
+  private final int[] keyColumns; // Every column, in the order they are compared
+  private final int limit;
+  private int[][] columns; // The kept tuples, in heap order until sorted
+  private int[] heap; // Slots of the kept tuples, as a max-heap on the sort order
+  private int keptCount;
+  private int currentIndex;
+  private TupleBatch batch; // Batch returned by getNextBatch, reused across calls
+
+  /**
+   * Constructs a TopKOperator with the specified child operator and ORDER BY elements.
+   *
+   * @param child The child Operator providing input tuples.
+   * @param orderByElements The list of OrderByElements defining the sort order.
+   * @param limit The number of tuples to return, at most.
+   * @throws UnsupportedOperationException If the ORDER BY clause contains unsupported expressions.
+   */
+  public TopKOperator(Operator child, List<OrderByElement> orderByElements, int limit) {
+    this(child, SortOperator.resolveSortColumns(child.getOutputSchema(), orderByElements), limit);
+  }
+
+  /**
+   * Constructs a TopKOperator that sorts on the given columns of its child.
+   *
+   * @param child The child Operator providing input tuples.
+   * @param sortColumns The indices of the columns to sort on, most significant first.
+   * @param limit The number of tuples to return, at most.
+   */
+  public TopKOperator(Operator child, int[] sortColumns, int limit) {
+    super(child.getOutputSchema());
+    if (limit < 0) {
+      throw new IllegalArgumentException("Negative limit " + limit);
+    }
+    this.child = child;
+    this.sortColumns = sortColumns.clone();
+    this.keyColumns = normalizeSortOrder(this.sortColumns, getOutputSchema().size());
+    this.limit = limit;
+
+    collectTopTuples();
+  }
+
+  /**
+   * Reads the input one batch at a time, keeping the smallest tuples in the heap, then sorts them.
+   */
+  private void collectTopTuples() {
+    int width = getOutputSchema().size();
+    int capacity = Math.min(limit, TupleBatch.DEFAULT_CAPACITY);
+    columns = new int[width][capacity];
+    heap = new int[capacity];
+    if (limit == 0) {
+      return;
+    }
+    boolean sorted = child.isSortedOn(sortColumns);
+    TupleBatch childBatch;
+    while ((childBatch = child.getNextBatch()) != null) {
+      for (int i = 0; i < childBatch.getSelectedCount(); i++) {
+        int row = childBatch.getSelectedRow(i);
+        if (keptCount < limit) {
+          int slot = newSlot();
+          copyRow(childBatch, row, slot);
+          if (!sorted) {
+            siftUp(slot);
+          }
+        } else if (sorted) {
+          break;
+        } else if (compareToLargest(childBatch, row) < 0) {
+          replaceLargest(childBatch, row);
+        }
+      }
+      if (sorted && keptCount == limit) {
+        child.close(); // The rest of the input is never read
+        break;
+      }
+    }
+    if (!sorted) {
+      sortKept();
+    }
+  }
+
+  /** Returns the next free slot of the column vectors, growing them up to the limit. */
+  private int newSlot() {
+    if (keptCount == heap.length) {
+      int length = (int) Math.min(2L * heap.length, limit);
+      heap = Arrays.copyOf(heap, length);
+      for (int c = 0; c < columns.length; c++) {
+        columns[c] = Arrays.copyOf(columns[c], length);
+      }
+    }
+    return keptCount++;
+  }
+
+  /** Adds the tuple in the last slot to the heap. */
+  private void siftUp(int slot) {
+    int position = slot;
+    while (position > 0) {
+      int parent = (position - 1) / 2;
+      if (compareSlots(heap[parent], slot) >= 0) {
+        break;
+      }
+      heap[position] = heap[parent];
+      position = parent;
+    }
+    heap[position] = slot;
+  }
+
+  /** Overwrites the largest kept tuple with a row, sifting it down the heap. */
+  private void replaceLargest(TupleBatch childBatch, int row) {
+    int slot = heap[0];
+    copyRow(childBatch, row, slot);
+    int position = 0;
+    while (true) {
+      int larger = 2 * position + 1;
+      if (larger >= keptCount) {
+        break;
+      }
+      if (larger + 1 < keptCount && compareSlots(heap[larger + 1], heap[larger]) > 0) {
+        larger++;
+      }
+      if (compareSlots(heap[larger], slot) <= 0) {
+        break;
+      }
+      heap[position] = heap[larger];
+      position = larger;
+    }
+    heap[position] = slot;
+  }
+
+  /** Copies a row of a batch into a slot of the column vectors. */
+  private void copyRow(TupleBatch childBatch, int row, int slot) {
+    for (int c = 0; c < columns.length; c++) {
+      columns[c][slot] = childBatch.getColumn(c)[row];
+    }
+  }
+
+  /** Compares a row of a batch to the largest kept tuple, in the sort order. */
+  private int compareToLargest(TupleBatch childBatch, int row) {
+    int largest = heap[0];
+    for (int index : keyColumns) {
+      int comparison = Integer.compare(childBatch.getColumn(index)[row], columns[index][largest]);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return 0;
+  }
+
+  /** Compares two kept tuples, in the sort order. */
+  private int compareSlots(int slot1, int slot2) {
+    for (int index : keyColumns) {
+      int comparison = Integer.compare(columns[index][slot1], columns[index][slot2]);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return 0;
+  }
+
+  /** Sorts the kept tuples, moving every column into sorted order and dropping the heap. */
+  private void sortKept() {
+    int[] order = NormalizedKeySort.sortedOrder(columns, keptCount, keyColumns);
+    for (int c = 0; c < columns.length; c++) {
+      int[] values = columns[c];
+      int[] sortedValues = new int[keptCount];
+      for (int r = 0; r < keptCount; r++) {
+        sortedValues[r] = values[order[r]];
+      }
+      columns[c] = sortedValues;
+    }
+    heap = null;
+  }
+
+  /**
+   * Returns the columns the tuples are sorted on.
+   *
+   * @return The indices of the sort columns, before the tie-break on all attributes.
+   */
+  @Override
+  public int[] getSortOrder() {
+    return sortColumns.clone();
+  }
+
+  /**
+   * Retrieves the next of the top tuples.
+   *
+   * @return The next Tuple, or null if all of them have been returned.
+   */
+  @Override
+  public Tuple getNextTuple() {
+    if (currentIndex >= keptCount) {
+      return null;
+    }
+    int[] values = new int[columns.length];
+    for (int c = 0; c < values.length; c++) {
+      values[c] = columns[c][currentIndex];
+    }
+    currentIndex++;
+    return new Tuple(values);
+  }
+
+  /**
+   * Retrieves the next batch of the top tuples.
+   *
+   * @return The next batch, or null if all of them have been returned.
+   */
+  @Override
+  public TupleBatch getNextBatch() {
+    if (currentIndex >= keptCount) {
+      return null;
+    }
+    if (batch == null) {
+      batch = new TupleBatch(getOutputSchema().size(), TupleBatch.DEFAULT_CAPACITY);
+    }
+    batch.clear();
+    int count = Math.min(batch.getCapacity(), keptCount - currentIndex);
+    for (int c = 0; c < batch.getWidth(); c++) {
+      System.arraycopy(columns[c], currentIndex, batch.getColumn(c), 0, count);
+    }
+    batch.setSize(count);
+    currentIndex += count;
+    return batch;
+  }
+
+  @Override
+  protected List<Operator> getChildren() {
+    return List.of(child);
+  }
+
+  /** Resets the TopKOperator to the first of the top tuples. */
+  @Override
+  public void reset() {
+    currentIndex = 0;
+  }
+}
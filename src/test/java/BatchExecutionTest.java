@@ -0,0 +1,95 @@
+import common.DBCatalog;
+import common.QueryPlanBuilder;
+import common.Tuple;
+import common.TupleBatch;
+import io.BinaryTupleWriter;
+import io.CompressedTupleWriter;
+import io.TextTupleWriter;
+import io.TupleWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.Statement;
+import operator.Operator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BatchExecutionTest {
+  @TempDir Path tempDir;
+
+  private static Operator plan(String query) throws Exception {
+    return new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+  }
+
+  private static List<Tuple> collectAllBatches(Operator operator) {
+    List<Tuple> tuples = new ArrayList<>();
+    TupleBatch batch;
+    while ((batch = operator.getNextBatch()) != null) {
+      Assertions.assertTrue(batch.getSelectedCount() > 0, "Batches must not be empty.");
+      for (int i = 0; i < batch.getSelectedCount(); i++) {
+        tuples.add(batch.getTuple(i));
+      }
+    }
+    return tuples;
+  }
+
+  @Test
+  public void testSampleQueriesDumpExpectedOutput() throws Exception {
+    DBCatalog.getInstance().setDataDirectory("src/test/resources/samples/input/db");
+    String queries = Files.readString(Path.of("src/test/resources/samples/input/queries.sql"));
+    List<Statement> statements = CCJSqlParserUtil.parseStatements(queries).getStatements();
+    for (int i = 0; i < statements.size(); i++) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      new QueryPlanBuilder().buildPlan(statements.get(i)).dump(new PrintStream(out));
+      String expected =
+          Files.readString(Path.of("src/test/resources/samples/expected_output/query" + (i + 1)));
+      Assertions.assertEquals(
+          expected.strip(), out.toString().strip(), "Unexpected output for query " + (i + 1));
+    }
+  }
+
+  @Test
+  public void testBatchAndTupleModesAgree() throws Exception {
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Big A B C\nMid D E\nSmall F G\n");
+    TupleWriter big = new BinaryTupleWriter(tempDir.resolve("data/Big").toFile());
+    for (int i = 0; i < 5_000; i++) {
+      big.writeTuple(new Tuple(new int[] {i, i % 13, (i * 7919) % 1000}));
+    }
+    big.close();
+    TupleWriter mid = new CompressedTupleWriter(tempDir.resolve("data/Mid").toFile());
+    for (int i = 0; i < 1_500; i++) {
+      mid.writeTuple(new Tuple(new int[] {i % 40, i}));
+    }
+    mid.close();
+    TupleWriter small = new TextTupleWriter(tempDir.resolve("data/Small").toFile());
+    for (int i = 0; i < 30; i++) {
+      small.writeTuple(new Tuple(new int[] {i, 30 - i}));
+    }
+    small.close();
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+
+    List<String> queries =
+        List.of(
+            "SELECT * FROM Big WHERE Big.B = 3 AND Big.C < 500;",
+            "SELECT Big.C, Big.A FROM Big WHERE 10 > Big.B AND Big.A + Big.B * 2 >= 4000;",
+            "SELECT * FROM Big WHERE Big.B < 2 OR Big.C > 990;",
+            "SELECT * FROM Small, Mid WHERE Small.F = Mid.D AND Mid.E > 100;",
+            "SELECT * FROM Small S1, Small S2 WHERE S1.F < S2.G;",
+            "SELECT * FROM Small, Mid;",
+            "SELECT DISTINCT Big.B FROM Big ORDER BY Big.B;",
+            "SELECT DISTINCT Mid.D, Small.G FROM Mid, Small WHERE Mid.D = Small.F "
+                + "ORDER BY Mid.D;");
+    for (String query : queries) {
+      List<Tuple> expected = HelperMethods.collectAllTuples(plan(query));
+      Assertions.assertFalse(expected.isEmpty(), "Query should have results: " + query);
+      Assertions.assertEquals(expected, collectAllBatches(plan(query)), query);
+    }
+  }
+}
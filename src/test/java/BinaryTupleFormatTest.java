@@ -0,0 +1,80 @@
+import common.DBCatalog;
+import common.TableFormat;
+import common.Tuple;
+import io.BinaryTupleReader;
+import io.BinaryTupleWriter;
+import io.PageLayout;
+import io.TupleReader;
+import io.TupleWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import operator.ScanOperator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BinaryTupleFormatTest {
+  @TempDir Path tempDir;
+
+  private static List<Tuple> makeTuples(int count) {
+    List<Tuple> tuples = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      tuples.add(new Tuple(new ArrayList<>(List.of(i, -i, i * 7 % 13))));
+    }
+    return tuples;
+  }
+
+  private static List<Tuple> readAll(TupleReader reader) throws IOException {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = reader.readNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  @Test
+  public void testRoundTripAcrossPages() throws IOException {
+    File file = tempDir.resolve("Table").toFile();
+    List<Tuple> expected = makeTuples(3 * PageLayout.tuplesPerPage(3) + 5);
+
+    TupleWriter writer = new BinaryTupleWriter(file);
+    for (Tuple tuple : expected) {
+      writer.writeTuple(tuple);
+    }
+    writer.close();
+
+    Assertions.assertEquals(4 * PageLayout.PAGE_SIZE, file.length(), "Unexpected file size.");
+    Assertions.assertEquals(TableFormat.BINARY, TableFormat.detect(file));
+
+    TupleReader reader = new BinaryTupleReader(file);
+    Assertions.assertEquals(expected, readAll(reader), "Unexpected tuples on first pass.");
+    reader.reset();
+    Assertions.assertEquals(expected, readAll(reader), "Unexpected tuples after reset.");
+    reader.close();
+  }
+
+  @Test
+  public void testScanPicksReaderFromCatalog() throws IOException {
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Numbers X Y Z\n");
+    List<Tuple> expected = makeTuples(500);
+
+    TupleWriter writer = new BinaryTupleWriter(tempDir.resolve("data/Numbers").toFile());
+    for (Tuple tuple : expected) {
+      writer.writeTuple(tuple);
+    }
+    writer.close();
+
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+    Assertions.assertEquals(TableFormat.BINARY, DBCatalog.getInstance().getTableFormat("Numbers"));
+
+    ScanOperator scan =
+        new ScanOperator(DBCatalog.getInstance().getSchema("Numbers"), "Numbers", true, null);
+    Assertions.assertEquals(expected, HelperMethods.collectAllTuples(scan));
+  }
+}
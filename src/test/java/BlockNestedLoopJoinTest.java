@@ -0,0 +1,121 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.QueryPlanBuilder;
+import common.Tuple;
+import common.TupleBatch;
+import io.PageLayout;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.BlockNestedLoopJoinOperator;
+import operator.JoinOperator;
+import operator.Operator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BlockNestedLoopJoinTest {
+  private static final int OUTER_ROWS = 1_500;
+  private static final int INNER_ROWS = 700;
+
+  @TempDir Path tempDir;
+
+  private Map<String, String> settings; // Settings the tests override, restored after each
+
+  /** Counts how many times the wrapped operator is rescanned. */
+  private static class CountingOperator extends Operator {
+    private final Operator child;
+    private int resets;
+
+    CountingOperator(Operator child) {
+      super(child.getOutputSchema());
+      this.child = child;
+    }
+
+    @Override
+    public void reset() {
+      resets++;
+      child.reset();
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+      return child.getNextTuple();
+    }
+
+    @Override
+    public TupleBatch getNextBatch() {
+      return child.getNextBatch();
+    }
+  }
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    settings = HelperMethods.saveSettings("JOIN_METHOD");
+    HelperMethods.writeSchema(tempDir, "Outer A B\nInner C D\n");
+    HelperMethods.writeTable(tempDir, "Outer", OUTER_ROWS, i -> new int[] {i, (i * 31) % 1000});
+    HelperMethods.writeTable(tempDir, "Inner", INNER_ROWS, i -> new int[] {(i * 17) % 1000, i});
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+  }
+
+  @AfterEach
+  void restoreJoinMethod() {
+    HelperMethods.restoreSettings(settings);
+  }
+
+  @Test
+  public void testThetaJoinMatchesTupleNestedLoopJoin() throws Exception {
+    Expression condition = CCJSqlParserUtil.parseCondExpression("Outer.B < Inner.C");
+    List<Tuple> expected =
+        HelperMethods.collectAllTuples(
+            new JoinOperator(HelperMethods.scan("Outer"), HelperMethods.scan("Inner"), condition));
+    Assertions.assertFalse(expected.isEmpty());
+
+    CountingOperator inner = new CountingOperator(HelperMethods.scan("Inner"));
+    BlockNestedLoopJoinOperator join =
+        new BlockNestedLoopJoinOperator(HelperMethods.scan("Outer"), inner, condition, 1);
+    Assertions.assertEquals(PageLayout.tuplesPerPage(2), join.getBlockCapacity());
+    List<Tuple> actual = HelperMethods.collectAllTuples(join);
+    Assertions.assertEquals(HelperMethods.sorted(expected), HelperMethods.sorted(actual));
+
+    int blocks = (OUTER_ROWS + join.getBlockCapacity() - 1) / join.getBlockCapacity();
+    Assertions.assertEquals(blocks, inner.resets, "The inner relation is scanned once per block.");
+
+    join.reset();
+    Assertions.assertEquals(
+        HelperMethods.sorted(expected), HelperMethods.sorted(HelperMethods.collectAllTuples(join)));
+  }
+
+  @Test
+  public void testCrossProductInBatchMode() {
+    BlockNestedLoopJoinOperator join =
+        new BlockNestedLoopJoinOperator(
+            HelperMethods.scan("Inner"), HelperMethods.scan("Outer"), null, 2);
+    long count = 0;
+    TupleBatch batch;
+    while ((batch = join.getNextBatch()) != null) {
+      count += batch.getSelectedCount();
+    }
+    Assertions.assertEquals((long) OUTER_ROWS * INNER_ROWS, count);
+  }
+
+  @Test
+  public void testQueryPlanBuilderChoosesJoinMethod() throws Exception {
+    String query = "SELECT * FROM Outer, Inner WHERE Outer.A = Inner.D AND Outer.B >= Inner.C;";
+    DBConfig.getInstance().set("JOIN_METHOD", "tnlj");
+    List<Tuple> expected =
+        HelperMethods.collectAllTuples(
+            new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query)));
+    DBConfig.getInstance().set("JOIN_METHOD", "bnlj");
+    List<Tuple> actual =
+        HelperMethods.collectAllTuples(
+            new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query)));
+    Assertions.assertFalse(expected.isEmpty());
+    Assertions.assertEquals(HelperMethods.sorted(expected), HelperMethods.sorted(actual));
+  }
+}
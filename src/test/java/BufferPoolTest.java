@@ -0,0 +1,86 @@
+import io.BufferPool;
+import io.Page;
+import io.PageLayout;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BufferPoolTest {
+  @TempDir Path tempDir;
+
+  private File file;
+
+  @BeforeEach
+  void writeFile() throws IOException {
+    // Four pages, the i-th one starting with the int i, plus a short fifth page
+    ByteBuffer bytes = ByteBuffer.allocate(4 * PageLayout.PAGE_SIZE + 8);
+    for (int i = 0; i < 5; i++) {
+      bytes.putInt(i * PageLayout.PAGE_SIZE, i);
+    }
+    file = tempDir.resolve("pages").toFile();
+    Files.write(file.toPath(), bytes.array());
+  }
+
+  @Test
+  public void testHitsAndMisses() throws IOException {
+    BufferPool pool = new BufferPool(4);
+    for (int pass = 0; pass < 3; pass++) {
+      for (int i = 0; i < 4; i++) {
+        Page page = pool.pin(file, i);
+        Assertions.assertEquals(i, page.getInt(0), "Unexpected page contents.");
+        pool.unpin(page);
+      }
+    }
+    Assertions.assertEquals(4, pool.getMisses(), "Only the first pass should read from disk.");
+    Assertions.assertEquals(8, pool.getHits());
+    Assertions.assertEquals(0, pool.getEvictions());
+  }
+
+  @Test
+  public void testShortLastPageAndEndOfFile() throws IOException {
+    BufferPool pool = new BufferPool(2);
+    Page last = pool.pin(file, 4);
+    Assertions.assertEquals(8, last.getLength());
+    Assertions.assertEquals(4, last.asBuffer().getInt());
+    Assertions.assertNull(pool.pin(file, 5), "Pages past the end of the file do not exist.");
+  }
+
+  @Test
+  public void testClockEvictionSkipsPinnedPages() throws IOException {
+    BufferPool pool = new BufferPool(2);
+    Page pinned = pool.pin(file, 0);
+    for (int i = 1; i < 4; i++) {
+      pool.unpin(pool.pin(file, i));
+    }
+    Assertions.assertEquals(2, pool.getEvictions());
+
+    // Page 0 stayed pinned, so it must still be resident
+    long misses = pool.getMisses();
+    Page again = pool.pin(file, 0);
+    Assertions.assertSame(pinned, again);
+    Assertions.assertEquals(misses, pool.getMisses());
+  }
+
+  @Test
+  public void testAllPagesPinned() throws IOException {
+    BufferPool pool = new BufferPool(2);
+    pool.pin(file, 0);
+    pool.pin(file, 1);
+    Assertions.assertThrows(IllegalStateException.class, () -> pool.pin(file, 2));
+  }
+
+  @Test
+  public void testInvalidate() throws IOException {
+    BufferPool pool = new BufferPool(2);
+    pool.unpin(pool.pin(file, 0));
+    pool.invalidate(file);
+    pool.unpin(pool.pin(file, 0));
+    Assertions.assertEquals(2, pool.getMisses(), "Invalidated pages must be read again.");
+  }
+}
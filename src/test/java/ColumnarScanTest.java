@@ -0,0 +1,90 @@
+import common.DBCatalog;
+import common.QueryPlanBuilder;
+import common.TableFormat;
+import common.Tuple;
+import io.ColumnarTupleWriter;
+import io.TupleWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.Operator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ColumnarScanTest {
+  @TempDir Path tempDir;
+
+  @BeforeEach
+  void writeColumnarDatabase() throws IOException {
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Sailors A B C\nReserves G H\n");
+
+    TupleWriter sailors =
+        new ColumnarTupleWriter(tempDir.resolve("data/Sailors").toFile(), List.of("A", "B", "C"));
+    for (String row : List.of("1,200,50", "2,200,200", "3,100,105", "4,100,50", "5,100,500")) {
+      sailors.writeTuple(new Tuple(row));
+    }
+    sailors.close();
+
+    TupleWriter reserves =
+        new ColumnarTupleWriter(tempDir.resolve("data/Reserves").toFile(), List.of("G", "H"));
+    for (String row : List.of("1,101", "1,102", "3,102", "4,104")) {
+      reserves.writeTuple(new Tuple(row));
+    }
+    reserves.close();
+
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+  }
+
+  private List<Tuple> run(String query) throws Exception {
+    Operator plan = new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+    return HelperMethods.collectAllTuples(plan);
+  }
+
+  @Test
+  public void testCatalogExposesLayout() {
+    DBCatalog catalog = DBCatalog.getInstance();
+    Assertions.assertEquals(TableFormat.COLUMNAR, catalog.getTableFormat("Sailors"));
+    Assertions.assertTrue(catalog.getFileForColumn("Sailors", "B").isFile());
+  }
+
+  @Test
+  public void testRowCountFollowsColumnFiles() throws IOException {
+    DBCatalog catalog = DBCatalog.getInstance();
+    Assertions.assertEquals(5, catalog.getRowCount("Sailors"));
+
+    // Rewriting the columns leaves the size and timestamp of the directory unchanged
+    TupleWriter sailors =
+        new ColumnarTupleWriter(tempDir.resolve("data/Sailors").toFile(), List.of("A", "B", "C"));
+    for (int i = 0; i < 3_000; i++) {
+      sailors.writeTuple(new Tuple(new int[] {i, i % 7, i % 11}));
+    }
+    sailors.close();
+    Assertions.assertEquals(3_000, catalog.getRowCount("Sailors"));
+  }
+
+  @Test
+  public void testSelectAll() throws Exception {
+    Assertions.assertEquals(
+        List.of(new Tuple("3,100,105"), new Tuple("5,100,500")),
+        run("SELECT * FROM Sailors S WHERE S.C > S.B;"));
+  }
+
+  @Test
+  public void testUnreferencedColumnsAreNotRead() throws Exception {
+    // Queries that never mention C must not touch its file
+    Files.delete(tempDir.resolve("data/Sailors/C"));
+
+    Assertions.assertEquals(
+        List.of(new Tuple("3"), new Tuple("4"), new Tuple("5")),
+        run("SELECT S.A FROM Sailors S WHERE S.B = 100;"));
+    Assertions.assertEquals(
+        List.of(new Tuple("1,101"), new Tuple("1,102"), new Tuple("3,102"), new Tuple("4,104")),
+        run("SELECT Sailors.A, Reserves.H FROM Sailors, Reserves "
+            + "WHERE Sailors.A = Reserves.G AND Sailors.B < 300 ORDER BY Reserves.H;"));
+  }
+}
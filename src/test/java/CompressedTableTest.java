@@ -0,0 +1,130 @@
+import common.DBCatalog;
+import common.QueryPlanBuilder;
+import common.TableFormat;
+import common.Tuple;
+import io.BinaryTupleWriter;
+import io.CompressedTupleReader;
+import io.CompressedTupleWriter;
+import io.TupleReader;
+import io.TupleWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.Operator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CompressedTableTest {
+  @TempDir Path tempDir;
+
+  private static List<Tuple> readAll(TupleReader reader) throws IOException {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = reader.readNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  private static void writeAll(TupleWriter writer, List<Tuple> tuples) throws IOException {
+    for (Tuple tuple : tuples) {
+      writer.writeTuple(tuple);
+    }
+    writer.close();
+  }
+
+  /**
+   * Rows whose columns suit different encodings: a key, a constant, long runs, a small domain of
+   * far apart values, and random values spanning the whole int range.
+   */
+  private static List<Tuple> mixedRows(int count) {
+    Random random = new Random(42);
+    int[] domain = {Integer.MIN_VALUE, -7, 1_000_000, Integer.MAX_VALUE};
+    List<Tuple> rows = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      rows.add(
+          new Tuple(
+              new int[] {i, 5, i / 1000, domain[random.nextInt(domain.length)], random.nextInt()}));
+    }
+    return rows;
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    File file = tempDir.resolve("Table").toFile();
+    List<Tuple> expected = mixedRows(10_000);
+    writeAll(new CompressedTupleWriter(file), expected);
+    Assertions.assertEquals(TableFormat.COMPRESSED, TableFormat.detect(file));
+
+    TupleReader reader = new CompressedTupleReader(file, null);
+    Assertions.assertEquals(expected, readAll(reader), "Unexpected tuples on first pass.");
+    reader.reset();
+    Assertions.assertEquals(expected, readAll(reader), "Unexpected tuples after reset.");
+    reader.close();
+  }
+
+  @Test
+  public void testReadsSelectedColumns() throws IOException {
+    File file = tempDir.resolve("Table").toFile();
+    List<Tuple> rows = mixedRows(3_000);
+    writeAll(new CompressedTupleWriter(file), rows);
+
+    List<Tuple> expected = new ArrayList<>();
+    for (Tuple row : rows) {
+      expected.add(row.project(new int[] {4, 0}));
+    }
+    TupleReader reader = new CompressedTupleReader(file, new int[] {4, 0});
+    Assertions.assertEquals(expected, readAll(reader));
+    reader.close();
+  }
+
+  @Test
+  public void testSmallerThanBinary() throws IOException {
+    List<Tuple> rows = new ArrayList<>();
+    for (int i = 0; i < 50_000; i++) {
+      rows.add(new Tuple(new int[] {i, 100 * (i % 3), i / 500}));
+    }
+    File compressed = tempDir.resolve("Compressed").toFile();
+    File binary = tempDir.resolve("Binary").toFile();
+    writeAll(new CompressedTupleWriter(compressed), rows);
+    writeAll(new BinaryTupleWriter(binary), rows);
+
+    Assertions.assertTrue(
+        compressed.length() * 4 < binary.length(),
+        "Expected at least 4x compression, got " + compressed.length() + " vs " + binary.length());
+    Assertions.assertEquals(rows, readAll(new CompressedTupleReader(compressed, null)));
+  }
+
+  @Test
+  public void testQueriesOverCompressedTables() throws Exception {
+    DBCatalog.getInstance().setDataDirectory("src/test/resources/samples/input/db");
+    String query =
+        "SELECT Sailors.C, Reserves.H FROM Sailors, Reserves "
+            + "WHERE Sailors.A = Reserves.G AND Sailors.B > 100;";
+    Operator plan = new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+    List<Tuple> expected = HelperMethods.collectAllTuples(plan);
+
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.copy(
+        Path.of("src/test/resources/samples/input/db/schema.txt"), tempDir.resolve("schema.txt"));
+    for (String table : List.of("Sailors", "Reserves")) {
+      Operator scan =
+          new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse("SELECT * FROM " + table + ";"));
+      TupleWriter writer = new CompressedTupleWriter(tempDir.resolve("data/" + table).toFile());
+      scan.dump(writer);
+      writer.close();
+    }
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+    Assertions.assertEquals(
+        TableFormat.COMPRESSED, DBCatalog.getInstance().getTableFormat("Sailors"));
+
+    plan = new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+    Assertions.assertEquals(expected, HelperMethods.collectAllTuples(plan));
+  }
+}
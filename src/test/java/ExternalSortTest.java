@@ -0,0 +1,121 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.EquiJoinCondition;
+import common.Tuple;
+import io.SpillFiles;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import operator.Operator;
+import operator.SortMergeJoinOperator;
+import operator.SortOperator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ExternalSortTest {
+  private static final int ROWS = 20_000;
+
+  @TempDir Path tempDir;
+
+  private Map<String, String> settings; // Settings the tests override, restored after each
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    settings = HelperMethods.saveSettings("SORT_BUFFER_PAGES", "TEMP_DIR");
+    HelperMethods.writeSchema(tempDir, "Big A B C\nSmall D E\n");
+    HelperMethods.writeTable(
+        tempDir, "Big", ROWS, i -> new int[] {(i * 7919) % 1_000, i % 13, ROWS - i});
+    HelperMethods.writeTable(tempDir, "Small", 3_000, i -> new int[] {(i * 31) % 500, i});
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+    DBConfig.getInstance().set("TEMP_DIR", tempDir.resolve("spill").toString());
+  }
+
+  @AfterEach
+  void restoreSettings() {
+    SpillFiles.deleteAll();
+    HelperMethods.restoreSettings(settings);
+  }
+
+  private static List<Tuple> sortInMemory(String table, int... columns) {
+    DBConfig.getInstance().set("SORT_BUFFER_PAGES", "0");
+    SortOperator sort = new SortOperator(HelperMethods.scan(table), columns);
+    Assertions.assertFalse(sort.isSpilled());
+    return HelperMethods.collectAllTuples(sort);
+  }
+
+  @Test
+  public void testSpilledSortMatchesInMemorySort() {
+    List<Tuple> expected = sortInMemory("Big", 1);
+    int liveBefore = SpillFiles.getLiveCount();
+
+    // Two pages hold 680 tuples of three attributes, so the runs are merged two at a time
+    DBConfig.getInstance().set("SORT_BUFFER_PAGES", "2");
+    SortOperator sort = new SortOperator(HelperMethods.scan("Big"), new int[] {1});
+    Assertions.assertTrue(sort.isSpilled());
+    // Only the final merged run is left
+    Assertions.assertEquals(liveBefore + 1, SpillFiles.getLiveCount());
+    Assertions.assertEquals(expected, HelperMethods.collectAllTuples(sort));
+
+    List<Tuple> tuples = new ArrayList<>();
+    sort.reset();
+    Tuple tuple;
+    while ((tuple = sort.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    Assertions.assertEquals(expected, tuples);
+
+    SpillFiles.deleteAll();
+    Assertions.assertEquals(0, SpillFiles.getLiveCount());
+  }
+
+  @Test
+  public void testResetToIndexInMergedRun() {
+    List<Tuple> expected = sortInMemory("Big", 0, 2);
+    DBConfig.getInstance().set("SORT_BUFFER_PAGES", "3");
+    SortOperator sort = new SortOperator(HelperMethods.scan("Big"), new int[] {0, 2});
+    Assertions.assertTrue(sort.isSpilled());
+    for (int index : new int[] {ROWS, 5_000, 0, 339, 340, 341, 681, ROWS - 1}) {
+      sort.reset(index);
+      Assertions.assertEquals(
+          expected.subList(index, ROWS), HelperMethods.collectAllTuples(sort), "index " + index);
+    }
+    Assertions.assertThrows(IndexOutOfBoundsException.class, () -> sort.reset(ROWS + 1));
+  }
+
+  @Test
+  public void testMergeJoinOverSpilledSorts() throws Exception {
+    Operator big = HelperMethods.scan("Big");
+    Operator small = HelperMethods.scan("Small");
+    EquiJoinCondition condition = HelperMethods.condition(big, small, "Big.A = Small.D");
+    DBConfig.getInstance().set("SORT_BUFFER_PAGES", "0");
+    List<Tuple> expected =
+        HelperMethods.collectAllTuples(new SortMergeJoinOperator(big, small, condition));
+
+    DBConfig.getInstance().set("SORT_BUFFER_PAGES", "1");
+    big = HelperMethods.scan("Big");
+    small = HelperMethods.scan("Small");
+    List<Tuple> actual =
+        HelperMethods.collectAllTuples(new SortMergeJoinOperator(big, small, condition));
+    Assertions.assertFalse(expected.isEmpty());
+    Assertions.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void testFailedSortLeavesNoFiles() throws IOException {
+    Path notADirectory = Files.writeString(tempDir.resolve("file"), "");
+    DBConfig.getInstance().set("TEMP_DIR", notADirectory.toString());
+    DBConfig.getInstance().set("SORT_BUFFER_PAGES", "1");
+    int liveBefore = SpillFiles.getLiveCount();
+    Assertions.assertThrows(
+        UncheckedIOException.class,
+        () -> new SortOperator(HelperMethods.scan("Big"), new int[] {0}));
+    Assertions.assertEquals(liveBefore, SpillFiles.getLiveCount());
+  }
+}
@@ -0,0 +1,131 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.QueryPlanBuilder;
+import common.Tuple;
+import io.BinaryTupleWriter;
+import io.SpillFiles;
+import io.TupleWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.DuplicateEliminationOperator;
+import operator.HashDistinctOperator;
+import operator.Operator;
+import operator.ScanOperator;
+import operator.SortOperator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HashDistinctTest {
+  private static final int ROWS = 300_000;
+
+  @TempDir Path tempDir;
+
+  private Map<String, String> settings; // Settings the tests override, restored after each
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    settings = HelperMethods.saveSettings("DISTINCT_METHOD", "DISTINCT_MEMORY_PAGES", "TEMP_DIR");
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Events A B C\n");
+    // A has about as many distinct values as rows, B and C a few, so (B, C) has many duplicates
+    Random random = new Random(5);
+    TupleWriter events = new BinaryTupleWriter(tempDir.resolve("data/Events").toFile());
+    for (int i = 0; i < ROWS; i++) {
+      events.writeTuple(
+          new Tuple(new int[] {random.nextInt(ROWS * 4), random.nextInt(40), random.nextInt(7)}));
+    }
+    events.close();
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+    DBConfig.getInstance().set("TEMP_DIR", tempDir.resolve("tmp").toString());
+  }
+
+  @AfterEach
+  void restoreSettings() {
+    HelperMethods.restoreSettings(settings);
+  }
+
+  private static Operator scan() {
+    return new ScanOperator(DBCatalog.getInstance().getSchema("Events"), "Events", true, null);
+  }
+
+  private static List<Tuple> sortDistinct(Operator input) {
+    return HelperMethods.collectAllTuples(
+        new DuplicateEliminationOperator(
+            input.getOutputSchema(), new SortOperator(input, new int[0])));
+  }
+
+  private static Operator plan(String query) throws Exception {
+    return new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+  }
+
+  /** Checks that tuples hold no duplicates and are the same as the expected ones in any order. */
+  private static void assertSameDistinct(List<Tuple> expected, List<Tuple> actual) {
+    Assertions.assertEquals(expected.size(), actual.size());
+    Assertions.assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+  }
+
+  @Test
+  public void testMatchesSortDistinctInMemory() {
+    HashDistinctOperator distinct = new HashDistinctOperator(scan(), 0);
+    List<Tuple> tuples = HelperMethods.collectAllTuples(distinct);
+    assertSameDistinct(sortDistinct(scan()), tuples);
+    Assertions.assertFalse(distinct.isSpilled());
+
+    // The first copy of each tuple is returned, in input order
+    List<Tuple> firstCopies =
+        new ArrayList<>(new LinkedHashSet<>(HelperMethods.collectAllTuples(scan())));
+    Assertions.assertEquals(firstCopies, tuples);
+  }
+
+  @Test
+  public void testSpillsPartitionsBeyondMemoryBudget() throws Exception {
+    // One page of tuples is split three levels deep, and the last level falls back to a sort
+    HashDistinctOperator distinct = new HashDistinctOperator(scan(), 1);
+    List<Tuple> tuples = HelperMethods.collectAllTuples(distinct);
+    assertSameDistinct(sortDistinct(scan()), tuples);
+    Assertions.assertTrue(distinct.isSpilled());
+    Assertions.assertEquals(0, SpillFiles.getLiveCount());
+
+    distinct.reset();
+    Tuple tuple;
+    List<Tuple> again = new ArrayList<>();
+    while ((tuple = distinct.getNextTuple()) != null) {
+      again.add(tuple);
+    }
+    assertSameDistinct(tuples, again);
+    Assertions.assertEquals(0, SpillFiles.getLiveCount());
+  }
+
+  @Test
+  public void testPlannerChoosesByCardinalityAndOrder() throws Exception {
+    // (B, C) has at most 40 * 7 distinct tuples by the zone maps of the table
+    String query = "SELECT DISTINCT Events.B, Events.C FROM Events";
+    Operator few = plan(query);
+    Assertions.assertTrue(few instanceof HashDistinctOperator);
+    Operator ordered = plan(query + " ORDER BY Events.C");
+    Assertions.assertTrue(ordered instanceof DuplicateEliminationOperator);
+    assertSameDistinct(
+        HelperMethods.collectAllTuples(ordered), HelperMethods.collectAllTuples(few));
+
+    DBConfig.getInstance().set("DISTINCT_MEMORY_PAGES", "16");
+    Operator many = plan("SELECT DISTINCT Events.A, Events.B FROM Events");
+    Assertions.assertTrue(many instanceof DuplicateEliminationOperator);
+
+    DBConfig.getInstance().set("DISTINCT_METHOD", "hash");
+    Operator forced = plan("SELECT DISTINCT Events.A, Events.B FROM Events");
+    Assertions.assertTrue(forced instanceof HashDistinctOperator);
+    assertSameDistinct(
+        HelperMethods.collectAllTuples(many), HelperMethods.collectAllTuples(forced));
+  }
+}
@@ -0,0 +1,147 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.EquiJoinCondition;
+import common.QueryPlanBuilder;
+import common.Tuple;
+import io.BinaryTupleWriter;
+import io.CompressedTupleWriter;
+import io.TextTupleWriter;
+import io.TupleWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.HashJoinOperator;
+import operator.Operator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HashJoinTest {
+  private static final int LARGE_ROWS = 3_000;
+  private static final int SMALL_ROWS = 400;
+  private static final int TEXT_ROWS = 30_000;
+
+  @TempDir Path tempDir;
+
+  private Map<String, String> settings; // Settings the tests override, restored after each
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    settings = HelperMethods.saveSettings("JOIN_METHOD");
+    HelperMethods.writeSchema(
+        tempDir, "Large A B C\nSmall D E\nTiny F G\nEmpty H I\nLines J K\n");
+    HelperMethods.writeTable(tempDir, "Large", LARGE_ROWS, i -> new int[] {i % 500, i % 7, i});
+    // Every key of Small appears twice, so probe tuples match several build tuples
+    TupleWriter small = new CompressedTupleWriter(tempDir.resolve("data/Small").toFile());
+    for (int i = 0; i < SMALL_ROWS; i++) {
+      small.writeTuple(new Tuple(new int[] {i / 2, i % 5}));
+    }
+    small.close();
+    TupleWriter tiny = new TextTupleWriter(tempDir.resolve("data/Tiny").toFile());
+    for (int i = 0; i < 10; i++) {
+      tiny.writeTuple(new Tuple(new int[] {i, i * 2}));
+    }
+    tiny.close();
+    // Lines of equal length, more than the sample its row count is estimated from
+    TupleWriter lines = new TextTupleWriter(tempDir.resolve("data/Lines").toFile());
+    for (int i = 0; i < TEXT_ROWS; i++) {
+      lines.writeTuple(new Tuple(new int[] {10_000 + i, i % 10}));
+    }
+    lines.close();
+    new BinaryTupleWriter(tempDir.resolve("data/Empty").toFile()).close();
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+  }
+
+  @AfterEach
+  void restoreJoinMethod() {
+    HelperMethods.restoreSettings(settings);
+  }
+
+  private static HashJoinOperator hashJoin(String left, String right, String condition, boolean b)
+      throws Exception {
+    Operator l = HelperMethods.scan(left);
+    Operator r = HelperMethods.scan(right);
+    return new HashJoinOperator(l, r, HelperMethods.condition(l, r, condition), b);
+  }
+
+  @Test
+  public void testRowCounts() {
+    Assertions.assertEquals(LARGE_ROWS, DBCatalog.getInstance().getRowCount("Large"));
+    Assertions.assertEquals(SMALL_ROWS, DBCatalog.getInstance().getRowCount("Small"));
+    Assertions.assertEquals(10, DBCatalog.getInstance().getRowCount("Tiny"));
+    Assertions.assertEquals(0, DBCatalog.getInstance().getRowCount("Empty"));
+    Assertions.assertEquals(TEXT_ROWS, DBCatalog.getInstance().getRowCount("Lines"));
+  }
+
+  @Test
+  public void testSplitCondition() throws Exception {
+    Operator large = HelperMethods.scan("Large");
+    Operator small = HelperMethods.scan("Small");
+    Expression condition =
+        CCJSqlParserUtil.parseCondExpression(
+            "Small.D = Large.A AND Large.C > Small.E AND Large.B = Small.E");
+    EquiJoinCondition split =
+        EquiJoinCondition.split(condition, large.getOutputSchema(), small.getOutputSchema());
+    Assertions.assertArrayEquals(new int[] {0, 1}, split.getLeftKeys());
+    Assertions.assertArrayEquals(new int[] {0, 1}, split.getRightKeys());
+    Assertions.assertEquals("Large.C > Small.E", split.getResidual().toString());
+
+    Expression theta = CCJSqlParserUtil.parseCondExpression("Large.A < Small.D");
+    Assertions.assertFalse(
+        EquiJoinCondition.split(theta, large.getOutputSchema(), small.getOutputSchema())
+            .hasKeys());
+  }
+
+  @Test
+  public void testBuildRightKeepsNestedLoopOrder() throws Exception {
+    String condition = "Large.A = Small.D";
+    List<Tuple> expected = HelperMethods.nestedLoopJoin("Large", "Small", condition);
+    Assertions.assertEquals(2 * (SMALL_ROWS / 2) * (LARGE_ROWS / 500), expected.size());
+    HashJoinOperator join = hashJoin("Large", "Small", condition, false);
+    Assertions.assertEquals(expected, HelperMethods.collectAllTuples(join));
+    join.reset();
+    Assertions.assertEquals(expected, HelperMethods.collectAllTuples(join));
+  }
+
+  @Test
+  public void testBuildLeftWithResidual() throws Exception {
+    String condition = "Small.D = Large.A AND Large.B = Small.E AND Large.C > 1000";
+    List<Tuple> expected = HelperMethods.nestedLoopJoin("Small", "Large", condition);
+    Assertions.assertFalse(expected.isEmpty());
+    List<Tuple> actual =
+        HelperMethods.collectAllTuples(hashJoin("Small", "Large", condition, true));
+    Assertions.assertEquals(HelperMethods.sorted(expected), HelperMethods.sorted(actual));
+  }
+
+  @Test
+  public void testEmptyBuildSide() throws Exception {
+    Assertions.assertTrue(
+        HelperMethods.collectAllTuples(hashJoin("Large", "Empty", "Large.A = Empty.H", false))
+            .isEmpty());
+    Assertions.assertTrue(
+        HelperMethods.collectAllTuples(hashJoin("Empty", "Large", "Large.A = Empty.H", true))
+            .isEmpty());
+  }
+
+  @Test
+  public void testQueryPlanBuilderUsesHashJoin() throws Exception {
+    String query =
+        "SELECT * FROM Tiny, Large, Small WHERE Tiny.F = Large.B AND Large.A = Small.D "
+            + "AND Small.E < Tiny.G;";
+    DBConfig.getInstance().set("JOIN_METHOD", "tnlj");
+    List<Tuple> expected =
+        HelperMethods.collectAllTuples(
+            new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query)));
+    DBConfig.getInstance().set("JOIN_METHOD", "auto");
+    List<Tuple> actual =
+        HelperMethods.collectAllTuples(
+            new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query)));
+    Assertions.assertFalse(expected.isEmpty());
+    Assertions.assertEquals(HelperMethods.sorted(expected), HelperMethods.sorted(actual));
+  }
+}
@@ -1,7 +1,23 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.EquiJoinCondition;
 import common.Tuple;
+import io.BinaryTupleWriter;
+import io.TupleWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.HashJoinOperator;
+import operator.JoinOperator;
 import operator.Operator;
+import operator.ScanOperator;
 
 public class HelperMethods {
   public static List<Tuple> collectAllTuples(Operator operator) {
@@ -13,4 +29,70 @@ public class HelperMethods {
 
     return tuples;
   }
+
+  /** Returns a scan of a table of the current database, with the table name as its alias. */
+  public static Operator scan(String table) {
+    return new ScanOperator(DBCatalog.getInstance().getSchema(table), table, true, null);
+  }
+
+  /** Returns a copy of the tuples in their natural order, to compare results in any order. */
+  public static List<Tuple> sorted(List<Tuple> tuples) {
+    List<Tuple> copy = new ArrayList<>(tuples);
+    Collections.sort(copy);
+    return copy;
+  }
+
+  /** Joins two tables with a tuple nested loop join, in its order, as a reference result. */
+  public static List<Tuple> nestedLoopJoin(String left, String right, String condition)
+      throws Exception {
+    return collectAllTuples(
+        new JoinOperator(scan(left), scan(right), CCJSqlParserUtil.parseCondExpression(condition)));
+  }
+
+  /** Parses a join condition and splits it into the key equalities and residual of a join. */
+  public static EquiJoinCondition condition(Operator left, Operator right, String condition)
+      throws Exception {
+    return EquiJoinCondition.split(
+        CCJSqlParserUtil.parseCondExpression(condition),
+        left.getOutputSchema(),
+        right.getOutputSchema());
+  }
+
+  /** Joins two tables with an in-memory hash join built on the left, as a reference result. */
+  public static List<Tuple> inMemoryHashJoin(String left, String right, String condition)
+      throws Exception {
+    Operator l = scan(left);
+    Operator r = scan(right);
+    return collectAllTuples(new HashJoinOperator(l, r, condition(l, r, condition), true));
+  }
+
+  /** Saves the current values of settings a test overrides, missing ones as null. */
+  public static Map<String, String> saveSettings(String... keys) {
+    Map<String, String> settings = new HashMap<>();
+    for (String key : keys) {
+      settings.put(key, DBConfig.getInstance().get(key));
+    }
+    return settings;
+  }
+
+  /** Restores settings to the values saved by saveSettings, removing those that were missing. */
+  public static void restoreSettings(Map<String, String> settings) {
+    settings.forEach(DBConfig.getInstance()::set);
+  }
+
+  /** Creates the data directory of a database and writes its schema file. */
+  public static void writeSchema(Path database, String schema) throws IOException {
+    Files.createDirectories(database.resolve("data"));
+    Files.writeString(database.resolve("schema.txt"), schema);
+  }
+
+  /** Writes a binary table of a database, with the given row at each position. */
+  public static void writeTable(Path database, String table, int rows, IntFunction<int[]> row)
+      throws IOException {
+    TupleWriter writer = new BinaryTupleWriter(database.resolve("data/" + table).toFile());
+    for (int i = 0; i < rows; i++) {
+      writer.writeTuple(new Tuple(row.apply(i)));
+    }
+    writer.close();
+  }
 }
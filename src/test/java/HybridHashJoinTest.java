@@ -0,0 +1,93 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.Tuple;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import operator.HybridHashJoinOperator;
+import operator.Operator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HybridHashJoinTest {
+  @TempDir Path tempDir;
+
+  private Map<String, String> settings; // Settings the tests override, restored after each
+
+  private File spillDirectory;
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    settings = HelperMethods.saveSettings("TEMP_DIR");
+    HelperMethods.writeSchema(tempDir, "Build A B\nProbe C D\nSkew E F\n");
+    // Every key of Build appears ten times, so partitions keep many duplicates at every level
+    HelperMethods.writeTable(tempDir, "Build", 20_000, i -> new int[] {(i * 7919) % 2_000, i});
+    HelperMethods.writeTable(tempDir, "Probe", 6_000, i -> new int[] {(i * 31) % 3_000, i % 9});
+    // A single key shared by every tuple, which no amount of partitioning can split
+    HelperMethods.writeTable(tempDir, "Skew", 1_500, i -> new int[] {42, i});
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+
+    spillDirectory = tempDir.resolve("spill").toFile();
+    DBConfig.getInstance().set("TEMP_DIR", spillDirectory.getPath());
+  }
+
+  @AfterEach
+  void restoreTempDirectory() {
+    HelperMethods.restoreSettings(settings);
+  }
+
+  private static HybridHashJoinOperator hybridJoin(
+      String left, String right, String condition, int memoryPages) throws Exception {
+    Operator l = HelperMethods.scan(left);
+    Operator r = HelperMethods.scan(right);
+    return new HybridHashJoinOperator(
+        l, r, HelperMethods.condition(l, r, condition), true, memoryPages);
+  }
+
+  private int spillFileCount() {
+    String[] names = spillDirectory.list();
+    return names == null ? 0 : names.length;
+  }
+
+  @Test
+  public void testFitsInMemoryWithoutSpilling() throws Exception {
+    String condition = "Build.A = Probe.C AND Build.B > Probe.D";
+    List<Tuple> expected = HelperMethods.inMemoryHashJoin("Build", "Probe", condition);
+    Assertions.assertEquals(
+        expected, HelperMethods.collectAllTuples(hybridJoin("Build", "Probe", condition, 1_000)));
+    Assertions.assertEquals(0, spillFileCount());
+  }
+
+  @Test
+  public void testSpilledPartitionsAreJoinedAndDeleted() throws Exception {
+    String condition = "Build.A = Probe.C AND Build.B > Probe.D";
+    List<Tuple> expected = HelperMethods.inMemoryHashJoin("Build", "Probe", condition);
+    Assertions.assertFalse(expected.isEmpty());
+
+    // One page holds a few hundred build tuples, so partitions are split a second time
+    HybridHashJoinOperator join = hybridJoin("Build", "Probe", condition, 1);
+    Assertions.assertNotNull(join.getNextTuple());
+    Assertions.assertTrue(spillFileCount() > 0);
+    join.reset();
+    Assertions.assertEquals(0, spillFileCount());
+
+    Assertions.assertEquals(
+        HelperMethods.sorted(expected), HelperMethods.sorted(HelperMethods.collectAllTuples(join)));
+    Assertions.assertEquals(0, spillFileCount());
+  }
+
+  @Test
+  public void testSkewedKeyFallsBackToNestedLoops() throws Exception {
+    String condition = "Skew.E = Build.A";
+    List<Tuple> expected = HelperMethods.inMemoryHashJoin("Skew", "Build", condition);
+    List<Tuple> actual = HelperMethods.collectAllTuples(hybridJoin("Skew", "Build", condition, 1));
+    Assertions.assertFalse(expected.isEmpty());
+    Assertions.assertEquals(HelperMethods.sorted(expected), HelperMethods.sorted(actual));
+    Assertions.assertEquals(0, spillFileCount());
+  }
+}
@@ -0,0 +1,123 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.InequalityJoinCondition;
+import common.QueryPlanBuilder;
+import common.Tuple;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.InequalityJoinOperator;
+import operator.Operator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class InequalityJoinTest {
+  @TempDir Path tempDir;
+
+  private Map<String, String> settings; // Settings the tests override, restored after each
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    settings = HelperMethods.saveSettings("JOIN_METHOD");
+    HelperMethods.writeSchema(tempDir, "Left A B\nRight C D E\n");
+    HelperMethods.writeTable(tempDir, "Left", 600, i -> new int[] {(i * 37) % 301 - 50, i % 3});
+    // More inner tuples than a batch holds, with runs of equal values
+    HelperMethods.writeTable(tempDir, "Right", 1_500, i -> new int[] {(i * 53) % 257, i % 4, i});
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+  }
+
+  @AfterEach
+  void restoreJoinMethod() {
+    HelperMethods.restoreSettings(settings);
+  }
+
+  private static InequalityJoinCondition split(String condition) throws Exception {
+    return InequalityJoinCondition.split(
+        CCJSqlParserUtil.parseCondExpression(condition),
+        DBCatalog.getInstance().getSchema("Left"),
+        DBCatalog.getInstance().getSchema("Right"));
+  }
+
+  @Test
+  public void testBoundsAreNormalizedToTheRightColumn() throws Exception {
+    InequalityJoinCondition band =
+        split("Right.C >= Left.A - 3 AND Left.A + 2 > Right.C AND Left.B < Right.D");
+    Assertions.assertTrue(band.hasBounds());
+    Assertions.assertEquals(0, band.getLeftColumn());
+    Assertions.assertEquals(0, band.getRightColumn());
+    // For Left.A = 10, Right.C ranges over [7, 11]
+    Assertions.assertEquals(7, band.getLowerBound(10));
+    Assertions.assertEquals(11, band.getUpperBound(10));
+    Assertions.assertEquals("Left.B < Right.D", band.getResidual().toString());
+
+    InequalityJoinCondition below = split("Left.B <= Right.E");
+    Assertions.assertEquals(5, below.getLowerBound(5));
+    Assertions.assertEquals(Long.MAX_VALUE, below.getUpperBound(5));
+    Assertions.assertNull(below.getResidual());
+    InequalityJoinCondition above = split("Right.E < Left.B");
+    Assertions.assertEquals(Long.MIN_VALUE, above.getLowerBound(5));
+    Assertions.assertEquals(4, above.getUpperBound(5));
+
+    Assertions.assertFalse(split("Left.A = Right.C AND Left.B <> Right.D").hasBounds());
+  }
+
+  @Test
+  public void testInequalityJoinMatchesNestedLoopJoin() throws Exception {
+    for (String condition :
+        new String[] {
+          "Left.A < Right.C",
+          "Right.C <= Left.A",
+          "Right.C >= Left.A - 3 AND Right.C <= Left.A + 3",
+          "Left.A + 2 > Right.C AND Left.A - 2 < Right.C AND Right.D <> Left.B",
+          "Left.A < Right.C AND Left.B >= Right.D AND Right.E < 900",
+          "Left.A > Right.C + 500"
+        }) {
+      List<Tuple> expected = HelperMethods.nestedLoopJoin("Left", "Right", condition);
+      InequalityJoinOperator join =
+          new InequalityJoinOperator(
+              HelperMethods.scan("Left"), HelperMethods.scan("Right"), split(condition));
+      List<Tuple> actual = HelperMethods.collectAllTuples(join);
+      Assertions.assertEquals(
+          HelperMethods.sorted(expected), HelperMethods.sorted(actual), condition);
+
+      join.reset();
+      Assertions.assertEquals(actual, HelperMethods.collectAllTuples(join), condition);
+    }
+  }
+
+  @Test
+  public void testOuterTuplesComeOutWithTheirRangeInOrder() throws Exception {
+    InequalityJoinOperator join =
+        new InequalityJoinOperator(
+            HelperMethods.scan("Left"), HelperMethods.scan("Right"), split("Right.C < Left.A"));
+    List<Tuple> actual = HelperMethods.collectAllTuples(join);
+    Assertions.assertFalse(actual.isEmpty());
+    for (int i = 1; i < actual.size(); i++) {
+      Tuple previous = actual.get(i - 1);
+      Tuple tuple = actual.get(i);
+      if (previous.getElementAtIndex(0) == tuple.getElementAtIndex(0)
+          && previous.getElementAtIndex(1) == tuple.getElementAtIndex(1)) {
+        Assertions.assertTrue(previous.getElementAtIndex(2) <= tuple.getElementAtIndex(2));
+      }
+    }
+  }
+
+  @Test
+  public void testQueryPlanBuilderUsesInequalityJoin() throws Exception {
+    String query = "SELECT * FROM Left, Right WHERE Left.A < Right.C AND Right.E < 100;";
+    DBConfig.getInstance().set("JOIN_METHOD", "tnlj");
+    List<Tuple> expected =
+        HelperMethods.collectAllTuples(
+            new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query)));
+    DBConfig.getInstance().set("JOIN_METHOD", "auto");
+    Operator plan = new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+    Assertions.assertFalse(expected.isEmpty());
+    Assertions.assertEquals(
+        HelperMethods.sorted(expected), HelperMethods.sorted(HelperMethods.collectAllTuples(plan)));
+  }
+}
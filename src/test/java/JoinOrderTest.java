@@ -0,0 +1,124 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.JoinOrderOptimizer;
+import common.QueryPlanBuilder;
+import common.Tuple;
+import common.WhereExpressionVisitor;
+import io.BinaryTupleWriter;
+import io.TextTupleWriter;
+import io.TupleWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.Operator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JoinOrderTest {
+  @TempDir Path tempDir;
+
+  private Map<String, String> settings; // Settings the tests override, restored after each
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    settings = HelperMethods.saveSettings("JOIN_ORDER");
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(
+        tempDir.resolve("schema.txt"), "Orders A B\nCustomers K N\nNations X Y\n");
+    TupleWriter orders = new BinaryTupleWriter(tempDir.resolve("data/Orders").toFile());
+    for (int i = 0; i < 5_000; i++) {
+      orders.writeTuple(new Tuple(new int[] {i, i % 100}));
+    }
+    orders.close();
+    TupleWriter customers = new BinaryTupleWriter(tempDir.resolve("data/Customers").toFile());
+    for (int i = 0; i < 100; i++) {
+      customers.writeTuple(new Tuple(new int[] {i, i % 4}));
+    }
+    customers.close();
+    TupleWriter nations = new TextTupleWriter(tempDir.resolve("data/Nations").toFile());
+    for (int i = 0; i < 4; i++) {
+      nations.writeTuple(new Tuple(new int[] {i, i * 10}));
+    }
+    nations.close();
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+  }
+
+  @AfterEach
+  void restoreJoinOrder() {
+    HelperMethods.restoreSettings(settings);
+  }
+
+  /** Orders the tables of a query the way the planner does. */
+  private static List<String> order(String where, String... tables) throws Exception {
+    List<String> tableNames = List.of(tables);
+    WhereExpressionVisitor visitor = new WhereExpressionVisitor(tableNames);
+    CCJSqlParserUtil.parseCondExpression(where).accept(visitor);
+    Map<String, Expression> selections = new HashMap<>();
+    if (visitor.getSelectExpression() != null) {
+      // The selections of these queries are all on Orders
+      selections.put("Orders", visitor.getSelectExpression());
+    }
+    return JoinOrderOptimizer.order(tableNames, selections, visitor.getJoinExpressions());
+  }
+
+  private static List<Tuple> run(String query) throws Exception {
+    Operator plan = new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+    List<Tuple> tuples = new ArrayList<>(HelperMethods.collectAllTuples(plan));
+    Collections.sort(tuples);
+    return tuples;
+  }
+
+  @Test
+  public void testAvoidsCrossProduct() throws Exception {
+    String where = "Orders.B = Customers.K AND Customers.N = Nations.X";
+    Assertions.assertEquals(
+        List.of("Nations", "Customers", "Orders"),
+        order(where, "Orders", "Nations", "Customers"));
+  }
+
+  @Test
+  public void testJoinsSmallResultsFirst() throws Exception {
+    String where = "Orders.B = Customers.K AND Customers.N = Nations.X";
+    Assertions.assertEquals(
+        List.of("Customers", "Nations", "Orders"),
+        order(where, "Orders", "Customers", "Nations"));
+    // Few orders pass the selection, so joining them first gives the smallest intermediate result
+    Assertions.assertEquals(
+        List.of("Orders", "Customers", "Nations"),
+        order(where + " AND Orders.A < 50", "Orders", "Customers", "Nations"));
+  }
+
+  @Test
+  public void testTwoTablesKeepFromOrder() throws Exception {
+    String where = "Orders.B = Customers.K";
+    Assertions.assertEquals(List.of("Orders", "Customers"), order(where, "Orders", "Customers"));
+    Assertions.assertEquals(List.of("Customers", "Orders"), order(where, "Customers", "Orders"));
+  }
+
+  @Test
+  public void testSelectAllKeepsFromColumnOrder() throws Exception {
+    String query =
+        "SELECT * FROM Orders, Nations, Customers "
+            + "WHERE Orders.B = Customers.K AND Customers.N = Nations.X;";
+    Operator plan = new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+    Assertions.assertEquals("Orders.A", plan.getOutputSchema().get(0).toString());
+    Assertions.assertEquals("Nations.X", plan.getOutputSchema().get(2).toString());
+    Assertions.assertEquals("Customers.K", plan.getOutputSchema().get(4).toString());
+
+    List<Tuple> optimized = run(query);
+    DBConfig.getInstance().set("JOIN_ORDER", "from");
+    List<Tuple> fromOrder = run(query);
+    Assertions.assertEquals(5_000, optimized.size());
+    Assertions.assertEquals(fromOrder, optimized);
+  }
+}
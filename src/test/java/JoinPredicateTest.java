@@ -0,0 +1,88 @@
+import common.Tuple;
+import common.TupleBatch;
+import expression.ExpressionVisitorImpl;
+import expression.JoinPredicate;
+import java.util.ArrayList;
+import java.util.List;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JoinPredicateTest {
+  private static final String[] CONDITIONS = {
+    "S.A = R.G",
+    "S.A < R.G AND R.H <> 3",
+    "S.B + R.G >= 2 * S.A",
+    "(S.A - R.H) / 2 <= R.G AND 1 < S.B",
+    "R.H > S.A AND S.B = 4",
+  };
+
+  private static ArrayList<Column> schema(String table, String... columns) {
+    ArrayList<Column> schema = new ArrayList<>();
+    for (String column : columns) {
+      schema.add(new Column(new Table(null, table), column));
+    }
+    return schema;
+  }
+
+  private static Tuple tuple(int... values) {
+    return new Tuple(values);
+  }
+
+  @Test
+  public void testMatchesEvaluationOfJoinedTuples() throws Exception {
+    ArrayList<Column> left = schema("S", "A", "B");
+    ArrayList<Column> right = schema("R", "G", "H");
+    ArrayList<Column> joined = new ArrayList<>(left);
+    joined.addAll(right);
+
+    List<Tuple> lefts = new ArrayList<>();
+    List<Tuple> rights = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      lefts.add(tuple(i, (i * 3) % 5));
+      rights.add(tuple((i * 2) % 7, i % 4));
+    }
+    TupleBatch rightBatch = new TupleBatch(2, TupleBatch.DEFAULT_CAPACITY);
+    for (Tuple r : rights) {
+      rightBatch.appendTuple(r);
+    }
+
+    for (String text : CONDITIONS) {
+      Expression condition = CCJSqlParserUtil.parseCondExpression(text);
+      JoinPredicate predicate = JoinPredicate.compile(condition, left, right);
+      for (Tuple l : lefts) {
+        List<Integer> expected = new ArrayList<>();
+        for (int r = 0; r < rights.size(); r++) {
+          boolean satisfied =
+              new ExpressionVisitorImpl(Tuple.concat(l, rights.get(r)), joined)
+                  .evaluate(condition);
+          Assertions.assertEquals(satisfied, predicate.test(l, rights.get(r)), text);
+          if (satisfied) {
+            expected.add(r);
+          }
+        }
+
+        int[][] leftColumns = {{l.getElementAtIndex(0)}, {l.getElementAtIndex(1)}};
+        int[] rows = {0, 1, 2, 3, 4, 5};
+        int count = predicate.filter(leftColumns, 0, rightBatch, rows, rows.length);
+        List<Integer> actual = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+          actual.add(rows[i]);
+        }
+        Assertions.assertEquals(expected, actual, text);
+      }
+    }
+  }
+
+  @Test
+  public void testUnqualifiedColumnsResolveToEitherSide() throws Exception {
+    Expression condition = CCJSqlParserUtil.parseCondExpression("A = H");
+    JoinPredicate predicate =
+        JoinPredicate.compile(condition, schema("S", "A", "B"), schema("R", "G", "H"));
+    Assertions.assertTrue(predicate.test(tuple(2, 0), tuple(9, 2)));
+    Assertions.assertFalse(predicate.test(tuple(2, 0), tuple(2, 9)));
+  }
+}
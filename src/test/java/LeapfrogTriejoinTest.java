@@ -0,0 +1,155 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.JoinGraph;
+import common.QueryPlanBuilder;
+import common.Tuple;
+import common.WhereExpressionVisitor;
+import io.BinaryTupleWriter;
+import io.TupleWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import operator.LeapfrogTriejoinOperator;
+import operator.Operator;
+import operator.ScanOperator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LeapfrogTriejoinTest {
+  @TempDir Path tempDir;
+
+  private Map<String, String> settings; // Settings the tests override, restored after each
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    settings = HelperMethods.saveSettings("JOIN_METHOD");
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Edges A B\nLabels N L\n");
+    // A pseudo-random graph with repeated edges and a few self-loops
+    TupleWriter edges = new BinaryTupleWriter(tempDir.resolve("data/Edges").toFile());
+    long seed = 42;
+    for (int i = 0; i < 3_000; i++) {
+      seed = seed * 6364136223846793005L + 1442695040888963407L;
+      int from = (int) ((seed >>> 33) % 150);
+      int to = (int) ((seed >>> 13) % 150);
+      edges.writeTuple(new Tuple(new int[] {from, to}));
+    }
+    edges.close();
+    TupleWriter labels = new BinaryTupleWriter(tempDir.resolve("data/Labels").toFile());
+    for (int i = 0; i < 150; i += 2) {
+      labels.writeTuple(new Tuple(new int[] {i, i % 5}));
+    }
+    labels.close();
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+  }
+
+  @AfterEach
+  void restoreJoinMethod() {
+    HelperMethods.restoreSettings(settings);
+  }
+
+  private static JoinGraph graph(String where, String... tables) throws Exception {
+    List<String> tableNames = List.of(tables);
+    WhereExpressionVisitor visitor = new WhereExpressionVisitor(tableNames);
+    CCJSqlParserUtil.parseCondExpression(where).accept(visitor);
+    List<ArrayList<Column>> schemas = new ArrayList<>();
+    for (String table : tables) {
+      schemas.add(DBCatalog.getInstance().getSchema(table));
+    }
+    return JoinGraph.build(schemas, visitor.getJoinExpressions());
+  }
+
+  private static List<Tuple> run(String query) throws Exception {
+    Operator plan = new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+    List<Tuple> tuples = new ArrayList<>(HelperMethods.collectAllTuples(plan));
+    Collections.sort(tuples);
+    return tuples;
+  }
+
+  /** Runs a query with the multi-way join, and with sort-merge joins only. */
+  private static void assertSameAsBinaryJoins(String query) throws Exception {
+    List<Tuple> actual = run(query);
+    DBConfig.getInstance().set("JOIN_METHOD", "smj");
+    List<Tuple> expected = run(query);
+    DBConfig.getInstance().set("JOIN_METHOD", "auto");
+    Assertions.assertFalse(expected.isEmpty(), query);
+    Assertions.assertEquals(expected, actual, query);
+  }
+
+  @Test
+  public void testCyclicJoinGraphs() throws Exception {
+    DBCatalog.getInstance().addAlias("E1", "Edges");
+    DBCatalog.getInstance().addAlias("E2", "Edges");
+    DBCatalog.getInstance().addAlias("E3", "Edges");
+    JoinGraph triangle = graph("E1.B = E2.A AND E2.B = E3.A AND E3.B = E1.A", "E1", "E2", "E3");
+    Assertions.assertTrue(triangle.isCyclic());
+    Assertions.assertEquals(3, triangle.getVariableCount());
+    Assertions.assertNull(triangle.getResidual());
+
+    Assertions.assertFalse(graph("E1.B = E2.A AND E2.B = E3.A", "E1", "E2", "E3").isCyclic());
+    // All three tables joined on one column is a single variable, not a cycle
+    JoinGraph shared = graph("E1.A = E2.A AND E2.A = E3.A AND E3.A = E1.A", "E1", "E2", "E3");
+    Assertions.assertFalse(shared.isCyclic());
+    Assertions.assertEquals(1, shared.getVariableCount());
+
+    JoinGraph withResidual =
+        graph("E1.B = E2.A AND E2.B = E3.A AND E3.B = E1.A AND E1.A < E2.A", "E1", "E2", "E3");
+    Assertions.assertTrue(withResidual.isCyclic());
+    Assertions.assertEquals("E1.A < E2.A", withResidual.getResidual().toString());
+  }
+
+  @Test
+  public void testTriangleQueries() throws Exception {
+    assertSameAsBinaryJoins(
+        "SELECT * FROM Edges E1, Edges E2, Edges E3 "
+            + "WHERE E1.B = E2.A AND E2.B = E3.A AND E3.B = E1.A;");
+    assertSameAsBinaryJoins(
+        "SELECT E1.A, E2.A, E3.A FROM Edges E1, Edges E2, Edges E3 "
+            + "WHERE E1.B = E2.A AND E2.B = E3.A AND E3.B = E1.A AND E1.A < E2.A "
+            + "AND E2.A < E3.A AND E1.A > 20;");
+    // A four-cycle with a chord and a labelled vertex
+    assertSameAsBinaryJoins(
+        "SELECT * FROM Edges E1, Edges E2, Edges E3, Edges E4, Labels "
+            + "WHERE E1.B = E2.A AND E2.B = E3.A AND E3.B = E4.A AND E4.B = E1.A "
+            + "AND E1.A = Labels.N AND Labels.L = 3 AND E1.B < 30;");
+  }
+
+  @Test
+  public void testResetAndRepeatedVariables() throws Exception {
+    DBCatalog.getInstance().addAlias("R", "Edges");
+    DBCatalog.getInstance().addAlias("S", "Edges");
+    DBCatalog.getInstance().addAlias("T", "Edges");
+    // R.A and R.B both equal S.A, so only the self-loops of R join
+    String where = "R.A = S.A AND R.B = S.A AND S.B = T.A AND T.B = R.A";
+    List<Operator> inputs = new ArrayList<>();
+    for (String table : new String[] {"R", "S", "T"}) {
+      inputs.add(new ScanOperator(DBCatalog.getInstance().getSchema(table), table, true, null));
+    }
+    LeapfrogTriejoinOperator join =
+        new LeapfrogTriejoinOperator(inputs, graph(where, "R", "S", "T"));
+    List<Tuple> actual = HelperMethods.collectAllTuples(join);
+    Assertions.assertFalse(actual.isEmpty());
+    for (Tuple tuple : actual) {
+      Assertions.assertEquals(tuple.getElementAtIndex(0), tuple.getElementAtIndex(1));
+      Assertions.assertEquals(tuple.getElementAtIndex(0), tuple.getElementAtIndex(2));
+      Assertions.assertEquals(tuple.getElementAtIndex(3), tuple.getElementAtIndex(4));
+      Assertions.assertEquals(tuple.getElementAtIndex(5), tuple.getElementAtIndex(0));
+    }
+    join.reset();
+    Assertions.assertEquals(actual, HelperMethods.collectAllTuples(join));
+
+    DBConfig.getInstance().set("JOIN_METHOD", "smj");
+    Assertions.assertEquals(
+        run("SELECT * FROM Edges R, Edges S, Edges T WHERE " + where + ";"),
+        actual.stream().sorted().toList());
+  }
+}
@@ -0,0 +1,90 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.QueryPlanBuilder;
+import common.TableFormat;
+import common.Tuple;
+import io.BinaryTupleWriter;
+import io.MappedTupleReader;
+import io.PageLayout;
+import io.TupleReader;
+import io.TupleWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.Operator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedScanTest {
+  @TempDir Path tempDir;
+
+  private static List<Tuple> readAll(TupleReader reader) throws IOException {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = reader.readNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  @Test
+  public void testTextTable() throws IOException {
+    File file = tempDir.resolve("Table").toFile();
+    Files.writeString(file.toPath(), "1,200,-50\r\n2,0,7\n\n-3,100,105");
+
+    TupleReader reader = new MappedTupleReader(file, TableFormat.TEXT);
+    List<Tuple> expected =
+        List.of(
+            new Tuple(new ArrayList<>(List.of(1, 200, -50))),
+            new Tuple(new ArrayList<>(List.of(2, 0, 7))),
+            new Tuple(new ArrayList<>(List.of(-3, 100, 105))));
+    Assertions.assertEquals(expected, readAll(reader), "Unexpected tuples on first pass.");
+    reader.reset();
+    Assertions.assertEquals(expected, readAll(reader), "Unexpected tuples after reset.");
+  }
+
+  @Test
+  public void testBinaryTable() throws IOException {
+    File file = tempDir.resolve("Table").toFile();
+    List<Tuple> expected = new ArrayList<>();
+    for (int i = 0; i < 2 * PageLayout.tuplesPerPage(2) + 1; i++) {
+      expected.add(new Tuple(new ArrayList<>(List.of(i, i * 3))));
+    }
+    TupleWriter writer = new BinaryTupleWriter(file);
+    for (Tuple tuple : expected) {
+      writer.writeTuple(tuple);
+    }
+    writer.close();
+
+    TupleReader reader = new MappedTupleReader(file, TableFormat.BINARY);
+    Assertions.assertEquals(expected, readAll(reader), "Unexpected tuples on first pass.");
+    reader.reset();
+    Assertions.assertEquals(expected, readAll(reader), "Unexpected tuples after reset.");
+  }
+
+  @Test
+  public void testJoinMatchesReaderMode() throws Exception {
+    DBCatalog.getInstance().setDataDirectory("src/test/resources/samples/input/db");
+    String query = "SELECT * FROM Sailors S1, Sailors S2 WHERE S1.A < S2.A;";
+
+    Map<String, String> settings = HelperMethods.saveSettings("SCAN_MODE");
+    DBConfig.getInstance().set("SCAN_MODE", "reader");
+    Operator readerPlan = new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+    List<Tuple> expected = HelperMethods.collectAllTuples(readerPlan);
+
+    DBConfig.getInstance().set("SCAN_MODE", "mmap");
+    try {
+      Operator mappedPlan = new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+      Assertions.assertEquals(15, expected.size(), "Unexpected number of rows.");
+      Assertions.assertEquals(expected, HelperMethods.collectAllTuples(mappedPlan));
+    } finally {
+      HelperMethods.restoreSettings(settings);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.Tuple;
+import io.BinaryTupleWriter;
+import io.TupleWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import operator.ScanOperator;
+import operator.SortOperator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class NormalizedKeySortTest {
+  private static final int ROWS = 100_000;
+
+  @TempDir Path tempDir;
+
+  private Map<String, String> settings; // Settings the tests override, restored after each
+  private final List<Tuple> written = new ArrayList<>();
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    settings = HelperMethods.saveSettings("SORT_BUFFER_PAGES", "SORT_METHOD");
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Wide A B C D\n");
+    // Few distinct values in A and B leave long runs of ties for C and D to break
+    Random random = new Random(7);
+    int[] extremes = {Integer.MIN_VALUE, -1, 0, Integer.MAX_VALUE};
+    TupleWriter wide = new BinaryTupleWriter(tempDir.resolve("data/Wide").toFile());
+    for (int i = 0; i < ROWS; i++) {
+      Tuple tuple =
+          new Tuple(
+              new int[] {
+                random.nextInt(5) - 2,
+                extremes[random.nextInt(extremes.length)],
+                random.nextInt(),
+                random.nextInt(3)
+              });
+      written.add(tuple);
+      wide.writeTuple(tuple);
+    }
+    wide.close();
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+    DBConfig.getInstance().set("SORT_BUFFER_PAGES", "0");
+  }
+
+  @AfterEach
+  void restoreSettings() {
+    HelperMethods.restoreSettings(settings);
+  }
+
+  private static SortOperator sort(int... columns) {
+    return new SortOperator(
+        new ScanOperator(DBCatalog.getInstance().getSchema("Wide"), "Wide", true, null), columns);
+  }
+
+  /** Sorts tuples on some columns and then on all of them, the way SortOperator defines it. */
+  private List<Tuple> expected(int... columns) {
+    List<Tuple> sorted = new ArrayList<>(written);
+    Collections.sort(sorted);
+    sorted.sort(
+        (t1, t2) -> {
+          for (int column : columns) {
+            int comparison =
+                Integer.compare(t1.getElementAtIndex(column), t2.getElementAtIndex(column));
+            if (comparison != 0) {
+              return comparison;
+            }
+          }
+          return 0;
+        });
+    return sorted;
+  }
+
+  @Test
+  public void testSortsOnKeysThenAllColumns() {
+    Assertions.assertEquals(expected(0, 1), HelperMethods.collectAllTuples(sort(0, 1)));
+    Assertions.assertEquals(expected(3, 0), HelperMethods.collectAllTuples(sort(3, 0)));
+    Assertions.assertEquals(expected(), HelperMethods.collectAllTuples(sort()));
+  }
+
+  @Test
+  public void testRadixAndComparisonSortsAgree() {
+    for (String method : List.of("radix", "comparison")) {
+      DBConfig.getInstance().set("SORT_METHOD", method);
+      Assertions.assertEquals(expected(1, 2), HelperMethods.collectAllTuples(sort(1, 2)), method);
+      Assertions.assertEquals(expected(2), HelperMethods.collectAllTuples(sort(2)), method);
+      Assertions.assertEquals(expected(), HelperMethods.collectAllTuples(sort()), method);
+    }
+  }
+
+  @Test
+  public void testTupleModeAndResetMatchBatchMode() {
+    SortOperator sort = sort(1);
+    List<Tuple> batches = HelperMethods.collectAllTuples(sort);
+    sort.reset(ROWS / 2);
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = sort.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    Assertions.assertEquals(batches.subList(ROWS / 2, ROWS), tuples);
+    Assertions.assertTrue(
+        batches.stream()
+            .map(t -> t.getElementAtIndex(1))
+            .sorted(Comparator.naturalOrder())
+            .toList()
+            .equals(batches.stream().map(t -> t.getElementAtIndex(1)).toList()));
+  }
+}
@@ -0,0 +1,101 @@
+import common.DBCatalog;
+import common.Tuple;
+import io.BinaryTupleWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import operator.Operator;
+import operator.ParallelHashJoinOperator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ParallelHashJoinTest {
+  @TempDir Path tempDir;
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    HelperMethods.writeSchema(tempDir, "Build A B\nProbe C D\nEmpty E F\n");
+    // A quarter of Build shares one key, which leaves one radix partition much larger than the rest
+    HelperMethods.writeTable(
+        tempDir, "Build", 40_000, i -> new int[] {i % 4 == 0 ? 7 : (i * 7919) % 25_000, i});
+    HelperMethods.writeTable(tempDir, "Probe", 30_000, i -> new int[] {i % 20_000, i % 9});
+    new BinaryTupleWriter(tempDir.resolve("data/Empty").toFile()).close();
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+  }
+
+  private static ParallelHashJoinOperator parallelJoin(
+      String left, String right, String condition, boolean buildLeft, int threads)
+      throws Exception {
+    Operator l = HelperMethods.scan(left);
+    Operator r = HelperMethods.scan(right);
+    return new ParallelHashJoinOperator(
+        l, r, HelperMethods.condition(l, r, condition), buildLeft, threads);
+  }
+
+  @Test
+  public void testMatchesSequentialHashJoin() throws Exception {
+    String condition = "Build.A = Probe.C";
+    List<Tuple> expected =
+        HelperMethods.sorted(HelperMethods.inMemoryHashJoin("Build", "Probe", condition));
+    Assertions.assertFalse(expected.isEmpty());
+    for (int threads : new int[] {1, 2, 4}) {
+      ParallelHashJoinOperator join = parallelJoin("Build", "Probe", condition, false, threads);
+      Assertions.assertEquals(expected, HelperMethods.sorted(HelperMethods.collectAllTuples(join)));
+      Assertions.assertTrue(join.getPartitionCount() > 1);
+    }
+  }
+
+  @Test
+  public void testResidualConditionAndBuildSide() throws Exception {
+    String condition = "Build.A = Probe.C AND Build.B > Probe.D";
+    List<Tuple> expected =
+        HelperMethods.sorted(HelperMethods.inMemoryHashJoin("Build", "Probe", condition));
+    Assertions.assertEquals(
+        expected,
+        HelperMethods.sorted(
+            HelperMethods.collectAllTuples(parallelJoin("Build", "Probe", condition, true, 3))));
+    Assertions.assertEquals(
+        expected,
+        HelperMethods.sorted(
+            HelperMethods.collectAllTuples(parallelJoin("Build", "Probe", condition, false, 3))));
+  }
+
+  @Test
+  public void testResetRestartsJoin() throws Exception {
+    String condition = "Probe.C = Build.A";
+    List<Tuple> expected =
+        HelperMethods.sorted(HelperMethods.inMemoryHashJoin("Probe", "Build", condition));
+    ParallelHashJoinOperator join = parallelJoin("Probe", "Build", condition, true, 4);
+    Assertions.assertNotNull(join.getNextTuple());
+    join.reset();
+    Assertions.assertEquals(expected, HelperMethods.sorted(HelperMethods.collectAllTuples(join)));
+    join.reset();
+    Assertions.assertEquals(expected, HelperMethods.sorted(HelperMethods.collectAllTuples(join)));
+  }
+
+  @Test
+  public void testCloseStopsWorkers() throws Exception {
+    ParallelHashJoinOperator join = parallelJoin("Build", "Probe", "Build.A = Probe.C", true, 4);
+    Assertions.assertNotNull(join.getNextTuple());
+    Assertions.assertTrue(join.hasWorkers());
+    join.close();
+    Assertions.assertFalse(join.hasWorkers());
+    Assertions.assertNull(join.getNextTuple());
+
+    join.reset();
+    Assertions.assertEquals(
+        HelperMethods.sorted(HelperMethods.inMemoryHashJoin("Build", "Probe", "Build.A = Probe.C")),
+        HelperMethods.sorted(HelperMethods.collectAllTuples(join)));
+    Assertions.assertFalse(join.hasWorkers());
+  }
+
+  @Test
+  public void testEmptyInput() throws Exception {
+    Operator emptyBuild = parallelJoin("Empty", "Build", "Empty.E = Build.A", true, 2);
+    Assertions.assertNull(emptyBuild.getNextTuple());
+    Operator emptyProbe = parallelJoin("Build", "Empty", "Build.A = Empty.E", true, 2);
+    Assertions.assertNull(emptyProbe.getNextTuple());
+  }
+}
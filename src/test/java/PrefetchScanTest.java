@@ -0,0 +1,101 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.QueryPlanBuilder;
+import common.Tuple;
+import io.BufferPool;
+import io.Page;
+import io.PageLayout;
+import io.PrefetchingPageSource;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.Operator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PrefetchScanTest {
+  @TempDir Path tempDir;
+
+  private File file;
+
+  @BeforeEach
+  void writeFile() throws IOException {
+    file = writePages("pages", 5);
+  }
+
+  /** Writes a file of full pages, the i-th one starting with the int i. */
+  private File writePages(String name, int numPages) throws IOException {
+    ByteBuffer bytes = ByteBuffer.allocate(numPages * PageLayout.PAGE_SIZE);
+    for (int i = 0; i < numPages; i++) {
+      bytes.putInt(i * PageLayout.PAGE_SIZE, i);
+    }
+    File pages = tempDir.resolve(name).toFile();
+    Files.write(pages.toPath(), bytes.array());
+    return pages;
+  }
+
+  /** Reads the given number of pages from the source, checking they come in order. */
+  private static void readPages(PrefetchingPageSource source, BufferPool pool, int count)
+      throws IOException {
+    for (int i = 0; i < count; i++) {
+      Page page = source.nextPage();
+      Assertions.assertEquals(i, page.getInt(0), "Pages should arrive in file order.");
+      pool.unpin(page);
+    }
+  }
+
+  @Test
+  public void testPagesArriveInOrderAcrossResets() throws IOException {
+    BufferPool pool = new BufferPool(4);
+    PrefetchingPageSource source = new PrefetchingPageSource(file, pool, 2);
+    readPages(source, pool, 5);
+    Assertions.assertNull(source.nextPage(), "Expected the end of the file.");
+    Assertions.assertNull(source.nextPage(), "The end of the file should be sticky.");
+
+    source.reset();
+    readPages(source, pool, 2);
+    source.reset();
+    readPages(source, pool, 5);
+    Assertions.assertNull(source.nextPage(), "Expected the end of the file after reset.");
+    source.close();
+  }
+
+  @Test
+  public void testCloseReleasesPrefetchedPages() throws IOException {
+    BufferPool pool = new BufferPool(4);
+    PrefetchingPageSource source = new PrefetchingPageSource(file, pool, 3);
+    readPages(source, pool, 1);
+    source.close();
+
+    // Every frame must be free again, otherwise pinning four other pages at once would fail
+    File other = writePages("other", 4);
+    for (int i = 0; i < 4; i++) {
+      Assertions.assertNotNull(pool.pin(other, i));
+    }
+  }
+
+  @Test
+  public void testJoinMatchesSynchronousScans() throws Exception {
+    DBCatalog.getInstance().setDataDirectory("src/test/resources/samples/input/db");
+    String query = "SELECT * FROM Sailors, Reserves WHERE Sailors.A = Reserves.G;";
+
+    Operator plan = new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+    List<Tuple> expected = HelperMethods.collectAllTuples(plan);
+
+    Map<String, String> settings = HelperMethods.saveSettings("SCAN_PREFETCH_DEPTH");
+    DBConfig.getInstance().set("SCAN_PREFETCH_DEPTH", "4");
+    try {
+      Operator prefetchPlan = new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+      Assertions.assertEquals(expected, HelperMethods.collectAllTuples(prefetchPlan));
+    } finally {
+      HelperMethods.restoreSettings(settings);
+    }
+  }
+}
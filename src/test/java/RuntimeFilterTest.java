@@ -0,0 +1,136 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.Tuple;
+import io.TextTupleWriter;
+import io.TupleWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.HashJoinOperator;
+import operator.HybridHashJoinOperator;
+import operator.Operator;
+import operator.ParallelHashJoinOperator;
+import operator.RuntimeFilter;
+import operator.SelectOperator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RuntimeFilterTest {
+  private static final int FACT_ROWS = 20_000;
+
+  @TempDir Path tempDir;
+
+  private Map<String, String> settings; // Settings the tests override, restored after each
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    settings = HelperMethods.saveSettings("RUNTIME_FILTERS", "TEMP_DIR");
+    HelperMethods.writeSchema(tempDir, "Fact A B C\nDim D E\nOther F G\n");
+    HelperMethods.writeTable(tempDir, "Fact", FACT_ROWS, i -> new int[] {i % 1_000, i % 50, i});
+    // Only every tenth key of Fact.A has a match, scattered over the whole range
+    TupleWriter dim = new TextTupleWriter(tempDir.resolve("data/Dim").toFile());
+    for (int i = 0; i < 100; i++) {
+      dim.writeTuple(new Tuple(new int[] {i * 10, i}));
+    }
+    dim.close();
+    HelperMethods.writeTable(tempDir, "Other", 10, i -> new int[] {i, i * 3});
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+    DBConfig.getInstance().set("TEMP_DIR", tempDir.resolve("spill").toString());
+  }
+
+  @AfterEach
+  void restoreSettings() {
+    HelperMethods.restoreSettings(settings);
+  }
+
+  private static HashJoinOperator factDimJoin() throws Exception {
+    Operator fact = HelperMethods.scan("Fact");
+    Operator dim = HelperMethods.scan("Dim");
+    return new HashJoinOperator(
+        fact, dim, HelperMethods.condition(fact, dim, "Fact.A = Dim.D"), false);
+  }
+
+  @Test
+  public void testProbeScanDropsTuplesWithoutMatch() throws Exception {
+    DBConfig.getInstance().set("RUNTIME_FILTERS", "false");
+    HashJoinOperator unfiltered = factDimJoin();
+    List<Tuple> expected = HelperMethods.collectAllTuples(unfiltered);
+    Assertions.assertNull(unfiltered.getRuntimeFilter());
+
+    DBConfig.getInstance().set("RUNTIME_FILTERS", "true");
+    HashJoinOperator join = factDimJoin();
+    Assertions.assertEquals(expected, HelperMethods.collectAllTuples(join));
+    Assertions.assertEquals(FACT_ROWS / 10, expected.size());
+
+    RuntimeFilter filter = join.getRuntimeFilter();
+    Assertions.assertEquals(FACT_ROWS, filter.getCheckedCount());
+    // Every rejected tuple lacks a match; a few without one may get through the Bloom filter
+    Assertions.assertTrue(filter.getRejectedCount() <= FACT_ROWS - expected.size());
+    Assertions.assertTrue(filter.getRejectedCount() > FACT_ROWS * 8 / 10);
+  }
+
+  @Test
+  public void testFilterIsPushedThroughSelectionsAndJoins() throws Exception {
+    Operator fact = HelperMethods.scan("Fact");
+    Operator selected =
+        new SelectOperator(fact, CCJSqlParserUtil.parseCondExpression("Fact.B < 25"));
+    Operator other = HelperMethods.scan("Other");
+    Operator inner =
+        new HashJoinOperator(
+            selected, other, HelperMethods.condition(selected, other, "Fact.B = Other.F"), false);
+    Operator dim = HelperMethods.scan("Dim");
+    HashJoinOperator outer =
+        new HashJoinOperator(
+            inner, dim, HelperMethods.condition(inner, dim, "Fact.A = Dim.D"), false);
+    List<Tuple> actual = HelperMethods.collectAllTuples(outer);
+
+    // Both filters end up on the scan of Fact, which only lets its matching tuples through
+    Assertions.assertEquals(FACT_ROWS, outer.getRuntimeFilter().getCheckedCount());
+    Assertions.assertTrue(outer.getRuntimeFilter().getRejectedCount() > FACT_ROWS * 8 / 10);
+    Assertions.assertTrue(((HashJoinOperator) inner).getRuntimeFilter().getCheckedCount() > 0);
+
+    DBConfig.getInstance().set("RUNTIME_FILTERS", "false");
+    fact = HelperMethods.scan("Fact");
+    selected = new SelectOperator(fact, CCJSqlParserUtil.parseCondExpression("Fact.B < 25"));
+    other = HelperMethods.scan("Other");
+    inner =
+        new HashJoinOperator(
+            selected, other, HelperMethods.condition(selected, other, "Fact.B = Other.F"), false);
+    dim = HelperMethods.scan("Dim");
+    outer =
+        new HashJoinOperator(
+            inner, dim, HelperMethods.condition(inner, dim, "Fact.A = Dim.D"), false);
+    Assertions.assertEquals(
+        HelperMethods.sorted(HelperMethods.collectAllTuples(outer)), HelperMethods.sorted(actual));
+  }
+
+  @Test
+  public void testHybridAndParallelJoinsFilterTheirProbeSide() throws Exception {
+    List<Tuple> expected = HelperMethods.sorted(HelperMethods.collectAllTuples(factDimJoin()));
+
+    Operator fact = HelperMethods.scan("Fact");
+    Operator dim = HelperMethods.scan("Dim");
+    // A single page of memory makes the hybrid join spill, and reset rebuilds the filter
+    HybridHashJoinOperator hybrid =
+        new HybridHashJoinOperator(
+            fact, dim, HelperMethods.condition(fact, dim, "Fact.A = Dim.D"), false, 1);
+    Assertions.assertNotNull(hybrid.getNextTuple());
+    hybrid.reset();
+    Assertions.assertEquals(expected, HelperMethods.sorted(HelperMethods.collectAllTuples(hybrid)));
+    Assertions.assertTrue(hybrid.getRuntimeFilter().getRejectedCount() > FACT_ROWS * 8 / 10);
+
+    fact = HelperMethods.scan("Fact");
+    dim = HelperMethods.scan("Dim");
+    ParallelHashJoinOperator parallel =
+        new ParallelHashJoinOperator(
+            fact, dim, HelperMethods.condition(fact, dim, "Fact.A = Dim.D"), false, 2);
+    Assertions.assertEquals(
+        expected, HelperMethods.sorted(HelperMethods.collectAllTuples(parallel)));
+    Assertions.assertEquals(FACT_ROWS, parallel.getRuntimeFilter().getCheckedCount());
+  }
+}
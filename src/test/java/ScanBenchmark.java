@@ -0,0 +1,78 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.Tuple;
+import io.BinaryTupleWriter;
+import io.TextTupleWriter;
+import io.TupleWriter;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.JoinOperator;
+import operator.ScanOperator;
+
+/**
+ * Compares the reader-based and memory-mapped scan paths when a large table is the inner side of a
+ * nested loop join, i.e. when it is rescanned once per outer tuple.
+ *
+ * <p>Usage: ScanBenchmark [innerRows] [outerRows]
+ */
+public class ScanBenchmark {
+  public static void main(String[] args) throws Exception {
+    int innerRows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+    int outerRows = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+    Path dir = Files.createTempDirectory("scan-benchmark");
+    Files.createDirectories(dir.resolve("data"));
+    Files.writeString(dir.resolve("schema.txt"), "Outer X\nInnerText A B C\nInnerBinary A B C\n");
+    writeTable(new TextTupleWriter(dir.resolve("data/Outer").toFile()), outerRows, 1);
+    writeTable(new TextTupleWriter(dir.resolve("data/InnerText").toFile()), innerRows, 3);
+    writeTable(new BinaryTupleWriter(dir.resolve("data/InnerBinary").toFile()), innerRows, 3);
+    DBCatalog.getInstance().setDataDirectory(dir.toString());
+
+    System.out.println(
+        "Inner rows: " + innerRows + ", outer rows (inner rescans): " + outerRows + "\n");
+    for (String inner : List.of("InnerText", "InnerBinary")) {
+      for (String mode : List.of("reader", "mmap")) {
+        DBConfig.getInstance().set("SCAN_MODE", mode);
+        runJoin(inner); // Warm up
+        long start = System.nanoTime();
+        int matches = runJoin(inner);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%-12s %-7s %8d ms (%d matches)%n", inner, mode, elapsed, matches);
+      }
+    }
+
+    for (File file : dir.resolve("data").toFile().listFiles()) {
+      file.delete();
+    }
+  }
+
+  private static void writeTable(TupleWriter writer, int rows, int width) throws Exception {
+    for (int i = 0; i < rows; i++) {
+      int[] values = new int[width];
+      for (int j = 0; j < width; j++) {
+        values[j] = i * (j + 1);
+      }
+      writer.writeTuple(new Tuple(values));
+    }
+    writer.close();
+  }
+
+  private static int runJoin(String inner) throws Exception {
+    ScanOperator outerScan =
+        new ScanOperator(DBCatalog.getInstance().getSchema("Outer"), "Outer", true, null);
+    ScanOperator innerScan =
+        new ScanOperator(DBCatalog.getInstance().getSchema(inner), inner, true, null);
+    Expression condition = CCJSqlParserUtil.parseCondExpression("Outer.X = " + inner + ".A");
+    JoinOperator join = new JoinOperator(outerScan, innerScan, condition);
+
+    int matches = 0;
+    while (join.getNextTuple() != null) {
+      matches++;
+    }
+    return matches;
+  }
+}
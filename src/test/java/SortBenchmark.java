@@ -0,0 +1,78 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.Tuple;
+import io.BinaryTupleWriter;
+import io.TupleWriter;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import operator.ScanOperator;
+import operator.SortOperator;
+
+/**
+ * Compares the radix sort and the normalized key sort of SortOperator, on tables of random keys of
+ * the given sizes held entirely in memory. Each table has a key with many distinct values, one with
+ * few, and a payload; the sort is on the first or the second key, so the tie-break columns differ.
+ *
+ * <p>Usage: SortBenchmark [rows...], by default 1000000 10000000 100000000
+ */
+public class SortBenchmark {
+  public static void main(String[] args) throws Exception {
+    int[] sizes =
+        args.length > 0
+            ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+            : new int[] {1_000_000, 10_000_000, 100_000_000};
+
+    Path dir = Files.createTempDirectory("sort-benchmark");
+    Files.createDirectories(dir.resolve("data"));
+    Files.writeString(dir.resolve("schema.txt"), "Keys A B C\n");
+    DBConfig.getInstance().set("SORT_BUFFER_PAGES", "0");
+
+    for (int rows : sizes) {
+      writeTable(new BinaryTupleWriter(dir.resolve("data/Keys").toFile()), rows);
+      DBCatalog.getInstance().setDataDirectory(dir.toString());
+      System.out.println("Rows: " + rows);
+      for (int column : new int[] {0, 1}) {
+        for (String method : List.of("comparison", "radix")) {
+          DBConfig.getInstance().set("SORT_METHOD", method);
+          runSort(column); // Warm up
+          long start = System.nanoTime();
+          int checksum = runSort(column);
+          long elapsed = (System.nanoTime() - start) / 1_000_000;
+          System.out.printf(
+              "  ORDER BY %c %-10s %8d ms (checksum %d)%n",
+              'A' + column, method, elapsed, checksum);
+        }
+      }
+    }
+
+    for (File file : dir.resolve("data").toFile().listFiles()) {
+      file.delete();
+    }
+  }
+
+  private static void writeTable(TupleWriter writer, int rows) throws Exception {
+    Random random = new Random(rows);
+    for (int i = 0; i < rows; i++) {
+      writer.writeTuple(new Tuple(new int[] {random.nextInt(), random.nextInt(100), i}));
+    }
+    writer.close();
+  }
+
+  /** Sorts the table on a column, and sums the payload weighted by position as a checksum. */
+  private static int runSort(int column) {
+    ScanOperator scan =
+        new ScanOperator(DBCatalog.getInstance().getSchema("Keys"), "Keys", true, null);
+    SortOperator sort = new SortOperator(scan, new int[] {column});
+    int checksum = 0;
+    int position = 0;
+    Tuple tuple;
+    while ((tuple = sort.getNextTuple()) != null) {
+      checksum = 31 * checksum + tuple.getElementAtIndex(2) * position++;
+    }
+    return checksum;
+  }
+}
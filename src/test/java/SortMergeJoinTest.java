@@ -0,0 +1,117 @@
+import common.DBCatalog;
+import common.DBConfig;
+import common.QueryPlanBuilder;
+import common.Tuple;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.Operator;
+import operator.SortMergeJoinOperator;
+import operator.SortOperator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SortMergeJoinTest {
+  @TempDir Path tempDir;
+
+  private Map<String, String> settings; // Settings the tests override, restored after each
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    settings = HelperMethods.saveSettings("JOIN_METHOD", "DISTINCT_METHOD");
+    HelperMethods.writeSchema(tempDir, "Left A B\nRight C D E\n");
+    // Unsorted keys with long runs, and identical tuples on the left
+    HelperMethods.writeTable(tempDir, "Left", 2_000, i -> new int[] {(i * 37) % 101, i % 3});
+    HelperMethods.writeTable(tempDir, "Right", 1_200, i -> new int[] {(i * 53) % 131, i % 4, i});
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+  }
+
+  @AfterEach
+  void restoreJoinMethod() {
+    HelperMethods.restoreSettings(settings);
+  }
+
+  private static SortMergeJoinOperator mergeJoin(String condition) throws Exception {
+    Operator left = HelperMethods.scan("Left");
+    Operator right = HelperMethods.scan("Right");
+    return new SortMergeJoinOperator(
+        left, right, HelperMethods.condition(left, right, condition));
+  }
+
+  private static List<Tuple> sortedOn(List<Tuple> tuples, int... columns) {
+    List<Tuple> sorted = new ArrayList<>(tuples);
+    Collections.sort(sorted);
+    sorted.sort(
+        (t1, t2) -> {
+          for (int column : columns) {
+            int comparison =
+                Integer.compare(t1.getElementAtIndex(column), t2.getElementAtIndex(column));
+            if (comparison != 0) {
+              return comparison;
+            }
+          }
+          return 0;
+        });
+    return sorted;
+  }
+
+  @Test
+  public void testMergeJoinIsSortedOnLeftKeys() throws Exception {
+    String condition = "Left.A = Right.C";
+    List<Tuple> expected = HelperMethods.nestedLoopJoin("Left", "Right", condition);
+    Assertions.assertFalse(expected.isEmpty());
+    SortMergeJoinOperator join = mergeJoin(condition);
+    Assertions.assertEquals(sortedOn(expected, 0), HelperMethods.collectAllTuples(join));
+    Assertions.assertTrue(join.isSortedOn(new int[] {0}));
+    Assertions.assertTrue(join.isSortedOn(new int[] {0, 1, 2}));
+    Assertions.assertFalse(join.isSortedOn(new int[] {2}));
+
+    join.reset();
+    Assertions.assertEquals(sortedOn(expected, 0), HelperMethods.collectAllTuples(join));
+  }
+
+  @Test
+  public void testMultipleKeysWithResidual() throws Exception {
+    String condition = "Right.D = Left.B AND Left.A = Right.C AND Right.E > Left.A";
+    List<Tuple> expected = HelperMethods.nestedLoopJoin("Left", "Right", condition);
+    Assertions.assertFalse(expected.isEmpty());
+    Assertions.assertEquals(
+        sortedOn(expected, 1, 0), HelperMethods.collectAllTuples(mergeJoin(condition)));
+  }
+
+  @Test
+  public void testSortOperatorResetToIndex() {
+    SortOperator sort = new SortOperator(HelperMethods.scan("Right"), new int[] {1});
+    List<Tuple> all = HelperMethods.collectAllTuples(sort);
+    Assertions.assertEquals(sortedOn(all, 1), all);
+    sort.reset(700);
+    Assertions.assertEquals(all.subList(700, all.size()), HelperMethods.collectAllTuples(sort));
+    Assertions.assertThrows(IndexOutOfBoundsException.class, () -> sort.reset(all.size() + 1));
+  }
+
+  @Test
+  public void testQueryPlanBuilderUsesMergeJoin() throws Exception {
+    String query = "SELECT DISTINCT Left.A, Left.B FROM Left, Right WHERE Left.A = Right.C;";
+    // A sort-based DISTINCT returns the tuples in the same order whatever the join
+    DBConfig.getInstance().set("DISTINCT_METHOD", "sort");
+    DBConfig.getInstance().set("JOIN_METHOD", "tnlj");
+    List<Tuple> expected =
+        HelperMethods.collectAllTuples(
+            new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query)));
+    DBConfig.getInstance().set("JOIN_METHOD", "smj");
+    List<Tuple> actual =
+        HelperMethods.collectAllTuples(
+            new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query)));
+    Assertions.assertFalse(expected.isEmpty());
+    Assertions.assertEquals(expected, actual);
+    Assertions.assertEquals(new HashSet<>(actual).size(), actual.size());
+  }
+}
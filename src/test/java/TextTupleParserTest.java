@@ -0,0 +1,116 @@
+import common.Tuple;
+import io.TextTupleParser;
+import io.TextTupleReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TextTupleParserTest {
+  @TempDir Path tempDir;
+
+  private static final String TABLE = "1,200,-50\r\n22,0,7\n\n-3,100,105\n4,5";
+
+  private static final List<Tuple> EXPECTED =
+      List.of(
+          new Tuple(new int[] {1, 200, -50}),
+          new Tuple(new int[] {22, 0, 7}),
+          new Tuple(new int[] {-3, 100, 105}),
+          new Tuple(new int[] {4, 5}));
+
+  @Test
+  public void testLinesSpanningChunkBoundaries() {
+    byte[] bytes = TABLE.getBytes(StandardCharsets.US_ASCII);
+    for (int split = 0; split <= bytes.length; split++) {
+      TextTupleParser parser = new TextTupleParser();
+      List<Tuple> tuples = new ArrayList<>();
+      List<ByteBuffer> chunks =
+          List.of(
+              ByteBuffer.wrap(bytes, 0, split),
+              ByteBuffer.wrap(bytes, split, bytes.length - split));
+      for (ByteBuffer chunk : chunks) {
+        Tuple tuple;
+        while ((tuple = parser.parse(chunk)) != null) {
+          tuples.add(tuple);
+        }
+      }
+      Tuple last = parser.finish();
+      if (last != null) {
+        tuples.add(last);
+      }
+      Assertions.assertEquals(EXPECTED, tuples, "Unexpected tuples when splitting at " + split);
+    }
+  }
+
+  @Test
+  public void testRejectsMalformedInput() {
+    TextTupleParser parser = new TextTupleParser();
+    Assertions.assertThrows(
+        NumberFormatException.class, () -> parser.parse(ByteBuffer.wrap("1,x\n".getBytes())));
+    List<String> malformed =
+        List.of(
+            "1,,3\n",
+            ",1\n",
+            ",\n",
+            "1,,-3\n",
+            "1-2\n",
+            "--1\n",
+            "-\n",
+            "2147483648\n",
+            "-2147483649\n",
+            "99999999999999999999\n");
+    for (String line : malformed) {
+      Assertions.assertThrows(
+          NumberFormatException.class,
+          () -> new TextTupleParser().parse(ByteBuffer.wrap(line.getBytes())));
+    }
+  }
+
+  @Test
+  public void testTrailingCommasAreDropped() {
+    TextTupleParser parser = new TextTupleParser();
+    ByteBuffer chunk = ByteBuffer.wrap("1,2,\n3,-4,,\n5,".getBytes());
+    Assertions.assertEquals(new Tuple(new int[] {1, 2}), parser.parse(chunk));
+    Assertions.assertEquals(new Tuple(new int[] {3, -4}), parser.parse(chunk));
+    Assertions.assertNull(parser.parse(chunk));
+    Assertions.assertEquals(new Tuple(new int[] {5}), parser.finish());
+  }
+
+  @Test
+  public void testIntRangeLimits() {
+    TextTupleParser parser = new TextTupleParser();
+    Assertions.assertEquals(
+        new Tuple(new int[] {Integer.MAX_VALUE, Integer.MIN_VALUE, 0}),
+        parser.parse(ByteBuffer.wrap("2147483647,-2147483648,-0\n".getBytes())));
+  }
+
+  @Test
+  public void testReaderAcrossChunks() throws IOException {
+    StringBuilder table = new StringBuilder();
+    List<Tuple> expected = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      table.append(i).append(',').append(-i).append('\n');
+      expected.add(new Tuple(new int[] {i, -i}));
+    }
+    Path file = tempDir.resolve("Table");
+    Files.writeString(file, table);
+
+    TextTupleReader reader = new TextTupleReader(file.toFile());
+    for (int pass = 0; pass < 2; pass++) {
+      List<Tuple> tuples = new ArrayList<>();
+      Tuple tuple;
+      while ((tuple = reader.readNextTuple()) != null) {
+        tuples.add(tuple);
+      }
+      Assertions.assertEquals(expected, tuples, "Unexpected tuples on pass " + pass);
+      reader.reset();
+    }
+    reader.close();
+  }
+}
@@ -0,0 +1,135 @@
+import common.DBCatalog;
+import common.QueryPlanBuilder;
+import common.Tuple;
+import io.BinaryTupleWriter;
+import io.BufferPool;
+import io.TupleWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.LimitOperator;
+import operator.Operator;
+import operator.ScanOperator;
+import operator.SortOperator;
+import operator.TopKOperator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TopKTest {
+  private static final int ROWS = 20_000;
+
+  @TempDir Path tempDir;
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Scores A B C\n");
+    // Few distinct values in B and C leave many ties to break on the other columns
+    Random random = new Random(11);
+    TupleWriter scores = new BinaryTupleWriter(tempDir.resolve("data/Scores").toFile());
+    for (int i = 0; i < ROWS; i++) {
+      scores.writeTuple(
+          new Tuple(new int[] {random.nextInt(), random.nextInt(50) - 25, random.nextInt(4)}));
+    }
+    scores.close();
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+  }
+
+  private static Operator scan() {
+    return new ScanOperator(DBCatalog.getInstance().getSchema("Scores"), "Scores", true, null);
+  }
+
+  private static List<Tuple> run(String query) throws Exception {
+    return HelperMethods.collectAllTuples(
+        new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query)));
+  }
+
+  @Test
+  public void testTopKMatchesPrefixOfSort() {
+    for (int[] columns : new int[][] {{1}, {2, 1}, {}}) {
+      List<Tuple> sorted = HelperMethods.collectAllTuples(new SortOperator(scan(), columns));
+      for (int k : new int[] {0, 1, 7, 100, 5_000, ROWS, ROWS + 10}) {
+        List<Tuple> top = HelperMethods.collectAllTuples(new TopKOperator(scan(), columns, k));
+        Assertions.assertEquals(sorted.subList(0, Math.min(k, ROWS)), top, "k = " + k);
+      }
+    }
+  }
+
+  @Test
+  public void testSortedInputIsNotHeaped() {
+    Operator sort = new SortOperator(scan(), new int[] {1});
+    List<Tuple> sorted = HelperMethods.collectAllTuples(sort);
+    sort.reset();
+    TopKOperator top = new TopKOperator(sort, new int[] {1}, 300);
+    Assertions.assertEquals(sorted.subList(0, 300), HelperMethods.collectAllTuples(top));
+    top.reset();
+    Assertions.assertEquals(top.getNextTuple(), sorted.get(0));
+  }
+
+  @Test
+  public void testLimitAndOffsetQueries() throws Exception {
+    List<Tuple> sorted = run("SELECT * FROM Scores ORDER BY Scores.C, Scores.B");
+    Assertions.assertEquals(
+        sorted.subList(0, 25), run("SELECT * FROM Scores ORDER BY Scores.C, Scores.B LIMIT 25"));
+    Assertions.assertEquals(
+        sorted.subList(40, 65),
+        run("SELECT * FROM Scores ORDER BY Scores.C, Scores.B LIMIT 25 OFFSET 40"));
+    Assertions.assertEquals(
+        sorted.subList(ROWS - 5, ROWS),
+        run("SELECT * FROM Scores ORDER BY Scores.C, Scores.B OFFSET " + (ROWS - 5)));
+    Assertions.assertEquals(
+        List.of(), run("SELECT * FROM Scores ORDER BY Scores.C LIMIT 10 OFFSET " + ROWS));
+
+    List<Tuple> distinct = run("SELECT DISTINCT Scores.C FROM Scores ORDER BY Scores.C");
+    Assertions.assertEquals(4, distinct.size());
+    Assertions.assertEquals(
+        distinct.subList(1, 3),
+        run("SELECT DISTINCT Scores.C FROM Scores ORDER BY Scores.C LIMIT 2 OFFSET 1"));
+
+    List<Tuple> unsorted = run("SELECT * FROM Scores");
+    Assertions.assertEquals(unsorted.subList(0, 3), run("SELECT * FROM Scores LIMIT 3"));
+  }
+
+  @Test
+  public void testLimitPlanKeepsSortOrderAndMatchesTupleMode() throws Exception {
+    Operator plan =
+        new QueryPlanBuilder()
+            .buildPlan(CCJSqlParserUtil.parse("SELECT * FROM Scores ORDER BY Scores.B LIMIT 10"));
+    Assertions.assertTrue(plan instanceof LimitOperator);
+    Assertions.assertArrayEquals(new int[] {1}, plan.getSortOrder());
+    Assertions.assertEquals(10, HelperMethods.collectAllTuples(plan).size());
+
+    LimitOperator limit = new LimitOperator(new TopKOperator(scan(), new int[] {1}, 15), 5, 10);
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = limit.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    limit.reset();
+    Assertions.assertEquals(tuples, HelperMethods.collectAllTuples(limit));
+  }
+
+  @Test
+  public void testLimitUnpinsPagesOfScansItStops() throws Exception {
+    int pinned = BufferPool.getInstance().getPinnedCount();
+    for (int i = 0; i < 10; i++) {
+      Assertions.assertEquals(3, run("SELECT * FROM Scores LIMIT 3").size());
+      Assertions.assertEquals(pinned, BufferPool.getInstance().getPinnedCount());
+    }
+
+    Operator plan =
+        new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse("SELECT * FROM Scores"));
+    Assertions.assertNotNull(plan.getNextTuple());
+    Assertions.assertEquals(pinned + 1, BufferPool.getInstance().getPinnedCount());
+    plan.close();
+    Assertions.assertEquals(pinned, BufferPool.getInstance().getPinnedCount());
+    plan.reset();
+    Assertions.assertEquals(ROWS, HelperMethods.collectAllTuples(plan).size());
+  }
+}
@@ -0,0 +1,52 @@
+import common.Tuple;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TupleTest {
+  @Test
+  public void testConstructorsAgree() {
+    Tuple fromString = new Tuple("1,-2,3");
+    Tuple fromList = new Tuple(new ArrayList<>(List.of(1, -2, 3)));
+    Tuple fromArray = new Tuple(new int[] {1, -2, 3});
+
+    Assertions.assertEquals(fromString, fromList);
+    Assertions.assertEquals(fromList, fromArray);
+    Assertions.assertEquals(fromString.hashCode(), fromArray.hashCode());
+    Assertions.assertEquals("1,-2,3", fromArray.toString());
+    Assertions.assertEquals(3, fromArray.size());
+  }
+
+  @Test
+  public void testEqualsAndHashing() {
+    Set<Tuple> set = new HashSet<>();
+    set.add(new Tuple(new int[] {1, 2}));
+    set.add(new Tuple(new int[] {1, 2}));
+    set.add(new Tuple(new int[] {2, 1}));
+
+    Assertions.assertEquals(2, set.size(), "Equal tuples should hash together.");
+    Assertions.assertNotEquals(new Tuple(new int[] {1, 2}), new Tuple(new int[] {1, 2, 0}));
+    Assertions.assertFalse(new Tuple(new int[] {1}).equals(null));
+  }
+
+  @Test
+  public void testCompareTo() {
+    Assertions.assertTrue(new Tuple(new int[] {1, 5}).compareTo(new Tuple(new int[] {2, 0})) < 0);
+    Assertions.assertTrue(new Tuple(new int[] {-1}).compareTo(new Tuple(new int[] {-2})) > 0);
+    Assertions.assertTrue(new Tuple(new int[] {1}).compareTo(new Tuple(new int[] {1, 0})) < 0);
+    Assertions.assertEquals(0, new Tuple(new int[] {4, 4}).compareTo(new Tuple(new int[] {4, 4})));
+  }
+
+  @Test
+  public void testConcatAndProject() {
+    Tuple left = new Tuple(new int[] {1, 2});
+    Tuple right = new Tuple(new int[] {3});
+
+    Assertions.assertEquals(new Tuple(new int[] {1, 2, 3}), Tuple.concat(left, right));
+    Assertions.assertEquals(
+        new Tuple(new int[] {3, 1}), Tuple.concat(left, right).project(new int[] {2, 0}));
+  }
+}
@@ -0,0 +1,142 @@
+import common.DBCatalog;
+import common.QueryPlanBuilder;
+import common.Tuple;
+import io.BinaryTupleWriter;
+import io.BufferPool;
+import io.ColumnarTupleWriter;
+import io.CompressedTupleWriter;
+import io.PageLayout;
+import io.TextTupleWriter;
+import io.TupleWriter;
+import io.ZoneMap;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import operator.Operator;
+import operator.ScanOperator;
+import operator.SelectOperator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ZoneMapTest {
+  private static final int ROWS = 20_000;
+
+  @TempDir Path tempDir;
+
+  private final List<Tuple> rows = new ArrayList<>();
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    // A is clustered, B cycles through a small domain on every page
+    for (int i = 0; i < ROWS; i++) {
+      rows.add(new Tuple(new int[] {i, i % 7, -i}));
+    }
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(
+        tempDir.resolve("schema.txt"),
+        "Binary A B C\nCompressed A B C\nColumnar A B C\nText A B C\n");
+    writeAll(new BinaryTupleWriter(tempDir.resolve("data/Binary").toFile()));
+    writeAll(new CompressedTupleWriter(tempDir.resolve("data/Compressed").toFile()));
+    writeAll(
+        new ColumnarTupleWriter(tempDir.resolve("data/Columnar").toFile(), List.of("A", "B", "C")));
+    writeAll(new TextTupleWriter(tempDir.resolve("data/Text").toFile()));
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+  }
+
+  private void writeAll(TupleWriter writer) throws IOException {
+    for (Tuple row : rows) {
+      writer.writeTuple(row);
+    }
+    writer.close();
+  }
+
+  private List<Tuple> run(String query) throws Exception {
+    Operator plan = new QueryPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+    return HelperMethods.collectAllTuples(plan);
+  }
+
+  @Test
+  public void testZoneMapContents() {
+    File table = tempDir.resolve("data/Binary").toFile();
+    ZoneMap map = ZoneMap.load(table);
+    int perPage = PageLayout.tuplesPerPage(3);
+    Assertions.assertEquals((ROWS + perPage - 1) / perPage, map.getPageCount());
+    Assertions.assertEquals(perPage, map.getMin(1, 0));
+    Assertions.assertEquals(2 * perPage - 1, map.getMax(1, 0));
+    Assertions.assertEquals(0, map.getMin(1, 1));
+    Assertions.assertEquals(6, map.getMax(1, 1));
+    Assertions.assertEquals(-(2 * perPage - 1), map.getMin(1, 2));
+  }
+
+  @Test
+  public void testRangeSelectionsSkipPages() throws Exception {
+    List<Tuple> expected = new ArrayList<>();
+    for (Tuple row : rows) {
+      int a = row.getElementAtIndex(0);
+      if (a >= 15_000 && a <= 15_010 && row.getElementAtIndex(1) == 3) {
+        expected.add(row);
+      }
+    }
+
+    for (String table : List.of("Binary", "Compressed", "Columnar", "Text")) {
+      BufferPool.getInstance().resetStatistics();
+      List<Tuple> actual =
+          run("SELECT * FROM " + table + " WHERE " + table + ".A <= 15010 AND 15000 <= "
+              + table + ".A AND " + table + ".B = 3;");
+      Assertions.assertEquals(expected, actual, "Unexpected result for table " + table);
+
+      long pinned = BufferPool.getInstance().getHits() + BufferPool.getInstance().getMisses();
+      if (table.equals("Text")) {
+        Assertions.assertTrue(pinned > 10, "Text tables have no zone maps to skip pages with.");
+      } else {
+        // At most two pages cover the range, in each of the three column files if columnar
+        Assertions.assertTrue(pinned <= 6, table + " pinned " + pinned + " pages.");
+      }
+    }
+  }
+
+  @Test
+  public void testOnlyColumnConstantComparisonsSkipPages() throws Exception {
+    Assertions.assertEquals(
+        rows.subList(0, 7), run("SELECT * FROM Binary WHERE Binary.A <= Binary.B;"));
+    Assertions.assertEquals(
+        List.of(), run("SELECT * FROM Compressed WHERE Compressed.A < 10 AND Compressed.A > 20;"));
+  }
+
+  @Test
+  public void testConstantsOutsideIntRangeDoNotSkipPages() throws Exception {
+    // The selection compares A with the constants cast to an int, whatever the table format
+    for (String condition :
+        List.of("%s.A > 3000000000", "%s.A < 3000000000", "4294967296 >= %s.A")) {
+      List<Tuple> text = run("SELECT * FROM Text WHERE " + condition.formatted("Text") + ";");
+      for (String table : List.of("Binary", "Compressed", "Columnar")) {
+        Expression selection = CCJSqlParserUtil.parseCondExpression(condition.formatted(table));
+        ScanOperator skipping = (ScanOperator) HelperMethods.scan(table);
+        skipping.skipPagesNotMatching(selection);
+        List<Tuple> expected =
+            HelperMethods.collectAllTuples(
+                new SelectOperator(HelperMethods.scan(table), selection));
+        Assertions.assertEquals(
+            expected, HelperMethods.collectAllTuples(new SelectOperator(skipping, selection)));
+        Assertions.assertEquals(text, expected, condition.formatted(table));
+      }
+    }
+  }
+
+  @Test
+  public void testStaleZoneMapIsIgnored() throws Exception {
+    File table = tempDir.resolve("data/Binary").toFile();
+    Assertions.assertNotNull(ZoneMap.load(table));
+    TupleWriter writer = new TextTupleWriter(table);
+    writer.writeTuple(new Tuple(new int[] {1, 2, 3}));
+    writer.close();
+    Assertions.assertNull(ZoneMap.load(table), "Rewriting a table must drop its zone map.");
+  }
+}